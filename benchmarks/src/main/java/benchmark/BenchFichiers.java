@@ -0,0 +1,89 @@
+package benchmark;
+
+import modele.AccesRaster;
+import modele.DecodeurPng;
+import modele.EncodeurPng;
+import modele.FormatBrut;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compare les façons de sauvegarder une image : ImageIO, EncodeurPng
+ * (compression parallèle, niveaux 1 et 6) et le format brut ;
+ * puis de la relire : ImageIO (+ conversion en ARGB) et DecodeurPng.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchFichiers extends EtatImages
+{
+
+	/** Fichier temporaire réécrit à chaque appel */
+	private File fichier;
+
+	/** PNG écrit une fois par EncodeurPng, pour les lectures */
+	private File fichierLu;
+
+	@Setup(Level.Trial)
+	public void creerFichiers() throws IOException
+	{
+		this.fichier   = File.createTempFile("bench", ".png");
+		this.fichierLu = File.createTempFile("bench", ".png");
+
+		EncodeurPng.ecrire(ImagesSynthetiques.creer(this.motif, this.megapixels), this.fichierLu);
+	}
+
+	@TearDown(Level.Trial)
+	public void supprimerFichiers()
+	{
+		this.fichier.delete();
+		this.fichierLu.delete();
+	}
+
+	@Benchmark
+	public boolean ecrireImageIO(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		return ImageIO.write(this.image, "PNG", this.fichier);
+	}
+
+	@Benchmark
+	public void ecrireEncodeurPng(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		EncodeurPng.ecrire(this.image, this.fichier);
+	}
+
+	@Benchmark
+	public void ecrireEncodeurPngRapide(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		EncodeurPng.ecrire(this.image, this.fichier, 1);
+	}
+
+	@Benchmark
+	public void ecrireBrut(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		FormatBrut.ecrire(this.image, this.fichier);
+	}
+
+	@Benchmark
+	public BufferedImage lireImageIO(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		return AccesRaster.normaliser(ImageIO.read(this.fichierLu));
+	}
+
+	@Benchmark
+	public BufferedImage lireDecodeurPng(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		return DecodeurPng.lire(this.fichierLu);
+	}
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import modele.traitement.TraitementFusion;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Mesure des opérations publiques de TraitementFusion.
+ *
+ * La source est décalée d'un quart de l'image : une partie dépasse et doit
+ * être découpée, comme dans l'application.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchFusion extends EtatImages
+{
+
+	@Benchmark
+	public BufferedImage superposer(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementFusion.superposer(
+			this.image, this.imageSecondaire,
+			this.image.getWidth() / 4, this.image.getHeight() / 4
+		);
+	}
+
+	@Benchmark
+	public BufferedImage superposerAvecAlpha(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementFusion.superposerAvecAlpha(
+			this.image, this.imageSecondaire,
+			this.image.getWidth() / 4, this.image.getHeight() / 4
+		);
+	}
+
+	@Benchmark
+	public BufferedImage cleTransparence(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementFusion.superposerAvecCleTransparence(
+			this.imageSecondaire, this.image, 0, 0,
+			TraitementFusion.VERT_CHROMA, 50
+		);
+	}
+
+	/** Deux images sont lues : on compte deux fois la taille de l'image */
+	@Benchmark
+	public BufferedImage juxtaposer(CompteurPixels compteur)
+	{
+		compteur.compter(2 * this.megapixelsImage);
+		return TraitementFusion.juxtaposerHorizontalement(this.image, this.imageSecondaire, 100);
+	}
+}
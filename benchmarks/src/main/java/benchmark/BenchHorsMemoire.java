@@ -0,0 +1,90 @@
+package benchmark;
+
+import modele.EncodeurPng;
+import modele.ImageTuilee;
+import modele.traitement.PipelineTraitement;
+import modele.traitement.TraitementHorsMemoire;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Mesure le traitement hors mémoire (ImageTuilee, TraitementHorsMemoire) :
+ * opérations ponctuelles et superposition tuile par tuile, lecture et
+ * écriture d'un PNG ligne par ligne. Les traitements modifient l'image
+ * tuilée sur place, d'un appel à l'autre.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchHorsMemoire extends EtatImages
+{
+
+	/** L'image de test, sur disque */
+	private ImageTuilee        tuilee;
+
+	/** Luminosité puis contraste, en un seul passage */
+	private PipelineTraitement pipeline;
+
+	/** Fichier temporaire réécrit à chaque appel */
+	private File               fichier;
+
+	/** PNG écrit une fois, pour les lectures */
+	private File               fichierLu;
+
+	@Setup(Level.Trial)
+	public void creerImageTuilee() throws IOException
+	{
+		BufferedImage image = ImagesSynthetiques.creer(this.motif, this.megapixels);
+
+		this.tuilee    = ImageTuilee.depuisImage(image);
+		this.pipeline  = new PipelineTraitement().luminosite(20).contraste(1.5);
+		this.fichier   = File.createTempFile("bench", ".png");
+		this.fichierLu = File.createTempFile("bench", ".png");
+
+		EncodeurPng.ecrire(image, this.fichierLu);
+	}
+
+	@TearDown(Level.Trial)
+	public void supprimerImageTuilee()
+	{
+		this.tuilee.close();
+		this.fichier.delete();
+		this.fichierLu.delete();
+	}
+
+	@Benchmark
+	public void appliquerPipeline(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		TraitementHorsMemoire.appliquer(this.tuilee, this.pipeline);
+	}
+
+	@Benchmark
+	public void superposerAvecAlpha(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		TraitementHorsMemoire.superposerAvecAlpha(this.tuilee, this.imageSecondaire, 0, 0);
+	}
+
+	@Benchmark
+	public void exporterPng(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+		this.tuilee.exporterPng(this.fichier, 1);
+	}
+
+	@Benchmark
+	public int importerPng(CompteurPixels compteur) throws IOException
+	{
+		compteur.compter(this.megapixelsImage);
+
+		try (ImageTuilee lue = ImageTuilee.importerPng(this.fichierLu))
+		{
+			return lue.getLargeur();
+		}
+	}
+}
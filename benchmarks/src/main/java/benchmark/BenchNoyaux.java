@@ -0,0 +1,60 @@
+package benchmark;
+
+import modele.traitement.NoyauxPixels;
+import modele.traitement.TraitementFusion;
+import modele.traitement.TraitementTransformation;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Compare les noyaux scalaires et vectoriels (voir NoyauxPixels) sur les
+ * opérations qui les utilisent.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchNoyaux extends EtatImages
+{
+
+	@Param({ "false", "true" })
+	public boolean vectoriel;
+
+	@Setup(Level.Trial)
+	public void choisirNoyaux()
+	{
+		NoyauxPixels.utiliserVectoriel(this.vectoriel);
+
+		if (this.vectoriel && !NoyauxPixels.estVectoriel())
+			throw new IllegalStateException("Module jdk.incubator.vector indisponible");
+	}
+
+	@Benchmark
+	public BufferedImage niveauxDeGris(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.versNiveauxDeGris(this.image);
+	}
+
+	@Benchmark
+	public BufferedImage negatif(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.inverserCouleurs(this.image);
+	}
+
+	@Benchmark
+	public BufferedImage luminosite(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.ajusterLuminosite(this.image, 40);
+	}
+
+	@Benchmark
+	public BufferedImage superposerAvecAlpha(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementFusion.superposerAvecAlpha(this.image, this.imageSecondaire, 0, 0);
+	}
+}
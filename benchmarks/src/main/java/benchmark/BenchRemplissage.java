@@ -0,0 +1,69 @@
+package benchmark;
+
+import modele.traitement.TraitementRemplissage;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Mesure des opérations publiques de TraitementRemplissage.
+ *
+ * Le remplissage part du coin haut gauche :
+ * - degrade : zone proche du bleu (tolérance moyenne)
+ * - carres  : la première bande
+ * - chroma  : le fond vert, autour du disque
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchRemplissage extends EtatImages
+{
+
+	/** Couleur absente des trois motifs */
+	private static final int NOIR = 0xFF000000;
+
+	/** Image modifiée directement par remplirRecursif() */
+	private BufferedImage imageModifiable;
+
+	@Setup(Level.Trial)
+	public void preparerImageModifiable()
+	{
+		this.imageModifiable = ImagesSynthetiques.creer(this.motif, this.megapixels);
+	}
+
+	@Benchmark
+	public BufferedImage remplir(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementRemplissage.remplir(this.image, 0, 0, NOIR, TraitementRemplissage.TOLERANCE_MOYENNE);
+	}
+
+	@Benchmark
+	public BufferedImage remplir8Directions(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementRemplissage.remplir8Directions(this.image, 0, 0, NOIR, TraitementRemplissage.TOLERANCE_MOYENNE);
+	}
+
+	/**
+	 * Remplissage sur place, en tolérance exacte : on alterne entre le noir et
+	 * la couleur d'origine, la zone remplie est donc la même à chaque appel.
+	 */
+	@Benchmark
+	public BufferedImage remplirSurPlace(CompteurPixels compteur)
+	{
+		int couleurActuelle, couleurOrigine;
+
+		couleurActuelle = this.imageModifiable.getRGB(0, 0);
+		couleurOrigine  = this.image.getRGB(0, 0);
+
+		compteur.compter(this.megapixelsImage);
+		TraitementRemplissage.remplirRecursif(
+			this.imageModifiable, 0, 0,
+			(couleurActuelle == NOIR) ? couleurOrigine : NOIR, couleurActuelle,
+			TraitementRemplissage.TOLERANCE_EXACTE
+		);
+
+		return this.imageModifiable;
+	}
+}
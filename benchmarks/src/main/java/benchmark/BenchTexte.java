@@ -0,0 +1,61 @@
+package benchmark;
+
+import modele.traitement.TraitementTexte;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Mesure des opérations publiques de TraitementTexte.
+ *
+ * La taille de la police suit la hauteur de l'image (un dixième).
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchTexte extends EtatImages
+{
+
+	private static final String TEXTE = "Benchmark JMH";
+
+	@Benchmark
+	public BufferedImage texte(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTexte.dessinerTexte(
+			this.image, TEXTE, this.image.getWidth() / 10, this.image.getHeight() / 2,
+			TraitementTexte.BLANC, this.image.getHeight() / 10
+		);
+	}
+
+	@Benchmark
+	public BufferedImage texteAvecFond(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTexte.dessinerTexteAvecFond(
+			this.image, TEXTE, this.image.getWidth() / 10, this.image.getHeight() / 2,
+			TraitementTexte.BLANC, TraitementTexte.FOND_SEMI_TRANSPARENT,
+			this.image.getHeight() / 10, 10
+		);
+	}
+
+	@Benchmark
+	public BufferedImage texteAvecCouleurImage(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTexte.dessinerTexteAvecCouleurImage(
+			this.image, this.imageSecondaire,
+			TEXTE, this.image.getWidth() / 10, this.image.getHeight() / 2,
+			this.image.getHeight() / 10
+		);
+	}
+
+	@Benchmark
+	public BufferedImage texteComplet(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTexte.dessinerTexteComplet(
+			this.image, this.imageSecondaire,
+			TEXTE, this.image.getWidth() / 10, this.image.getHeight() / 2,
+			TraitementTexte.FOND_SEMI_TRANSPARENT, this.image.getHeight() / 10, 10
+		);
+	}
+}
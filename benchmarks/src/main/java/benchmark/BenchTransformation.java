@@ -0,0 +1,122 @@
+package benchmark;
+
+import modele.traitement.TableCorrespondance;
+import modele.traitement.TraitementTransformation;
+import java.awt.image.BufferedImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Mesure des opérations publiques de TraitementTransformation.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class BenchTransformation extends EtatImages
+{
+
+	/** Luminosité puis contraste, fusionnés en une seule table */
+	private TableCorrespondance table;
+
+	/** Copie de l'image pour les opérations sur place (qui s'annulent deux à deux) */
+	private BufferedImage imageModifiable;
+
+	@Setup(Level.Trial)
+	public void preparerTable()
+	{
+		this.table           = TableCorrespondance.luminosite(20).puis(TableCorrespondance.contraste(1.5));
+		this.imageModifiable = ImagesSynthetiques.creer(this.motif, this.megapixels);
+	}
+
+	@Benchmark
+	public BufferedImage rotation(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.appliquerRotation(this.image, 90);
+	}
+
+	@Benchmark
+	public BufferedImage rotation180(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.appliquerRotation(this.image, 180);
+	}
+
+	@Benchmark
+	public BufferedImage rotation180SurPlace(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.pivoter180SurPlace(this.imageModifiable);
+	}
+
+	@Benchmark
+	public BufferedImage miroirHorizontalSurPlace(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.miroirHorizontalSurPlace(this.imageModifiable);
+	}
+
+	@Benchmark
+	public BufferedImage miroirVerticalSurPlace(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.miroirVerticalSurPlace(this.imageModifiable);
+	}
+
+	@Benchmark
+	public BufferedImage luminosite(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.ajusterLuminosite(this.image, 40);
+	}
+
+	@Benchmark
+	public BufferedImage contraste(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.ajusterContraste(this.image, 1.5);
+	}
+
+	@Benchmark
+	public BufferedImage teinte(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.decalerTeinte(this.image, 120);
+	}
+
+	@Benchmark
+	public BufferedImage teinteApproximative(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.decalerTeinteApproximative(this.image, 120);
+	}
+
+	/** Ancienne version en float (séquentielle), pour comparaison */
+	@Benchmark
+	public BufferedImage teinteReference(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TeinteReference.decalerTeinte(this.image, 120);
+	}
+
+	@Benchmark
+	public BufferedImage niveauxDeGris(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.versNiveauxDeGris(this.image);
+	}
+
+	@Benchmark
+	public BufferedImage negatif(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.inverserCouleurs(this.image);
+	}
+
+	@Benchmark
+	public BufferedImage tableCorrespondance(CompteurPixels compteur)
+	{
+		compteur.compter(this.megapixelsImage);
+		return TraitementTransformation.appliquerTable(this.image, this.table);
+	}
+}
@@ -0,0 +1,36 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compte les mégapixels traités : JMH affiche alors le débit "megapixels"
+ * en Mpx/s, à côté du nombre d'opérations par seconde.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CompteurPixels
+{
+
+	/** Mégapixels traités pendant l'itération (lu par JMH) */
+	public double megapixels;
+
+	@Setup(Level.Iteration)
+	public void reinitialiser()
+	{
+		this.megapixels = 0;
+	}
+
+	/**
+	 * @param megapixelsTraites Taille de l'image traitée
+	 */
+	public void compter(double megapixelsTraites)
+	{
+		this.megapixels += megapixelsTraites;
+	}
+}
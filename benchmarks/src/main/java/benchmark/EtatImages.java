@@ -0,0 +1,71 @@
+package benchmark;
+
+import modele.traitement.ExecuteurTuiles;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ============================================================================
+ * PARAMÈTRES COMMUNS À TOUS LES BENCHMARKS
+ * ============================================================================
+ *
+ * Chaque classe de benchmark hérite de cet état :
+ * - megapixels    : taille de l'image (1, 12 ou 48 Mpx)
+ * - motif         : type d'image (voir ImagesSynthetiques)
+ * - nombreThreads : parallélisme des traitements (voir ExecuteurTuiles)
+ *
+ * Exemple pour ne mesurer qu'une combinaison :
+ * java -jar target/benchmarks.jar -p megapixels=12 -p nombreThreads=1,8
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g", "--add-modules", "jdk.incubator.vector" })
+public abstract class EtatImages
+{
+
+	@Param({ "1", "12", "48" })
+	public double megapixels;
+
+	@Param({ "degrade", "carres", "chroma" })
+	public String motif;
+
+	@Param({ "1", "4" })
+	public int nombreThreads;
+
+	/** L'image de test */
+	protected BufferedImage image;
+
+	/** Une deuxième image de même taille (source des fusions) */
+	protected BufferedImage imageSecondaire;
+
+	/** Taille de l'image, en mégapixels exacts */
+	protected double megapixelsImage;
+
+	@Setup(Level.Trial)
+	public void preparerImages()
+	{
+		ExecuteurTuiles.definirParallelisme(this.nombreThreads);
+
+		this.image           = ImagesSynthetiques.creer(this.motif, this.megapixels);
+		this.imageSecondaire = ImagesSynthetiques.avecAlphaVariable(
+			ImagesSynthetiques.creer("degrade", this.megapixels)
+		);
+		this.megapixelsImage = (double) this.image.getWidth() * this.image.getHeight() / 1_000_000;
+	}
+}
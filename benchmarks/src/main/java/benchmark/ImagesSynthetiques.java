@@ -0,0 +1,138 @@
+package benchmark;
+
+import modele.AccesRaster;
+import modele.CanalARGB;
+import modele.UtilitaireImage;
+import java.awt.image.BufferedImage;
+
+/**
+ * ============================================================================
+ * IMAGES DE TEST GÉNÉRÉES À LA TAILLE VOULUE
+ * ============================================================================
+ *
+ * Reproduit, à n'importe quelle taille, les trois images de test du dépôt :
+ * - DEGRADE : comme test_degrade.png (bleu, rouge, cyan, jaune aux coins)
+ * - CARRES  : comme test_carres.png (8 bandes verticales de couleurs vives)
+ * - CHROMA  : comme test_chroma.png (disque rouge sur fond vert chroma)
+ *
+ * Les images ont un rapport 4:3 et sont au format TYPE_INT_ARGB.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public final class ImagesSynthetiques
+{
+
+	/** Couleurs des bandes de test_carres.png */
+	private static final int[] COULEURS_BANDES =
+	{
+		0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFFFFFF00,
+		0xFF00FFFF, 0xFFFF00FF, 0xFFFFC800, 0xFFFFAFAF
+	};
+
+	private ImagesSynthetiques() {}
+
+	/**
+	 * Crée une image de test.
+	 *
+	 * @param motif      "degrade", "carres" ou "chroma"
+	 * @param megapixels Nombre de mégapixels souhaité
+	 * @return L'image générée
+	 */
+	public static BufferedImage creer(String motif, double megapixels)
+	{
+		BufferedImage image;
+		int[]         pixels;
+		int           largeur, hauteur;
+
+		largeur = (int) Math.round(Math.sqrt(megapixels * 1_000_000 * 4 / 3));
+		hauteur = (int) Math.round(megapixels * 1_000_000 / largeur);
+
+		image  = UtilitaireImage.creerImageVide(largeur, hauteur);
+		pixels = AccesRaster.obtenirPixels(image);
+
+		if (motif.equals("degrade"))
+			ImagesSynthetiques.remplirDegrade(pixels, largeur, hauteur);
+		else if (motif.equals("carres"))
+			ImagesSynthetiques.remplirCarres(pixels, largeur, hauteur);
+		else if (motif.equals("chroma"))
+			ImagesSynthetiques.remplirChroma(pixels, largeur, hauteur);
+		else
+			throw new IllegalArgumentException("Motif inconnu : " + motif);
+
+		return image;
+	}
+
+	/**
+	 * Copie une image en faisant varier son alpha de 0 (à gauche) à 255 (à droite).
+	 * Sert de source pour superposerAvecAlpha().
+	 *
+	 * @param image L'image d'origine
+	 * @return La copie semi-transparente
+	 */
+	public static BufferedImage avecAlphaVariable(BufferedImage image)
+	{
+		BufferedImage resultat;
+		int[]         pixels;
+		int           largeur;
+
+		resultat = UtilitaireImage.copierImage(image);
+		pixels   = AccesRaster.obtenirPixels(resultat);
+		largeur  = resultat.getWidth();
+
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = CanalARGB.avecAlpha(pixels[i], (i % largeur) * 255 / Math.max(1, largeur - 1));
+
+		return resultat;
+	}
+
+	private static void remplirDegrade(int[] pixels, int largeur, int hauteur)
+	{
+		int rouge, vert;
+
+		for (int y = 0; y < hauteur; y++)
+		{
+			vert = y * 255 / Math.max(1, hauteur - 1);
+
+			for (int x = 0; x < largeur; x++)
+			{
+				rouge = x * 255 / Math.max(1, largeur - 1);
+
+				pixels[y * largeur + x] = CanalARGB.composer(255, rouge, vert, 255 - rouge);
+			}
+		}
+	}
+
+	private static void remplirCarres(int[] pixels, int largeur, int hauteur)
+	{
+		int bande;
+
+		for (int x = 0; x < largeur; x++)
+		{
+			bande = x * COULEURS_BANDES.length / largeur;
+
+			for (int y = 0; y < hauteur; y++)
+				pixels[y * largeur + x] = COULEURS_BANDES[bande];
+		}
+	}
+
+	private static void remplirChroma(int[] pixels, int largeur, int hauteur)
+	{
+		long centreX, centreY, rayon, dx, dy;
+
+		centreX = largeur / 2;
+		centreY = hauteur / 2;
+		rayon   = Math.min(largeur, hauteur) * 2 / 5;
+
+		for (int y = 0; y < hauteur; y++)
+		{
+			dy = y - centreY;
+
+			for (int x = 0; x < largeur; x++)
+			{
+				dx = x - centreX;
+
+				pixels[y * largeur + x] = (dx * dx + dy * dy <= rayon * rayon) ? 0xFFFF0000 : 0xFF00FF00;
+			}
+		}
+	}
+}
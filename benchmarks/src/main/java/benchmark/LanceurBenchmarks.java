@@ -0,0 +1,37 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar de benchmarks.
+ *
+ * Identique au lanceur standard de JMH (mêmes options en ligne de commande),
+ * mais active toujours le profileur GC : chaque résultat indique aussi la
+ * mémoire allouée (gc.alloc.rate en Mo/s, gc.alloc.rate.norm en octets
+ * par opération).
+ *
+ * EXEMPLES :
+ * java -jar target/benchmarks.jar                           (tout)
+ * java -jar target/benchmarks.jar BenchFusion -p motif=chroma
+ * java -jar target/benchmarks.jar -p nombreThreads=1,2,4,8
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class LanceurBenchmarks
+{
+	public static void main(String[] args) throws Exception
+	{
+		Options options;
+
+		options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.addProfiler(GCProfiler.class)
+			.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import modele.AccesRaster;
+import modele.CanalARGB;
+import modele.UtilitaireImage;
+import java.awt.image.BufferedImage;
+
+/**
+ * Ancienne version du décalage de teinte (RGB → HSV → RGB en float, avec un
+ * tableau créé par pixel), conservée uniquement comme point de comparaison
+ * pour BenchTransformation.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public final class TeinteReference
+{
+	private TeinteReference() {}
+
+	/**
+	 * @param image    L'image à modifier
+	 * @param decalage Décalage de teinte en degrés
+	 * @return L'image avec la teinte modifiée
+	 */
+	public static BufferedImage decalerTeinte(BufferedImage image, int decalage)
+	{
+		BufferedImage resultat;
+		int[]         source, destination, nouveauRgb;
+		float[]       hsv;
+		int           couleur;
+
+		source      = AccesRaster.lirePixels(image);
+		resultat    = UtilitaireImage.creerImageVide(image.getWidth(), image.getHeight());
+		destination = AccesRaster.obtenirPixels(resultat);
+
+		for (int i = 0; i < source.length; i++)
+		{
+			couleur = source[i];
+
+			hsv = TeinteReference.rgbVersHsv(CanalARGB.rouge(couleur), CanalARGB.vert(couleur), CanalARGB.bleu(couleur));
+
+			hsv[0] = (hsv[0] + decalage) % 360;
+			if (hsv[0] < 0)
+				hsv[0] += 360;
+
+			nouveauRgb = TeinteReference.hsvVersRgb(hsv[0], hsv[1], hsv[2]);
+
+			destination[i] = CanalARGB.composer(CanalARGB.alpha(couleur), nouveauRgb[0], nouveauRgb[1], nouveauRgb[2]);
+		}
+
+		return resultat;
+	}
+
+	private static float[] rgbVersHsv(int r, int g, int b)
+	{
+		float rNorm, gNorm, bNorm;
+		float max, min, delta;
+		float h, s, v;
+
+		rNorm = r / 255f;
+		gNorm = g / 255f;
+		bNorm = b / 255f;
+
+		max   = Math.max(rNorm, Math.max(gNorm, bNorm));
+		min   = Math.min(rNorm, Math.min(gNorm, bNorm));
+		delta = max - min;
+
+		if (delta == 0)
+			h = 0;
+		else if (max == rNorm)
+			h = 60 * (((gNorm - bNorm) / delta) % 6);
+		else if (max == gNorm)
+			h = 60 * (((bNorm - rNorm) / delta) + 2);
+		else
+			h = 60 * (((rNorm - gNorm) / delta) + 4);
+
+		if (h < 0)
+			h += 360;
+
+		s = (max == 0) ? 0 : (delta / max) * 100;
+		v = max * 100;
+
+		return new float[] { h, s, v };
+	}
+
+	private static int[] hsvVersRgb(float h, float s, float v)
+	{
+		float c, x, m, rPrime, gPrime, bPrime;
+
+		s = s / 100f;
+		v = v / 100f;
+
+		c = v * s;
+		x = c * (1 - Math.abs((h / 60) % 2 - 1));
+		m = v - c;
+
+		rPrime = 0;
+		gPrime = 0;
+		bPrime = 0;
+
+		if (h < 60)       { rPrime = c; gPrime = x; }
+		else if (h < 120) { rPrime = x; gPrime = c; }
+		else if (h < 180) { gPrime = c; bPrime = x; }
+		else if (h < 240) { gPrime = x; bPrime = c; }
+		else if (h < 300) { rPrime = x; bPrime = c; }
+		else              { rPrime = c; bPrime = x; }
+
+		return new int[]
+		{
+			CanalARGB.borner(Math.round((rPrime + m) * 255)),
+			CanalARGB.borner(Math.round((gPrime + m) * 255)),
+			CanalARGB.borner(Math.round((bPrime + m) * 255))
+		};
+	}
+}
@@ -16,7 +16,7 @@ if not exist "bin" (
 
 REM Compilation avec encodage UTF-8
 echo Compilation en cours...
-javac -encoding UTF-8 -d bin -sourcepath src src\ApplicationPrincipale.java
+javac -encoding UTF-8 -d bin -sourcepath src src\ApplicationPrincipale.java src\ApplicationLot.java
 
 REM Vérification du résultat
 if %errorlevel% equ 0 (
@@ -35,4 +35,11 @@ if %errorlevel% equ 0 (
     exit /b 1
 )
 
+REM Noyaux vectoriels (SIMD) : compilés seulement si la JVM fournit le module
+java --list-modules | findstr /b "jdk.incubator.vector" >nul
+if %errorlevel% equ 0 (
+    echo Compilation des noyaux vectoriels ^(jdk.incubator.vector^)...
+    javac -encoding UTF-8 --add-modules jdk.incubator.vector -d bin -cp bin src\modele\traitement\NoyauxVectoriels.java
+)
+
 pause
@@ -15,7 +15,7 @@ if (-not (Test-Path "bin")) {
 
 # Compilation avec encodage UTF-8
 Write-Host "Compilation en cours..." -ForegroundColor Yellow
-javac -encoding UTF-8 -d bin -sourcepath src src\ApplicationPrincipale.java
+javac -encoding UTF-8 -d bin -sourcepath src src\ApplicationPrincipale.java src\ApplicationLot.java
 
 # Vérification du résultat
 if ($LASTEXITCODE -eq 0) {
@@ -32,3 +32,9 @@ if ($LASTEXITCODE -eq 0) {
     Write-Host "==========================================" -ForegroundColor Red
     exit 1
 }
+
+# Noyaux vectoriels (SIMD) : compilés seulement si la JVM fournit le module
+if (java --list-modules | Select-String -Pattern "^jdk.incubator.vector" -Quiet) {
+    Write-Host "Compilation des noyaux vectoriels (jdk.incubator.vector)..." -ForegroundColor Yellow
+    javac -encoding UTF-8 --add-modules jdk.incubator.vector -d bin -cp bin src\modele\traitement\NoyauxVectoriels.java
+}
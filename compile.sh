@@ -16,7 +16,7 @@ fi
 
 # Compilation avec encodage UTF-8
 echo "Compilation en cours..."
-javac -encoding UTF-8 -d bin -sourcepath src src/ApplicationPrincipale.java
+javac -encoding UTF-8 -d bin -sourcepath src src/ApplicationPrincipale.java src/ApplicationLot.java
 
 # Vérification du résultat
 if [ $? -eq 0 ]; then
@@ -33,3 +33,9 @@ else
     echo "=========================================="
     exit 1
 fi
+
+# Noyaux vectoriels (SIMD) : compilés seulement si la JVM fournit le module
+if java --list-modules 2>/dev/null | grep -q "^jdk.incubator.vector"; then
+    echo "Compilation des noyaux vectoriels (jdk.incubator.vector)..."
+    javac -encoding UTF-8 --add-modules jdk.incubator.vector -d bin -cp bin src/modele/traitement/NoyauxVectoriels.java
+fi
@@ -24,7 +24,11 @@ if not exist "bin\ApplicationPrincipale.class" (
     exit /b 1
 )
 
+REM Noyaux vectoriels (SIMD) : activés s'ils ont été compilés
+set OPTIONS=
+if exist "bin\modele\traitement\NoyauxVectoriels.class" set OPTIONS=--add-modules jdk.incubator.vector
+
 REM Lancement de l'application
 echo Lancement de l'application...
 echo.
-java -cp bin ApplicationPrincipale
+java %OPTIONS% -cp bin ApplicationPrincipale
@@ -21,10 +21,16 @@ if (-not (Test-Path "bin\ApplicationPrincipale.class")) {
     exit 1
 }
 
+# Noyaux vectoriels (SIMD) : activés s'ils ont été compilés
+$options = @()
+if (Test-Path "bin\modele\traitement\NoyauxVectoriels.class") {
+    $options = @("--add-modules", "jdk.incubator.vector")
+}
+
 # Lancement de l'application
 Write-Host "Lancement de l'application..." -ForegroundColor Green
 Write-Host ""
-java -cp bin ApplicationPrincipale
+java @options -cp bin ApplicationPrincipale
 
 # Si l'application se termine, afficher un message
 Write-Host ""
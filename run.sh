@@ -22,10 +22,16 @@ if [ ! -f "bin/ApplicationPrincipale.class" ]; then
     exit 1
 fi
 
+# Noyaux vectoriels (SIMD) : activés s'ils ont été compilés
+OPTIONS=""
+if [ -f "bin/modele/traitement/NoyauxVectoriels.class" ]; then
+    OPTIONS="--add-modules jdk.incubator.vector"
+fi
+
 # Lancement de l'application
 echo "Lancement de l'application..."
 echo ""
-java -cp bin ApplicationPrincipale
+java $OPTIONS -cp bin ApplicationPrincipale
 
 # Si l'application se termine, afficher un message
 echo ""
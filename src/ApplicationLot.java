@@ -0,0 +1,173 @@
+import controleur.ControleurLot;
+import modele.EncodeurPng;
+import modele.FormatBrut;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ============================================================================
+ * APPLICATION LOT - POINT D'ENTRÉE SANS INTERFACE GRAPHIQUE
+ * ============================================================================
+ * 
+ * Applique une suite d'opérations à toutes les images PNG (ou .argb) d'un dossier,
+ * sans ouvrir de fenêtre (voir controleur.ControleurLot).
+ * 
+ * UTILISATION :
+ * java -cp bin ApplicationLot --entree DOSSIER --sortie DOSSIER
+ *      [--travailleurs N] [--format png|argb] [--compression 0-9]
+ *      [--hors-memoire MEGAPIXELS] --op OPERATION [--op OPERATION ...]
+ * 
+ * EXEMPLE :
+ * java -cp bin ApplicationLot --entree photos --sortie resultats
+ *      --op rotation:90 --op luminosite:20 --op contraste:1.5
+ *      --op "texte:Équipe 6,20,40,32,#FFFFFF"
+ * 
+ * CODE DE SORTIE :
+ * 0 = tout a réussi, 1 = au moins un fichier en échec, 2 = arguments invalides
+ * 
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class ApplicationLot 
+{
+
+	/**
+	 * Point d'entrée du traitement par lot.
+	 * 
+	 * @param args Arguments de la ligne de commande (voir ci-dessus)
+	 */
+	public static void main(String[] args) 
+	{
+		String        entree, sortie, extension;
+		List<String>  operations;
+		int           travailleurs, compression, echecs;
+		long          seuilHorsMemoire;
+		ControleurLot controleur;
+
+		// Aucune fenêtre : le texte est dessiné sans serveur graphique
+		System.setProperty("java.awt.headless", "true");
+
+		entree       = null;
+		sortie       = null;
+		operations   = new ArrayList<>();
+		travailleurs = Runtime.getRuntime().availableProcessors();
+		extension    = ".png";
+		compression  = EncodeurPng.NIVEAU_PAR_DEFAUT;
+
+		seuilHorsMemoire = ControleurLot.SEUIL_AUTOMATIQUE;
+
+		try
+		{
+			for (int i = 0; i < args.length; i++) 
+			{
+				switch (args[i])
+				{
+					case "--entree":
+						entree = ApplicationLot.valeur(args, ++i);
+						break;
+
+					case "--sortie":
+						sortie = ApplicationLot.valeur(args, ++i);
+						break;
+
+					case "--op":
+						operations.add(ApplicationLot.valeur(args, ++i));
+						break;
+
+					case "--travailleurs":
+						travailleurs = ApplicationLot.lireEntier(ApplicationLot.valeur(args, ++i));
+						break;
+
+					case "--format":
+						extension = "." + ApplicationLot.valeur(args, ++i);
+
+						if (!extension.equals(".png") && !extension.equals(FormatBrut.EXTENSION))
+							throw new IllegalArgumentException("Format inconnu (png ou argb) : " + args[i]);
+						break;
+
+					case "--compression":
+						compression = ApplicationLot.lireEntier(ApplicationLot.valeur(args, ++i));
+						break;
+
+					case "--hors-memoire":
+						seuilHorsMemoire = 1_000_000L * ApplicationLot.lireEntier(ApplicationLot.valeur(args, ++i));
+
+						if (seuilHorsMemoire < 0)
+							throw new IllegalArgumentException("Seuil hors mémoire négatif : " + args[i]);
+						break;
+
+					case "--aide":
+						ApplicationLot.afficherAide();
+						return;
+
+					default:
+						throw new IllegalArgumentException("Argument inconnu : " + args[i]);
+				}
+			}
+
+			if (entree == null || sortie == null || operations.isEmpty())
+				throw new IllegalArgumentException("--entree, --sortie et au moins une --op sont obligatoires");
+
+			controleur = new ControleurLot(
+				new File(entree), new File(sortie), operations, travailleurs, extension, compression,
+				seuilHorsMemoire
+			);
+			echecs     = controleur.executer();
+		}
+		catch (IllegalArgumentException e) 
+		{
+			System.err.println("ERREUR : " + e.getMessage());
+			System.err.println();
+			ApplicationLot.afficherAide();
+			System.exit(2);
+			return;
+		}
+
+		System.exit(echecs == 0 ? 0 : 1);
+	}
+
+	/**
+	 * @return L'argument d'indice i (la valeur d'une option)
+	 */
+	private static String valeur(String[] args, int i)
+	{
+		if (i >= args.length)
+			throw new IllegalArgumentException("Valeur manquante après " + args[i - 1]);
+
+		return args[i];
+	}
+
+	/**
+	 * @return La valeur entière d'une option
+	 */
+	private static int lireEntier(String valeur)
+	{
+		try
+		{
+			return Integer.parseInt(valeur.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Nombre entier invalide : " + valeur);
+		}
+	}
+
+	private static void afficherAide()
+	{
+		System.out.println("Utilisation : java -cp bin ApplicationLot --entree DOSSIER --sortie DOSSIER");
+		System.out.println("              [--travailleurs N] [--format png|argb] [--compression 0-9]");
+		System.out.println("              [--hors-memoire MEGAPIXELS] --op OPERATION [--op OPERATION ...]");
+		System.out.println();
+		System.out.println("Opérations (appliquées dans l'ordre) :");
+		System.out.println("  rotation:ANGLE  miroir-horizontal  miroir-vertical");
+		System.out.println("  luminosite:F  contraste:F  teinte:D  teinte-approx:D  gris  negatif");
+		System.out.println("  superposer:FICHIER,X,Y  superposer-alpha:FICHIER,X,Y");
+		System.out.println("  chroma:FICHIER,X,Y,COULEUR,TOLERANCE  juxtaposer:FICHIER,FONDU");
+		System.out.println("  texte:TEXTE,X,Y,TAILLE,COULEUR  texte-fond:TEXTE,X,Y,TAILLE,COULEUR,FOND,MARGE");
+		System.out.println("Couleurs : #RRGGBB ou #AARRGGBB");
+		System.out.println();
+		System.out.println("--hors-memoire : PNG traités sur disque, tuile par tuile, à partir de cette taille");
+		System.out.println("                 (opérations ponctuelles, superposer et superposer-alpha seulement)");
+	}
+}
@@ -0,0 +1,183 @@
+package controleur;
+
+import modele.UtilitaireImage;
+import modele.traitement.OperationPonctuelle;
+import modele.traitement.TraitementTransformation;
+import vue.FramePrincipal;
+
+import javax.swing.JSlider;
+import javax.swing.Timer;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * ============================================================================
+ * APERÇU EN DIRECT D'UN RÉGLAGE (LUMINOSITÉ, CONTRASTE, TEINTE)
+ * ============================================================================
+ *
+ * Pendant que l'utilisateur déplace le curseur d'un dialogue de réglage,
+ * le résultat est affiché immédiatement, sans attendre le bouton OK.
+ *
+ * PRINCIPE (IMAGE RÉDUITE) :
+ * Recalculer toute l'image à chaque mouvement coûterait des centaines de
+ * millisecondes sur une grande image. L'aperçu est calculé sur une copie de
+ * la seule partie visible, réduite à l'échelle d'affichage (zoom arrière) :
+ * il a au plus autant de pixels que la partie visible de l'écran, et son
+ * coût ne dépend pas de la taille de l'image.
+ * 1. À l'ouverture du dialogue : copie de la zone visible (une seule fois)
+ * 2. À chaque mouvement : l'opération du réglage (table de correspondance,
+ *    teinte exacte) est appliquée à la copie, répartie sur les cœurs, dans
+ *    une image résultat réutilisée
+ * 3. Le panneau d'image dessine le résultat par-dessus la zone visible
+ * Le traitement exact en pleine résolution n'est lancé qu'après OK (voir
+ * GestionnaireTaches).
+ *
+ * REGROUPEMENT DES MOUVEMENTS :
+ * Un curseur émet un événement par pixel parcouru. Le premier événement
+ * démarre un Timer de DELAI_APERCU ms (une image à 60 Hz) ; les suivants
+ * n'ont aucun effet tant qu'il n'est pas écoulé. Le calcul utilise alors la
+ * dernière valeur du curseur : au plus un calcul par image affichée.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class ApercuReglage
+{
+
+	/** Délai de regroupement des mouvements du curseur (ms) */
+	private static final int DELAI_APERCU = 16;
+
+	/**
+	 * Opération rapide correspondant à une valeur du curseur.
+	 */
+	interface Reglage
+	{
+		/**
+		 * @param valeur La valeur du curseur
+		 * @return L'opération à appliquer à l'aperçu
+		 */
+		OperationPonctuelle operation(int valeur);
+	}
+
+	private final FramePrincipal vue;
+	private final Reglage        reglage;
+	private final Timer          minuterie;
+
+	/** Zone de l'image couverte par l'aperçu (coordonnées de l'image) */
+	private final Rectangle      zone;
+
+	/** Copie réduite de la zone, et image qui reçoit l'aperçu (null si rien n'est visible) */
+	private final BufferedImage  reduite, resultat;
+
+	private JSlider curseur;
+
+	/**
+	 * Prépare l'aperçu (copie de la zone visible de l'image).
+	 *
+	 * @param vue     La vue principale
+	 * @param image   L'image principale
+	 * @param reglage L'opération rapide du réglage
+	 */
+	ApercuReglage(FramePrincipal vue, BufferedImage image, Reglage reglage)
+	{
+		this.vue     = vue;
+		this.reglage = reglage;
+		this.zone    = vue.getZoneVisible();
+
+		if (this.zone.isEmpty())
+		{
+			this.reduite  = null;
+			this.resultat = null;
+		}
+		else
+		{
+			this.reduite  = ApercuReglage.reduire(image, this.zone, vue.getEchelle());
+			this.resultat = UtilitaireImage.creerImageVide(this.reduite.getWidth(), this.reduite.getHeight());
+		}
+
+		this.minuterie = new Timer(DELAI_APERCU, e -> this.actualiser());
+		this.minuterie.setRepeats(false);
+	}
+
+	/**
+	 * Met l'aperçu à jour à chaque mouvement du curseur.
+	 *
+	 * @param curseur Le curseur du dialogue
+	 */
+	void suivre(JSlider curseur)
+	{
+		this.curseur = curseur;
+
+		curseur.addChangeListener(e ->
+		{
+			if (!this.minuterie.isRunning())
+				this.minuterie.start();
+		});
+	}
+
+	/**
+	 * Fin du dialogue.
+	 *
+	 * @param conserver true pour laisser l'aperçu affiché jusqu'à l'arrivée du
+	 *                  résultat complet, false pour le retirer tout de suite
+	 */
+	void terminer(boolean conserver)
+	{
+		this.minuterie.stop();
+
+		if (!conserver)
+			this.vue.effacerApercu();
+	}
+
+	/**
+	 * Recalcule l'aperçu avec la valeur actuelle du curseur (EDT).
+	 */
+	private void actualiser()
+	{
+		if (this.reduite == null || this.curseur == null)
+			return;
+
+		TraitementTransformation.appliquerOperation(
+			this.reduite,
+			this.reglage.operation(this.curseur.getValue()),
+			this.resultat
+		);
+
+		this.vue.afficherApercu(this.resultat, this.zone);
+	}
+
+	/**
+	 * Copie une zone de l'image, réduite à l'échelle d'affichage.
+	 *
+	 * @param image     L'image complète
+	 * @param zone      La zone à copier
+	 * @param affichage L'échelle d'affichage (pas d'agrandissement au-delà de 1)
+	 * @return Une nouvelle image TYPE_INT_ARGB
+	 */
+	private static BufferedImage reduire(BufferedImage image, Rectangle zone, double affichage)
+	{
+		BufferedImage copie;
+		Graphics2D    g;
+		double        echelle;
+		int           largeur, hauteur;
+
+		echelle = Math.min(1.0, affichage);
+		largeur = Math.max(1, (int) Math.round(zone.width  * echelle));
+		hauteur = Math.max(1, (int) Math.round(zone.height * echelle));
+
+		copie = UtilitaireImage.creerImageVide(largeur, hauteur);
+		g     = copie.createGraphics();
+
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(
+			image,
+			0, 0, largeur, hauteur,
+			zone.x, zone.y, zone.x + zone.width, zone.y + zone.height,
+			null
+		);
+		g.dispose();
+
+		return copie;
+	}
+}
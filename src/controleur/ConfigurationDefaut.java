@@ -19,7 +19,9 @@ public class ConfigurationDefaut
 	public static final String POSITION_X_DEFAUT         = "50";
 	public static final String POSITION_Y_DEFAUT         = "50";
 
-	public static final String FACTEUR_CONTRASTE_DEFAUT  = "1.0";
+	public static final int    CONTRASTE_MIN_POURCENT    = 10;
+	public static final int    CONTRASTE_MAX_POURCENT    = 300;
+	public static final int    CONTRASTE_DEFAUT_POURCENT = 100;
 
 	private ConfigurationDefaut() {}
 }
@@ -1,6 +1,7 @@
 package controleur;
 
 import modele.ModeleImage;
+import modele.FormatBrut;
 import modele.UtilitaireImage;
 import vue.FramePrincipal;
 
@@ -21,18 +22,24 @@ import java.io.File;
  * - Sauvegarde d'image
  * - Restauration de l'image originale
  * 
+ * La sauvegarde et la restauration sont refusées pendant un traitement en
+ * arrière-plan : l'image principale peut être en train d'être modifiée sur
+ * place, et la restauration serait aussitôt écrasée par son résultat.
+ * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class ControleurFichier 
 {
 
-	private final ModeleImage    modele;
-	private final FramePrincipal vue;
+	private final ModeleImage        modele;
+	private final FramePrincipal     vue;
+	private final GestionnaireTaches taches;
 
-	public ControleurFichier(ModeleImage modele, FramePrincipal vue) 
+	public ControleurFichier(ModeleImage modele, FramePrincipal vue, GestionnaireTaches taches) 
 	{
 		this.modele = modele;
 		this.vue    = vue;
+		this.taches = taches;
 	}
 
 	/**
@@ -49,7 +56,7 @@ public class ControleurFichier
 		
 		selecteur = new JFileChooser();
 		selecteur.setDialogTitle("Ouvrir une image principale");
-		selecteur.setFileFilter (new FileNameExtensionFilter("Images PNG", "png"));
+		selecteur.setFileFilter (new FileNameExtensionFilter("Images PNG ou brutes (.argb)", "png", "argb"));
 
 		resultat = selecteur.showOpenDialog(this.vue);
 
@@ -83,7 +90,7 @@ public class ControleurFichier
 
 		selecteur = new JFileChooser();
 		selecteur.setDialogTitle("Ouvrir une image secondaire");
-		selecteur.setFileFilter(new FileNameExtensionFilter("Images PNG", "png"));
+		selecteur.setFileFilter(new FileNameExtensionFilter("Images PNG ou brutes (.argb)", "png", "argb"));
 
 		resultat = selecteur.showOpenDialog(vue);
 
@@ -124,9 +131,12 @@ public class ControleurFichier
 			return;
 		}
 
+		if (!this.verifierDisponible())
+			return;
+
 		selecteur = new JFileChooser();
 		selecteur.setDialogTitle("Sauvegarder l'image");
-		selecteur.setFileFilter(new FileNameExtensionFilter("Images PNG", "png"));
+		selecteur.setFileFilter(new FileNameExtensionFilter("Images PNG ou brutes (.argb)", "png", "argb"));
 
 		resultat = selecteur.showSaveDialog(vue);
 
@@ -134,7 +144,7 @@ public class ControleurFichier
 		{
 			chemin = selecteur.getSelectedFile().getAbsolutePath();
 
-			if (!chemin.toLowerCase().endsWith(".png")) 
+			if (!chemin.toLowerCase().endsWith(".png") && !FormatBrut.estFormatBrut(chemin)) 
 			{
 				chemin += ".png";
 			}
@@ -156,6 +166,9 @@ public class ControleurFichier
 	 */
 	public void restaurerOriginale() 
 	{
+		if (!this.verifierDisponible())
+			return;
+
 		if (!this.modele.peutRestaurer()) 
 		{
 			this.vue.afficherErreur("Aucune image originale à restaurer !");
@@ -166,6 +179,22 @@ public class ControleurFichier
 		this.vue.mettreAJourStatut("Image originale restaurée");
 	}
 
+	/**
+	 * Vérifie qu'aucun traitement n'est en cours.
+	 * 
+	 * @return true si l'image principale peut être lue ou remplacée
+	 */
+	private boolean verifierDisponible() 
+	{
+		if (this.taches.estOccupe()) 
+		{
+			this.vue.afficherErreur("Attendez la fin du traitement en cours");
+			return false;
+		}
+
+		return true;
+	}
+
 	/**
 	 * Quitte l'application.
 	 */
@@ -21,18 +21,24 @@ import java.awt.image.BufferedImage;
  * ============================================================================
  * 
  * Ce contrôleur gère toutes les opérations de traitement d'images :
- * - Transformations (rotation, luminosité, contraste, teinte)
+ * - Transformations (rotation, miroirs, luminosité, contraste, teinte)
  * - Fusion d'images
  * - Pot de peinture
  * - Ajout de texte
  * 
+ * Les paramètres sont demandés sur le thread de Swing ; le traitement
+ * lui-même est confié au GestionnaireTaches, qui l'exécute en arrière-plan
+ * et publie le résultat dans le modèle. Les valeurs utilisées par une tâche
+ * sont copiées dans des variables locales avant son lancement.
+ * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class ControleurImage 
 {
 
-	private final ModeleImage    modele;
-	private final FramePrincipal vue;
+	private final ModeleImage        modele;
+	private final FramePrincipal     vue;
+	private final GestionnaireTaches taches;
 
 	private Color  couleurPeinture   = Color.RED;
 	private double tolerancePeinture = 30.0;
@@ -45,51 +51,114 @@ public class ControleurImage
 	 * 
 	 * @param modele Le modèle contenant les images
 	 * @param vue    La vue principale de l'application
+	 * @param taches Les traitements en arrière-plan
 	 */
-	public ControleurImage(ModeleImage modele, FramePrincipal vue) 
+	public ControleurImage(ModeleImage modele, FramePrincipal vue, GestionnaireTaches taches) 
 	{
 		this.modele = modele;
 		this.vue    = vue;
+		this.taches = taches;
+	}
+
+	/**
+	 * Interrompt le traitement en cours (bouton Interrompre de la barre de statut).
+	 */
+	public void interrompreTraitement() 
+	{
+		this.taches.annuler();
+	}
+
+	/**
+	 * Annule la dernière modification de l'image principale.
+	 */
+	public void annulerModification() 
+	{
+		if (!this.verifierHistorique())
+			return;
+
+		if (!this.modele.annuler())
+			this.vue.afficherErreur("Aucune modification à annuler");
+		else
+			this.vue.mettreAJourStatut("Modification annulée" + this.decrireHistorique());
+	}
+
+	/**
+	 * Refait la dernière modification annulée.
+	 */
+	public void retablirModification() 
+	{
+		if (!this.verifierHistorique())
+			return;
+
+		if (!this.modele.retablir())
+			this.vue.afficherErreur("Aucune modification à rétablir");
+		else
+			this.vue.mettreAJourStatut("Modification rétablie" + this.decrireHistorique());
 	}
 
 	/**
 	 * Applique une rotation (en degré).
+	 * Le demi-tour est fait sur place, sans deuxième image.
 	 */
 	public void appliquerRotation(int rotation) 
 	{
 		if (!this.verifierImage())
 			return;
 
-		BufferedImage resultat;
+		if (Math.floorMod(rotation, 360) == 180)
+		{
+			this.taches.lancerSurPlace("Rotation", TraitementTransformation::pivoter180SurPlace);
+		}
+		else
+		{
+			this.taches.lancer("Rotation", image -> TraitementTransformation.appliquerRotation(image, rotation));
+		}
+	}
 
-		resultat = TraitementTransformation.appliquerRotation(
-			this.modele.getImagePrincipale(), 
-			rotation
-		);
-		
-		this.modele.mettreAJourImagePrincipale(resultat);
+	/**
+	 * Retourne l'image de gauche à droite (sur place).
+	 */
+	public void appliquerMiroirHorizontal() 
+	{
+		if (!this.verifierImage())
+			return;
+
+		this.taches.lancerSurPlace("Miroir horizontal", TraitementTransformation::miroirHorizontalSurPlace);
+	}
+
+	/**
+	 * Retourne l'image de haut en bas (sur place).
+	 */
+	public void appliquerMiroirVertical() 
+	{
+		if (!this.verifierImage())
+			return;
+
+		this.taches.lancerSurPlace("Miroir vertical", TraitementTransformation::miroirVerticalSurPlace);
 	}
 
 	/**
 	 * Affiche un dialogue permettant d'ajuster la luminosité de l'image.
 	 * L'utilisateur peut choisir une valeur entre -100 (plus sombre) et +100 (plus
-	 * clair).
+	 * clair). Le résultat est prévisualisé pendant le réglage (voir ApercuReglage).
 	 */
 	public void ajusterLuminosite() 
 	{
 		if (!this.verifierImage())
 			return;
 
-		JSlider curseur;
-		int     resultat;
-
-		BufferedImage imageResultat;
+		JSlider       curseur;
+		ApercuReglage apercu;
+		int           resultat, valeur;
 
 		curseur = new JSlider(-100, 100, 0);
 		curseur.setMajorTickSpacing(50);
 		curseur.setPaintTicks(true);
 		curseur.setPaintLabels(true);
 
+		apercu = new ApercuReglage(this.vue, this.modele.getImagePrincipale(), TableCorrespondance::luminosite);
+		apercu.suivre(curseur);
+
 		resultat = JOptionPane.showConfirmDialog(
 			this.vue, 
 			curseur,
@@ -97,66 +166,69 @@ public class ControleurImage
 			JOptionPane.OK_CANCEL_OPTION
 		);
 
+		apercu.terminer(resultat == JOptionPane.OK_OPTION);
+
 		if (resultat == JOptionPane.OK_OPTION) 
 		{
-			imageResultat = TraitementTransformation.ajusterLuminosite(
-				this.modele.getImagePrincipale(), 
-				curseur.getValue()
-			);
+			valeur = curseur.getValue();
 
-			this.modele.mettreAJourImagePrincipale(imageResultat);
+			this.taches.lancer("Luminosité", image -> TraitementTransformation.ajusterLuminosite(image, valeur));
 		}
 	}
 
 	/**
 	 * Affiche un dialogue permettant d'ajuster le contraste de l'image.
-	 * Facteurs typiques : 0.5 (réduit), 1.0 (normal), 2.0 (augmenté).
+	 * Le curseur est en pourcentage : 50 (réduit), 100 (normal), 200 (augmenté).
+	 * Le résultat est prévisualisé pendant le réglage (voir ApercuReglage).
 	 */
 	public void ajusterContraste() {
 		if (!this.verifierImage())
 			return;
 
-		String facteurStr;
-		double facteur;
+		JSlider       curseur;
+		ApercuReglage apercu;
+		int           resultat;
+		double        facteur;
 
-		BufferedImage resultat;
-
-		facteurStr = JOptionPane.showInputDialog(
-			this.vue,
-			"Facteur de contraste (0.5 = réduit, 1.0 = normal, 2.0 = augmenté) :",
-			ConfigurationDefaut.FACTEUR_CONTRASTE_DEFAUT
+		curseur = new JSlider(
+			ConfigurationDefaut.CONTRASTE_MIN_POURCENT, 
+			ConfigurationDefaut.CONTRASTE_MAX_POURCENT, 
+			ConfigurationDefaut.CONTRASTE_DEFAUT_POURCENT
 		);
+		curseur.setMinorTickSpacing(10);
+		curseur.setLabelTable(curseur.createStandardLabels(50, 50));
+		curseur.setPaintTicks(true);
+		curseur.setPaintLabels(true);
 
-		if (facteurStr == null) 
-			return;
-
-		try
-		{
-			facteur = Double.parseDouble(facteurStr);
+		apercu = new ApercuReglage(
+			this.vue, 
+			this.modele.getImagePrincipale(), 
+			pourcent -> TableCorrespondance.contraste(pourcent / 100.0)
+		);
+		apercu.suivre(curseur);
 
-			if (facteur <= 0) 
-			{
-				this.vue.afficherErreur("Le facteur doit être positif");
-				return;
-			}
+		resultat = JOptionPane.showConfirmDialog(
+			this.vue, 
+			curseur,
+			"Contraste (%)", 
+			JOptionPane.OK_CANCEL_OPTION
+		);
 
-			resultat = TraitementTransformation.ajusterContraste(
-				this.modele.getImagePrincipale(), 
-				facteur
-			);
+		apercu.terminer(resultat == JOptionPane.OK_OPTION);
 
-			this.modele.mettreAJourImagePrincipale(resultat);
-		}
-		catch (NumberFormatException e) 
+		if (resultat == JOptionPane.OK_OPTION) 
 		{
-			this.vue.afficherErreur("'" + facteurStr + "' n'est pas un nombre valide");
+			facteur = curseur.getValue() / 100.0;
+
+			this.taches.lancer("Contraste", image -> TraitementTransformation.ajusterContraste(image, facteur));
 		}
 	}
 
 	/**
 	 * Affiche un dialogue permettant de décaler la teinte de l'image.
 	 * L'utilisateur peut choisir un décalage entre 0 et 360 degrés sur le cercle
-	 * chromatique.
+	 * chromatique. L'aperçu utilise le même calcul exact que le résultat
+	 * final : la couleur affichée est celle que donnera OK.
 	 */
 	public void decalerTeinte() 
 	{
@@ -164,15 +236,17 @@ public class ControleurImage
 			return;
 
 		JSlider curseur;
-		int resultat;
-
-		BufferedImage imageResultat;
+		ApercuReglage apercu;
+		int resultat, degres;
 		
 		curseur= new JSlider(0, 360, 0);
 		curseur.setMajorTickSpacing(60);
 		curseur.setPaintTicks(true);
 		curseur.setPaintLabels(true);
 
+		apercu = new ApercuReglage(this.vue, this.modele.getImagePrincipale(), TraitementTransformation::operationTeinte);
+		apercu.suivre(curseur);
+
 		resultat = JOptionPane.showConfirmDialog(
 			this.vue, 
 			curseur,
@@ -180,14 +254,13 @@ public class ControleurImage
 			JOptionPane.OK_CANCEL_OPTION
 		);
 
+		apercu.terminer(resultat == JOptionPane.OK_OPTION);
+
 		if (resultat == JOptionPane.OK_OPTION) 
 		{
-			imageResultat = TraitementTransformation.decalerTeinte(
-				this.modele.getImagePrincipale(), 
-				curseur.getValue()
-			);
-			
-			this.modele.mettreAJourImagePrincipale(imageResultat);
+			degres = curseur.getValue();
+
+			this.taches.lancer("Décalage de teinte", image -> TraitementTransformation.decalerTeinte(image, degres));
 		}
 	}
 
@@ -199,13 +272,7 @@ public class ControleurImage
 		if (!this.verifierImage())
 			return;
 		
-		BufferedImage resultat;
-
-		resultat = TraitementTransformation.versNiveauxDeGris(
-			this.modele.getImagePrincipale()
-		);
-		
-		this.modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer("Niveaux de gris", TraitementTransformation::versNiveauxDeGris);
 	}
 
 	/**
@@ -216,13 +283,7 @@ public class ControleurImage
 		if (!this.verifierImage())
 			return;
 		
-		BufferedImage resultat;
-
-		resultat = TraitementTransformation.inverserCouleurs(
-			modele.getImagePrincipale()
-		);
-
-		modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer("Négatif", TraitementTransformation::inverserCouleurs);
 	}
 
 	/**
@@ -292,16 +353,18 @@ public class ControleurImage
 	 */
 	private void afficherApercu() 
 	{
-		BufferedImage apercu;
-		apercu = TraitementFusion.superposerAvecAlpha(
-			this.modele.getImagePrincipale(),
-			this.modele.getImageSecondaire(),
-			positionX, 
-			positionY
-		);
+		BufferedImage secondaire;
+		int           x, y;
 
-		this.modele.mettreAJourImagePrincipale(apercu);
-		this.vue.mettreAJourStatut("Aperçu affiché - Position : (" + positionX + ", " + positionY + ")");
+		secondaire = this.modele.getImageSecondaire();
+		x          = this.positionX;
+		y          = this.positionY;
+
+		this.taches.lancer(
+			"Aperçu",
+			image -> TraitementFusion.superposerAvecAlpha(image, secondaire, x, y),
+			"Aperçu affiché - Position : (" + x + ", " + y + ")"
+		);
 	}
 
 	/**
@@ -313,16 +376,14 @@ public class ControleurImage
 		if (!this.verifierDeuxImages())
 			return;
 
-		BufferedImage resultat;
+		BufferedImage secondaire;
+		int           x, y;
 
-		resultat = TraitementFusion.superposer(
-			this.modele.getImagePrincipale(),
-			this.modele.getImageSecondaire(),
-			positionX, 
-			positionY
-		);
+		secondaire = this.modele.getImageSecondaire();
+		x          = this.positionX;
+		y          = this.positionY;
 
-		this.modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer("Superposition", image -> TraitementFusion.superposer(image, secondaire, x, y));
 	}
 
 	/**
@@ -335,16 +396,14 @@ public class ControleurImage
 		if (!this.verifierDeuxImages())
 			return;
 
-		BufferedImage resultat;
+		BufferedImage secondaire;
+		int           x, y;
 
-		resultat = TraitementFusion.superposerAvecAlpha(
-			this.modele.getImagePrincipale(),
-			this.modele.getImageSecondaire(),
-			positionX, 
-			positionY
-		);
+		secondaire = this.modele.getImageSecondaire();
+		x          = this.positionX;
+		y          = this.positionY;
 
-		this.modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer("Superposition alpha", image -> TraitementFusion.superposerAvecAlpha(image, secondaire, x, y));
 	}
 
 	/**
@@ -361,9 +420,9 @@ public class ControleurImage
 		Color couleur;
 		String tolStr;
 		double tolerance;
-		int couleurARGB;
+		int couleurARGB, x, y;
 
-		BufferedImage resultat;
+		BufferedImage secondaire;
 
 		couleur = JColorChooser.showDialog(vue, "Couleur transparente", Color.GREEN);
 		if (couleur == null)
@@ -378,16 +437,14 @@ public class ControleurImage
 		couleurARGB = UtilitaireImage.combinerComposantes(
 				255, couleur.getRed(), couleur.getGreen(), couleur.getBlue());
 
-		resultat = TraitementFusion.superposerAvecCleTransparence(
-			this.modele.getImagePrincipale(),
-			this.modele.getImageSecondaire(),
-			positionX, 
-			positionY,
-			couleurARGB, 
-			tolerance
-		);
+		secondaire = this.modele.getImageSecondaire();
+		x          = this.positionX;
+		y          = this.positionY;
 
-		this.modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer(
+			"Chroma key",
+			image -> TraitementFusion.superposerAvecCleTransparence(image, secondaire, x, y, couleurARGB, tolerance)
+		);
 	}
 
 	/**
@@ -401,7 +458,7 @@ public class ControleurImage
 
 		String        largeurStr;
 		int           largeurFondu, largeur1, largeur2 ,largeurMax;
-		BufferedImage resultat;
+		BufferedImage secondaire;
 
 		largeurStr = JOptionPane.showInputDialog(
 			this.vue,
@@ -432,13 +489,13 @@ public class ControleurImage
 				return;
 			}
 
-			resultat = TraitementFusion.juxtaposerHorizontalement(
-				this.modele.getImagePrincipale(),
-				this.modele.getImageSecondaire(),
-				largeurFondu
+			secondaire = this.modele.getImageSecondaire();
+
+			this.taches.lancer(
+				"Juxtaposition",
+				image -> TraitementFusion.juxtaposerHorizontalement(image, secondaire, largeurFondu),
+				"Images juxtaposées avec fondu de " + largeurFondu + " pixels"
 			);
-			this.modele.mettreAJourImagePrincipale(resultat);
-			this.vue.mettreAJourStatut("Images juxtaposées avec fondu de " + largeurFondu + " pixels");
 		} 
 		catch (NumberFormatException e) 
 		{
@@ -458,8 +515,8 @@ public class ControleurImage
 		if (!this.verifierImage())
 			return;
 
-		int           couleurARGB;
-		BufferedImage resultat;
+		int    couleurARGB;
+		double tolerance;
 		
 		couleurARGB = UtilitaireImage.combinerComposantes(
 			255, 
@@ -468,15 +525,9 @@ public class ControleurImage
 			couleurPeinture.getBlue()
 		);
 
-		resultat = TraitementRemplissage.remplir(
-			this.modele.getImagePrincipale(), 
-			x, 
-			y, 
-			couleurARGB, 
-			tolerancePeinture
-		);
+		tolerance = this.tolerancePeinture;
 
-		this.modele.mettreAJourImagePrincipale(resultat);
+		this.taches.lancer("Pot de peinture", image -> TraitementRemplissage.remplir(image, x, y, couleurARGB, tolerance));
 	}
 
 	/**
@@ -554,8 +605,7 @@ public class ControleurImage
 		String texte;
 		int    x, y, largeurImage, hauteurImage;
 
-		Color         couleur;
-		BufferedImage resultatImage;
+		Color couleurChoisie, couleur;
 
 		panel      = new JPanel(new GridLayout(3, 2, 10, 10));
 
@@ -611,22 +661,15 @@ public class ControleurImage
 			return;
 		}
 
-		couleur = JColorChooser.showDialog(this.vue, "Couleur du texte", Color.BLACK);
+		couleurChoisie = JColorChooser.showDialog(this.vue, "Couleur du texte", Color.BLACK);
 		
-		if (couleur == null)
-			couleur = Color.BLACK;
+		couleur = (couleurChoisie != null) ? couleurChoisie : Color.BLACK;
 
-		resultatImage = TraitementTexte.dessinerTexte(
-			this.modele.getImagePrincipale(), 
-			texte,
-			x, 
-			y, 
-			couleur, 
-			ConfigurationDefaut.TAILLE_POLICE_TEXTE
+		this.taches.lancer(
+			"Texte",
+			image -> TraitementTexte.dessinerTexte(image, texte, x, y, couleur, ConfigurationDefaut.TAILLE_POLICE_TEXTE),
+			"Texte ajoute a la position (" + x + ", " + y + ")"
 		);
-		
-		this.modele.mettreAJourImagePrincipale(resultatImage);
-		this.vue.mettreAJourStatut("Texte ajoute a la position (" + x + ", " + y + ")");
 	}
 
 	/**
@@ -647,8 +690,7 @@ public class ControleurImage
 		String texte;
 		int    x, y, largeurImage, hauteurImage;
 
-		Color         couleurTexte, couleurFond;
-		BufferedImage resultatImage;
+		Color couleurChoisie, couleurTexte, couleurFond;
 
 		panel      = new JPanel(new GridLayout(3, 2, 10, 10));
 
@@ -705,27 +747,26 @@ public class ControleurImage
 			return;
 		}
 
-		couleurTexte = JColorChooser.showDialog(this.vue, "Couleur du texte", Color.WHITE);
-		if (couleurTexte == null)
-			couleurTexte = Color.WHITE;
-
-		couleurFond = JColorChooser.showDialog(this.vue, "Couleur du fond", Color.BLACK);
-		if (couleurFond == null)
-			couleurFond = Color.BLACK;
-
-		resultatImage = TraitementTexte.dessinerTexteAvecFond(
-			this.modele.getImagePrincipale(), 
-			texte, 
-			x, 
-			y,
-			couleurTexte, 
-			couleurFond, 
-			ConfigurationDefaut.TAILLE_POLICE_TEXTE,
-			ConfigurationDefaut.MARGE_FOND_TEXTE
+		couleurChoisie = JColorChooser.showDialog(this.vue, "Couleur du texte", Color.WHITE);
+		couleurTexte   = (couleurChoisie != null) ? couleurChoisie : Color.WHITE;
+
+		couleurChoisie = JColorChooser.showDialog(this.vue, "Couleur du fond", Color.BLACK);
+		couleurFond    = (couleurChoisie != null) ? couleurChoisie : Color.BLACK;
+
+		this.taches.lancer(
+			"Texte avec fond",
+			image -> TraitementTexte.dessinerTexteAvecFond(
+				image, 
+				texte, 
+				x, 
+				y,
+				couleurTexte, 
+				couleurFond, 
+				ConfigurationDefaut.TAILLE_POLICE_TEXTE,
+				ConfigurationDefaut.MARGE_FOND_TEXTE
+			),
+			"Texte avec fond ajoute a la position (" + x + ", " + y + ")"
 		);
-
-		this.modele.mettreAJourImagePrincipale(resultatImage);
-		this.vue.mettreAJourStatut("Texte avec fond ajoute a la position (" + x + ", " + y + ")");
 	}
 
 	/**
@@ -747,7 +788,7 @@ public class ControleurImage
 		String texte;
 		int    x, y, largeurImage, hauteurImage;
 
-		BufferedImage resultatImage;
+		BufferedImage secondaire;
 
 		panel      = new JPanel(new GridLayout(3, 2, 10, 10));
 
@@ -802,17 +843,20 @@ public class ControleurImage
 			return;
 		}
 
-		resultatImage = TraitementTexte.dessinerTexteAvecCouleurImage(
-			this.modele.getImagePrincipale(),
-			this.modele.getImageSecondaire(),
-			texte,
-			x, 
-			y,
-			ConfigurationDefaut.TAILLE_POLICE_TEXTE
+		secondaire = this.modele.getImageSecondaire();
+
+		this.taches.lancer(
+			"Texte coloré",
+			image -> TraitementTexte.dessinerTexteAvecCouleurImage(
+				image,
+				secondaire,
+				texte,
+				x, 
+				y,
+				ConfigurationDefaut.TAILLE_POLICE_TEXTE
+			),
+			"Texte coloré ajouté à la position (" + x + ", " + y + ")"
 		);
-
-		this.modele.mettreAJourImagePrincipale(resultatImage);
-		this.vue.mettreAJourStatut("Texte coloré ajouté à la position (" + x + ", " + y + ")");
 	}
 
 	/**
@@ -831,6 +875,42 @@ public class ControleurImage
 		return true;
 	}
 
+	/**
+	 * Vérifie qu'une image est chargée et qu'aucun traitement n'est en cours
+	 * (son résultat serait calculé à partir d'une image périmée).
+	 * 
+	 * @return true si l'historique peut être parcouru
+	 */
+	private boolean verifierHistorique() 
+	{
+		if (!this.verifierImage())
+			return false;
+
+		if (this.taches.estOccupe()) 
+		{
+			this.vue.afficherErreur("Attendez la fin du traitement en cours");
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return La taille de l'historique, pour la barre de statut
+	 */
+	private String decrireHistorique() 
+	{
+		long disque;
+
+		disque = this.modele.getTailleHistoriqueDisque();
+
+		if (disque == 0)
+			return " (historique : " + (this.modele.getTailleHistorique() + 1023) / 1024 + " Ko)";
+
+		return " (historique : " + (this.modele.getTailleHistorique() + 1023) / 1024 + " Ko en mémoire, "
+			+ (disque + 1023) / 1024 + " Ko sur disque)";
+	}
+
 	/**
 	 * Vérifie que les deux images (principale et secondaire) sont chargées.
 	 * 
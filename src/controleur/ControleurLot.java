@@ -0,0 +1,625 @@
+package controleur;
+
+import modele.AccesRaster;
+import modele.FormatBrut;
+import modele.ImageTuilee;
+import modele.UtilitaireImage;
+import modele.traitement.PipelineTraitement;
+import modele.traitement.TraitementFusion;
+import modele.traitement.TraitementHorsMemoire;
+import modele.traitement.TraitementTexte;
+import modele.traitement.TraitementTransformation;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ============================================================================
+ * CONTRÔLEUR LOT - TRAITEMENT D'UN DOSSIER SANS INTERFACE
+ * ============================================================================
+ *
+ * Applique une même suite d'opérations à toutes les images PNG (ou brutes,
+ * ".argb", voir FormatBrut) d'un dossier et écrit les résultats dans un
+ * autre dossier (voir ApplicationLot).
+ *
+ * OPÉRATIONS (syntaxe "nom:param1,param2,...") :
+ * - rotation:ANGLE                    - miroir-horizontal, miroir-vertical
+ * - luminosite:F   - contraste:F      - teinte:D   - teinte-approx:D
+ * - gris           - negatif
+ * - superposer:FICHIER,X,Y            - superposer-alpha:FICHIER,X,Y
+ * - chroma:FICHIER,X,Y,COULEUR,TOL    - juxtaposer:FICHIER,FONDU
+ * - texte:TEXTE,X,Y,TAILLE,COULEUR    - texte-fond:TEXTE,X,Y,TAILLE,COULEUR,FOND,MARGE
+ * Les couleurs s'écrivent en hexadécimal : #RRGGBB ou #AARRGGBB.
+ *
+ * ENCHAÎNEMENT :
+ * Les opérations ponctuelles consécutives (luminosité, contraste, teinte,
+ * gris, négatif) sont regroupées dans un PipelineTraitement : un seul
+ * parcours de l'image pour toute la suite.
+ *
+ * COMPRESSION :
+ * Les PNG écrits le sont au niveau "niveauCompression" (0 à 9) : 1 pour
+ * un lot intermédiaire (écriture rapide), 9 pour des fichiers à garder
+ * (les plus petits, écriture bien plus lente ; voir EncodeurPng).
+ *
+ * HORS MÉMOIRE :
+ * Quand toutes les opérations existent aussi en version tuilée (opérations
+ * ponctuelles, superposer, superposer-alpha), un PNG d'au moins
+ * "seuilHorsMemoire" pixels n'est pas chargé dans le tas : il est lu
+ * ligne par ligne dans une ImageTuilee (fichier temporaire), traité tuile
+ * par tuile (TraitementHorsMemoire) puis écrit ligne par ligne. Par
+ * défaut, le seuil est la part de mémoire d'un travailleur (environ trois
+ * copies de l'image en mémoire) : seules les images qui n'y tiendraient
+ * pas passent par le disque. Résultats PNG seulement.
+ *
+ * TRAVAILLEURS :
+ * Chaque fichier est lu, traité puis écrit par un des "nombreTravailleurs"
+ * threads : pendant qu'un fichier est lu ou écrit sur le disque, les
+ * autres utilisent le processeur. La file d'attente est bornée : quand
+ * elle est pleine, le thread principal traite lui-même un fichier au lieu
+ * d'en lire d'autres, ce qui limite le nombre d'images en mémoire.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class ControleurLot
+{
+
+	/** Seuil hors mémoire calculé d'après la mémoire disponible */
+	public static final long SEUIL_AUTOMATIQUE = -1;
+
+	/** Octets de tas par pixel d'une image traitée en mémoire (image, copie, encodage) */
+	private static final long OCTETS_PAR_PIXEL = 12;
+
+	/** Une étape de la chaîne : reçoit l'image courante, retourne le résultat */
+	public interface EtapeLot
+	{
+		/**
+		 * @param image L'image courante (propre au fichier traité, modifiable)
+		 * @return L'image après l'étape
+		 */
+		BufferedImage appliquer(BufferedImage image);
+
+		/**
+		 * @return La même étape sur une image tuilée, ou null si elle n'existe pas
+		 */
+		default EtapeHorsMemoire horsMemoire() { return null; }
+	}
+
+	/** Une étape faite sur place sur une image tuilée (voir TraitementHorsMemoire) */
+	public interface EtapeHorsMemoire
+	{
+		/**
+		 * @param image L'image courante, modifiée sur place
+		 */
+		void appliquer(ImageTuilee image);
+	}
+
+	private final File           dossierEntree;
+	private final File           dossierSortie;
+	private final List<EtapeLot> etapes;
+	private final int            nombreTravailleurs;
+	private final String         extensionSortie;
+	private final int            niveauCompression;
+
+	/** Les étapes en version tuilée (null si l'une d'elles n'en a pas) */
+	private final List<EtapeHorsMemoire> etapesHorsMemoire;
+
+	/** Nombre de pixels à partir duquel un PNG est traité hors mémoire */
+	private final long           seuilHorsMemoire;
+
+	private final AtomicInteger  nombreReussis;
+	private final AtomicInteger  nombreEchecs;
+
+	/**
+	 * Constructeur du contrôleur de lot.
+	 *
+	 * @param dossierEntree      Dossier contenant les images PNG
+	 * @param dossierSortie      Dossier des résultats (créé si besoin)
+	 * @param operations         Les opérations, dans l'ordre (voir syntaxe ci-dessus)
+	 * @param nombreTravailleurs Nombre de fichiers traités en même temps
+	 * @param extensionSortie    Format des résultats : ".png" ou FormatBrut.EXTENSION
+	 * @param niveauCompression  Niveau de compression des PNG écrits, de 0 (le plus rapide)
+	 *                           à 9 (le plus petit) ; sans effet sur le format brut
+	 * @param seuilHorsMemoire   Nombre de pixels à partir duquel un PNG est traité hors
+	 *                           mémoire, ou SEUIL_AUTOMATIQUE
+	 * @throws IllegalArgumentException si une opération ou le niveau est invalide
+	 */
+	public ControleurLot(
+		File dossierEntree, File dossierSortie, List<String> operations,
+		int nombreTravailleurs, String extensionSortie, int niveauCompression, long seuilHorsMemoire
+	)
+	{
+		this.dossierEntree      = dossierEntree;
+		this.dossierSortie      = dossierSortie;
+		this.etapes             = ControleurLot.analyserOperations(operations);
+		this.nombreTravailleurs = Math.max(1, nombreTravailleurs);
+		this.extensionSortie    = extensionSortie;
+		this.niveauCompression  = niveauCompression;
+		this.etapesHorsMemoire  = ControleurLot.versHorsMemoire(this.etapes);
+
+		if (seuilHorsMemoire == SEUIL_AUTOMATIQUE)
+			this.seuilHorsMemoire = Runtime.getRuntime().maxMemory() / (OCTETS_PAR_PIXEL * this.nombreTravailleurs);
+		else
+			this.seuilHorsMemoire = seuilHorsMemoire;
+
+		if (niveauCompression < 0 || niveauCompression > 9)
+			throw new IllegalArgumentException("Niveau de compression invalide (0 à 9) : " + niveauCompression);
+
+		this.nombreReussis = new AtomicInteger();
+		this.nombreEchecs  = new AtomicInteger();
+	}
+
+	/**
+	 * Traite toutes les images PNG et brutes du dossier d'entrée.
+	 *
+	 * @return Le nombre de fichiers en échec ou non traités (0 si tout a réussi)
+	 * @throws IllegalArgumentException si un dossier est invalide
+	 */
+	public int executer()
+	{
+		File[]             fichiers;
+		ThreadPoolExecutor travailleurs;
+		int                reussis, echecs;
+
+		fichiers = this.dossierEntree.listFiles(
+			f -> f.isFile() && (f.getName().toLowerCase(Locale.ROOT).endsWith(".png") || FormatBrut.estFormatBrut(f.getName()))
+		);
+
+		if (fichiers == null)
+			throw new IllegalArgumentException("Dossier d'entrée illisible : " + this.dossierEntree);
+
+		if (!this.dossierSortie.isDirectory() && !this.dossierSortie.mkdirs())
+			throw new IllegalArgumentException("Impossible de créer le dossier : " + this.dossierSortie);
+
+		Arrays.sort(fichiers);
+
+		travailleurs = new ThreadPoolExecutor(
+			this.nombreTravailleurs, this.nombreTravailleurs,
+			0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(this.nombreTravailleurs),
+			new ThreadPoolExecutor.CallerRunsPolicy()
+		);
+
+		for (File fichier : fichiers)
+			travailleurs.execute(() -> this.traiterFichier(fichier));
+
+		travailleurs.shutdown();
+
+		try
+		{
+			while (!travailleurs.awaitTermination(1, TimeUnit.MINUTES))
+			{
+				// On attend la fin des derniers fichiers
+			}
+		}
+		catch (InterruptedException e)
+		{
+			travailleurs.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		reussis = this.nombreReussis.get();
+		echecs  = this.nombreEchecs.get();
+
+		System.out.println("Lot terminé : " + reussis + " réussi(s), " + echecs + " échec(s)");
+
+		// Un fichier ni réussi ni en échec : son travailleur a été tué par
+		// une erreur imprévue. Tous les fichiers non réussis sont des échecs.
+		if (reussis + echecs != fichiers.length)
+		{
+			System.err.println(
+				"ERREUR : " + (fichiers.length - reussis - echecs) + " fichier(s) non traité(s) sur " +
+				fichiers.length
+			);
+			echecs = fichiers.length - reussis;
+		}
+
+		return echecs;
+	}
+
+	/**
+	 * Lit un fichier, applique toutes les étapes et écrit le résultat.
+	 * Une erreur (y compris un manque de mémoire) n'arrête que ce fichier.
+	 */
+	private void traiterFichier(File fichier)
+	{
+		File    sortie;
+		String  nom;
+		boolean succes;
+
+		nom    = fichier.getName().substring(0, fichier.getName().lastIndexOf('.'));
+		sortie = new File(this.dossierSortie, nom + this.extensionSortie);
+
+		try
+		{
+			if (this.estHorsMemoire(fichier))
+				succes = this.traiterHorsMemoire(fichier, sortie);
+			else
+				succes = this.traiterEnMemoire(fichier, sortie);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			System.err.println("ERREUR sur " + fichier.getName() + " : " + e.getMessage());
+			succes = false;
+		}
+		catch (OutOfMemoryError e)
+		{
+			// L'image est abandonnée (plus référencée) : les autres fichiers
+			// peuvent continuer. Compté en échec, sans tuer le travailleur
+			// (ni le thread principal quand il traite lui-même un fichier).
+			System.err.println(
+				"ERREUR sur " + fichier.getName() + " : mémoire insuffisante " +
+				"(augmenter -Xmx ou réduire --travailleurs)"
+			);
+			succes = false;
+		}
+
+		if (succes)
+			this.nombreReussis.incrementAndGet();
+		else
+			this.nombreEchecs.incrementAndGet();
+	}
+
+	/**
+	 * @return true si le fichier doit être traité hors mémoire : étapes
+	 *         disponibles en version tuilée, PNG vers PNG, assez grand
+	 */
+	private boolean estHorsMemoire(File fichier) throws IOException
+	{
+		return this.etapesHorsMemoire != null
+			&& this.extensionSortie.equals(".png")
+			&& !FormatBrut.estFormatBrut(fichier.getName())
+			&& ImageTuilee.compterPixelsPng(fichier) >= this.seuilHorsMemoire;
+	}
+
+	/**
+	 * Traite un fichier chargé entièrement dans le tas.
+	 */
+	private boolean traiterEnMemoire(File fichier, File sortie)
+	{
+		BufferedImage image;
+
+		image = UtilitaireImage.ouvrirImage(fichier.getPath());
+
+		if (image == null)
+			return false;
+
+		for (EtapeLot etape : this.etapes)
+			image = etape.appliquer(image);
+
+		return UtilitaireImage.sauvegarderImage(image, sortie.getPath(), this.niveauCompression);
+	}
+
+	/**
+	 * Traite un PNG tuile par tuile, sans le charger dans le tas.
+	 */
+	private boolean traiterHorsMemoire(File fichier, File sortie) throws IOException
+	{
+		try (ImageTuilee image = ImageTuilee.importerPng(fichier))
+		{
+			for (EtapeHorsMemoire etape : this.etapesHorsMemoire)
+				etape.appliquer(image);
+
+			image.exporterPng(sortie, this.niveauCompression);
+
+			System.out.println(
+				"Image traitée hors mémoire : " + fichier.getName() +
+				" (" + image.getLargeur() + " x " + image.getHauteur() + ") -> " + sortie.getPath()
+			);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Transforme la liste des opérations en étapes.
+	 * Les opérations ponctuelles consécutives forment une seule étape.
+	 *
+	 * @param operations Les opérations ("nom:param1,param2,...")
+	 * @return Les étapes, dans l'ordre
+	 * @throws IllegalArgumentException si une opération est invalide
+	 */
+	public static List<EtapeLot> analyserOperations(List<String> operations)
+	{
+		List<EtapeLot>     etapes;
+		PipelineTraitement pipeline;
+		String             nom;
+		String[]           parametres;
+		int                separateur;
+
+		etapes   = new ArrayList<>();
+		pipeline = null;
+
+		for (String operation : operations)
+		{
+			separateur = operation.indexOf(':');
+			nom        = (separateur < 0) ? operation : operation.substring(0, separateur);
+			parametres = (separateur < 0) ? new String[0] : operation.substring(separateur + 1).split(",", -1);
+
+			if (pipeline == null)
+				pipeline = new PipelineTraitement();
+
+			if (ControleurLot.ajouterOperationPonctuelle(pipeline, nom, parametres))
+				continue;
+
+			if (!pipeline.estVide())
+				etapes.add(ControleurLot.creerEtape(pipeline));
+
+			pipeline = null;
+			etapes.add(ControleurLot.creerEtape(nom, parametres));
+		}
+
+		if (pipeline != null && !pipeline.estVide())
+			etapes.add(ControleurLot.creerEtape(pipeline));
+
+		return etapes;
+	}
+
+	/**
+	 * @return Les étapes en version tuilée, ou null si l'une d'elles n'en a pas
+	 */
+	private static List<EtapeHorsMemoire> versHorsMemoire(List<EtapeLot> etapes)
+	{
+		List<EtapeHorsMemoire> resultat;
+		EtapeHorsMemoire       horsMemoire;
+
+		resultat = new ArrayList<>();
+
+		for (EtapeLot etape : etapes)
+		{
+			horsMemoire = etape.horsMemoire();
+
+			if (horsMemoire == null)
+				return null;
+
+			resultat.add(horsMemoire);
+		}
+
+		return resultat;
+	}
+
+	/**
+	 * Assemble une étape qui existe en mémoire et en version tuilée.
+	 */
+	private static EtapeLot creerEtape(EtapeLot enMemoire, EtapeHorsMemoire horsMemoire)
+	{
+		return new EtapeLot()
+		{
+			@Override
+			public BufferedImage appliquer(BufferedImage image) { return enMemoire.appliquer(image); }
+
+			@Override
+			public EtapeHorsMemoire horsMemoire() { return horsMemoire; }
+		};
+	}
+
+	/**
+	 * Crée l'étape d'un pipeline d'opérations ponctuelles.
+	 */
+	private static EtapeLot creerEtape(PipelineTraitement pipeline)
+	{
+		return ControleurLot.creerEtape(pipeline::appliquer, image -> TraitementHorsMemoire.appliquer(image, pipeline));
+	}
+
+	/**
+	 * Ajoute une opération ponctuelle au pipeline.
+	 *
+	 * @return true si l'opération est ponctuelle (et a été ajoutée)
+	 */
+	private static boolean ajouterOperationPonctuelle(PipelineTraitement pipeline, String nom, String[] parametres)
+	{
+		switch (nom)
+		{
+			case "luminosite":
+				ControleurLot.verifierNombre(nom, parametres, 1);
+				pipeline.luminosite(ControleurLot.lireEntier(parametres[0]));
+				return true;
+
+			case "contraste":
+				ControleurLot.verifierNombre(nom, parametres, 1);
+				pipeline.contraste(ControleurLot.lireReel(parametres[0]));
+				return true;
+
+			case "teinte":
+				ControleurLot.verifierNombre(nom, parametres, 1);
+				pipeline.teinte(ControleurLot.lireEntier(parametres[0]));
+				return true;
+
+			case "teinte-approx":
+				ControleurLot.verifierNombre(nom, parametres, 1);
+				pipeline.teinteApproximative(ControleurLot.lireEntier(parametres[0]));
+				return true;
+
+			case "gris":
+				ControleurLot.verifierNombre(nom, parametres, 0);
+				pipeline.niveauxDeGris();
+				return true;
+
+			case "negatif":
+				ControleurLot.verifierNombre(nom, parametres, 0);
+				pipeline.negatif();
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Crée l'étape d'une opération non ponctuelle.
+	 * Les images secondaires (fusions) sont lues une seule fois, ici.
+	 */
+	private static EtapeLot creerEtape(String nom, String[] p)
+	{
+		BufferedImage secondaire;
+		int           x, y, angle, couleurCle, largeurFondu, taille, marge;
+		double        tolerance;
+		Color         couleur, fond;
+
+		switch (nom)
+		{
+			case "rotation":
+				ControleurLot.verifierNombre(nom, p, 1);
+				angle = ControleurLot.lireEntier(p[0]);
+
+				if (angle % 90 != 0)
+					throw new IllegalArgumentException("rotation : l'angle doit être un multiple de 90");
+
+				if (Math.floorMod(angle, 360) == 180)
+					return TraitementTransformation::pivoter180SurPlace;
+
+				return image -> TraitementTransformation.appliquerRotation(image, angle);
+
+			case "miroir-horizontal":
+				ControleurLot.verifierNombre(nom, p, 0);
+				return TraitementTransformation::miroirHorizontalSurPlace;
+
+			case "miroir-vertical":
+				ControleurLot.verifierNombre(nom, p, 0);
+				return TraitementTransformation::miroirVerticalSurPlace;
+
+			case "superposer":
+				ControleurLot.verifierNombre(nom, p, 3);
+				secondaire = ControleurLot.lireImage(p[0]);
+				x          = ControleurLot.lireEntier(p[1]);
+				y          = ControleurLot.lireEntier(p[2]);
+				return ControleurLot.creerEtape(
+					image -> TraitementFusion.superposer(image, secondaire, x, y),
+					image -> TraitementHorsMemoire.superposer(image, secondaire, x, y)
+				);
+
+			case "superposer-alpha":
+				ControleurLot.verifierNombre(nom, p, 3);
+				secondaire = ControleurLot.lireImage(p[0]);
+				x          = ControleurLot.lireEntier(p[1]);
+				y          = ControleurLot.lireEntier(p[2]);
+				return ControleurLot.creerEtape(
+					image -> TraitementFusion.superposerAvecAlpha(image, secondaire, x, y),
+					image -> TraitementHorsMemoire.superposerAvecAlpha(image, secondaire, x, y)
+				);
+
+			case "chroma":
+				ControleurLot.verifierNombre(nom, p, 5);
+				secondaire = ControleurLot.lireImage(p[0]);
+				x          = ControleurLot.lireEntier(p[1]);
+				y          = ControleurLot.lireEntier(p[2]);
+				couleurCle = ControleurLot.lireCouleur(p[3]).getRGB();
+				tolerance  = ControleurLot.lireReel(p[4]);
+				return image -> TraitementFusion.superposerAvecCleTransparence(
+					image, secondaire, x, y, couleurCle, tolerance
+				);
+
+			case "juxtaposer":
+				ControleurLot.verifierNombre(nom, p, 2);
+				secondaire   = ControleurLot.lireImage(p[0]);
+				largeurFondu = ControleurLot.lireEntier(p[1]);
+				return image -> TraitementFusion.juxtaposerHorizontalement(image, secondaire, largeurFondu);
+
+			case "texte":
+				ControleurLot.verifierNombre(nom, p, 5);
+				x       = ControleurLot.lireEntier(p[1]);
+				y       = ControleurLot.lireEntier(p[2]);
+				taille  = ControleurLot.lireEntier(p[3]);
+				couleur = ControleurLot.lireCouleur(p[4]);
+				return image -> TraitementTexte.dessinerTexte(image, p[0], x, y, couleur, taille);
+
+			case "texte-fond":
+				ControleurLot.verifierNombre(nom, p, 7);
+				x       = ControleurLot.lireEntier(p[1]);
+				y       = ControleurLot.lireEntier(p[2]);
+				taille  = ControleurLot.lireEntier(p[3]);
+				couleur = ControleurLot.lireCouleur(p[4]);
+				fond    = ControleurLot.lireCouleur(p[5]);
+				marge   = ControleurLot.lireEntier(p[6]);
+				return image -> TraitementTexte.dessinerTexteAvecFond(
+					image, p[0], x, y, couleur, fond, taille, marge
+				);
+
+			default:
+				throw new IllegalArgumentException("Opération inconnue : " + nom);
+		}
+	}
+
+	private static void verifierNombre(String nom, String[] parametres, int attendu)
+	{
+		if (parametres.length != attendu)
+		{
+			throw new IllegalArgumentException(
+				nom + " : " + attendu + " paramètre(s) attendu(s), " + parametres.length + " reçu(s)"
+			);
+		}
+	}
+
+	private static int lireEntier(String valeur)
+	{
+		try
+		{
+			return Integer.parseInt(valeur.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Nombre entier invalide : " + valeur);
+		}
+	}
+
+	private static double lireReel(String valeur)
+	{
+		try
+		{
+			return Double.parseDouble(valeur.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Nombre invalide : " + valeur);
+		}
+	}
+
+	/**
+	 * Lit une couleur "#RRGGBB" (opaque) ou "#AARRGGBB".
+	 */
+	private static Color lireCouleur(String valeur)
+	{
+		String hexa = valeur.trim();
+
+		if (hexa.startsWith("#"))
+			hexa = hexa.substring(1);
+
+		try
+		{
+			if (hexa.length() == 6)
+				return new Color(Integer.parseInt(hexa, 16));
+
+			if (hexa.length() == 8)
+				return new Color((int) Long.parseLong(hexa, 16), true);
+		}
+		catch (NumberFormatException e)
+		{
+			// Traité ci-dessous
+		}
+
+		throw new IllegalArgumentException("Couleur invalide (attendu #RRGGBB ou #AARRGGBB) : " + valeur);
+	}
+
+	/**
+	 * Lit une image secondaire, convertie une fois pour toutes en ARGB :
+	 * elle est ensuite lue par tous les travailleurs sans être copiée.
+	 */
+	private static BufferedImage lireImage(String chemin)
+	{
+		BufferedImage image = UtilitaireImage.ouvrirImage(chemin);
+
+		if (image == null)
+			throw new IllegalArgumentException("Image illisible : " + chemin);
+
+		return AccesRaster.normaliser(image);
+	}
+}
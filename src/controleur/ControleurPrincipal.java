@@ -1,5 +1,6 @@
 package controleur;
 
+import modele.EvenementModele;
 import modele.ModeleImage;
 import vue.FramePrincipal;
 
@@ -36,6 +37,9 @@ public class ControleurPrincipal implements ModeleImage.EcouteurModele
 	/** Sous-contrôleur pour les opérations sur images */
 	private final ControleurImage controleurImage;
 
+	/** Traitements en arrière-plan, partagés par les deux sous-contrôleurs */
+	private final GestionnaireTaches taches;
+
 	/**
 	 * Constructeur du contrôleur principal.
 	 * 
@@ -46,9 +50,10 @@ public class ControleurPrincipal implements ModeleImage.EcouteurModele
 	{
 		this.modele = modele;
 		this.vue    = vue;
+		this.taches = new GestionnaireTaches(this.modele, this.vue);
 
-		this.controleurFichier = new ControleurFichier(this.modele, this.vue);
-		this.controleurImage   = new ControleurImage  (this.modele, this.vue);
+		this.controleurFichier = new ControleurFichier(this.modele, this.vue, this.taches);
+		this.controleurImage   = new ControleurImage  (this.modele, this.vue, this.taches);
 	}
 
 	/**
@@ -65,21 +70,39 @@ public class ControleurPrincipal implements ModeleImage.EcouteurModele
 		this.vue.definirControleurFichier(controleurFichier);
 		this.vue.definirControleurImage(controleurImage);
 
-		this.modeleModifie();
+		this.modeleModifie(EvenementModele.imageRemplacee());
 
 		System.out.println("Contrôleur principal initialisé");
 	}
 
 	/**
 	 * Appelé quand le modèle a changé.
-	 * On met à jour la vue en conséquence.
+	 * On met à jour la vue en conséquence :
+	 * - Image remplacée : nouvelle image, nouvelle mise en page
+	 * - Pixels modifiés : seules les zones modifiées sont redessinées
+	 * - Image secondaire : rien à redessiner (le contrôleur fichier
+	 *   affiche lui-même son message)
+	 * 
+	 * @param evenement Ce qui a changé
 	 */
 	@Override
-	public void modeleModifie() 
+	public void modeleModifie(EvenementModele evenement) 
 	{
 		int largeur, hauteur;
 
-		this.vue.afficherImage(this.modele.getImagePrincipale());
+		switch (evenement.getType())
+		{
+			case IMAGE_SECONDAIRE:
+				return;
+
+			case PIXELS_MODIFIES:
+				this.vue.rafraichirImage(this.modele.getImagePrincipale(), evenement.getZones());
+				break;
+
+			default:
+				this.vue.afficherImage(this.modele.getImagePrincipale());
+				break;
+		}
 
 		if (this.modele.possedeImagePrincipale()) 
 		{
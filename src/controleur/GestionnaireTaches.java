@@ -0,0 +1,349 @@
+package controleur;
+
+import modele.EvenementModele;
+import modele.ModeleImage;
+import modele.traitement.ExecuteurTuiles;
+import modele.traitement.SuiviTraitement;
+import vue.FramePrincipal;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ============================================================================
+ * GESTIONNAIRE DE TÂCHES - TRAITEMENTS EN ARRIÈRE-PLAN
+ * ============================================================================
+ *
+ * Un traitement sur une grande image prend plusieurs secondes. Exécuté sur
+ * le thread de Swing (EDT), il fige la fenêtre : plus de rafraîchissement,
+ * plus de clic possible. Ce gestionnaire exécute les traitements sur un
+ * thread de travail et ne revient sur l'EDT que pour publier le résultat.
+ *
+ * PRINCIPE :
+ * 1. Sur l'EDT : le contrôleur lit les paramètres (dialogues) et lance la
+ *    tâche ; l'image source est lue dans le modèle à ce moment-là
+ * 2. Sur le thread de travail : la tâche calcule la nouvelle image (les
+ *    Traitement* se répartissent eux-mêmes sur les cœurs, voir
+ *    ExecuteurTuiles)
+ * 3. De retour sur l'EDT (SwingWorker.done) : le résultat est donné au
+ *    modèle, qui notifie la vue comme avant
+ *
+ * UNE TÂCHE À LA FOIS :
+ * Chaque opération part de l'image produite par la précédente : lancer une
+ * deuxième tâche avant la fin de la première la ferait travailler sur une
+ * image périmée. Une demande faite pendant une tâche est donc refusée.
+ *
+ * ANNULATION ET PROGRESSION :
+ * La tâche reçoit un SuiviTraitement (voir ExecuteurTuiles) : annuler()
+ * arrête le calcul à la fin des bandes en cours et le résultat est
+ * abandonné. Un Timer Swing lit la progression toutes les
+ * DELAI_PROGRESSION ms et l'affiche dans la barre de statut.
+ * Les opérations SUR PLACE (demi-tour, miroirs) modifient l'image du
+ * modèle : les interrompre la laisserait à moitié transformée, elles ne
+ * sont donc pas annulables (elles sont aussi les plus rapides). Ce sont des
+ * involutions (voir ModeleImage.Involution) : l'historique n'en garde
+ * aucun pixel, et l'image n'est pas copiée avant la modification.
+ *
+ * APERÇU :
+ * Un aperçu affiché pendant le réglage (voir ApercuReglage) reste visible
+ * jusqu'au résultat, puis est retiré, même si la tâche échoue ou est
+ * annulée.
+ *
+ * ZONES MODIFIÉES :
+ * Une fois le résultat calculé, le thread de travail le compare à la
+ * source, tuile par tuile (EvenementModele.comparer) : le modèle signale
+ * alors à la vue les seules zones modifiées (un pot de peinture ou un
+ * texte ne fait redessiner que quelques tuiles). Une opération sur place
+ * a déjà modifié la source : toute l'image est signalée.
+ * Si une opération sur place échoue, l'image (peut-être à moitié
+ * transformée) est publiée telle quelle et l'historique repart d'elle.
+ *
+ * IMAGE REMPLACÉE PENDANT LA TÂCHE :
+ * Si l'image principale a changé entre le lancement et la fin (ouverture
+ * d'un fichier par exemple), le résultat est ignoré.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class GestionnaireTaches
+{
+
+	/** Intervalle de rafraîchissement de la progression (ms) */
+	private static final int DELAI_PROGRESSION = 100;
+
+	/**
+	 * Opération exécutée en arrière-plan.
+	 * Elle ne doit pas toucher au modèle ni à la vue.
+	 */
+	public interface Operation
+	{
+		/**
+		 * @param image L'image principale au moment du lancement
+		 * @return La nouvelle image principale
+		 */
+		BufferedImage appliquer(BufferedImage image);
+	}
+
+	private final ModeleImage     modele;
+	private final FramePrincipal  vue;
+	private final ExecutorService travailleurs;
+	private final Timer           minuterie;
+
+	/** La tâche en cours (null si aucune), lue et modifiée uniquement sur l'EDT */
+	private TacheImage tacheEnCours;
+
+	/**
+	 * @param modele Le modèle qui reçoit les résultats
+	 * @param vue    La vue principale (progression, erreurs)
+	 */
+	public GestionnaireTaches(ModeleImage modele, FramePrincipal vue)
+	{
+		this.modele       = modele;
+		this.vue          = vue;
+		this.tacheEnCours = null;
+
+		this.travailleurs = Executors.newSingleThreadExecutor(action ->
+		{
+			Thread thread;
+
+			thread = new Thread(action, "traitement-image");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		this.minuterie = new Timer(DELAI_PROGRESSION, e -> this.afficherProgression());
+	}
+
+	/**
+	 * Lance une opération annulable sur l'image principale.
+	 *
+	 * @param nom       Nom de l'opération (barre de statut)
+	 * @param operation L'opération à exécuter
+	 * @return false si une autre tâche est en cours
+	 */
+	public boolean lancer(String nom, Operation operation)
+	{
+		return this.lancer(nom, operation, null);
+	}
+
+	/**
+	 * Lance une opération annulable sur l'image principale.
+	 *
+	 * @param nom        Nom de l'opération (barre de statut)
+	 * @param operation  L'opération à exécuter
+	 * @param messageFin Message de statut affiché une fois le résultat publié (ou null)
+	 * @return false si une autre tâche est en cours
+	 */
+	public boolean lancer(String nom, Operation operation, String messageFin)
+	{
+		if (!this.verifierDisponible())
+			return false;
+
+		this.demarrer(new TacheImage(nom, this.modele.getImagePrincipale(), operation, true, messageFin));
+
+		return true;
+	}
+
+	/**
+	 * Lance une involution qui modifie l'image principale sur place (non annulable).
+	 *
+	 * @param nom        Nom de l'opération (barre de statut)
+	 * @param involution L'involution à appliquer (demi-tour, miroir)
+	 * @return false si une autre tâche est en cours
+	 */
+	public boolean lancerSurPlace(String nom, ModeleImage.Involution involution)
+	{
+		TacheImage tache;
+
+		if (!this.verifierDisponible())
+			return false;
+
+		tache            = new TacheImage(nom, this.modele.commencerInvolution(), involution::appliquer, false, null);
+		tache.involution = involution;
+
+		this.demarrer(tache);
+
+		return true;
+	}
+
+	/**
+	 * Demande l'arrêt de la tâche en cours (sans effet si elle n'est pas annulable).
+	 */
+	public void annuler()
+	{
+		if (this.tacheEnCours != null && this.tacheEnCours.annulable)
+		{
+			this.tacheEnCours.suivi.annuler();
+			this.vue.afficherProgression(this.tacheEnCours.nom + " : annulation...", -1, false);
+		}
+	}
+
+	/**
+	 * @return true si une tâche est en cours
+	 */
+	public boolean estOccupe() { return this.tacheEnCours != null; }
+
+	private boolean verifierDisponible()
+	{
+		if (this.tacheEnCours != null)
+		{
+			this.vue.effacerApercu();
+			this.vue.afficherErreur("Traitement en cours (" + this.tacheEnCours.nom + ") : attendez sa fin ou interrompez-le");
+			return false;
+		}
+
+		return true;
+	}
+
+	private void demarrer(TacheImage tache)
+	{
+		this.tacheEnCours = tache;
+
+		this.vue.afficherProgression(tache.nom + "...", -1, tache.annulable);
+		this.minuterie.start();
+
+		this.travailleurs.execute(tache);
+	}
+
+	/**
+	 * Appelé par le Timer (EDT) : affiche la progression de la tâche en cours.
+	 */
+	private void afficherProgression()
+	{
+		double progression;
+
+		if (this.tacheEnCours == null || this.tacheEnCours.suivi.estAnnule())
+			return;
+
+		progression = this.tacheEnCours.suivi.getProgression();
+
+		this.vue.afficherProgression(
+			this.tacheEnCours.nom + "...",
+			progression < 0 ? -1 : (int) (progression * 100),
+			this.tacheEnCours.annulable
+		);
+	}
+
+	/**
+	 * Appelé sur l'EDT à la fin d'une tâche (terminée, annulée ou en erreur).
+	 */
+	private void terminer(TacheImage tache)
+	{
+		BufferedImage resultat;
+		Throwable     cause;
+
+		this.minuterie.stop();
+		this.tacheEnCours = null;
+		this.vue.masquerProgression();
+		this.vue.effacerApercu();
+
+		try
+		{
+			resultat = tache.get();
+
+			if (tache.suivi.estAnnule())
+			{
+				this.vue.mettreAJourStatut(tache.nom + " : annulé");
+				return;
+			}
+
+			if (this.modele.getImagePrincipale() != tache.source)
+			{
+				this.vue.mettreAJourStatut(tache.nom + " : résultat ignoré (l'image a été remplacée)");
+				return;
+			}
+
+			if (tache.involution != null)
+				this.modele.terminerInvolution(resultat, tache.involution);
+			else
+				this.modele.mettreAJourImagePrincipale(resultat, tache.zones);
+
+			if (tache.messageFin != null)
+				this.vue.mettreAJourStatut(tache.messageFin);
+		}
+		catch (ExecutionException e)
+		{
+			cause = e.getCause();
+
+			// Image peut-être à moitié transformée : l'historique repart d'elle
+			if (tache.involution != null && this.modele.getImagePrincipale() == tache.source)
+				this.modele.mettreAJourImagePrincipale(tache.source);
+
+			if (cause instanceof CancellationException)
+				this.vue.mettreAJourStatut(tache.nom + " : annulé");
+			else if (cause instanceof OutOfMemoryError)
+				this.vue.afficherErreur(tache.nom + " : mémoire insuffisante pour cette image");
+			else
+				this.vue.afficherErreur(tache.nom + " : " + cause.getMessage());
+		}
+		catch (InterruptedException | CancellationException e)
+		{
+			this.vue.mettreAJourStatut(tache.nom + " : annulé");
+		}
+	}
+
+	/**
+	 * Une opération en cours d'exécution.
+	 * doInBackground() tourne sur le thread de travail, done() sur l'EDT.
+	 */
+	private class TacheImage extends SwingWorker<BufferedImage, Void>
+	{
+		private final String          nom;
+		private final BufferedImage   source;
+		private final Operation       operation;
+		private final boolean         annulable;
+		private final String          messageFin;
+		private final SuiviTraitement suivi;
+
+		/** Zones modifiées (null : toute l'image), écrites avant la fin de doInBackground() */
+		private List<Rectangle> zones;
+
+		/** L'involution appliquée sur place (null pour une opération annulable) */
+		private ModeleImage.Involution involution;
+
+		TacheImage(String nom, BufferedImage source, Operation operation, boolean annulable, String messageFin)
+		{
+			this.nom        = nom;
+			this.source     = source;
+			this.operation  = operation;
+			this.annulable  = annulable;
+			this.messageFin = messageFin;
+			this.suivi      = new SuiviTraitement();
+		}
+
+		@Override
+		protected BufferedImage doInBackground()
+		{
+			BufferedImage resultat;
+
+			ExecuteurTuiles.definirSuivi(this.suivi);
+
+			try
+			{
+				resultat = this.operation.appliquer(this.source);
+			}
+			finally
+			{
+				ExecuteurTuiles.definirSuivi(null);
+			}
+
+			if (this.annulable)
+				this.zones = EvenementModele.comparer(this.source, resultat);
+
+			return resultat;
+		}
+
+		@Override
+		protected void done()
+		{
+			GestionnaireTaches.this.terminer(this);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package modele;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * ============================================================================
+ * CLASSE D'ACCÈS DIRECT AUX PIXELS D'UNE IMAGE
+ * ============================================================================
+ *
+ * Cette classe donne accès au tableau int[] qui contient réellement les
+ * pixels d'une BufferedImage de type TYPE_INT_ARGB.
+ *
+ * POURQUOI ?
+ * getRGB() / setRGB() passent par le ColorModel à CHAQUE appel :
+ * conversion, allocation d'un tableau temporaire, vérification des bornes...
+ * Sur une photo de 24 mégapixels, cela représente des millions d'appels.
+ * En travaillant directement sur le tableau, un pixel = une case du tableau.
+ *
+ * ORGANISATION DU TABLEAU :
+ * Les pixels sont rangés ligne par ligne :
+ * pixels[y * largeur + x] = couleur ARGB du pixel (x, y)
+ *
+ * REPLI :
+ * Les images d'un autre type (RGB, BGR, niveaux de gris, palette...) sont
+ * converties UNE SEULE FOIS en ARGB par un getRGB() global.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class AccesRaster
+{
+
+	/**
+	 * Vérifie si le tableau de pixels d'une image est accessible directement.
+	 *
+	 * CONDITIONS :
+	 * - Image de type TYPE_INT_ARGB
+	 * - Un seul tableau int[] (DataBufferInt, une seule banque)
+	 * - Pixels contigus : une ligne fait exactement "largeur" cases
+	 * - Raster non décalé (pas une sous-image)
+	 *
+	 * @param image L'image à tester
+	 * @return true si obtenirPixels() peut retourner le tableau de l'image
+	 */
+	public static boolean estAccessibleDirectement(BufferedImage image)
+	{
+		WritableRaster               raster;
+		DataBuffer                   donnees;
+		SinglePixelPackedSampleModel modele;
+
+		if (image == null || image.getType() != BufferedImage.TYPE_INT_ARGB)
+			return false;
+
+		raster  = image.getRaster();
+		donnees = raster.getDataBuffer();
+
+		if (!(donnees instanceof DataBufferInt) || donnees.getNumBanks() != 1 || donnees.getOffset() != 0)
+			return false;
+
+		if (!(raster.getSampleModel() instanceof SinglePixelPackedSampleModel))
+			return false;
+
+		modele = (SinglePixelPackedSampleModel) raster.getSampleModel();
+
+		return modele.getScanlineStride()         == image.getWidth() &&
+		       raster.getSampleModelTranslateX() == 0                &&
+		       raster.getSampleModelTranslateY() == 0;
+	}
+
+	/**
+	 * Retourne le tableau de pixels réel de l'image (sans copie).
+	 *
+	 * ATTENTION : modifier le tableau modifie l'image.
+	 *
+	 * @param image L'image (TYPE_INT_ARGB)
+	 * @return Le tableau de pixels, ou null si l'image n'est pas accessible directement
+	 */
+	public static int[] obtenirPixels(BufferedImage image)
+	{
+		if (!AccesRaster.estAccessibleDirectement(image))
+			return null;
+
+		return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Retourne les pixels d'une image au format ARGB, pour lecture.
+	 *
+	 * - Image TYPE_INT_ARGB : on retourne directement son tableau (aucune copie)
+	 * - Autre type : on convertit toute l'image en une seule fois avec getRGB()
+	 *
+	 * Le tableau retourné ne doit PAS être modifié (il peut être celui de l'image).
+	 *
+	 * @param image L'image à lire
+	 * @return Les pixels ARGB, ligne par ligne
+	 */
+	public static int[] lirePixels(BufferedImage image)
+	{
+		int[] pixels;
+		int   largeur, hauteur;
+
+		pixels = AccesRaster.obtenirPixels(image);
+
+		if (pixels != null)
+			return pixels;
+
+		largeur = image.getWidth();
+		hauteur = image.getHeight();
+
+		return image.getRGB(0, 0, largeur, hauteur, null, 0, largeur);
+	}
+
+	/**
+	 * Retourne une image TYPE_INT_ARGB équivalente.
+	 *
+	 * - Si l'image est déjà accessible directement, elle est retournée telle quelle
+	 * - Sinon, une nouvelle image ARGB est créée (conversion unique)
+	 *
+	 * @param image L'image à normaliser
+	 * @return Une image dont le tableau de pixels est accessible directement
+	 */
+	public static BufferedImage normaliser(BufferedImage image)
+	{
+		BufferedImage resultat;
+		int[]         pixels;
+
+		if (image == null || AccesRaster.estAccessibleDirectement(image))
+			return image;
+
+		resultat = ConversionArgb.convertir(image);
+
+		if (resultat != null)
+			return resultat;
+
+		resultat = UtilitaireImage.creerImageVide(image.getWidth(), image.getHeight());
+		pixels   = AccesRaster.obtenirPixels(resultat);
+
+		image.getRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
+
+		return resultat;
+	}
+}
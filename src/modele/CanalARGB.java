@@ -0,0 +1,101 @@
+package modele;
+
+/**
+ * ============================================================================
+ * ACCÈS AUX COMPOSANTES D'UNE COULEUR ARGB
+ * ============================================================================
+ *
+ * Méthodes statiques pour lire et assembler les composantes d'une couleur
+ * stockée dans un int, SANS créer de tableau.
+ *
+ * POURQUOI ?
+ * UtilitaireImage.extraireComposantes() crée un nouveau int[4] à chaque appel.
+ * Appelée plusieurs fois par pixel, elle crée des dizaines de millions de
+ * petits tableaux sur une image 4K. Ici tout se fait par décalages de bits :
+ * la JVM remplace ces petites méthodes par leur code (inlining).
+ *
+ * FORMAT ARGB (32 bits) :
+ * - Bits 24-31 : Alpha
+ * - Bits 16-23 : Rouge
+ * - Bits 8-15  : Vert
+ * - Bits 0-7   : Bleu
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public final class CanalARGB
+{
+	private CanalARGB() {}
+
+	/**
+	 * @param argb Couleur au format ARGB
+	 * @return La composante alpha (0-255)
+	 */
+	public static int alpha(int argb) { return argb >>> 24; }
+
+	/**
+	 * @param argb Couleur au format ARGB
+	 * @return La composante rouge (0-255)
+	 */
+	public static int rouge(int argb) { return (argb >> 16) & 0xFF; }
+
+	/**
+	 * @param argb Couleur au format ARGB
+	 * @return La composante verte (0-255)
+	 */
+	public static int vert(int argb) { return (argb >> 8) & 0xFF; }
+
+	/**
+	 * @param argb Couleur au format ARGB
+	 * @return La composante bleue (0-255)
+	 */
+	public static int bleu(int argb) { return argb & 0xFF; }
+
+	/**
+	 * Assemble quatre composantes DÉJÀ comprises entre 0 et 255.
+	 * Aucune vérification n'est faite : utiliser composerBorne() sinon.
+	 *
+	 * @return La couleur au format ARGB
+	 */
+	public static int composer(int alpha, int rouge, int vert, int bleu)
+	{
+		return (alpha << 24) | (rouge << 16) | (vert << 8) | bleu;
+	}
+
+	/**
+	 * Assemble quatre composantes en les bornant entre 0 et 255.
+	 *
+	 * @return La couleur au format ARGB
+	 */
+	public static int composerBorne(int alpha, int rouge, int vert, int bleu)
+	{
+		return CanalARGB.composer(
+			CanalARGB.borner(alpha),
+			CanalARGB.borner(rouge),
+			CanalARGB.borner(vert ),
+			CanalARGB.borner(bleu )
+		);
+	}
+
+	/**
+	 * Remplace la composante alpha d'une couleur.
+	 *
+	 * @param argb  Couleur au format ARGB
+	 * @param alpha Nouvel alpha (0-255)
+	 * @return La couleur avec le nouvel alpha
+	 */
+	public static int avecAlpha(int argb, int alpha)
+	{
+		return (alpha << 24) | (argb & 0x00FFFFFF);
+	}
+
+	/**
+	 * Borne une valeur entre 0 et 255.
+	 *
+	 * @param valeur La valeur à borner
+	 * @return La valeur ramenée dans [0, 255]
+	 */
+	public static int borner(int valeur)
+	{
+		return Math.max(0, Math.min(255, valeur));
+	}
+}
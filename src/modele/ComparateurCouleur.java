@@ -0,0 +1,126 @@
+package modele;
+
+/**
+ * ============================================================================
+ * COMPARAISON D'UNE COULEUR À UNE COULEUR DE RÉFÉRENCE
+ * ============================================================================
+ *
+ * Un comparateur est "préparé" une seule fois (couleur de référence +
+ * tolérance), puis interrogé pour chaque pixel.
+ *
+ * POURQUOI ?
+ * UtilitaireImage.distanceCouleur() calcule une racine carrée à chaque appel,
+ * seulement pour la comparer à la tolérance. Or :
+ *     √n <= tolérance   ⇔   n <= seuil
+ * où seuil est le plus grand entier n vérifiant √n <= tolérance.
+ * Ce seuil est calculé UNE fois : le test d'un pixel ne coûte plus que
+ * quelques opérations sur des entiers, avec exactement le même résultat.
+ *
+ * UTILISATION :
+ * ComparateurCouleur cle = ComparateurCouleur.euclidien(0xFF00FF00, 30);
+ * if (cle.correspond(pixel)) ...
+ *
+ * D'autres métriques peuvent être ajoutées en implémentant cette interface
+ * (voir parComposante() pour un exemple).
+ *
+ * L'alpha n'est jamais pris en compte.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public interface ComparateurCouleur
+{
+
+	/** Plus grande distance au carré possible entre deux couleurs RGB */
+	int DISTANCE_CARREE_MAX = 3 * 255 * 255;
+
+	/**
+	 * @param couleur La couleur à tester (ARGB)
+	 * @return true si la couleur est assez proche de la couleur de référence
+	 */
+	boolean correspond(int couleur);
+
+	/**
+	 * Comparateur selon la distance euclidienne RGB : la couleur correspond si
+	 * UtilitaireImage.distanceCouleur(couleur, reference) <= tolerance.
+	 *
+	 * @param reference La couleur de référence (ARGB)
+	 * @param tolerance Distance maximale (0 = couleur exacte)
+	 * @return Le comparateur
+	 */
+	static ComparateurCouleur euclidien(int reference, double tolerance)
+	{
+		int rouge, vert, bleu, seuil;
+
+		rouge = CanalARGB.rouge(reference);
+		vert  = CanalARGB.vert (reference);
+		bleu  = CanalARGB.bleu (reference);
+		seuil = ComparateurCouleur.seuilCarre(tolerance);
+
+		return couleur ->
+		{
+			int diffRouge = CanalARGB.rouge(couleur) - rouge;
+			int diffVert  = CanalARGB.vert (couleur) - vert;
+			int diffBleu  = CanalARGB.bleu (couleur) - bleu;
+
+			return diffRouge * diffRouge + diffVert * diffVert + diffBleu * diffBleu <= seuil;
+		};
+	}
+
+	/**
+	 * Comparateur composante par composante : la couleur correspond si
+	 * chaque composante s'écarte au plus de sa tolérance (boîte RGB).
+	 *
+	 * @param reference      La couleur de référence (ARGB)
+	 * @param toleranceRouge Écart maximal sur le rouge
+	 * @param toleranceVert  Écart maximal sur le vert
+	 * @param toleranceBleu  Écart maximal sur le bleu
+	 * @return Le comparateur
+	 */
+	static ComparateurCouleur parComposante(
+		int reference, int toleranceRouge, int toleranceVert, int toleranceBleu
+	)
+	{
+		int rouge, vert, bleu;
+
+		rouge = CanalARGB.rouge(reference);
+		vert  = CanalARGB.vert (reference);
+		bleu  = CanalARGB.bleu (reference);
+
+		return couleur ->
+			Math.abs(CanalARGB.rouge(couleur) - rouge) <= toleranceRouge &&
+			Math.abs(CanalARGB.vert (couleur) - vert)  <= toleranceVert  &&
+			Math.abs(CanalARGB.bleu (couleur) - bleu)  <= toleranceBleu;
+	}
+
+	/**
+	 * Convertit une tolérance (distance) en seuil sur la distance au carré.
+	 *
+	 * ALGORITHME :
+	 * 1. Estimation : seuil = partie entière de tolérance²
+	 * 2. Correction d'une unité si l'arrondi des doubles l'a faussée, pour
+	 *    que Math.sqrt(seuil) <= tolérance < Math.sqrt(seuil + 1)
+	 *
+	 * @param tolerance La distance maximale
+	 * @return Le seuil entier (-1 si aucune couleur ne peut correspondre)
+	 */
+	static int seuilCarre(double tolerance)
+	{
+		int seuil;
+
+		if (!(tolerance >= 0))
+			return -1;
+
+		if (Math.sqrt(DISTANCE_CARREE_MAX) <= tolerance)
+			return DISTANCE_CARREE_MAX;
+
+		seuil = (int) (tolerance * tolerance);
+
+		while (seuil < DISTANCE_CARREE_MAX && Math.sqrt(seuil + 1) <= tolerance)
+			seuil++;
+
+		while (seuil >= 0 && Math.sqrt(seuil) > tolerance)
+			seuil--;
+
+		return seuil;
+	}
+}
@@ -0,0 +1,281 @@
+package modele;
+
+import modele.traitement.ExecuteurTuiles;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * ============================================================================
+ * CONVERSION RAPIDE VERS TYPE_INT_ARGB
+ * ============================================================================
+ *
+ * ImageIO rend l'image dans le type qu'implique le fichier : TYPE_3BYTE_BGR,
+ * TYPE_BYTE_INDEXED, TYPE_BYTE_GRAY, ou un type "personnalisé" pour les PNG
+ * 16 bits. getRGB() convertit alors chaque pixel en passant par le
+ * ColorModel (appels virtuels, tableaux temporaires) : c'est lent.
+ *
+ * PRINCIPE (TABLES PAR COMPOSANTE) :
+ * Pour les images dont chaque composante (bande) est stockée dans un octet
+ * ou un entier 16 bits, et dont les composantes se convertissent
+ * indépendamment (sRGB ou gris, alpha non prémultiplié, palette) :
+ * 1. Pour chaque bande, on calcule une table "valeur -> contribution au
+ *    pixel ARGB" en demandant au ColorModel lui-même de convertir chaque
+ *    valeur possible (256 ou 65536) : le résultat est exactement celui de
+ *    getRGB()
+ * 2. Chaque pixel est le OU des contributions de ses bandes (plus un alpha
+ *    opaque si l'image n'a pas d'alpha)
+ * 3. Les lignes sont converties en parallèle (ExecuteurTuiles)
+ *
+ * Les images TYPE_INT_RGB et TYPE_INT_BGR sont converties directement.
+ * Pour les autres dispositions, convertir() retourne null (voir AccesRaster).
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class ConversionArgb
+{
+
+	/**
+	 * Convertit une image en une nouvelle image TYPE_INT_ARGB.
+	 *
+	 * @param image L'image à convertir
+	 * @return La nouvelle image, ou null si la disposition des pixels n'est pas prise en charge
+	 */
+	static BufferedImage convertir(BufferedImage image)
+	{
+		WritableRaster raster;
+
+		raster = image.getRaster();
+
+		// Raster partagé avec une autre image (sous-image) : cas rare, on laisse getRGB()
+		if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0)
+			return null;
+
+		switch (image.getType())
+		{
+			case BufferedImage.TYPE_INT_RGB:
+			case BufferedImage.TYPE_INT_BGR:
+				return ConversionArgb.convertirEntiers(image, image.getType() == BufferedImage.TYPE_INT_BGR);
+
+			default:
+				return ConversionArgb.convertirComposantes(image);
+		}
+	}
+
+	/**
+	 * TYPE_INT_RGB (0x00RRGGBB) et TYPE_INT_BGR (0x00BBGGRR).
+	 */
+	private static BufferedImage convertirEntiers(BufferedImage image, boolean bgr)
+	{
+		BufferedImage resultat;
+		int[]         source, destination;
+
+		source      = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		resultat    = UtilitaireImage.creerImageVide(image.getWidth(), image.getHeight());
+		destination = AccesRaster.obtenirPixels(resultat);
+
+		ExecuteurTuiles.executerPixels(destination.length, (debut, fin) ->
+		{
+			int couleur;
+
+			for (int i = debut; i < fin; i++)
+			{
+				couleur = source[i];
+
+				if (bgr)
+					couleur = ((couleur & 0xFF) << 16) | (couleur & 0xFF00) | ((couleur >> 16) & 0xFF);
+
+				destination[i] = 0xFF000000 | couleur;
+			}
+		});
+
+		return resultat;
+	}
+
+	/**
+	 * Images à composantes entrelacées (octets ou entiers 16 bits).
+	 *
+	 * ALGORITHME :
+	 * 1. Vérifier la disposition (un seul tableau, une bande par composante)
+	 * 2. Calculer les tables de chaque bande (voir calculerTables)
+	 * 3. Pour chaque pixel : OU des tables de ses bandes
+	 */
+	private static BufferedImage convertirComposantes(BufferedImage image)
+	{
+		BufferedImage        resultat;
+		ComponentSampleModel disposition;
+		DataBuffer           tampon;
+		int[][]              tables;
+		int[]                destination, decalagesBandes;
+		byte[]               octets;
+		short[]              mots;
+		int                  largeur, base, pasPixel, pasLigne, debutDonnees;
+
+		if (!(image.getSampleModel() instanceof ComponentSampleModel))
+			return null;
+
+		disposition = (ComponentSampleModel) image.getSampleModel();
+		tampon      = image.getRaster().getDataBuffer();
+
+		if (tampon.getNumBanks() != 1)
+			return null;
+
+		if (tampon instanceof DataBufferByte)
+		{
+			octets = ((DataBufferByte) tampon).getData();
+			mots   = null;
+		}
+		else if (tampon instanceof DataBufferUShort)
+		{
+			octets = null;
+			mots   = ((DataBufferUShort) tampon).getData();
+		}
+		else
+		{
+			return null;
+		}
+
+		tables = ConversionArgb.calculerTables(image.getColorModel(), disposition.getNumBands(), octets != null);
+
+		if (tables == null)
+			return null;
+
+		largeur         = image.getWidth();
+		base            = image.getColorModel().hasAlpha() ? 0 : 0xFF000000;
+		pasPixel        = disposition.getPixelStride();
+		pasLigne        = disposition.getScanlineStride();
+		decalagesBandes = disposition.getBandOffsets();
+		debutDonnees    = tampon.getOffset();
+
+		resultat    = UtilitaireImage.creerImageVide(largeur, image.getHeight());
+		destination = AccesRaster.obtenirPixels(resultat);
+
+		ExecuteurTuiles.executerLignes(image.getHeight(), largeur, (debut, fin) ->
+		{
+			int indice, couleur;
+
+			for (int y = debut; y < fin; y++)
+			{
+				for (int x = 0; x < largeur; x++)
+				{
+					indice  = debutDonnees + y * pasLigne + x * pasPixel;
+					couleur = base;
+
+					for (int b = 0; b < tables.length; b++)
+					{
+						if (octets != null)
+							couleur |= tables[b][octets[indice + decalagesBandes[b]] & 0xFF];
+						else
+							couleur |= tables[b][mots[indice + decalagesBandes[b]] & 0xFFFF];
+					}
+
+					destination[y * largeur + x] = couleur;
+				}
+			}
+		});
+
+		return resultat;
+	}
+
+	/**
+	 * Calcule, pour chaque bande, la contribution de chaque valeur au pixel ARGB.
+	 *
+	 * On demande au ColorModel de convertir un pixel où seule la bande
+	 * étudiée varie (les couleurs à 0, l'alpha au maximum) et on garde la
+	 * partie du résultat qui dépend de cette bande.
+	 *
+	 * @param modele  Le modèle de couleur de l'image
+	 * @param bandes  Nombre de bandes de l'image
+	 * @param octets  true si les composantes sont des octets, false pour 16 bits
+	 * @return Les tables, ou null si les composantes ne sont pas indépendantes
+	 */
+	private static int[][] calculerTables(ColorModel modele, int bandes, boolean octets)
+	{
+		int[][]             tables;
+		ComponentColorModel composantes;
+		ColorSpace          espace;
+		Object              pixel;
+		int                 valeurs, couleurs, masque;
+
+		valeurs = octets ? 1 << 8 : 1 << 16;
+
+		// Palette : une seule bande, la table est la palette elle-même
+		if (modele instanceof IndexColorModel)
+		{
+			if (!octets || bandes != 1 || modele.getPixelSize() != 8)
+				return null;
+
+			tables = new int[1][valeurs];
+
+			for (int i = 0; i < ((IndexColorModel) modele).getMapSize(); i++)
+				tables[0][i] = modele.getRGB(i);
+
+			return tables;
+		}
+
+		if (!(modele instanceof ComponentColorModel) || modele.isAlphaPremultiplied())
+			return null;
+
+		composantes = (ComponentColorModel) modele;
+		espace      = composantes.getColorSpace();
+		couleurs    = composantes.getNumColorComponents();
+
+		if (composantes.getNumComponents() != bandes)
+			return null;
+
+		// Seuls sRGB et le gris standard se convertissent composante par composante
+		if (!(couleurs == 3 && espace.isCS_sRGB()) && !(couleurs == 1 && espace == ColorSpace.getInstance(ColorSpace.CS_GRAY)))
+			return null;
+
+		for (int b = 0; b < bandes; b++)
+		{
+			if (composantes.getComponentSize(b) != (octets ? 8 : 16))
+				return null;
+		}
+
+		tables = new int[bandes][valeurs];
+
+		for (int b = 0; b < bandes; b++)
+		{
+			// Partie du pixel ARGB qui dépend de la bande b
+			if (b == couleurs)
+				masque = 0xFF000000;
+			else if (couleurs == 1)
+				masque = 0x00FFFFFF;
+			else
+				masque = 0xFF << (16 - 8 * b);
+
+			pixel = octets ? new byte[bandes] : new short[bandes];
+
+			if (composantes.hasAlpha() && b != couleurs)
+				ConversionArgb.fixer(pixel, couleurs, valeurs - 1);
+
+			for (int v = 0; v < valeurs; v++)
+			{
+				ConversionArgb.fixer(pixel, b, v);
+				tables[b][v] = composantes.getRGB(pixel) & masque;
+			}
+		}
+
+		return tables;
+	}
+
+	/**
+	 * Écrit une composante d'un pixel (tableau d'octets ou de shorts).
+	 */
+	private static void fixer(Object pixel, int bande, int valeur)
+	{
+		if (pixel instanceof byte[])
+			((byte[]) pixel)[bande] = (byte) valeur;
+		else
+			((short[]) pixel)[bande] = (short) valeur;
+	}
+}
@@ -0,0 +1,353 @@
+package modele;
+
+import modele.traitement.ExecuteurTuiles;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * ============================================================================
+ * DÉCODEUR PNG PARALLÈLE
+ * ============================================================================
+ *
+ * Décompresser un PNG est en principe séquentiel : le flux deflate ne peut
+ * être lu que du début à la fin, et chaque ligne se décode à partir de la
+ * précédente. Les PNG écrits par EncodeurPng font exception : leurs
+ * segments de lignes sont indépendants et leur position est notée dans le
+ * chunk privé "dpIX" (voir EncodeurPng, SEGMENTS INDÉPENDANTS).
+ *
+ * ALGORITHME :
+ * 1. Lire le fichier compressé d'un bloc et parcourir les chunks : en-tête,
+ *    position des chunks IDAT, index des segments
+ * 2. Pour chaque segment, en parallèle (ExecuteurTuiles) : décompresser à
+ *    partir de sa position, annuler les filtres ligne par ligne et écrire
+ *    les pixels ARGB directement dans le tableau de l'image
+ * 3. Combiner les sommes Adler-32 des segments et les comparer à celle de
+ *    la fin du flux zlib : un fichier abîmé est détecté
+ *
+ * Pour les autres PNG (sans index, entrelacés, à palette, 16 bits...),
+ * lire() retourne null : UtilitaireImage utilise alors ImageIO.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class DecodeurPng
+{
+
+	/**
+	 * Lit un PNG écrit par EncodeurPng, en décodant ses segments en parallèle.
+	 *
+	 * @param fichier Le fichier à lire
+	 * @return Une nouvelle image TYPE_INT_ARGB, ou null si le fichier n'a pas
+	 *         d'index de segments ou n'est pas dans un format pris en charge
+	 * @throws IOException si le fichier est illisible, tronqué ou incohérent
+	 */
+	public static BufferedImage lire(File fichier) throws IOException
+	{
+		ByteBuffer    contenu;
+		BufferedImage resultat;
+		int[]         pixels, debutsChunks, longueursChunks;
+		long[]        positionsChunks, positionsSegments, sommes;
+		long          taille, positionFlux, adler, attendu;
+		int           nombreChunks, position, longueur, type, lignesParSegment, nombreSegments;
+		int           largeur, hauteur, typeCouleur;
+
+		// Lu d'un bloc dans le tas, pas projeté : une projection (MappedByteBuffer)
+		// ne se libère qu'au passage du ramasse-miettes, et sous Windows le
+		// fichier resterait verrouillé (impossible de l'enregistrer à nouveau
+		// sous le même nom juste après l'avoir ouvert)
+		taille = Files.size(fichier.toPath());
+
+		if (taille > Integer.MAX_VALUE - 8 || taille < LecteurPngLignes.SIGNATURE.length + 25)
+			return null;
+
+		contenu = ByteBuffer.wrap(Files.readAllBytes(fichier.toPath()));
+
+		// En-tête : signature puis IHDR
+		for (int i = 0; i < LecteurPngLignes.SIGNATURE.length; i++)
+		{
+			if (contenu.get(i) != LecteurPngLignes.SIGNATURE[i])
+				return null;
+		}
+
+		position = LecteurPngLignes.SIGNATURE.length;
+
+		if (contenu.getInt(position) != 13 || contenu.getInt(position + 4) != LecteurPngLignes.CHUNK_IHDR)
+			return null;
+
+		largeur     = contenu.getInt(position + 8);
+		hauteur     = contenu.getInt(position + 12);
+		typeCouleur = contenu.get(position + 17) & 0xFF;
+
+		if (contenu.get(position + 16) != 8 || contenu.get(position + 20) != 0
+			|| typeCouleur == LecteurPngLignes.TYPE_PALETTE || LecteurPngLignes.octetsParPixel(typeCouleur) == 0
+			|| largeur <= 0 || hauteur <= 0 || (long) largeur * hauteur > Integer.MAX_VALUE - 8)
+			return null;
+
+		// Chunks : position des IDAT dans le fichier et dans le flux zlib, index des segments
+		debutsChunks      = new int[16];
+		longueursChunks   = new int[16];
+		positionsChunks   = new long[16];
+		positionsSegments = null;
+		lignesParSegment  = 0;
+		nombreChunks      = 0;
+		positionFlux      = 0;
+
+		position += 8 + 13 + 4;
+
+		while (true)
+		{
+			if (position + 8 > contenu.capacity())
+				throw new EOFException("Fichier PNG tronqué : " + fichier);
+
+			longueur = contenu.getInt(position);
+			type     = contenu.getInt(position + 4);
+
+			if (longueur < 0 || (long) position + 12 + longueur > contenu.capacity())
+				throw new EOFException("Fichier PNG tronqué : " + fichier);
+
+			if (type == LecteurPngLignes.CHUNK_IEND)
+				break;
+
+			if (type == LecteurPngLignes.CHUNK_IDAT)
+			{
+				if (nombreChunks == debutsChunks.length)
+				{
+					debutsChunks    = Arrays.copyOf(debutsChunks,    nombreChunks * 2);
+					longueursChunks = Arrays.copyOf(longueursChunks, nombreChunks * 2);
+					positionsChunks = Arrays.copyOf(positionsChunks, nombreChunks * 2);
+				}
+
+				debutsChunks   [nombreChunks] = position + 8;
+				longueursChunks[nombreChunks] = longueur;
+				positionsChunks[nombreChunks] = positionFlux;
+
+				positionFlux += longueur;
+				nombreChunks++;
+			}
+			else if (type == EncodeurPng.CHUNK_INDEX && longueur >= 12 && (longueur - 4) % 8 == 0)
+			{
+				lignesParSegment  = contenu.getInt(position + 8);
+				positionsSegments = new long[(longueur - 4) / 8];
+
+				for (int s = 0; s < positionsSegments.length; s++)
+					positionsSegments[s] = contenu.getLong(position + 12 + 8 * s);
+			}
+
+			position += 12 + longueur;
+		}
+
+		if (positionsSegments == null || lignesParSegment <= 0)
+			return null;
+
+		nombreSegments = positionsSegments.length;
+
+		if (nombreSegments != (hauteur + lignesParSegment - 1) / lignesParSegment)
+			throw new IOException("Index de segments incohérent : " + fichier);
+
+		for (int s = 0; s < nombreSegments; s++)
+		{
+			if (positionsSegments[s] < 2 || positionsSegments[s] >= positionFlux
+				|| (s > 0 && positionsSegments[s] <= positionsSegments[s - 1]))
+				throw new IOException("Index de segments incohérent : " + fichier);
+		}
+
+		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+		pixels   = AccesRaster.obtenirPixels(resultat);
+
+		sommes   = new long[nombreSegments];
+
+		try
+		{
+			DecodeurPng.decoderSegments(
+				contenu, debutsChunks, longueursChunks, positionsChunks, nombreChunks,
+				positionsSegments, lignesParSegment, largeur, hauteur, typeCouleur, pixels, sommes
+			);
+		}
+		catch (UncheckedIOException e)
+		{
+			throw new IOException(e.getCause().getMessage() + " : " + fichier, e.getCause());
+		}
+
+		// Somme Adler-32 : 4 derniers octets du flux zlib
+		adler   = 1;
+		attendu = 0;
+
+		for (int s = 0; s < nombreSegments; s++)
+		{
+			adler = EncodeurPng.combinerAdler(
+				adler, sommes[s],
+				(long) (Math.min(hauteur, (s + 1) * lignesParSegment) - s * lignesParSegment)
+					* (1 + largeur * LecteurPngLignes.octetsParPixel(typeCouleur))
+			);
+		}
+
+		for (long p = positionFlux - 4; p < positionFlux; p++)
+			attendu = (attendu << 8) | DecodeurPng.octetFlux(contenu, debutsChunks, longueursChunks, positionsChunks, nombreChunks, p);
+
+		if (adler != attendu)
+			throw new IOException("Données PNG corrompues (somme Adler-32) : " + fichier);
+
+		return resultat;
+	}
+
+	/**
+	 * Répartit les segments sur les cœurs.
+	 *
+	 * @param sommes Reçoit la somme Adler-32 des données décompressées de chaque segment
+	 * @throws UncheckedIOException si un segment est illisible
+	 */
+	private static void decoderSegments(
+		ByteBuffer contenu, int[] debuts, int[] longueurs, long[] positions, int chunks,
+		long[] segments, int lignesParSegment, int largeur, int hauteur, int typeCouleur, int[] pixels, long[] sommes
+	)
+	{
+		ExecuteurTuiles.executer(segments.length, 1, (debut, fin) ->
+		{
+			for (int s = debut; s < fin; s++)
+			{
+				try
+				{
+					sommes[s] = DecodeurPng.decoderSegment(
+						contenu, debuts, longueurs, positions, chunks, segments[s],
+						s * lignesParSegment, Math.min(hauteur, (s + 1) * lignesParSegment), largeur, typeCouleur, pixels
+					);
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Décode les lignes [yDebut, yFin[, qui forment un segment.
+	 *
+	 * @param contenu        Le contenu du fichier
+	 * @param debuts         Position des données de chaque chunk IDAT dans le fichier
+	 * @param longueurs      Longueur de chaque chunk IDAT
+	 * @param positions      Position de chaque chunk IDAT dans le flux zlib
+	 * @param chunks         Nombre de chunks IDAT
+	 * @param positionFlux   Position du segment dans le flux zlib
+	 * @param pixels         Le tableau de pixels de l'image
+	 * @return La somme Adler-32 des données décompressées du segment
+	 */
+	private static long decoderSegment(
+		ByteBuffer contenu, int[] debuts, int[] longueurs, long[] positions, int chunks, long positionFlux,
+		int yDebut, int yFin, int largeur, int typeCouleur, int[] pixels
+	) throws IOException
+	{
+		Inflater decompresseur;
+		Adler32  somme;
+		byte[]   filtre, ligne, precedente, echange;
+		int      chunk, decalage, octetsParPixel;
+
+		octetsParPixel = LecteurPngLignes.octetsParPixel(typeCouleur);
+		filtre         = new byte[1];
+		ligne          = new byte[largeur * octetsParPixel];
+		precedente     = new byte[largeur * octetsParPixel];
+		decompresseur  = new Inflater(true);
+		somme          = new Adler32();
+
+		// Chunk IDAT qui contient le début du segment
+		chunk = 0;
+
+		while (positions[chunk] + longueurs[chunk] <= positionFlux)
+			chunk++;
+
+		decalage = (int) (positionFlux - positions[chunk]);
+
+		try
+		{
+			decompresseur.setInput(contenu.slice(debuts[chunk] + decalage, longueurs[chunk] - decalage));
+
+			for (int y = yDebut; y < yFin; y++)
+			{
+				chunk = DecodeurPng.decompresser(decompresseur, filtre, contenu, debuts, longueurs, chunks, chunk);
+				chunk = DecodeurPng.decompresser(decompresseur, ligne,  contenu, debuts, longueurs, chunks, chunk);
+
+				somme.update(filtre);
+				somme.update(ligne);
+
+				// La première ligne d'un segment ne peut pas dépendre de la ligne du dessus
+				if (y == yDebut && yDebut > 0 && filtre[0] > 1)
+					throw new IOException("Segment PNG dépendant du précédent (ligne " + y + ")");
+
+				LecteurPngLignes.defiltrer(filtre[0], ligne, precedente, octetsParPixel);
+				LecteurPngLignes.convertir(ligne, typeCouleur, null, pixels, y * largeur, largeur);
+
+				echange    = precedente;
+				precedente = ligne;
+				ligne      = echange;
+			}
+		}
+		finally
+		{
+			decompresseur.end();
+		}
+
+		return somme.getValue();
+	}
+
+	/**
+	 * @return L'octet du flux zlib à la position donnée
+	 */
+	private static int octetFlux(ByteBuffer contenu, int[] debuts, int[] longueurs, long[] positions, int chunks, long position)
+	{
+		int chunk = 0;
+
+		while (chunk < chunks - 1 && positions[chunk] + longueurs[chunk] <= position)
+			chunk++;
+
+		return contenu.get(debuts[chunk] + (int) (position - positions[chunk])) & 0xFF;
+	}
+
+	/**
+	 * Remplit un tableau avec les octets décompressés suivants, en passant
+	 * au chunk IDAT suivant quand le courant est épuisé.
+	 *
+	 * @return Le chunk IDAT en cours après la lecture
+	 */
+	private static int decompresser(
+		Inflater decompresseur, byte[] tampon, ByteBuffer contenu, int[] debuts, int[] longueurs, int chunks, int chunk
+	) throws IOException
+	{
+		int lus;
+
+		lus = 0;
+
+		try
+		{
+			while (lus < tampon.length)
+			{
+				lus += decompresseur.inflate(tampon, lus, tampon.length - lus);
+
+				if (lus < tampon.length && decompresseur.needsInput())
+				{
+					if (++chunk >= chunks)
+						throw new EOFException("Données PNG tronquées");
+
+					decompresseur.setInput(contenu.slice(debuts[chunk], longueurs[chunk]));
+				}
+				else if (lus < tampon.length && (decompresseur.finished() || decompresseur.needsDictionary()))
+				{
+					throw new EOFException("Données PNG tronquées");
+				}
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Données PNG corrompues", e);
+		}
+
+		return chunk;
+	}
+}
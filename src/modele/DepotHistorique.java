@@ -0,0 +1,128 @@
+package modele;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ============================================================================
+ * DÉPÔT SUR DISQUE DES ÉTAPES DE L'HISTORIQUE
+ * ============================================================================
+ *
+ * Les étapes anciennes de l'historique (voir HistoriqueImage) quittent la
+ * mémoire pour un fichier temporaire, et y reviennent quand on en a besoin.
+ *
+ * ORGANISATION D'UN FICHIER (entiers de 4 octets, gros-boutiste) :
+ * - "HIST" (signature), puis la version (1)
+ * - Le nombre de tuiles n
+ * - La taille de chacune des n tuiles compressées
+ * - Les n tuiles compressées, bout à bout
+ * Les numéros des tuiles et les dimensions de l'image restent en mémoire
+ * (quelques octets par tuile) : le fichier ne contient que les données.
+ *
+ * Le dossier temporaire est créé à la première écriture ; il est supprimé
+ * avec ses fichiers à l'arrêt de l'application.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class DepotHistorique
+{
+
+	private static final int SIGNATURE = ('H' << 24) | ('I' << 16) | ('S' << 8) | 'T';
+
+	private static final int VERSION = 1;
+
+	private static final int TAILLE_TAMPON = 1 << 16;
+
+	/** Le dossier des fichiers (null tant que rien n'a été écrit) */
+	private Path dossier;
+
+	/** Numéro du prochain fichier */
+	private long numero;
+
+	/**
+	 * Écrit les tuiles d'une étape dans un nouveau fichier.
+	 *
+	 * @param tuiles Les tuiles compressées
+	 * @return Le fichier écrit
+	 * @throws IOException en cas d'erreur d'écriture (disque plein par exemple)
+	 */
+	synchronized Path ecrire(byte[][] tuiles) throws IOException
+	{
+		Path fichier;
+
+		if (this.dossier == null)
+		{
+			this.dossier = Files.createTempDirectory("historique-image");
+			this.dossier.toFile().deleteOnExit();
+		}
+
+		fichier = this.dossier.resolve("etape-" + this.numero++ + ".hist");
+		fichier.toFile().deleteOnExit();
+
+		try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(fichier), TAILLE_TAMPON)))
+		{
+			sortie.writeInt(SIGNATURE);
+			sortie.writeInt(VERSION);
+			sortie.writeInt(tuiles.length);
+
+			for (byte[] tuile : tuiles)
+				sortie.writeInt(tuile.length);
+
+			for (byte[] tuile : tuiles)
+				sortie.write(tuile);
+		}
+
+		return fichier;
+	}
+
+	/**
+	 * Relit les tuiles d'une étape.
+	 *
+	 * @param fichier Le fichier écrit par ecrire()
+	 * @param nombre  Le nombre de tuiles attendu
+	 * @return Les tuiles compressées
+	 * @throws IOException si le fichier est illisible ou ne correspond pas
+	 */
+	byte[][] lire(Path fichier, int nombre) throws IOException
+	{
+		byte[][] tuiles;
+
+		try (DataInputStream entree = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichier), TAILLE_TAMPON)))
+		{
+			if (entree.readInt() != SIGNATURE || entree.readInt() != VERSION || entree.readInt() != nombre)
+				throw new IOException("Fichier d'historique invalide : " + fichier);
+
+			tuiles = new byte[nombre][];
+
+			for (int i = 0; i < nombre; i++)
+				tuiles[i] = new byte[entree.readInt()];
+
+			for (byte[] tuile : tuiles)
+				entree.readFully(tuile);
+		}
+
+		return tuiles;
+	}
+
+	/**
+	 * Supprime un fichier d'étape (sans erreur s'il n'existe plus).
+	 *
+	 * @param fichier Le fichier à supprimer
+	 */
+	void supprimer(Path fichier)
+	{
+		try
+		{
+			Files.deleteIfExists(fichier);
+		}
+		catch (IOException e)
+		{
+			// Le fichier sera supprimé à l'arrêt de l'application
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package modele;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * ============================================================================
+ * ÉCRITURE D'UN FICHIER PNG LIGNE PAR LIGNE
+ * ============================================================================
+ *
+ * Pendant de LecteurPngLignes : l'image est écrite une ligne à la fois,
+ * sans jamais être entièrement en mémoire (voir ImageTuilee).
+ *
+ * FORMAT ÉCRIT :
+ * RGBA 8 bits, non entrelacé. Chaque ligne est filtrée avec "Sub" (chaque
+ * octet moins celui du pixel de gauche) : sur une photo, les différences
+ * sont petites et se compressent mieux que les valeurs brutes.
+ * Les données compressées sont découpées en chunks IDAT de TAILLE_IDAT octets.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class EcrivainPngLignes implements Closeable
+{
+
+	/** Taille maximale des données d'un chunk IDAT */
+	static final int TAILLE_IDAT = 1 << 16;
+
+	private final DataOutputStream     sortie;
+	private final DeflaterOutputStream donnees;
+	private final Deflater             compresseur;
+
+	private final int    largeur, hauteur;
+	private final byte[] ligne;
+
+	private int lignesEcrites;
+
+	/**
+	 * Crée le fichier et écrit l'en-tête PNG.
+	 *
+	 * @param fichier Le fichier à créer (remplacé s'il existe)
+	 * @param largeur Largeur de l'image
+	 * @param hauteur Hauteur de l'image
+	 * @param niveau  Niveau de compression, de 0 (le plus rapide) à 9 (le plus petit)
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	EcrivainPngLignes(File fichier, int largeur, int hauteur, int niveau) throws IOException
+	{
+		DataOutputStream entete;
+
+		this.largeur       = largeur;
+		this.hauteur       = hauteur;
+		this.ligne         = new byte[1 + 4 * largeur];
+		this.lignesEcrites = 0;
+
+		this.sortie = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fichier), 1 << 16));
+		this.sortie.write(LecteurPngLignes.SIGNATURE);
+
+		entete = new DataOutputStream(new ChunkSortie(this.sortie, LecteurPngLignes.CHUNK_IHDR, 13));
+		entete.writeInt(largeur);
+		entete.writeInt(hauteur);
+		entete.writeByte(8);                              // 8 bits par composante
+		entete.writeByte(LecteurPngLignes.TYPE_RGBA);
+		entete.writeByte(0);                              // compression deflate
+		entete.writeByte(0);                              // filtrage adaptatif
+		entete.writeByte(0);                              // non entrelacé
+		entete.close();
+
+		this.compresseur = new Deflater(niveau);
+		this.donnees     = new DeflaterOutputStream(
+			new ChunkSortie(this.sortie, LecteurPngLignes.CHUNK_IDAT, TAILLE_IDAT),
+			this.compresseur, 1 << 16
+		);
+	}
+
+	/**
+	 * Écrit la ligne suivante.
+	 *
+	 * @param pixels   Les pixels ARGB
+	 * @param decalage Indice du premier pixel de la ligne dans "pixels"
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	void ecrireLigne(int[] pixels, int decalage) throws IOException
+	{
+		int couleur, precedent, i;
+
+		if (this.lignesEcrites >= this.hauteur)
+			throw new IOException("Toutes les lignes ont déjà été écrites");
+
+		this.ligne[0] = 1;                                // filtre Sub
+		precedent     = 0;
+		i             = 1;
+
+		for (int x = 0; x < this.largeur; x++)
+		{
+			couleur = pixels[decalage + x];
+
+			this.ligne[i++] = (byte) ((couleur >> 16) - (precedent >> 16));
+			this.ligne[i++] = (byte) ((couleur >>  8) - (precedent >>  8));
+			this.ligne[i++] = (byte) ( couleur        -  precedent       );
+			this.ligne[i++] = (byte) ((couleur >> 24) - (precedent >> 24));
+
+			precedent = couleur;
+		}
+
+		this.donnees.write(this.ligne);
+		this.lignesEcrites++;
+	}
+
+	/**
+	 * Termine la compression, écrit le chunk IEND et ferme le fichier.
+	 *
+	 * @throws IOException si toutes les lignes n'ont pas été écrites
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			this.donnees.close();
+			this.compresseur.end();
+
+			new ChunkSortie(this.sortie, LecteurPngLignes.CHUNK_IEND, 0).close();
+		}
+		finally
+		{
+			this.sortie.close();
+		}
+
+		if (this.lignesEcrites != this.hauteur)
+			throw new IOException("Image incomplète : " + this.lignesEcrites + " lignes sur " + this.hauteur);
+	}
+
+	/**
+	 * Flux qui découpe ce qu'on y écrit en chunks d'un type donné
+	 * (longueur, type, données, CRC). Fermer ce flux écrit le dernier chunk
+	 * mais ne ferme pas le fichier. Aussi utilisé par EncodeurPng.
+	 */
+	static class ChunkSortie extends OutputStream
+	{
+		private final DataOutputStream sortie;
+		private final int              type;
+		private final byte[]           tampon;
+		private final CRC32            crc;
+
+		private int     taille;
+		private boolean chunkEcrit;
+
+		ChunkSortie(DataOutputStream sortie, int type, int tailleMax)
+		{
+			this.sortie     = sortie;
+			this.type       = type;
+			this.tampon     = new byte[tailleMax];
+			this.crc        = new CRC32();
+			this.taille     = 0;
+			this.chunkEcrit = false;
+		}
+
+		@Override
+		public void write(int octet) throws IOException
+		{
+			this.write(new byte[] { (byte) octet }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] octets, int debut, int longueur) throws IOException
+		{
+			int copie;
+
+			while (longueur > 0)
+			{
+				if (this.taille == this.tampon.length)
+					this.ecrireChunk();
+
+				copie = Math.min(longueur, this.tampon.length - this.taille);
+				System.arraycopy(octets, debut, this.tampon, this.taille, copie);
+
+				this.taille += copie;
+				debut       += copie;
+				longueur    -= copie;
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (this.taille > 0 || !this.chunkEcrit)
+				this.ecrireChunk();
+		}
+
+		private void ecrireChunk() throws IOException
+		{
+			this.crc.reset();
+			this.crc.update(this.type >>> 24);
+			this.crc.update(this.type >>> 16);
+			this.crc.update(this.type >>>  8);
+			this.crc.update(this.type);
+			this.crc.update(this.tampon, 0, this.taille);
+
+			this.sortie.writeInt(this.taille);
+			this.sortie.writeInt(this.type);
+			this.sortie.write(this.tampon, 0, this.taille);
+			this.sortie.writeInt((int) this.crc.getValue());
+
+			this.taille     = 0;
+			this.chunkEcrit = true;
+		}
+	}
+}
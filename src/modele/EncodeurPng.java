@@ -0,0 +1,446 @@
+package modele;
+
+import modele.traitement.ExecuteurTuiles;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * ============================================================================
+ * ENCODEUR PNG PARALLÈLE
+ * ============================================================================
+ *
+ * ImageIO filtre et compresse un PNG sur un seul thread : sauvegarder une
+ * grande image prend plusieurs secondes. Cet encodeur découpe l'image en
+ * segments de lignes compressés en parallèle, à la manière de pigz.
+ *
+ * PRINCIPE :
+ * Les données d'un PNG forment UN flux zlib. Un flux deflate peut pourtant
+ * être la suite de morceaux compressés séparément, à condition que chaque
+ * morceau (sauf le dernier) se termine par un vidage SYNC_FLUSH : il finit
+ * alors sur une frontière d'octet, sans marquer la fin du flux.
+ *
+ * ALGORITHME (pour chaque segment, en parallèle) :
+ * 1. Filtrer les lignes du segment (voir FILTRES)
+ * 2. Compresser avec un nouveau compresseur (SYNC_FLUSH, ou FINISH pour
+ *    le dernier segment)
+ * 3. Calculer la somme Adler-32 du segment
+ * Puis, dans l'ordre : écrire les segments dans les chunks IDAT et combiner
+ * les sommes Adler-32 pour la fin du flux zlib.
+ *
+ * SEGMENTS INDÉPENDANTS :
+ * Aucun segment ne fait référence au précédent : ni dans la compression
+ * (pas de dictionnaire commun), ni dans les filtres (la première ligne d'un
+ * segment n'utilise que None ou Sub, qui ne lisent pas la ligne du dessus).
+ * Le fichier grossit un peu (moins de 1 % sur une photo), mais chaque
+ * segment peut être décodé seul : la position de chaque segment est notée
+ * dans un chunk privé "dpIX" (CHUNK_INDEX) que DecodeurPng utilise pour
+ * lire en parallèle.
+ * Les autres logiciels ignorent ce chunk.
+ *
+ * FILTRES :
+ * Pour chaque ligne, les cinq filtres PNG (None, Sub, Up, Average, Paeth)
+ * sont évalués et on garde celui dont la somme des valeurs absolues des
+ * octets filtrés est la plus petite (heuristique recommandée par la norme).
+ * Au niveau 0 (aucune compression), les lignes ne sont pas filtrées.
+ *
+ * FORMAT ÉCRIT :
+ * RGBA 8 bits, ou RGB 8 bits si tous les pixels sont opaques.
+ * Le fichier est un PNG standard, lisible par ImageIO.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class EncodeurPng
+{
+
+	/** Niveau de compression utilisé par défaut (comme zlib) */
+	public static final int NIVEAU_PAR_DEFAUT = 6;
+
+	/** Taille visée des données filtrées d'un segment */
+	private static final int OCTETS_PAR_SEGMENT = 1 << 20;
+
+	/**
+	 * Chunk privé "dpIX" : nombre de lignes par segment (4 octets), puis la
+	 * position de chaque segment dans le flux zlib (8 octets chacune).
+	 * Le nom suit les règles PNG : auxiliaire, privé, à ne pas recopier si
+	 * l'image est modifiée par un autre logiciel.
+	 */
+	static final int CHUNK_INDEX = LecteurPngLignes.type("dpIX");
+
+	/** Nombre de segments compressés avant écriture, par thread */
+	private static final int SEGMENTS_PAR_THREAD = 4;
+
+	/** Octet de type de filtre en tête de chaque ligne */
+	private static final int FILTRE_AUCUN   = 0;
+	private static final int FILTRE_SUB     = 1;
+	private static final int FILTRE_UP      = 2;
+	private static final int FILTRE_AVERAGE = 3;
+	private static final int FILTRE_PAETH   = 4;
+
+	/** Modulo de la somme Adler-32 */
+	private static final int BASE_ADLER = 65521;
+
+	/**
+	 * Écrit une image au format PNG, au niveau de compression par défaut.
+	 *
+	 * @see #ecrire(BufferedImage, File, int)
+	 */
+	public static void ecrire(BufferedImage image, File fichier) throws IOException
+	{
+		EncodeurPng.ecrire(image, fichier, NIVEAU_PAR_DEFAUT);
+	}
+
+	/**
+	 * Écrit une image au format PNG (le fichier est remplacé s'il existe).
+	 *
+	 * @param image   L'image à écrire (de n'importe quel type)
+	 * @param fichier Le fichier de destination
+	 * @param niveau  Niveau de compression, de 0 (aucune, le plus rapide)
+	 *                à 9 (fichier le plus petit)
+	 * @throws IOException en cas d'erreur d'écriture
+	 * @throws IllegalArgumentException si le niveau n'est pas entre 0 et 9
+	 */
+	public static void ecrire(BufferedImage image, File fichier, int niveau) throws IOException
+	{
+		DataOutputStream entete;
+		int[]            pixels;
+		byte[][]         segments;
+		long[]           sommes, positions;
+		long             adler, position;
+		int              largeur, hauteur, octetsParPixel, lignesParSegment, nombreSegments, parVague;
+
+		if (niveau < 0 || niveau > 9)
+			throw new IllegalArgumentException("Niveau de compression invalide : " + niveau);
+
+		pixels         = AccesRaster.lirePixels(image);
+		largeur        = image.getWidth();
+		hauteur        = image.getHeight();
+		octetsParPixel = EncodeurPng.estOpaque(pixels) ? 3 : 4;
+
+		lignesParSegment = Math.max(1, OCTETS_PAR_SEGMENT / (1 + octetsParPixel * largeur));
+		nombreSegments   = (hauteur + lignesParSegment - 1) / lignesParSegment;
+		parVague         = ExecuteurTuiles.getParallelisme() * SEGMENTS_PAR_THREAD;
+
+		segments = new byte[nombreSegments][];
+		sommes    = new long[nombreSegments];
+		positions = new long[nombreSegments];
+		adler     = 1;
+		position  = 2;
+
+		try (DataOutputStream sortie = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(fichier), 1 << 16)))
+		{
+			sortie.write(LecteurPngLignes.SIGNATURE);
+
+			entete = new DataOutputStream(new EcrivainPngLignes.ChunkSortie(sortie, LecteurPngLignes.CHUNK_IHDR, 13));
+			entete.writeInt(largeur);
+			entete.writeInt(hauteur);
+			entete.writeByte(8);
+			entete.writeByte(octetsParPixel == 4 ? LecteurPngLignes.TYPE_RGBA : LecteurPngLignes.TYPE_RGB);
+			entete.writeByte(0);
+			entete.writeByte(0);
+			entete.writeByte(0);
+			entete.close();
+
+			try (EcrivainPngLignes.ChunkSortie idat = new EcrivainPngLignes.ChunkSortie(
+				sortie, LecteurPngLignes.CHUNK_IDAT, EcrivainPngLignes.TAILLE_IDAT))
+			{
+				idat.write(new byte[] { 0x78, (byte) 0xDA });   // en-tête zlib (fenêtre de 32 Ko)
+
+				// Vagues de segments : la mémoire utilisée ne dépend pas de la taille de l'image
+				for (int vague = 0; vague < nombreSegments; vague += parVague)
+				{
+					int premier = vague;
+
+					ExecuteurTuiles.executer(Math.min(parVague, nombreSegments - vague), 1, (debut, fin) ->
+					{
+						for (int s = premier + debut; s < premier + fin; s++)
+						{
+							EncodeurPng.compresserSegment(
+								pixels, largeur, hauteur, octetsParPixel, niveau,
+								s, lignesParSegment, s == nombreSegments - 1, segments, sommes
+							);
+						}
+					});
+
+					for (int s = vague; s < Math.min(vague + parVague, nombreSegments); s++)
+					{
+						positions[s] = position;
+						position    += segments[s].length;
+
+						idat.write(segments[s]);
+						adler = EncodeurPng.combinerAdler(
+							adler, sommes[s], EncodeurPng.tailleFiltree(largeur, hauteur, octetsParPixel, s, lignesParSegment)
+						);
+						segments[s] = null;
+					}
+				}
+
+				idat.write(new byte[] { (byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler });
+			}
+
+			entete = new DataOutputStream(new EcrivainPngLignes.ChunkSortie(sortie, CHUNK_INDEX, 4 + 8 * nombreSegments));
+			entete.writeInt(lignesParSegment);
+
+			for (long p : positions)
+				entete.writeLong(p);
+
+			entete.close();
+
+			new EcrivainPngLignes.ChunkSortie(sortie, LecteurPngLignes.CHUNK_IEND, 0).close();
+		}
+	}
+
+	/**
+	 * Filtre et compresse un segment de lignes.
+	 *
+	 * @param segment  Numéro du segment
+	 * @param dernier  true pour le dernier segment (termine le flux deflate)
+	 * @param segments Reçoit les données compressées du segment
+	 * @param sommes   Reçoit la somme Adler-32 des données filtrées du segment
+	 */
+	private static void compresserSegment(
+		int[] pixels, int largeur, int hauteur, int octetsParPixel, int niveau,
+		int segment, int lignesParSegment, boolean dernier, byte[][] segments, long[] sommes
+	)
+	{
+		Deflater compresseur;
+		Adler32  somme;
+		byte[]   donnees, resultat;
+		int      taille, produits;
+
+		donnees = EncodeurPng.filtrer(
+			pixels, largeur, octetsParPixel, segment * lignesParSegment,
+			Math.min(hauteur, (segment + 1) * lignesParSegment), niveau > 0
+		);
+
+		compresseur = new Deflater(niveau, true);
+
+		try
+		{
+			compresseur.setInput(donnees);
+
+			if (dernier)
+				compresseur.finish();
+
+			resultat = new byte[donnees.length / 2 + 64];
+			taille   = 0;
+
+			while (true)
+			{
+				if (taille == resultat.length)
+					resultat = Arrays.copyOf(resultat, resultat.length * 2);
+
+				produits = compresseur.deflate(
+					resultat, taille, resultat.length - taille, dernier ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH
+				);
+				taille  += produits;
+
+				// Terminé : flux fini (dernier segment) ou vidage complet (tampon non rempli)
+				if (dernier ? compresseur.finished() : taille < resultat.length)
+					break;
+			}
+		}
+		finally
+		{
+			compresseur.end();
+		}
+
+		somme = new Adler32();
+		somme.update(donnees);
+
+		segments[segment] = Arrays.copyOf(resultat, taille);
+		sommes[segment]   = somme.getValue();
+	}
+
+	/**
+	 * Filtre les lignes [yDebut, yFin[ de l'image.
+	 *
+	 * @param adaptatif true : meilleur des cinq filtres par ligne ; false : aucun filtre
+	 * @return Les lignes filtrées, chacune précédée de son type de filtre
+	 */
+	private static byte[] filtrer(int[] pixels, int largeur, int octetsParPixel, int yDebut, int yFin, boolean adaptatif)
+	{
+		byte[]   resultat, ligne, precedente, echange;
+		byte[][] candidats;
+		int      octetsParLigne;
+
+		octetsParLigne = octetsParPixel * largeur;
+		resultat       = new byte[(yFin - yDebut) * (1 + octetsParLigne)];
+		ligne          = new byte[octetsParPixel + octetsParLigne];
+		precedente     = new byte[octetsParPixel + octetsParLigne];
+		candidats      = adaptatif ? new byte[FILTRE_PAETH + 1][octetsParLigne] : null;
+
+		for (int y = yDebut; y < yFin; y++)
+		{
+			EncodeurPng.convertirLigne(pixels, y * largeur, largeur, octetsParPixel, ligne);
+			EncodeurPng.filtrerLigne(
+				ligne, precedente, y > yDebut, octetsParPixel, candidats, resultat, (y - yDebut) * (1 + octetsParLigne)
+			);
+
+			echange    = precedente;
+			precedente = ligne;
+			ligne      = echange;
+		}
+
+		return resultat;
+	}
+
+	/**
+	 * Convertit une ligne de pixels ARGB en octets PNG (R, G, B [, A]).
+	 *
+	 * Les octetsParPixel premiers octets de "ligne" restent nuls : ce pixel
+	 * fictif à gauche de la ligne évite de tester le bord dans filtrerLigne.
+	 */
+	private static void convertirLigne(int[] pixels, int decalage, int largeur, int octetsParPixel, byte[] ligne)
+	{
+		int couleur, i;
+
+		i = octetsParPixel;
+
+		for (int x = 0; x < largeur; x++)
+		{
+			couleur = pixels[decalage + x];
+
+			ligne[i++] = (byte) (couleur >> 16);
+			ligne[i++] = (byte) (couleur >>  8);
+			ligne[i++] = (byte)  couleur;
+
+			if (octetsParPixel == 4)
+				ligne[i++] = (byte) (couleur >> 24);
+		}
+	}
+
+	/**
+	 * Choisit le filtre d'une ligne et l'écrit, filtrée, à la position donnée.
+	 *
+	 * ALGORITHME :
+	 * 1. Un seul passage calcule la ligne filtrée par les cinq filtres à la
+	 *    fois (dans "candidats") et, pour chacun, la somme des valeurs
+	 *    absolues des octets filtrés (octets vus comme signés)
+	 * 2. La ligne de plus petite somme est copiée dans la sortie
+	 *
+	 * @param ligne      La ligne, précédée d'un pixel nul (voir convertirLigne)
+	 * @param precedente La ligne du dessus, dans le même format
+	 * @param dessus     false pour la première ligne d'un segment : seuls None
+	 *                   et Sub sont permis (voir SEGMENTS INDÉPENDANTS)
+	 * @param candidats  Cinq lignes de travail, une par filtre (null si non adaptatif)
+	 */
+	private static void filtrerLigne(
+		byte[] ligne, byte[] precedente, boolean dessus, int octetsParPixel, byte[][] candidats, byte[] sortie, int position
+	)
+	{
+		byte[] sub, up, average, paeth;
+		long   sommeAucun, sommeSub, sommeUp, sommeAverage, sommePaeth, meilleureSomme;
+		int    filtre, a, b, c, x, j, longueur;
+
+		longueur = ligne.length - octetsParPixel;
+
+		if (candidats == null)
+		{
+			sortie[position] = FILTRE_AUCUN;
+			System.arraycopy(ligne, octetsParPixel, sortie, position + 1, longueur);
+			return;
+		}
+
+		sub     = candidats[FILTRE_SUB];
+		up      = candidats[FILTRE_UP];
+		average = candidats[FILTRE_AVERAGE];
+		paeth   = candidats[FILTRE_PAETH];
+
+		sommeAucun = sommeSub = sommeUp = sommeAverage = sommePaeth = 0;
+
+		for (int i = octetsParPixel; i < ligne.length; i++)
+		{
+			j = i - octetsParPixel;
+			x = ligne[i] & 0xFF;
+			a = ligne[j] & 0xFF;
+			b = precedente[i] & 0xFF;
+			c = precedente[j] & 0xFF;
+
+			sub[j]     = (byte) (x - a);
+			up[j]      = (byte) (x - b);
+			average[j] = (byte) (x - ((a + b) >> 1));
+			paeth[j]   = (byte) (x - LecteurPngLignes.paeth(a, b, c));
+
+			sommeAucun   += Math.abs(ligne[i]);
+			sommeSub     += Math.abs(sub[j]);
+			sommeUp      += Math.abs(up[j]);
+			sommeAverage += Math.abs(average[j]);
+			sommePaeth   += Math.abs(paeth[j]);
+		}
+
+		filtre         = FILTRE_AUCUN;
+		meilleureSomme = sommeAucun;
+
+		if (sommeSub < meilleureSomme) { filtre = FILTRE_SUB; meilleureSomme = sommeSub; }
+
+		if (dessus)
+		{
+			if (sommeUp < meilleureSomme)      { filtre = FILTRE_UP;      meilleureSomme = sommeUp;      }
+			if (sommeAverage < meilleureSomme) { filtre = FILTRE_AVERAGE; meilleureSomme = sommeAverage; }
+			if (sommePaeth < meilleureSomme)   { filtre = FILTRE_PAETH;                                  }
+		}
+
+		sortie[position] = (byte) filtre;
+		if (filtre == FILTRE_AUCUN)
+			System.arraycopy(ligne, octetsParPixel, sortie, position + 1, longueur);
+		else
+			System.arraycopy(candidats[filtre], 0, sortie, position + 1, longueur);
+	}
+
+	/**
+	 * @return Nombre d'octets filtrés (non compressés) d'un segment
+	 */
+	private static long tailleFiltree(int largeur, int hauteur, int octetsParPixel, int segment, int lignesParSegment)
+	{
+		int lignes = Math.min(hauteur - segment * lignesParSegment, lignesParSegment);
+
+		return (long) lignes * (1 + octetsParPixel * largeur);
+	}
+
+	/**
+	 * Somme Adler-32 de la concaténation de deux blocs, à partir des sommes
+	 * de chaque bloc (même calcul que adler32_combine de zlib).
+	 *
+	 * @param adler1  Somme du premier bloc
+	 * @param adler2  Somme du second bloc
+	 * @param taille2 Taille du second bloc en octets
+	 */
+	static long combinerAdler(long adler1, long adler2, long taille2)
+	{
+		long reste, somme1, somme2;
+
+		reste  = taille2 % BASE_ADLER;
+		somme1 = adler1 & 0xFFFF;
+		somme2 = (reste * somme1) % BASE_ADLER;
+
+		somme1 += (adler2 & 0xFFFF) + BASE_ADLER - 1;
+		somme2 += (adler1 >>> 16) + (adler2 >>> 16) + BASE_ADLER - reste;
+
+		somme1 %= BASE_ADLER;
+		somme2 %= BASE_ADLER;
+
+		return (somme2 << 16) | somme1;
+	}
+
+	/**
+	 * @return true si aucun pixel n'est transparent (on peut écrire en RGB)
+	 */
+	private static boolean estOpaque(int[] pixels)
+	{
+		for (int couleur : pixels)
+		{
+			if ((couleur >>> 24) != 0xFF)
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,290 @@
+package modele;
+
+import modele.traitement.ExecuteurTuiles;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ============================================================================
+ * ÉVÉNEMENT DU MODÈLE - NATURE DU CHANGEMENT ET ZONES MODIFIÉES
+ * ============================================================================
+ *
+ * Transmis aux écouteurs du modèle (voir ModeleImage.EcouteurModele) pour
+ * qu'ils ne refassent que le nécessaire : un pot de peinture ou un texte ne
+ * touche que quelques tuiles, inutile de redessiner toute l'image ni de
+ * recalculer la mise en page.
+ *
+ * TYPES :
+ * - IMAGE_REMPLACEE : nouvelle image principale ou dimensions changées
+ *   (ouverture, quart de tour, juxtaposition) : tout est à refaire
+ * - PIXELS_MODIFIES : mêmes dimensions, seuls les pixels des zones ont pu
+ *   changer (l'objet BufferedImage peut être nouveau)
+ * - IMAGE_SECONDAIRE : seule l'image secondaire a changé
+ *
+ * ZONES :
+ * Rectangles en coordonnées de l'image, alignés sur des tuiles de
+ * COTE_ZONE pixels. Les tuiles modifiées voisines sur une même rangée sont
+ * regroupées, puis les bandes identiques de rangées successives. Au-delà
+ * de MAX_ZONES rectangles, une seule zone englobante est transmise.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public final class EvenementModele
+{
+
+	/** Côté des tuiles comparées (le même que celui de l'historique) */
+	public static final int COTE_ZONE = HistoriqueImage.COTE_TUILE;
+
+	/** Nombre de rectangles au-delà duquel on ne garde que la zone englobante */
+	public static final int MAX_ZONES = 64;
+
+	/**
+	 * Nature du changement.
+	 */
+	public enum Type
+	{
+		IMAGE_REMPLACEE,
+		PIXELS_MODIFIES,
+		IMAGE_SECONDAIRE
+	}
+
+	private final Type            type;
+	private final List<Rectangle> zones;
+
+	private EvenementModele(Type type, List<Rectangle> zones)
+	{
+		this.type  = type;
+		this.zones = Collections.unmodifiableList(zones);
+	}
+
+	/**
+	 * @return Un événement « nouvelle image principale » (ou plus d'image)
+	 */
+	public static EvenementModele imageRemplacee()
+	{
+		return new EvenementModele(Type.IMAGE_REMPLACEE, Collections.emptyList());
+	}
+
+	/**
+	 * @return Un événement « image secondaire changée »
+	 */
+	public static EvenementModele imageSecondaire()
+	{
+		return new EvenementModele(Type.IMAGE_SECONDAIRE, Collections.emptyList());
+	}
+
+	/**
+	 * @param zones   Les zones modifiées (null : toute l'image)
+	 * @param limites Le rectangle de l'image (les zones y sont rognées)
+	 * @return Un événement « pixels modifiés »
+	 */
+	static EvenementModele pixelsModifies(List<Rectangle> zones, Rectangle limites)
+	{
+		List<Rectangle> rognees;
+		Rectangle       zone;
+
+		if (zones == null)
+			return new EvenementModele(Type.PIXELS_MODIFIES, Collections.singletonList(new Rectangle(limites)));
+
+		rognees = new ArrayList<>(zones.size());
+
+		for (Rectangle z : zones)
+		{
+			zone = z.intersection(limites);
+
+			if (!zone.isEmpty())
+				rognees.add(zone);
+		}
+
+		return new EvenementModele(Type.PIXELS_MODIFIES, EvenementModele.limiter(rognees));
+	}
+
+	/**
+	 * @return La nature du changement
+	 */
+	public Type getType() { return this.type; }
+
+	/**
+	 * @return Les zones modifiées (coordonnées de l'image, non modifiable) ;
+	 *         vide sauf pour PIXELS_MODIFIES
+	 */
+	public List<Rectangle> getZones() { return this.zones; }
+
+	/**
+	 * @return Le plus petit rectangle contenant toutes les zones (vide s'il n'y en a pas)
+	 */
+	public Rectangle getZoneEnglobante()
+	{
+		return EvenementModele.englober(this.zones);
+	}
+
+	/**
+	 * Compare deux images tuile par tuile (en parallèle).
+	 *
+	 * Une tuile est abandonnée dès le premier pixel différent : une image
+	 * entièrement modifiée se compare presque sans coût, une petite
+	 * modification demande une lecture complète (quelques ms par
+	 * mégapixel, sur le thread de travail).
+	 *
+	 * @param avant L'image avant le traitement
+	 * @param apres L'image après le traitement
+	 * @return Les zones modifiées, ou null si les dimensions diffèrent
+	 */
+	public static List<Rectangle> comparer(BufferedImage avant, BufferedImage apres)
+	{
+		boolean[] modifiees;
+		int[]     pixelsAvant, pixelsApres;
+		int       largeur, hauteur, colonnes, rangees;
+
+		if (avant == null || apres == null
+			|| avant.getWidth() != apres.getWidth() || avant.getHeight() != apres.getHeight())
+			return null;
+
+		if (avant == apres)
+			return Collections.emptyList();
+
+		largeur  = avant.getWidth();
+		hauteur  = avant.getHeight();
+		colonnes = (largeur + COTE_ZONE - 1) / COTE_ZONE;
+		rangees  = (hauteur + COTE_ZONE - 1) / COTE_ZONE;
+
+		pixelsAvant = AccesRaster.lirePixels(avant);
+		pixelsApres = AccesRaster.lirePixels(apres);
+		modifiees   = new boolean[colonnes * rangees];
+
+		ExecuteurTuiles.executer(modifiees.length, 1, (debut, fin) ->
+		{
+			for (int t = debut; t < fin; t++)
+				modifiees[t] = EvenementModele.tuileModifiee(pixelsAvant, pixelsApres, largeur, hauteur, colonnes, t);
+		});
+
+		return EvenementModele.regrouper(modifiees, colonnes, largeur, hauteur);
+	}
+
+	private static boolean tuileModifiee(int[] pixelsAvant, int[] pixelsApres, int largeur, int hauteur, int colonnes, int tuile)
+	{
+		int x0, y0, l, h, indice;
+
+		x0 = (tuile % colonnes) * COTE_ZONE;
+		y0 = (tuile / colonnes) * COTE_ZONE;
+		l  = Math.min(COTE_ZONE, largeur - x0);
+		h  = Math.min(COTE_ZONE, hauteur - y0);
+
+		for (int y = 0; y < h; y++)
+		{
+			indice = (y0 + y) * largeur + x0;
+
+			for (int x = 0; x < l; x++)
+			{
+				if (pixelsAvant[indice + x] != pixelsApres[indice + x])
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Transforme des tuiles modifiées en rectangles.
+	 *
+	 * ALGORITHME :
+	 * 1. Sur chaque rangée, les tuiles modifiées consécutives forment une bande
+	 * 2. Une bande de mêmes abscisses qu'une bande de la rangée précédente
+	 *    prolonge son rectangle vers le bas
+	 * 3. Au-delà de MAX_ZONES rectangles : la zone englobante
+	 *
+	 * @param modifiees Une case par tuile, rangée par rangée
+	 * @param colonnes  Nombre de tuiles par rangée
+	 * @return Les rectangles (rognés aux dimensions de l'image)
+	 */
+	static List<Rectangle> regrouper(boolean[] modifiees, int colonnes, int largeur, int hauteur)
+	{
+		List<Rectangle> zones, precedentes, courantes;
+		Rectangle       bande, prolongee;
+		int             rangees, debut;
+
+		zones       = new ArrayList<>();
+		precedentes = new ArrayList<>();
+		rangees     = modifiees.length / colonnes;
+
+		for (int r = 0; r < rangees; r++)
+		{
+			courantes = new ArrayList<>();
+			debut     = -1;
+
+			for (int c = 0; c <= colonnes; c++)
+			{
+				if (c < colonnes && modifiees[r * colonnes + c])
+				{
+					if (debut < 0)
+						debut = c;
+					continue;
+				}
+
+				if (debut < 0)
+					continue;
+
+				bande = new Rectangle(
+					debut * COTE_ZONE, r * COTE_ZONE,
+					Math.min(c * COTE_ZONE, largeur) - debut * COTE_ZONE,
+					Math.min((r + 1) * COTE_ZONE, hauteur) - r * COTE_ZONE
+				);
+
+				prolongee = null;
+
+				for (Rectangle precedente : precedentes)
+				{
+					if (precedente.x == bande.x && precedente.width == bande.width)
+						prolongee = precedente;
+				}
+
+				if (prolongee != null)
+				{
+					prolongee.height += bande.height;
+					courantes.add(prolongee);
+				}
+				else
+				{
+					zones.add(bande);
+					courantes.add(bande);
+				}
+
+				debut = -1;
+			}
+
+			precedentes = courantes;
+		}
+
+		return EvenementModele.limiter(zones);
+	}
+
+	/**
+	 * Remplace une liste trop longue par sa zone englobante.
+	 */
+	private static List<Rectangle> limiter(List<Rectangle> zones)
+	{
+		if (zones.size() <= MAX_ZONES)
+			return zones;
+
+		return Collections.singletonList(EvenementModele.englober(zones));
+	}
+
+	private static Rectangle englober(List<Rectangle> zones)
+	{
+		Rectangle englobante;
+
+		if (zones.isEmpty())
+			return new Rectangle();
+
+		englobante = new Rectangle(zones.get(0));
+
+		for (Rectangle zone : zones)
+			englobante.add(zone);
+
+		return englobante;
+	}
+}
@@ -0,0 +1,221 @@
+package modele;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ============================================================================
+ * FORMAT BRUT ".argb" : PIXELS SANS COMPRESSION
+ * ============================================================================
+ *
+ * Lire ou écrire un PNG de 50 mégapixels prend plusieurs secondes
+ * (compression deflate, filtres, conversion des couleurs). Ce format
+ * contient les pixels tels qu'ils sont en mémoire : lire ou écrire revient
+ * à copier un bloc d'octets entre le fichier et le tableau de l'image.
+ *
+ * UTILISATION :
+ * Copie de travail et fichiers intermédiaires d'une suite de traitements ;
+ * le PNG reste le format d'échange (entrée et sortie finales).
+ * UtilitaireImage.ouvrirImage() / sauvegarderImage() choisissent ce format
+ * quand le nom du fichier se termine par EXTENSION.
+ *
+ * ORGANISATION DU FICHIER (entiers de 4 octets, petit-boutiste) :
+ * - Octets 0 à 3   : "ARGB" (signature)
+ * - Octets 4 à 7   : version (1)
+ * - Octets 8 à 11  : largeur
+ * - Octets 12 à 15 : hauteur
+ * - Puis largeur x hauteur pixels ARGB, ligne par ligne
+ *
+ * PROJECTION EN MÉMOIRE :
+ * Le fichier est projeté (FileChannel.map) et copié d'un bloc dans le
+ * tableau de pixels de l'image (voir AccesRaster). Une projection ne peut
+ * pas dépasser 2 Go : les grandes images sont copiées par SEGMENT_OCTETS.
+ *
+ * REMPLACEMENT D'UN FICHIER :
+ * Une projection ne se libère qu'au passage du ramasse-miettes ; sous
+ * Windows, le fichier reste verrouillé jusque-là et ne peut pas être
+ * tronqué. Pour pouvoir enregistrer sous le nom d'un fichier qu'on vient
+ * d'ouvrir, ecrire() écrit un fichier temporaire dans le même dossier puis
+ * le renomme à la place de la destination (Files.move) : le fichier
+ * existant n'est jamais réécrit, et n'est remplacé qu'une fois la
+ * nouvelle image complète.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class FormatBrut
+{
+
+	/** Extension des fichiers bruts */
+	public static final String EXTENSION = ".argb";
+
+	/** "ARGB" lu comme un entier petit-boutiste */
+	private static final int SIGNATURE = 'A' | ('R' << 8) | ('G' << 16) | ('B' << 24);
+
+	private static final int VERSION = 1;
+
+	/** Taille de l'en-tête en octets */
+	private static final int TAILLE_ENTETE = 16;
+
+	/** Taille maximale d'une projection (multiple de 4) */
+	private static final int SEGMENT_OCTETS = 1 << 30;
+
+	/**
+	 * @param chemin Le chemin d'un fichier
+	 * @return true si le fichier porte l'extension du format brut
+	 */
+	public static boolean estFormatBrut(String chemin)
+	{
+		return chemin.toLowerCase().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Lit une image au format brut.
+	 *
+	 * @param fichier Le fichier à lire
+	 * @return Une nouvelle image TYPE_INT_ARGB
+	 * @throws IOException si le fichier est illisible ou n'est pas au format brut
+	 */
+	public static BufferedImage lire(File fichier) throws IOException
+	{
+		BufferedImage resultat;
+		ByteBuffer    entete;
+		int           largeur, hauteur;
+		long          tailleAttendue;
+
+		try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.READ))
+		{
+			entete = ByteBuffer.allocate(TAILLE_ENTETE).order(ByteOrder.LITTLE_ENDIAN);
+
+			while (entete.hasRemaining())
+			{
+				if (canal.read(entete) < 0)
+					throw new IOException("Fichier brut tronqué : " + fichier);
+			}
+
+			entete.flip();
+
+			if (entete.getInt() != SIGNATURE || entete.getInt() != VERSION)
+				throw new IOException("Ce n'est pas un fichier " + EXTENSION + " : " + fichier);
+
+			largeur = entete.getInt();
+			hauteur = entete.getInt();
+
+			tailleAttendue = TAILLE_ENTETE + 4L * largeur * hauteur;
+
+			if (largeur <= 0 || hauteur <= 0 || (long) largeur * hauteur > Integer.MAX_VALUE - 8)
+				throw new IOException("Dimensions invalides : " + largeur + " x " + hauteur);
+
+			if (canal.size() < tailleAttendue)
+				throw new IOException("Fichier brut tronqué : " + fichier);
+
+			resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+
+			FormatBrut.copier(canal, FileChannel.MapMode.READ_ONLY, AccesRaster.obtenirPixels(resultat));
+		}
+
+		return resultat;
+	}
+
+	/**
+	 * Écrit une image au format brut (le fichier est remplacé s'il existe,
+	 * même s'il est encore projeté par une lecture : voir REMPLACEMENT).
+	 *
+	 * @param image   L'image à écrire (de n'importe quel type)
+	 * @param fichier Le fichier de destination
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	public static void ecrire(BufferedImage image, File fichier) throws IOException
+	{
+		ByteBuffer entete;
+		Path       destination, temporaire;
+		int[]      pixels;
+
+		pixels      = AccesRaster.lirePixels(image);
+		destination = fichier.toPath().toAbsolutePath();
+		temporaire  = Files.createTempFile(destination.getParent(), destination.getFileName().toString(), ".tmp");
+
+		try
+		{
+			try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				entete = ByteBuffer.allocate(TAILLE_ENTETE).order(ByteOrder.LITTLE_ENDIAN);
+				entete.putInt(SIGNATURE).putInt(VERSION).putInt(image.getWidth()).putInt(image.getHeight());
+				entete.flip();
+
+				while (entete.hasRemaining())
+					canal.write(entete, entete.position());
+
+				FormatBrut.copier(canal, FileChannel.MapMode.READ_WRITE, pixels);
+			}
+
+			FormatBrut.remplacer(temporaire, destination);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			try
+			{
+				Files.deleteIfExists(temporaire);
+			}
+			catch (IOException suppression)
+			{
+				e.addSuppressed(suppression);
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Renomme le fichier temporaire à la place de la destination : en une
+	 * seule opération quand le système le permet, sinon par un simple
+	 * remplacement.
+	 */
+	private static void remplacer(Path temporaire, Path destination) throws IOException
+	{
+		try
+		{
+			Files.move(temporaire, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temporaire, destination, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Copie les pixels entre le fichier (après l'en-tête) et le tableau,
+	 * segment par segment.
+	 *
+	 * @param canal  Le fichier ouvert
+	 * @param mode   READ_ONLY : fichier -> tableau ; READ_WRITE : tableau -> fichier
+	 * @param pixels Le tableau de pixels de l'image
+	 */
+	private static void copier(FileChannel canal, FileChannel.MapMode mode, int[] pixels) throws IOException
+	{
+		MappedByteBuffer segment;
+		int              pixelsParSegment, nombre;
+
+		pixelsParSegment = SEGMENT_OCTETS / 4;
+
+		for (int debut = 0; debut < pixels.length; debut += pixelsParSegment)
+		{
+			nombre  = Math.min(pixelsParSegment, pixels.length - debut);
+			segment = canal.map(mode, TAILLE_ENTETE + 4L * debut, 4L * nombre);
+
+			if (mode == FileChannel.MapMode.READ_ONLY)
+				segment.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(pixels, debut, nombre);
+			else
+				segment.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(pixels, debut, nombre);
+		}
+	}
+}
@@ -0,0 +1,1018 @@
+package modele;
+
+import modele.traitement.ExecuteurTuiles;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ============================================================================
+ * HISTORIQUE ANNULER / RÉTABLIR PAR TUILES MODIFIÉES
+ * ============================================================================
+ *
+ * Garder une copie complète de l'image à chaque étape coûterait 200 Mo par
+ * étape pour une image de 50 mégapixels. Or un pot de peinture ou un texte
+ * ne modifie qu'une petite partie de l'image : l'historique ne garde que les
+ * tuiles qui ont changé, compressées.
+ *
+ * PRINCIPE (TUILES EN OU EXCLUSIF) :
+ * L'image est découpée en tuiles de COTE_TUILE x COTE_TUILE pixels. Pour
+ * une étape A -> B de mêmes dimensions, on garde, pour chaque tuile
+ * modifiée, A XOR B :
+ * - B XOR (A XOR B) = A : appliquer l'étape à B redonne A (annuler)
+ * - A XOR (A XOR B) = B : appliquer la même étape à A redonne B (rétablir)
+ * Une seule étape sert donc dans les deux sens. Dans une tuile peu
+ * modifiée, presque toutes les valeurs sont nulles et la compression
+ * (deflate) les réduit à presque rien.
+ *
+ * CHANGEMENT DE DIMENSIONS (rotation d'un quart de tour, juxtaposition) :
+ * Le XOR n'a plus de sens : l'étape garde toutes les tuiles de A. En
+ * l'annulant, on calcule l'étape inverse (toutes les tuiles de B).
+ *
+ * INVOLUTIONS (demi-tour, miroirs) :
+ * Une transformation qui est sa propre inverse n'a besoin d'aucun pixel :
+ * l'étape garde seulement la transformation, et l'annuler (ou la
+ * rétablir) revient à l'appliquer de nouveau, sur place. Pour que l'image
+ * principale soit modifiée sans copie, l'historique lâche d'abord sa vue
+ * sur l'état courant (lacherEtatCourant), puis enregistre l'étape
+ * (enregistrerInvolution). Si l'involution n'est pas enregistrée (échec),
+ * l'enregistrement suivant fait repartir l'historique de l'image.
+ *
+ * CALCUL EN ARRIÈRE-PLAN :
+ * Comparer et compresser une grande image prend du temps : c'est fait sur
+ * un thread dédié (tuiles réparties sur les cœurs par ExecuteurTuiles).
+ * Les deux états sont tenus par des vues ImageCopieSurEcriture : tant que
+ * le calcul n'est pas fini, personne ne peut les modifier sans les copier.
+ * Annuler une étape pas encore calculée attend la fin de son calcul.
+ *
+ * ÉTAT ENREGISTRÉ :
+ * L'historique garde une vue partagée sur le dernier état enregistré : une
+ * modification sur place de l'image principale la copie d'abord, et l'état
+ * précédent reste disponible pour calculer l'étape.
+ *
+ * BUDGET MÉMOIRE ET DÉBORDEMENT SUR DISQUE :
+ * Une rotation ou un filtre sur toute l'image produit une étape de
+ * plusieurs dizaines de Mo : quelques-unes suffiraient à remplir la
+ * mémoire. Les étapes en mémoire sont donc limitées (PROPRIETE_BUDGET, en
+ * Mo) ; au-delà, les moins récemment utilisées sont écrites dans un fichier
+ * temporaire (voir DepotHistorique) et leurs données quittent la mémoire.
+ * Seuls restent les numéros des tuiles, pour les relire à la demande.
+ * - Fenêtre LRU : chaque étape porte la date de sa dernière utilisation
+ *   (création, annulation, rétablissement, préchargement)
+ * - Préchargement : après chaque annulation ou rétablissement, les
+ *   PRECHARGEMENT étapes voisines de chaque côté sont relues en
+ *   arrière-plan, pour que le prochain Ctrl+Z / Ctrl+Y ne lise pas le disque.
+ *   Ces étapes voisines ne quittent jamais la mémoire : le budget peut être
+ *   dépassé d'au plus 2 x PRECHARGEMENT étapes
+ * - Le disque est lui aussi limité (PROPRIETE_BUDGET_DISQUE, en Mo) :
+ *   au-delà, les étapes les plus anciennes sont oubliées (puis les
+ *   rétablissements les plus lointains). Les étapes restantes forment
+ *   toujours une chaîne continue depuis l'état courant.
+ * Écritures, lectures et suppressions de fichiers passent par le thread de
+ * calcul : l'EDT n'attend le disque que pour une étape pas encore relue.
+ * Une erreur d'écriture ou de lecture (disque plein) compte comme un échec
+ * de calcul : la chaîne est coupée à cette étape.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class HistoriqueImage
+{
+
+	/** Côté d'une tuile en pixels */
+	static final int COTE_TUILE = 256;
+
+	/** Propriété système fixant le budget de l'historique (en Mo) */
+	static final String PROPRIETE_BUDGET = "historique.budget";
+
+	/** Budget par défaut (en Mo) */
+	static final long BUDGET_PAR_DEFAUT_MO = 256;
+
+	/** Propriété système fixant la place de l'historique sur disque (en Mo) */
+	static final String PROPRIETE_BUDGET_DISQUE = "historique.disque";
+
+	/** Place sur disque par défaut (en Mo) */
+	static final long BUDGET_DISQUE_PAR_DEFAUT_MO = 4096;
+
+	/** Nombre d'étapes préchargées de chaque côté de l'état courant */
+	static final int PRECHARGEMENT = 2;
+
+	/** Étapes à annuler (la plus récente en tête) */
+	private final Deque<Etape> annulations;
+
+	/** Étapes à rétablir (la plus proche en tête) */
+	private final Deque<Etape> retablissements;
+
+	/** Thread de calcul des étapes (et des accès au disque) */
+	private final ExecutorService calculateur;
+
+	/** Fichiers des étapes sorties de la mémoire */
+	private final DepotHistorique depot;
+
+	/** Vue partagée sur le dernier état enregistré (null si aucun) */
+	private ImageCopieSurEcriture etatCourant;
+
+	/** Taille maximale des étapes compressées en mémoire, puis sur disque (octets) */
+	private long budget, budgetDisque;
+
+	/** Horloge des utilisations (fenêtre LRU) */
+	private long horloge;
+
+	/** Zones modifiées par le dernier annuler / rétablir (null : toute l'image) */
+	private List<Rectangle> zonesModifiees;
+
+	HistoriqueImage()
+	{
+		this.annulations     = new ArrayDeque<>();
+		this.retablissements = new ArrayDeque<>();
+		this.depot           = new DepotHistorique();
+		this.etatCourant     = null;
+		this.budget          = Long.getLong(PROPRIETE_BUDGET, BUDGET_PAR_DEFAUT_MO) << 20;
+		this.budgetDisque    = Long.getLong(PROPRIETE_BUDGET_DISQUE, BUDGET_DISQUE_PAR_DEFAUT_MO) << 20;
+		this.horloge         = 0;
+
+		this.calculateur = Executors.newSingleThreadExecutor(action ->
+		{
+			Thread thread;
+
+			thread = new Thread(action, "historique-image");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	/**
+	 * Oublie tout l'historique et part d'un nouvel état.
+	 *
+	 * @param principale L'image principale (ou null)
+	 */
+	void commencer(ImageCopieSurEcriture principale)
+	{
+		this.vider();
+
+		if (principale != null)
+			this.etatCourant = principale.partager();
+	}
+
+	/**
+	 * Oublie tout l'historique.
+	 */
+	void vider()
+	{
+		this.oublier(this.annulations);
+		this.oublier(this.retablissements);
+
+		if (this.etatCourant != null)
+			this.etatCourant.liberer();
+
+		this.etatCourant = null;
+	}
+
+	/**
+	 * Enregistre le passage de l'état précédent à l'image principale actuelle.
+	 * Les rétablissements possibles sont oubliés.
+	 *
+	 * @param principale L'image principale après modification
+	 */
+	void enregistrer(ImageCopieSurEcriture principale)
+	{
+		if (this.etatCourant == null)
+		{
+			this.commencer(principale);
+			return;
+		}
+
+		// Même image, jamais copiée : elle n'a pas pu être modifiée
+		if (this.etatCourant.lire() == principale.lire())
+			return;
+
+		this.annulations.addFirst(this.lancerCalcul(this.etatCourant, principale.partager()));
+		this.oublier(this.retablissements);
+
+		this.etatCourant = principale.partager();
+
+		this.precharger();
+		this.respecterBudget();
+	}
+
+	/**
+	 * Cesse de partager l'état courant avec l'image principale, qui peut
+	 * alors être modifiée sur place sans copie, avant enregistrerInvolution().
+	 */
+	void lacherEtatCourant()
+	{
+		if (this.etatCourant != null)
+			this.etatCourant.liberer();
+
+		this.etatCourant = null;
+	}
+
+	/**
+	 * Enregistre une involution appliquée sur place à l'image principale
+	 * (après lacherEtatCourant). Les rétablissements possibles sont oubliés.
+	 *
+	 * @param principale L'image principale après modification
+	 * @param involution La transformation appliquée, qui est sa propre inverse
+	 */
+	void enregistrerInvolution(ImageCopieSurEcriture principale, ModeleImage.Involution involution)
+	{
+		Etape etape;
+
+		etape              = new Etape();
+		etape.involution   = involution;
+		etape.indices      = new int[0];
+		etape.donnees      = new byte[0][];
+		etape.calcul       = CompletableFuture.completedFuture(null);
+		etape.dernierUsage = ++this.horloge;
+
+		this.annulations.addFirst(etape);
+		this.oublier(this.retablissements);
+
+		if (this.etatCourant != null)
+			this.etatCourant.liberer();
+
+		this.etatCourant = principale.partager();
+
+		this.precharger();
+		this.respecterBudget();
+	}
+
+	/**
+	 * Revient à l'état précédent.
+	 *
+	 * @param principale L'image principale actuelle
+	 * @return La vue sur l'image à afficher (éventuellement la même), ou null s'il n'y a rien à annuler
+	 */
+	ImageCopieSurEcriture annuler(ImageCopieSurEcriture principale)
+	{
+		return this.basculer(this.annulations, this.retablissements, principale);
+	}
+
+	/**
+	 * Refait l'étape annulée.
+	 *
+	 * @param principale L'image principale actuelle
+	 * @return La vue sur l'image à afficher (éventuellement la même), ou null s'il n'y a rien à rétablir
+	 */
+	ImageCopieSurEcriture retablir(ImageCopieSurEcriture principale)
+	{
+		return this.basculer(this.retablissements, this.annulations, principale);
+	}
+
+	/**
+	 * @return Les zones de l'image modifiées par le dernier annuler ou
+	 *         rétablir (null : toute l'image)
+	 */
+	List<Rectangle> getZonesModifiees() { return this.zonesModifiees; }
+
+	/**
+	 * @return true s'il reste une étape à annuler
+	 */
+	boolean peutAnnuler() { return !this.annulations.isEmpty(); }
+
+	/**
+	 * @return true s'il reste une étape à rétablir
+	 */
+	boolean peutRetablir() { return !this.retablissements.isEmpty(); }
+
+	/**
+	 * @return La taille des étapes déjà compressées gardées en mémoire (octets)
+	 */
+	long getTaille()
+	{
+		return HistoriqueImage.taille(this.annulations, true) + HistoriqueImage.taille(this.retablissements, true);
+	}
+
+	/**
+	 * @return La taille des étapes sorties de la mémoire vers le disque (octets)
+	 */
+	long getTailleDisque()
+	{
+		return HistoriqueImage.taille(this.annulations, false) + HistoriqueImage.taille(this.retablissements, false);
+	}
+
+	/**
+	 * @param octets Taille maximale des étapes compressées gardées en mémoire
+	 */
+	void definirBudget(long octets)
+	{
+		this.budget = Math.max(0, octets);
+		this.respecterBudget();
+	}
+
+	/**
+	 * @param octets Taille maximale des étapes écrites sur disque
+	 */
+	void definirBudgetDisque(long octets)
+	{
+		this.budgetDisque = Math.max(0, octets);
+		this.respecterBudget();
+	}
+
+	/**
+	 * Applique l'étape en tête de source à l'image principale et range
+	 * l'étape inverse en tête de destination.
+	 *
+	 * ALGORITHME :
+	 * 1. Retirer l'étape (en attendant son calcul, et sa relecture si elle
+	 *    est sur disque) ; une étape vide est sautée
+	 * 2. Tuiles XOR : appliquer sur place à l'image principale (qui n'est
+	 *    copiée que si elle est encore partagée) ; l'étape est sa propre inverse
+	 * 3. Tuiles complètes : reconstruire l'image, et calculer l'inverse en
+	 *    arrière-plan
+	 * 4. Involution : l'appliquer de nouveau, sur place ; l'étape est sa
+	 *    propre inverse
+	 * 5. Précharger les étapes voisines du nouvel état courant
+	 */
+	private ImageCopieSurEcriture basculer(Deque<Etape> source, Deque<Etape> destination, ImageCopieSurEcriture principale)
+	{
+		ImageCopieSurEcriture nouvelle;
+		Etape                 etape;
+		BufferedImage         image, resultat;
+
+		this.respecterBudget();
+
+		do
+		{
+			etape = source.pollFirst();
+
+			if (etape == null)
+				return null;
+
+			etape.attendre();
+
+			if (!etape.echec)
+				etape.charger(this.depot);
+
+			if (etape.echec)
+			{
+				// Chaîne rompue : les étapes suivantes ne s'appliquent plus
+				this.oublier(etape);
+				this.oublier(source);
+				return null;
+			}
+
+			if (etape.estVide())
+				this.oublier(etape);
+		}
+		while (etape.estVide());
+
+		this.etatCourant.liberer();
+
+		if (etape.complete)
+		{
+			nouvelle = new ImageCopieSurEcriture(HistoriqueImage.reconstruire(etape));
+			destination.addFirst(this.lancerCalcul(principale.partager(), nouvelle.partager()));
+			this.oublier(etape);
+			this.zonesModifiees = null;
+		}
+		else if (etape.involution != null)
+		{
+			image    = principale.modifier();
+			resultat = etape.involution.appliquer(image);
+			nouvelle = (resultat == image) ? principale : new ImageCopieSurEcriture(resultat);
+			destination.addFirst(etape);
+			this.zonesModifiees = null;
+		}
+		else
+		{
+			HistoriqueImage.appliquerXor(etape, principale.modifier());
+			nouvelle = principale;
+			destination.addFirst(etape);
+			this.zonesModifiees = HistoriqueImage.zones(etape);
+		}
+
+		this.etatCourant = nouvelle.partager();
+
+		this.precharger();
+		this.respecterBudget();
+
+		return nouvelle;
+	}
+
+	/**
+	 * Lance le calcul de l'étape qui ramène de apres à avant.
+	 * Les deux vues sont libérées à la fin du calcul.
+	 */
+	private Etape lancerCalcul(ImageCopieSurEcriture avant, ImageCopieSurEcriture apres)
+	{
+		Etape etape;
+
+		etape              = new Etape();
+		etape.dernierUsage = ++this.horloge;
+		etape.calcul       = this.calculateur.submit(() -> HistoriqueImage.calculer(etape, avant, apres));
+
+		return etape;
+	}
+
+	/**
+	 * Oublie les étapes en échec, sort de la mémoire les étapes qui dépassent
+	 * le budget, puis oublie celles qui dépassent la place sur disque.
+	 * Les étapes en cours de calcul ne comptent pas encore.
+	 */
+	private void respecterBudget()
+	{
+		Etape etape;
+		long  memoire, disque;
+
+		this.couperApresEchec(this.annulations);
+		this.couperApresEchec(this.retablissements);
+
+		memoire = this.getTaille();
+		etape   = this.moinsRecente();
+
+		while (memoire > this.budget && etape != null)
+		{
+			memoire -= etape.octets;
+			this.deverser(etape);
+			etape = this.moinsRecente();
+		}
+
+		disque = this.getTailleDisque();
+
+		while (disque > this.budgetDisque && !this.annulations.isEmpty())
+		{
+			etape   = this.annulations.pollLast();
+			disque -= etape.taille(false);
+			this.oublier(etape);
+		}
+
+		while (disque > this.budgetDisque && !this.retablissements.isEmpty())
+		{
+			etape   = this.retablissements.pollLast();
+			disque -= etape.taille(false);
+			this.oublier(etape);
+		}
+	}
+
+	/**
+	 * @return L'étape calculée en mémoire la moins récemment utilisée, hors
+	 *         des PRECHARGEMENT étapes voisines de l'état courant (null si aucune)
+	 */
+	private Etape moinsRecente()
+	{
+		Etape choisie;
+
+		choisie = HistoriqueImage.moinsRecente(this.annulations, null);
+		choisie = HistoriqueImage.moinsRecente(this.retablissements, choisie);
+
+		return choisie;
+	}
+
+	private static Etape moinsRecente(Deque<Etape> etapes, Etape choisie)
+	{
+		int rang;
+
+		rang = 0;
+
+		for (Etape etape : etapes)
+		{
+			if (rang++ >= PRECHARGEMENT && etape.taille(true) > 0
+				&& (choisie == null || etape.dernierUsage < choisie.dernierUsage))
+				choisie = etape;
+		}
+
+		return choisie;
+	}
+
+	/**
+	 * Marque les étapes voisines de l'état courant comme utilisées et relit
+	 * en arrière-plan celles qui sont sur disque.
+	 */
+	private void precharger()
+	{
+		this.precharger(this.annulations);
+		this.precharger(this.retablissements);
+	}
+
+	private void precharger(Deque<Etape> etapes)
+	{
+		Iterator<Etape> parcours;
+
+		parcours = etapes.iterator();
+
+		for (int rang = 0; rang < PRECHARGEMENT && parcours.hasNext(); rang++)
+			this.relire(parcours.next());
+	}
+
+	/**
+	 * Demande la relecture d'une étape (thread de calcul).
+	 */
+	private void relire(Etape etape)
+	{
+		etape.dernierUsage = ++this.horloge;
+
+		if (!etape.enMemoire)
+		{
+			etape.enMemoire = true;
+			this.calculateur.execute(() -> etape.charger(this.depot));
+		}
+	}
+
+	/**
+	 * Sort une étape de la mémoire (écriture sur le thread de calcul).
+	 * L'étape compte aussitôt comme étant sur disque.
+	 */
+	private void deverser(Etape etape)
+	{
+		etape.enMemoire = false;
+		this.calculateur.execute(() -> etape.deverser(this.depot));
+	}
+
+	/**
+	 * Oublie une étape et supprime son fichier (thread de calcul, après un
+	 * éventuel calcul en cours).
+	 */
+	private void oublier(Etape etape)
+	{
+		this.calculateur.execute(() -> etape.supprimer(this.depot));
+	}
+
+	private void oublier(Deque<Etape> etapes)
+	{
+		for (Etape etape : etapes)
+			this.oublier(etape);
+
+		etapes.clear();
+	}
+
+	/**
+	 * Retire une étape en échec et toutes celles qui la suivent dans la pile.
+	 */
+	private void couperApresEchec(Deque<Etape> etapes)
+	{
+		Iterator<Etape> parcours;
+		Etape           etape;
+		boolean         rompu;
+
+		parcours = etapes.iterator();
+		rompu    = false;
+
+		while (parcours.hasNext())
+		{
+			etape  = parcours.next();
+			rompu |= etape.calcul.isDone() && etape.echec;
+
+			if (rompu)
+			{
+				parcours.remove();
+				this.oublier(etape);
+			}
+		}
+	}
+
+	/**
+	 * @param enMemoire true : étapes en mémoire ; false : étapes sur disque
+	 */
+	private static long taille(Deque<Etape> etapes, boolean enMemoire)
+	{
+		long total;
+
+		total = 0;
+
+		for (Etape etape : etapes)
+			total += etape.taille(enMemoire);
+
+		return total;
+	}
+
+	/**
+	 * Calcule une étape (thread de calcul).
+	 *
+	 * @param etape L'étape à remplir
+	 * @param avant L'état à retrouver
+	 * @param apres L'état depuis lequel l'étape sera appliquée
+	 */
+	private static void calculer(Etape etape, ImageCopieSurEcriture avant, ImageCopieSurEcriture apres)
+	{
+		BufferedImage imageAvant, imageApres;
+		byte[][]      tuiles;
+		int[]         pixelsAvant, pixelsApres;
+		int           colonnes, nombre, largeur, hauteur, stockees;
+
+		try
+		{
+			imageAvant = avant.lire();
+			imageApres = apres.lire();
+
+			largeur = imageAvant.getWidth();
+			hauteur = imageAvant.getHeight();
+
+			etape.largeur  = largeur;
+			etape.hauteur  = hauteur;
+			etape.complete = largeur != imageApres.getWidth() || hauteur != imageApres.getHeight();
+
+			pixelsAvant = AccesRaster.lirePixels(imageAvant);
+			pixelsApres = etape.complete ? null : AccesRaster.lirePixels(imageApres);
+
+			colonnes = (largeur + COTE_TUILE - 1) / COTE_TUILE;
+			nombre   = colonnes * ((hauteur + COTE_TUILE - 1) / COTE_TUILE);
+			tuiles   = new byte[nombre][];
+
+			ExecuteurTuiles.executer(nombre, 1, (debut, fin) ->
+			{
+				int[] tampon;
+
+				tampon = new int[COTE_TUILE * COTE_TUILE];
+
+				for (int t = debut; t < fin; t++)
+					tuiles[t] = HistoriqueImage.comparerTuile(pixelsAvant, pixelsApres, largeur, hauteur, colonnes, t, tampon);
+			});
+
+			stockees = 0;
+
+			for (byte[] tuile : tuiles)
+			{
+				if (tuile != null)
+					stockees++;
+			}
+
+			etape.indices = new int[stockees];
+			etape.donnees = new byte[stockees][];
+			stockees      = 0;
+
+			for (int t = 0; t < nombre; t++)
+			{
+				if (tuiles[t] != null)
+				{
+					etape.indices[stockees] = t;
+					etape.donnees[stockees] = tuiles[t];
+					etape.octets += tuiles[t].length;
+					stockees++;
+				}
+			}
+		}
+		catch (RuntimeException | OutOfMemoryError e)
+		{
+			etape.echec = true;
+		}
+		finally
+		{
+			avant.liberer();
+			apres.liberer();
+		}
+	}
+
+	/**
+	 * Compare une tuile et la compresse.
+	 *
+	 * @param pixelsApres null pour une étape complète (la tuile de avant est gardée telle quelle)
+	 * @return La tuile compressée, ou null si elle n'a pas changé
+	 */
+	private static byte[] comparerTuile(int[] pixelsAvant, int[] pixelsApres, int largeur, int hauteur, int colonnes, int tuile, int[] tampon)
+	{
+		int     x0, y0, l, h, indice, valeur;
+		boolean modifiee;
+
+		x0 = (tuile % colonnes) * COTE_TUILE;
+		y0 = (tuile / colonnes) * COTE_TUILE;
+		l  = Math.min(COTE_TUILE, largeur - x0);
+		h  = Math.min(COTE_TUILE, hauteur - y0);
+
+		modifiee = pixelsApres == null;
+
+		for (int y = 0; y < h; y++)
+		{
+			indice = (y0 + y) * largeur + x0;
+
+			for (int x = 0; x < l; x++)
+			{
+				valeur = pixelsAvant[indice + x];
+
+				if (pixelsApres != null)
+					valeur ^= pixelsApres[indice + x];
+
+				modifiee |= valeur != 0;
+
+				tampon[y * l + x] = valeur;
+			}
+		}
+
+		return modifiee ? HistoriqueImage.compresser(tampon, l * h) : null;
+	}
+
+	/**
+	 * Compresse nombre entiers (deflate, petit-boutiste).
+	 */
+	private static byte[] compresser(int[] valeurs, int nombre)
+	{
+		Deflater compresseur;
+		byte[]   octets, sortie;
+		int      taille;
+
+		octets = new byte[4 * nombre];
+
+		for (int i = 0; i < nombre; i++)
+		{
+			octets[4 * i]     = (byte)  valeurs[i];
+			octets[4 * i + 1] = (byte) (valeurs[i] >>> 8);
+			octets[4 * i + 2] = (byte) (valeurs[i] >>> 16);
+			octets[4 * i + 3] = (byte) (valeurs[i] >>> 24);
+		}
+
+		compresseur = new Deflater(Deflater.BEST_SPEED);
+		sortie      = new byte[1024];
+		taille      = 0;
+
+		try
+		{
+			compresseur.setInput(octets);
+			compresseur.finish();
+
+			while (!compresseur.finished())
+			{
+				if (taille == sortie.length)
+					sortie = Arrays.copyOf(sortie, 2 * sortie.length);
+
+				taille += compresseur.deflate(sortie, taille, sortie.length - taille);
+			}
+		}
+		finally
+		{
+			compresseur.end();
+		}
+
+		return Arrays.copyOf(sortie, taille);
+	}
+
+	/**
+	 * Décompresse une tuile dans valeurs (nombre entiers).
+	 */
+	private static void decompresser(byte[] donnees, int[] valeurs, int nombre)
+	{
+		Inflater decompresseur;
+		byte[]   octets;
+		int      lus;
+
+		octets        = new byte[4 * nombre];
+		decompresseur = new Inflater();
+		lus           = 0;
+
+		try
+		{
+			decompresseur.setInput(donnees);
+
+			while (lus < octets.length && !decompresseur.finished())
+				lus += decompresseur.inflate(octets, lus, octets.length - lus);
+		}
+		catch (DataFormatException e)
+		{
+			throw new IllegalStateException("Historique corrompu", e);
+		}
+		finally
+		{
+			decompresseur.end();
+		}
+
+		for (int i = 0; i < nombre; i++)
+		{
+			valeurs[i] = (octets[4 * i] & 0xFF)
+				| ((octets[4 * i + 1] & 0xFF) << 8)
+				| ((octets[4 * i + 2] & 0xFF) << 16)
+				| ((octets[4 * i + 3] & 0xFF) << 24);
+		}
+	}
+
+	/**
+	 * @return Les rectangles des tuiles d'une étape XOR (voir EvenementModele)
+	 */
+	private static List<Rectangle> zones(Etape etape)
+	{
+		boolean[] modifiees;
+		int       colonnes, rangees;
+
+		colonnes  = (etape.largeur + COTE_TUILE - 1) / COTE_TUILE;
+		rangees   = (etape.hauteur + COTE_TUILE - 1) / COTE_TUILE;
+		modifiees = new boolean[colonnes * rangees];
+
+		for (int indice : etape.indices)
+			modifiees[indice] = true;
+
+		return EvenementModele.regrouper(modifiees, colonnes, etape.largeur, etape.hauteur);
+	}
+
+	/**
+	 * Applique une étape XOR sur place.
+	 */
+	private static void appliquerXor(Etape etape, BufferedImage image)
+	{
+		HistoriqueImage.ecrireTuiles(etape, image, true);
+	}
+
+	/**
+	 * Reconstruit l'image d'une étape complète.
+	 */
+	private static BufferedImage reconstruire(Etape etape)
+	{
+		BufferedImage image;
+
+		image = UtilitaireImage.creerImageVide(etape.largeur, etape.hauteur);
+		HistoriqueImage.ecrireTuiles(etape, image, false);
+
+		return image;
+	}
+
+	/**
+	 * Écrit les tuiles d'une étape dans une image (en parallèle).
+	 *
+	 * @param ou true : OU exclusif avec les pixels présents ; false : remplacement
+	 */
+	private static void ecrireTuiles(Etape etape, BufferedImage image, boolean ou)
+	{
+		int[] pixels;
+		int   largeur, hauteur, colonnes;
+
+		pixels   = AccesRaster.obtenirPixels(image);
+		largeur  = etape.largeur;
+		hauteur  = etape.hauteur;
+		colonnes = (largeur + COTE_TUILE - 1) / COTE_TUILE;
+
+		ExecuteurTuiles.executer(etape.indices.length, 1, (debut, fin) ->
+		{
+			int[] tampon, ligne;
+			int   x0, y0, l, h;
+
+			tampon = new int[COTE_TUILE * COTE_TUILE];
+			ligne  = new int[COTE_TUILE];
+
+			for (int i = debut; i < fin; i++)
+			{
+				x0 = (etape.indices[i] % colonnes) * COTE_TUILE;
+				y0 = (etape.indices[i] / colonnes) * COTE_TUILE;
+				l  = Math.min(COTE_TUILE, largeur - x0);
+				h  = Math.min(COTE_TUILE, hauteur - y0);
+
+				HistoriqueImage.decompresser(etape.donnees[i], tampon, l * h);
+
+				for (int y = 0; y < h; y++)
+				{
+					if (pixels != null)
+					{
+						for (int x = 0; x < l; x++)
+						{
+							if (ou)
+								pixels[(y0 + y) * largeur + x0 + x] ^= tampon[y * l + x];
+							else
+								pixels[(y0 + y) * largeur + x0 + x] = tampon[y * l + x];
+						}
+					}
+					else
+					{
+						// Image d'un autre type que TYPE_INT_ARGB : accès ligne par ligne
+						if (ou)
+							image.getRGB(x0, y0 + y, l, 1, ligne, 0, l);
+
+						for (int x = 0; x < l; x++)
+							ligne[x] = ou ? ligne[x] ^ tampon[y * l + x] : tampon[y * l + x];
+
+						image.setRGB(x0, y0 + y, l, 1, ligne, 0, l);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Une étape de l'historique (remplie par le thread de calcul).
+	 */
+	private static final class Etape
+	{
+		/** Dimensions de l'état que l'étape permet de retrouver */
+		int      largeur, hauteur;
+
+		/** true : tuiles complètes ; false : tuiles en OU exclusif */
+		boolean  complete;
+
+		/** La transformation à réappliquer (étape sans pixels), ou null */
+		ModeleImage.Involution involution;
+
+		/** Numéros des tuiles gardées et leurs données compressées */
+		int[]    indices;
+		byte[][] donnees;
+
+		/** Taille des données compressées */
+		long     octets;
+
+		/** true si le calcul, l'écriture ou la relecture a échoué (mémoire insuffisante, disque plein) */
+		volatile boolean echec;
+
+		/** false si les données sont (ou vont être) sur disque ; décidé sur l'EDT */
+		volatile boolean enMemoire = true;
+
+		/** Date de la dernière utilisation (horloge de l'historique, EDT) */
+		long     dernierUsage;
+
+		/** Le fichier des données (null tant qu'elles n'ont pas été écrites) */
+		Path     fichier;
+
+		Future<?> calcul;
+
+		/**
+		 * Attend la fin du calcul.
+		 */
+		void attendre()
+		{
+			try
+			{
+				this.calcul.get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				this.echec = true;
+			}
+			catch (ExecutionException e)
+			{
+				this.echec = true;
+			}
+		}
+
+		/**
+		 * Remet les données en mémoire (relecture du fichier si besoin).
+		 * En cas d'erreur de lecture, l'étape passe en échec.
+		 */
+		synchronized void charger(DepotHistorique depot)
+		{
+			this.enMemoire = true;
+
+			if (this.donnees != null || this.echec)
+				return;
+
+			try
+			{
+				this.donnees = depot.lire(this.fichier, this.indices.length);
+			}
+			catch (IOException | OutOfMemoryError e)
+			{
+				this.echec = true;
+			}
+		}
+
+		/**
+		 * Écrit les données sur disque (une seule fois) et les libère, sauf si
+		 * l'étape a été redemandée entre-temps.
+		 */
+		synchronized void deverser(DepotHistorique depot)
+		{
+			if (this.enMemoire || this.donnees == null || this.echec)
+				return;
+
+			try
+			{
+				if (this.fichier == null)
+					this.fichier = depot.ecrire(this.donnees);
+
+				this.donnees = null;
+			}
+			catch (IOException e)
+			{
+				this.echec = true;
+			}
+		}
+
+		/**
+		 * Libère les données et supprime le fichier.
+		 */
+		synchronized void supprimer(DepotHistorique depot)
+		{
+			this.donnees = null;
+
+			if (this.fichier != null)
+				depot.supprimer(this.fichier);
+
+			this.fichier = null;
+		}
+
+		/**
+		 * @param enMemoire true : taille en mémoire ; false : taille sur disque
+		 * @return La taille compressée (0 tant que le calcul n'est pas fini)
+		 */
+		long taille(boolean enMemoire)
+		{
+			return (this.calcul.isDone() && !this.echec && this.enMemoire == enMemoire) ? this.octets : 0;
+		}
+
+		/**
+		 * @return true si l'étape ne change rien
+		 */
+		boolean estVide()
+		{
+			return this.involution == null && !this.complete && this.indices.length == 0;
+		}
+	}
+}
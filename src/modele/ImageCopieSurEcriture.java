@@ -0,0 +1,111 @@
+package modele;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ============================================================================
+ * IMAGE PARTAGÉE AVEC COPIE À LA PREMIÈRE MODIFICATION
+ * ============================================================================
+ *
+ * Plusieurs "vues" peuvent partager la même BufferedImage. Tant que personne
+ * ne la modifie, aucune copie n'est faite. La copie n'a lieu qu'au moment où
+ * une vue demande à écrire dans une image encore partagée.
+ *
+ * POURQUOI ?
+ * Le modèle garde l'image originale pour pouvoir la restaurer. Copier une
+ * image de 50 mégapixels coûte 200 Mo : on ne le fait que si c'est utile.
+ *
+ * UTILISATION :
+ * - lire()     : l'image, en LECTURE SEULE
+ * - modifier() : une image modifiable, copiée si elle était partagée
+ * - partager() : une nouvelle vue sur la même image (sans copie)
+ * - liberer()  : à appeler quand une vue n'est plus utilisée
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class ImageCopieSurEcriture
+{
+
+	/** L'image (éventuellement partagée avec d'autres vues) */
+	private BufferedImage image;
+
+	/** Nombre de vues qui partagent cette image (commun à toutes ces vues) */
+	private AtomicInteger nombreVues;
+
+	/**
+	 * Crée une vue sur une image, qui n'est pas encore partagée.
+	 *
+	 * @param image L'image à envelopper
+	 */
+	public ImageCopieSurEcriture(BufferedImage image)
+	{
+		this(image, new AtomicInteger(1));
+	}
+
+	private ImageCopieSurEcriture(BufferedImage image, AtomicInteger nombreVues)
+	{
+		this.image      = image;
+		this.nombreVues = nombreVues;
+	}
+
+	/**
+	 * Crée une nouvelle vue sur la même image, sans la copier.
+	 *
+	 * @return La nouvelle vue
+	 */
+	public ImageCopieSurEcriture partager()
+	{
+		this.nombreVues.incrementAndGet();
+		return new ImageCopieSurEcriture(this.image, this.nombreVues);
+	}
+
+	/**
+	 * @return L'image, à ne PAS modifier (elle peut être partagée)
+	 */
+	public BufferedImage lire() { return this.image; }
+
+	/**
+	 * Retourne une image que l'on peut modifier sans toucher aux autres vues.
+	 *
+	 * ALGORITHME :
+	 * 1. Si l'image est partagée, on en fait une copie privée
+	 * 2. Cette vue quitte le groupe de partage
+	 * 3. On retourne l'image (désormais propre à cette vue)
+	 *
+	 * @return L'image modifiable
+	 */
+	public synchronized BufferedImage modifier()
+	{
+		if (this.image != null && this.nombreVues.get() > 1)
+		{
+			this.image = UtilitaireImage.copierImage(this.image);
+
+			this.nombreVues.decrementAndGet();
+			this.nombreVues = new AtomicInteger(1);
+		}
+
+		return this.image;
+	}
+
+	/**
+	 * @return true si d'autres vues utilisent la même image
+	 */
+	public boolean estPartagee()
+	{
+		return this.nombreVues.get() > 1;
+	}
+
+	/**
+	 * Indique que cette vue n'est plus utilisée.
+	 * Les autres vues pourront alors modifier l'image sans la copier.
+	 */
+	public synchronized void liberer()
+	{
+		if (this.image != null)
+		{
+			this.nombreVues.decrementAndGet();
+			this.image = null;
+		}
+	}
+}
@@ -0,0 +1,436 @@
+package modele;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ============================================================================
+ * IMAGE STOCKÉE SUR DISQUE, PAR TUILES
+ * ============================================================================
+ *
+ * Une BufferedImage garde tous ses pixels dans le tas Java : un scan de
+ * 30000 x 30000 pixels demande 3,6 Go, et chaque traitement en crée une
+ * copie. Une ImageTuilee garde ses pixels dans un fichier temporaire, et
+ * n'en charge en mémoire qu'une tuile à la fois.
+ *
+ * ORGANISATION DU FICHIER :
+ * L'image est découpée en tuiles de COTE_TUILE x COTE_TUILE pixels (256 Ko).
+ * Les tuiles sont rangées l'une après l'autre, ligne de tuiles par ligne de
+ * tuiles ; à l'intérieur d'une tuile, les pixels sont rangés ligne par ligne
+ * (comme dans AccesRaster). Les tuiles du bord droit et du bas occupent
+ * aussi une place complète : la position d'une tuile se calcule directement.
+ *
+ * PROJECTION EN MÉMOIRE (memory-mapped file) :
+ * Chaque accès projette seulement la tuile concernée (FileChannel.map) :
+ * c'est le système qui lit et écrit les pages du fichier, sans copie dans
+ * le tas. Deux threads peuvent accéder à deux tuiles différentes en même
+ * temps (voir modele.traitement.TraitementHorsMemoire).
+ *
+ * UTILISATION :
+ * try (ImageTuilee image = ImageTuilee.importerPng(new File("scan.png")))
+ * {
+ *     TraitementHorsMemoire.appliquer(image, new PipelineTraitement().contraste(1.5));
+ *     image.exporterPng(new File("resultat.png"));
+ * }
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class ImageTuilee implements Closeable
+{
+
+	/** Côté d'une tuile, en pixels */
+	public static final int COTE_TUILE = 256;
+
+	/** Nombre de pixels d'une tuile */
+	public static final int PIXELS_PAR_TUILE = COTE_TUILE * COTE_TUILE;
+
+	private final int         largeur, hauteur;
+	private final int         tuilesX, tuilesY;
+	private final Path        fichier;
+	private final FileChannel canal;
+
+	/**
+	 * Crée une image transparente, stockée dans un fichier temporaire
+	 * (supprimé par close()).
+	 *
+	 * @param largeur Largeur en pixels
+	 * @param hauteur Hauteur en pixels
+	 * @throws UncheckedIOException si le fichier ne peut pas être créé
+	 */
+	public ImageTuilee(int largeur, int hauteur)
+	{
+		if (largeur <= 0 || hauteur <= 0)
+			throw new IllegalArgumentException("Dimensions invalides : " + largeur + " x " + hauteur);
+
+		this.largeur = largeur;
+		this.hauteur = hauteur;
+		this.tuilesX = (largeur + COTE_TUILE - 1) / COTE_TUILE;
+		this.tuilesY = (hauteur + COTE_TUILE - 1) / COTE_TUILE;
+
+		try
+		{
+			this.fichier = Files.createTempFile("image-tuilee-", ".tuiles");
+			this.canal   = FileChannel.open(
+				this.fichier,
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE
+			);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Impossible de créer le fichier de l'image", e);
+		}
+	}
+
+	/**
+	 * Copie une BufferedImage dans une nouvelle image tuilée.
+	 *
+	 * @param image L'image à copier
+	 * @return L'image tuilée
+	 */
+	public static ImageTuilee depuisImage(BufferedImage image)
+	{
+		ImageTuilee resultat = new ImageTuilee(image.getWidth(), image.getHeight());
+
+		resultat.ecrireRegion(0, 0, image.getWidth(), image.getHeight(), AccesRaster.lirePixels(image), 0, image.getWidth());
+
+		return resultat;
+	}
+
+	/**
+	 * Lit un fichier PNG ligne par ligne (voir LecteurPngLignes) : seules
+	 * COTE_TUILE lignes sont en mémoire à la fois.
+	 *
+	 * REPLI :
+	 * Les PNG que LecteurPngLignes ne sait pas lire (16 bits, entrelacés...)
+	 * sont chargés entiers avec ImageIO, puis copiés.
+	 *
+	 * @param fichier Le fichier PNG
+	 * @return L'image tuilée
+	 * @throws IOException si le fichier est illisible
+	 */
+	public static ImageTuilee importerPng(File fichier) throws IOException
+	{
+		ImageTuilee resultat;
+		int[]       bande;
+		int         largeurImage, lignes;
+
+		try (LecteurPngLignes lecteur = LecteurPngLignes.ouvrir(fichier))
+		{
+			if (lecteur == null)
+			{
+				BufferedImage image = UtilitaireImage.ouvrirImage(fichier.getPath());
+
+				if (image == null)
+					throw new IOException("Image illisible : " + fichier);
+
+				return ImageTuilee.depuisImage(image);
+			}
+
+			largeurImage = lecteur.getLargeur();
+			resultat     = new ImageTuilee(largeurImage, lecteur.getHauteur());
+			bande        = new int[largeurImage * COTE_TUILE];
+
+			try
+			{
+				for (int y = 0; y < resultat.hauteur; y += COTE_TUILE)
+				{
+					lignes = Math.min(COTE_TUILE, resultat.hauteur - y);
+
+					for (int ligne = 0; ligne < lignes; ligne++)
+						lecteur.lireLigne(bande, ligne * largeurImage);
+
+					resultat.ecrireRegion(0, y, largeurImage, lignes, bande, 0, largeurImage);
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				resultat.close();
+				throw e;
+			}
+
+			return resultat;
+		}
+	}
+
+	/**
+	 * Lit les dimensions d'un fichier PNG (chunk IHDR) sans lire ses pixels.
+	 *
+	 * @param fichier Le fichier PNG
+	 * @return Le nombre de pixels (largeur x hauteur), ou -1 si ce n'est pas un PNG
+	 * @throws IOException si le fichier est illisible
+	 */
+	public static long compterPixelsPng(File fichier) throws IOException
+	{
+		byte[] signature;
+
+		try (DataInputStream entree = new DataInputStream(new BufferedInputStream(new FileInputStream(fichier), 64)))
+		{
+			signature = new byte[LecteurPngLignes.SIGNATURE.length];
+			entree.readFully(signature);
+
+			// IHDR est toujours le premier chunk
+			if (!Arrays.equals(signature, LecteurPngLignes.SIGNATURE)
+				|| entree.readInt() != 13 || entree.readInt() != LecteurPngLignes.CHUNK_IHDR)
+				return -1;
+
+			return (entree.readInt() & 0xFFFFFFFFL) * (entree.readInt() & 0xFFFFFFFFL);
+		}
+		catch (EOFException e)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Écrit l'image au format PNG, au niveau de compression par défaut.
+	 *
+	 * @see #exporterPng(File, int)
+	 */
+	public void exporterPng(File fichier) throws IOException
+	{
+		this.exporterPng(fichier, EncodeurPng.NIVEAU_PAR_DEFAUT);
+	}
+
+	/**
+	 * Écrit l'image au format PNG, une bande de COTE_TUILE lignes à la fois
+	 * (voir EcrivainPngLignes).
+	 *
+	 * @param fichier Le fichier de destination
+	 * @param niveau  Niveau de compression, de 0 (le plus rapide) à 9 (le plus petit)
+	 * @throws IOException en cas d'erreur d'écriture
+	 */
+	public void exporterPng(File fichier, int niveau) throws IOException
+	{
+		int[] bande;
+		int   lignes;
+
+		bande = new int[this.largeur * COTE_TUILE];
+
+		try (EcrivainPngLignes ecrivain = new EcrivainPngLignes(fichier, this.largeur, this.hauteur, niveau))
+		{
+			for (int y = 0; y < this.hauteur; y += COTE_TUILE)
+			{
+				lignes = Math.min(COTE_TUILE, this.hauteur - y);
+
+				this.lireRegion(0, y, this.largeur, lignes, bande, 0, this.largeur);
+
+				for (int ligne = 0; ligne < lignes; ligne++)
+					ecrivain.ecrireLigne(bande, ligne * this.largeur);
+			}
+		}
+	}
+
+	/**
+	 * Copie l'image entière dans une BufferedImage (pour les images qui
+	 * tiennent en mémoire, ou après réduction).
+	 *
+	 * @return Une nouvelle image ARGB
+	 */
+	public BufferedImage versImage()
+	{
+		return this.lireImage(0, 0, this.largeur, this.hauteur);
+	}
+
+	/**
+	 * Copie une région de l'image dans une BufferedImage.
+	 *
+	 * @return Une nouvelle image ARGB de taille largeurRegion x hauteurRegion
+	 */
+	public BufferedImage lireImage(int x, int y, int largeurRegion, int hauteurRegion)
+	{
+		BufferedImage image = UtilitaireImage.creerImageVide(largeurRegion, hauteurRegion);
+
+		this.lireRegion(x, y, largeurRegion, hauteurRegion, AccesRaster.obtenirPixels(image), 0, largeurRegion);
+
+		return image;
+	}
+
+	/**
+	 * Lit une tuile entière (COTE_TUILE x COTE_TUILE, y compris la partie
+	 * hors de l'image pour les tuiles du bord).
+	 *
+	 * @param tx     Colonne de la tuile
+	 * @param ty     Ligne de la tuile
+	 * @param pixels Tableau d'au moins PIXELS_PAR_TUILE cases
+	 */
+	public void lireTuile(int tx, int ty, int[] pixels)
+	{
+		this.projeterTuile(tx, ty, FileChannel.MapMode.READ_ONLY).get(0, pixels, 0, PIXELS_PAR_TUILE);
+	}
+
+	/**
+	 * Écrit une tuile entière.
+	 *
+	 * @param tx     Colonne de la tuile
+	 * @param ty     Ligne de la tuile
+	 * @param pixels Tableau d'au moins PIXELS_PAR_TUILE cases
+	 */
+	public void ecrireTuile(int tx, int ty, int[] pixels)
+	{
+		this.projeterTuile(tx, ty, FileChannel.MapMode.READ_WRITE).put(0, pixels, 0, PIXELS_PAR_TUILE);
+	}
+
+	/**
+	 * Lit une région rectangulaire (qui peut couvrir plusieurs tuiles).
+	 *
+	 * @param x         Colonne du coin supérieur gauche
+	 * @param y         Ligne du coin supérieur gauche
+	 * @param l         Largeur de la région
+	 * @param h         Hauteur de la région
+	 * @param pixels    Tableau de destination
+	 * @param decalage  Indice du premier pixel dans "pixels"
+	 * @param pas       Nombre de cases entre deux lignes dans "pixels"
+	 */
+	public void lireRegion(int x, int y, int l, int h, int[] pixels, int decalage, int pas)
+	{
+		this.copierRegion(x, y, l, h, pixels, decalage, pas, false);
+	}
+
+	/**
+	 * Écrit une région rectangulaire (qui peut couvrir plusieurs tuiles).
+	 *
+	 * @see #lireRegion(int, int, int, int, int[], int, int)
+	 */
+	public void ecrireRegion(int x, int y, int l, int h, int[] pixels, int decalage, int pas)
+	{
+		this.copierRegion(x, y, l, h, pixels, decalage, pas, true);
+	}
+
+	/**
+	 * Copie une région entre le fichier et un tableau, tuile par tuile.
+	 * Chaque tuile touchée n'est projetée qu'une fois.
+	 */
+	private void copierRegion(int x, int y, int l, int h, int[] pixels, int decalage, int pas, boolean ecriture)
+	{
+		IntBuffer tuile;
+		int       txDebut, txFin, tyDebut, tyFin;
+		int       x0, x1, y0, y1, indiceTuile;
+
+		if (x < 0 || y < 0 || l < 0 || h < 0 || x + l > this.largeur || y + h > this.hauteur)
+			throw new IndexOutOfBoundsException("Région hors de l'image : " + x + "," + y + " " + l + "x" + h);
+
+		if (l == 0 || h == 0)
+			return;
+
+		txDebut = x / COTE_TUILE;
+		txFin   = (x + l - 1) / COTE_TUILE;
+		tyDebut = y / COTE_TUILE;
+		tyFin   = (y + h - 1) / COTE_TUILE;
+
+		for (int ty = tyDebut; ty <= tyFin; ty++)
+		{
+			y0 = Math.max(y, ty * COTE_TUILE);
+			y1 = Math.min(y + h, (ty + 1) * COTE_TUILE);
+
+			for (int tx = txDebut; tx <= txFin; tx++)
+			{
+				x0 = Math.max(x, tx * COTE_TUILE);
+				x1 = Math.min(x + l, (tx + 1) * COTE_TUILE);
+
+				tuile = this.projeterTuile(
+					tx, ty, ecriture ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY
+				);
+
+				for (int ligne = y0; ligne < y1; ligne++)
+				{
+					indiceTuile = (ligne - ty * COTE_TUILE) * COTE_TUILE + (x0 - tx * COTE_TUILE);
+
+					if (ecriture)
+						tuile.put(indiceTuile, pixels, decalage + (ligne - y) * pas + (x0 - x), x1 - x0);
+					else
+						tuile.get(indiceTuile, pixels, decalage + (ligne - y) * pas + (x0 - x), x1 - x0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Projette une tuile du fichier en mémoire.
+	 *
+	 * L'ordre des octets est celui du processeur : get/put copient alors les
+	 * entiers sans les convertir. Le fichier n'est lu que par cette classe.
+	 */
+	private IntBuffer projeterTuile(int tx, int ty, FileChannel.MapMode mode)
+	{
+		long position;
+
+		if (tx < 0 || ty < 0 || tx >= this.tuilesX || ty >= this.tuilesY)
+			throw new IndexOutOfBoundsException("Tuile hors de l'image : " + tx + "," + ty);
+
+		position = ((long) ty * this.tuilesX + tx) * PIXELS_PAR_TUILE * Integer.BYTES;
+
+		try
+		{
+			if (mode == FileChannel.MapMode.READ_ONLY && position >= this.canal.size())
+				return IntBuffer.allocate(PIXELS_PAR_TUILE);
+
+			return this.canal.map(mode, position, (long) PIXELS_PAR_TUILE * Integer.BYTES)
+			                 .order(ByteOrder.nativeOrder())
+			                 .asIntBuffer();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("Accès impossible à la tuile " + tx + "," + ty, e);
+		}
+	}
+
+	/**
+	 * @return La largeur de l'image en pixels
+	 */
+	public int getLargeur() { return this.largeur; }
+
+	/**
+	 * @return La hauteur de l'image en pixels
+	 */
+	public int getHauteur() { return this.hauteur; }
+
+	/**
+	 * @return Le nombre de colonnes de tuiles
+	 */
+	public int getTuilesX() { return this.tuilesX; }
+
+	/**
+	 * @return Le nombre de lignes de tuiles
+	 */
+	public int getTuilesY() { return this.tuilesY; }
+
+	/**
+	 * @return La largeur utile de la tuile de colonne tx (plus petite au bord droit)
+	 */
+	public int largeurTuile(int tx) { return Math.min(COTE_TUILE, this.largeur - tx * COTE_TUILE); }
+
+	/**
+	 * @return La hauteur utile de la tuile de ligne ty (plus petite en bas)
+	 */
+	public int hauteurTuile(int ty) { return Math.min(COTE_TUILE, this.hauteur - ty * COTE_TUILE); }
+
+	/**
+	 * Ferme et supprime le fichier de l'image.
+	 */
+	@Override
+	public void close()
+	{
+		try
+		{
+			this.canal.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println("ERREUR lors de la fermeture de " + this.fichier + " : " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,496 @@
+package modele;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ============================================================================
+ * LECTURE D'UN FICHIER PNG LIGNE PAR LIGNE
+ * ============================================================================
+ *
+ * ImageIO.read() décode toute l'image d'un coup dans une BufferedImage.
+ * Ce lecteur rend les lignes une par une : la mémoire utilisée ne dépend
+ * que de la largeur de l'image (voir ImageTuilee).
+ *
+ * RAPPEL SUR LE FORMAT PNG :
+ * - Une signature de 8 octets, puis des "chunks" (longueur, type, données, CRC)
+ * - IHDR : dimensions, profondeur, type de couleur
+ * - PLTE / tRNS : palette et transparence (images à palette)
+ * - IDAT : les lignes compressées (deflate), éventuellement sur plusieurs chunks
+ * - Chaque ligne commence par un octet de "filtre" (0 à 4) qui indique
+ *   comment la ligne a été prédite à partir des pixels voisins
+ *
+ * FORMATS PRIS EN CHARGE :
+ * 8 bits par composante, non entrelacé : gris, gris + alpha, RGB, RGBA,
+ * palette. Pour les autres, ouvrir() retourne null (utiliser ImageIO).
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class LecteurPngLignes implements Closeable
+{
+
+	/** Les 8 premiers octets de tout fichier PNG */
+	static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+	static final int TYPE_GRIS       = 0;
+	static final int TYPE_RGB        = 2;
+	static final int TYPE_PALETTE    = 3;
+	static final int TYPE_GRIS_ALPHA = 4;
+	static final int TYPE_RGBA       = 6;
+
+	static final int CHUNK_IHDR = LecteurPngLignes.type("IHDR");
+	static final int CHUNK_PLTE = LecteurPngLignes.type("PLTE");
+	static final int CHUNK_TRNS = LecteurPngLignes.type("tRNS");
+	static final int CHUNK_IDAT = LecteurPngLignes.type("IDAT");
+	static final int CHUNK_IEND = LecteurPngLignes.type("IEND");
+
+	/**
+	 * Couleur RGB de chaque niveau de gris, telle que la donne ImageIO.
+	 * ImageIO lit un PNG gris dans un espace de gris LINÉAIRE : getRGB()
+	 * le convertit en sRGB (le gris 55 devient 128). On garde la même
+	 * conversion pour obtenir exactement les mêmes pixels.
+	 */
+	private static final int[] GRIS_VERS_RGB = LecteurPngLignes.calculerGris();
+
+	private final DataInputStream entree;
+	private final InputStream     donnees;
+
+	private final int   largeur, hauteur, typeCouleur, octetsParPixel;
+	private final int[] palette;
+
+	/** Ligne en cours et ligne précédente, sans filtre (octets bruts) */
+	private byte[] ligne, lignePrecedente;
+
+	private int lignesLues;
+
+	private LecteurPngLignes(
+		DataInputStream entree, int longueurIdat,
+		int largeur, int hauteur, int typeCouleur, int[] palette
+	)
+	{
+		this.entree         = entree;
+		this.largeur        = largeur;
+		this.hauteur        = hauteur;
+		this.typeCouleur    = typeCouleur;
+		this.palette        = palette;
+		this.octetsParPixel = LecteurPngLignes.octetsParPixel(typeCouleur);
+
+		this.donnees         = new InflaterInputStream(new FluxIdat(entree, longueurIdat), new Inflater(), 1 << 16);
+		this.ligne           = new byte[largeur * this.octetsParPixel];
+		this.lignePrecedente = new byte[largeur * this.octetsParPixel];
+		this.lignesLues      = 0;
+	}
+
+	/**
+	 * Ouvre un fichier PNG et lit son en-tête.
+	 *
+	 * @param fichier Le fichier à lire
+	 * @return Le lecteur, prêt à rendre la première ligne, ou null si le
+	 *         fichier n'est pas un PNG dans un format pris en charge
+	 * @throws IOException si le fichier est illisible
+	 */
+	static LecteurPngLignes ouvrir(File fichier) throws IOException
+	{
+		DataInputStream  entree;
+		LecteurPngLignes lecteur;
+		byte[]           signature;
+		int              longueur, type;
+		int              largeur, hauteur, profondeur, typeCouleur, entrelacement;
+		int[]            palette;
+
+		entree  = new DataInputStream(new BufferedInputStream(new FileInputStream(fichier), 1 << 16));
+		lecteur = null;
+
+		try
+		{
+			signature = new byte[SIGNATURE.length];
+			entree.readFully(signature);
+
+			if (!Arrays.equals(signature, SIGNATURE))
+				return null;
+
+			// IHDR est toujours le premier chunk
+			longueur = entree.readInt();
+			type     = entree.readInt();
+
+			if (type != CHUNK_IHDR || longueur != 13)
+				return null;
+
+			largeur       = entree.readInt();
+			hauteur       = entree.readInt();
+			profondeur    = entree.readUnsignedByte();
+			typeCouleur   = entree.readUnsignedByte();
+			entree.skipNBytes(2);                          // compression, filtrage : toujours 0
+			entrelacement = entree.readUnsignedByte();
+			entree.skipNBytes(4);                          // CRC
+
+			if (profondeur != 8 || entrelacement != 0 || LecteurPngLignes.octetsParPixel(typeCouleur) == 0)
+				return null;
+
+			palette = null;
+
+			// Chunks jusqu'au premier IDAT
+			while (true)
+			{
+				longueur = entree.readInt();
+				type     = entree.readInt();
+
+				if (type == CHUNK_IDAT)
+					break;
+
+				if (type == CHUNK_PLTE)
+					palette = LecteurPngLignes.lirePalette(entree, longueur);
+				else if (type == CHUNK_TRNS && typeCouleur == TYPE_PALETTE && palette != null)
+					LecteurPngLignes.lireTransparence(entree, longueur, palette);
+				else if (type == CHUNK_TRNS)
+					return null;                               // couleur transparente en RGB / gris : non prise en charge
+				else
+					entree.skipNBytes(longueur);
+
+				entree.skipNBytes(4);                          // CRC
+			}
+
+			if (typeCouleur == TYPE_PALETTE && palette == null)
+				return null;
+
+			lecteur = new LecteurPngLignes(entree, longueur, largeur, hauteur, typeCouleur, palette);
+			return lecteur;
+		}
+		catch (EOFException e)
+		{
+			return null;
+		}
+		finally
+		{
+			if (lecteur == null)
+				entree.close();
+		}
+	}
+
+	/**
+	 * Lit la ligne suivante de l'image.
+	 *
+	 * @param pixels   Tableau de destination (ARGB)
+	 * @param decalage Indice du premier pixel de la ligne dans "pixels"
+	 * @throws IOException si les données sont tronquées ou corrompues
+	 */
+	void lireLigne(int[] pixels, int decalage) throws IOException
+	{
+		byte[] echange;
+		int    filtre;
+
+		if (this.lignesLues >= this.hauteur)
+			throw new IOException("Toutes les lignes ont déjà été lues");
+
+		echange              = this.lignePrecedente;
+		this.lignePrecedente = this.ligne;
+		this.ligne           = echange;
+
+		filtre = this.donnees.read();
+
+		if (filtre < 0 || this.donnees.readNBytes(this.ligne, 0, this.ligne.length) != this.ligne.length)
+			throw new EOFException("Données PNG tronquées (ligne " + this.lignesLues + ")");
+
+		LecteurPngLignes.defiltrer(filtre, this.ligne, this.lignePrecedente, this.octetsParPixel);
+		LecteurPngLignes.convertir(this.ligne, this.typeCouleur, this.palette, pixels, decalage, this.largeur);
+
+		this.lignesLues++;
+	}
+
+	/**
+	 * Annule le filtre d'une ligne (voir la norme PNG, section 9).
+	 *
+	 * Chaque octet a été codé comme une différence avec une prédiction :
+	 * - 0 Aucun   : rien
+	 * - 1 Sub     : l'octet du pixel de gauche
+	 * - 2 Up      : l'octet de la ligne précédente
+	 * - 3 Average : la moyenne des deux
+	 * - 4 Paeth   : celui des trois voisins (gauche, haut, haut-gauche) le
+	 *               plus proche de gauche + haut - haut-gauche
+	 *
+	 * @param filtre         Le type de filtre de la ligne
+	 * @param ligne          La ligne (modifiée : devient la ligne décodée)
+	 * @param precedente     La ligne précédente, décodée (zéros pour la première)
+	 * @param octetsParPixel Écart entre un octet et le même octet du pixel de gauche
+	 */
+	static void defiltrer(int filtre, byte[] ligne, byte[] precedente, int octetsParPixel) throws IOException
+	{
+		int gauche, haut, hautGauche;
+
+		switch (filtre)
+		{
+			case 0:
+				break;
+
+			case 1:
+				for (int i = octetsParPixel; i < ligne.length; i++)
+					ligne[i] += ligne[i - octetsParPixel];
+				break;
+
+			case 2:
+				for (int i = 0; i < ligne.length; i++)
+					ligne[i] += precedente[i];
+				break;
+
+			case 3:
+				for (int i = 0; i < ligne.length; i++)
+				{
+					gauche    = (i >= octetsParPixel) ? ligne[i - octetsParPixel] & 0xFF : 0;
+					ligne[i] += (byte) ((gauche + (precedente[i] & 0xFF)) >> 1);
+				}
+				break;
+
+			case 4:
+				for (int i = 0; i < ligne.length; i++)
+				{
+					gauche     = (i >= octetsParPixel) ? ligne     [i - octetsParPixel] & 0xFF : 0;
+					hautGauche = (i >= octetsParPixel) ? precedente[i - octetsParPixel] & 0xFF : 0;
+					haut       = precedente[i] & 0xFF;
+					ligne[i]  += (byte) LecteurPngLignes.paeth(gauche, haut, hautGauche);
+				}
+				break;
+
+			default:
+				throw new IOException("Filtre PNG inconnu : " + filtre);
+		}
+	}
+
+	/**
+	 * Prédicteur de Paeth.
+	 */
+	static int paeth(int gauche, int haut, int hautGauche)
+	{
+		int estimation, distanceGauche, distanceHaut, distanceHautGauche;
+
+		estimation         = gauche + haut - hautGauche;
+		distanceGauche     = Math.abs(estimation - gauche);
+		distanceHaut       = Math.abs(estimation - haut);
+		distanceHautGauche = Math.abs(estimation - hautGauche);
+
+		if (distanceGauche <= distanceHaut && distanceGauche <= distanceHautGauche)
+			return gauche;
+
+		if (distanceHaut <= distanceHautGauche)
+			return haut;
+
+		return hautGauche;
+	}
+
+	/**
+	 * Convertit une ligne décodée en pixels ARGB.
+	 *
+	 * @param l           La ligne, sans filtre
+	 * @param typeCouleur Le type de couleur du PNG (TYPE_*)
+	 * @param palette     La palette (TYPE_PALETTE uniquement)
+	 * @param pixels      Tableau de destination
+	 * @param decalage    Indice du premier pixel de la ligne dans "pixels"
+	 * @param largeur     Nombre de pixels de la ligne
+	 */
+	static void convertir(byte[] l, int typeCouleur, int[] palette, int[] pixels, int decalage, int largeur)
+	{
+		switch (typeCouleur)
+		{
+			case TYPE_GRIS:
+				for (int x = 0; x < largeur; x++)
+				{
+					pixels[decalage + x] = GRIS_VERS_RGB[l[x] & 0xFF];
+				}
+				break;
+
+			case TYPE_GRIS_ALPHA:
+				for (int x = 0; x < largeur; x++)
+				{
+					pixels[decalage + x] = (l[2 * x + 1] << 24) | (GRIS_VERS_RGB[l[2 * x] & 0xFF] & 0x00FFFFFF);
+				}
+				break;
+
+			case TYPE_RGB:
+				for (int x = 0; x < largeur; x++)
+				{
+					pixels[decalage + x] = CanalARGB.composer(
+						255, l[3 * x] & 0xFF, l[3 * x + 1] & 0xFF, l[3 * x + 2] & 0xFF
+					);
+				}
+				break;
+
+			case TYPE_RGBA:
+				for (int x = 0; x < largeur; x++)
+				{
+					pixels[decalage + x] = CanalARGB.composer(
+						l[4 * x + 3] & 0xFF, l[4 * x] & 0xFF, l[4 * x + 1] & 0xFF, l[4 * x + 2] & 0xFF
+					);
+				}
+				break;
+
+			default: // TYPE_PALETTE
+				for (int x = 0; x < largeur; x++)
+					pixels[decalage + x] = palette[l[x] & 0xFF];
+				break;
+		}
+	}
+
+	/**
+	 * Calcule GRIS_VERS_RGB en faisant convertir les 256 niveaux par Java2D.
+	 */
+	private static int[] calculerGris()
+	{
+		BufferedImage gris;
+		byte[]        niveaux;
+
+		gris    = new BufferedImage(256, 1, BufferedImage.TYPE_BYTE_GRAY);
+		niveaux = ((DataBufferByte) gris.getRaster().getDataBuffer()).getData();
+
+		for (int i = 0; i < 256; i++)
+			niveaux[i] = (byte) i;
+
+		return gris.getRGB(0, 0, 256, 1, null, 0, 256);
+	}
+
+	/**
+	 * @return Le nombre d'octets d'un pixel pour ce type de couleur (8 bits),
+	 *         ou 0 si le type est inconnu
+	 */
+	static int octetsParPixel(int typeCouleur)
+	{
+		switch (typeCouleur)
+		{
+			case TYPE_GRIS:       return 1;
+			case TYPE_RGB:        return 3;
+			case TYPE_PALETTE:    return 1;
+			case TYPE_GRIS_ALPHA: return 2;
+			case TYPE_RGBA:       return 4;
+			default:              return 0;
+		}
+	}
+
+	/**
+	 * @return Le code d'un type de chunk (ses 4 lettres, en entier)
+	 */
+	static int type(String nom)
+	{
+		return (nom.charAt(0) << 24) | (nom.charAt(1) << 16) | (nom.charAt(2) << 8) | nom.charAt(3);
+	}
+
+	/**
+	 * Lit une palette : 256 couleurs opaques (les entrées absentes sont noires).
+	 */
+	private static int[] lirePalette(DataInputStream entree, int longueur) throws IOException
+	{
+		int[] palette = new int[256];
+
+		Arrays.fill(palette, 0xFF000000);
+
+		for (int i = 0; i < longueur / 3; i++)
+		{
+			palette[i] = CanalARGB.composer(
+				255, entree.readUnsignedByte(), entree.readUnsignedByte(), entree.readUnsignedByte()
+			);
+		}
+
+		entree.skipNBytes(longueur % 3);
+
+		return palette;
+	}
+
+	/**
+	 * Lit l'alpha des premières couleurs de la palette.
+	 */
+	private static void lireTransparence(DataInputStream entree, int longueur, int[] palette) throws IOException
+	{
+		for (int i = 0; i < longueur; i++)
+		{
+			if (i < palette.length)
+				palette[i] = (entree.readUnsignedByte() << 24) | (palette[i] & 0x00FFFFFF);
+			else
+				entree.skipNBytes(1);
+		}
+	}
+
+	/**
+	 * @return La largeur de l'image
+	 */
+	int getLargeur() { return this.largeur; }
+
+	/**
+	 * @return La hauteur de l'image
+	 */
+	int getHauteur() { return this.hauteur; }
+
+	@Override
+	public void close() throws IOException
+	{
+		this.entree.close();
+	}
+
+	/**
+	 * Flux des données compressées : enchaîne le contenu des chunks IDAT
+	 * consécutifs, sans leurs en-têtes ni leurs CRC.
+	 */
+	private static class FluxIdat extends InputStream
+	{
+		private final DataInputStream entree;
+
+		/** Octets restant à lire dans le chunk IDAT courant (-1 : plus de IDAT) */
+		private int restant;
+
+		FluxIdat(DataInputStream entree, int longueurPremierIdat)
+		{
+			this.entree  = entree;
+			this.restant = longueurPremierIdat;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			byte[] octet = new byte[1];
+
+			return (this.read(octet, 0, 1) < 0) ? -1 : octet[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] tampon, int debut, int longueur) throws IOException
+		{
+			int lus;
+
+			while (this.restant == 0)
+				this.chunkSuivant();
+
+			if (this.restant < 0)
+				return -1;
+
+			lus = this.entree.read(tampon, debut, Math.min(longueur, this.restant));
+
+			if (lus < 0)
+				throw new EOFException("Chunk IDAT tronqué");
+
+			this.restant -= lus;
+			return lus;
+		}
+
+		/**
+		 * Passe le CRC du chunk terminé et lit l'en-tête du suivant.
+		 */
+		private void chunkSuivant() throws IOException
+		{
+			int longueur, type;
+
+			this.entree.skipNBytes(4);
+
+			longueur = this.entree.readInt();
+			type     = this.entree.readInt();
+
+			this.restant = (type == CHUNK_IDAT) ? longueur : -1;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package modele;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,11 +12,15 @@ import java.util.List;
  * 
  * Cette classe contient toutes les données de l'application :
  * - Les images chargées (principale, secondaire, originale)
+ * - L'historique des modifications (annuler / rétablir, voir HistoriqueImage)
  * - L'état de l'application
  * 
  * PATTERN OBSERVER :
  * Le modèle notifie les écouteurs quand les données changent.
  * Cela permet à la vue de se mettre à jour automatiquement.
+ * L'événement transmis (EvenementModele) dit ce qui a changé : nouvelle
+ * image ou dimensions changées, ou seulement les pixels de quelques zones
+ * (la vue ne redessine alors que ces zones, sans refaire sa mise en page).
  * 
  * @author Équipe 6 - BUT 3 Informatique
  */
@@ -23,13 +28,19 @@ public class ModeleImage
 {
 
 	/** Image principale affichée et modifiée */
-	private BufferedImage imagePrincipale;
+	private ImageCopieSurEcriture imagePrincipale;
 
 	/** Image secondaire pour les opérations de fusion */
 	private BufferedImage imageSecondaire;
 
-	/** Sauvegarde de l'image originale pour restauration */
-	private BufferedImage imageOriginale;
+	/** Sauvegarde de l'image originale pour restauration (partagée, copiée seulement si besoin) */
+	private ImageCopieSurEcriture imageOriginale;
+
+	/** Étapes annulables et rétablissables de l'image principale */
+	private final HistoriqueImage historique;
+
+	/** true entre commencerInvolution() et l'enregistrement de son résultat */
+	private boolean involutionEnCours;
 
 	/** Liste des écouteurs à notifier lors des changements */
 	private List<EcouteurModele> ecouteurs;
@@ -40,41 +51,89 @@ public class ModeleImage
 	 */
 	public ModeleImage() 
 	{
-		this.ecouteurs = new ArrayList<>();
+		this.ecouteurs  = new ArrayList<>();
+		this.historique = new HistoriqueImage();
 
-		this.imagePrincipale = null;
-		this.imageSecondaire = null;
-		this.imageOriginale  = null;
+		this.imagePrincipale   = null;
+		this.imageSecondaire   = null;
+		this.imageOriginale    = null;
+		this.involutionEnCours = false;
 	}
 
 	/**
 	 * Définit une nouvelle image principale.
-	 * Sauvegarde automatiquement une copie comme image originale.
+	 * Sauvegarde automatiquement l'image comme image originale.
+	 * L'historique repart de cette image.
+	 * 
+	 * L'originale partage les pixels de l'image principale (aucune copie) :
+	 * les traitements retournent toujours une nouvelle image, et une
+	 * modification sur place passe par getImagePrincipaleModifiable().
 	 * 
 	 * @param image La nouvelle image principale
 	 */
 	public void definirImagePrincipale(BufferedImage image) 
 	{
-		this.imagePrincipale = image;
+		this.remplacerImagePrincipale(image);
 
 		if (image != null && this.imageOriginale == null) 
 		{
-			this.imageOriginale = UtilitaireImage.copierImage(image);
+			this.imageOriginale = this.imagePrincipale.partager();
 		}
 
-		this.notifierChangement();
+		this.involutionEnCours = false;
+		this.historique.commencer(this.imagePrincipale);
+		this.notifierChangement(EvenementModele.imageRemplacee());
 	}
 
 	/**
 	 * Met à jour l'image principale sans changer l'originale.
-	 * Utilisé après des transformations.
+	 * Utilisé après des transformations : la modification devient une
+	 * étape de l'historique.
 	 * 
 	 * @param image La nouvelle image principale
 	 */
 	public void mettreAJourImagePrincipale(BufferedImage image) 
 	{
-		this.imagePrincipale = image;
-		this.notifierChangement();
+		this.mettreAJourImagePrincipale(image, null);
+	}
+
+	/**
+	 * Met à jour l'image principale en indiquant les zones modifiées.
+	 * Si les dimensions n'ont pas changé, seules ces zones sont signalées
+	 * aux écouteurs (voir EvenementModele.comparer).
+	 * 
+	 * @param image La nouvelle image principale
+	 * @param zones Les zones modifiées, en coordonnées de l'image (null : toute l'image)
+	 */
+	public void mettreAJourImagePrincipale(BufferedImage image, List<Rectangle> zones) 
+	{
+		Rectangle limites;
+
+		limites = this.getLimitesPrincipale();
+
+		if (image != this.getImagePrincipale())
+			this.remplacerImagePrincipale(image);
+
+		this.involutionEnCours = false;
+
+		if (this.imagePrincipale != null)
+			this.historique.enregistrer(this.imagePrincipale);
+		else
+			this.historique.vider();
+
+		this.notifierImagePrincipale(limites, zones);
+	}
+
+	/**
+	 * Remplace la vue de l'image principale (sans notifier).
+	 * L'ancienne vue est libérée : l'originale n'est plus partagée avec elle.
+	 */
+	private void remplacerImagePrincipale(BufferedImage image)
+	{
+		if (this.imagePrincipale != null)
+			this.imagePrincipale.liberer();
+
+		this.imagePrincipale = (image != null) ? new ImageCopieSurEcriture(image) : null;
 	}
 
 	/**
@@ -85,36 +144,159 @@ public class ModeleImage
 	public void definirImageSecondaire(BufferedImage image) 
 	{
 		this.imageSecondaire = image;
-		this.notifierChangement();
+		this.notifierChangement(EvenementModele.imageSecondaire());
 	}
 
 	/**
 	 * Restaure l'image originale comme image principale.
+	 * La restauration est elle-même une étape : elle peut être annulée.
+	 * Elle est ignorée pendant une involution (voir peutRestaurer()).
 	 */
 	public void restaurerImageOriginale()
 	{
-		if (this.imageOriginale != null) 
+		Rectangle limites;
+
+		if (this.peutRestaurer()) 
 		{
-			this.imagePrincipale = UtilitaireImage.copierImage(this.imageOriginale);
-			this.notifierChangement();
+			limites = this.getLimitesPrincipale();
+
+			if (this.imagePrincipale != null)
+				this.imagePrincipale.liberer();
+
+			this.imagePrincipale = this.imageOriginale.partager();
+			this.historique.enregistrer(this.imagePrincipale);
+			this.notifierImagePrincipale(limites, null);
 		}
 	}
 
+	/**
+	 * Annule la dernière modification de l'image principale.
+	 * 
+	 * @return false s'il n'y avait rien à annuler
+	 */
+	public boolean annuler()
+	{
+		return this.appliquerHistorique(true);
+	}
+
+	/**
+	 * Refait la dernière modification annulée.
+	 * 
+	 * @return false s'il n'y avait rien à rétablir
+	 */
+	public boolean retablir()
+	{
+		return this.appliquerHistorique(false);
+	}
+
+	/**
+	 * Annule ou rétablit une étape, puis notifie.
+	 */
+	private boolean appliquerHistorique(boolean annuler)
+	{
+		ImageCopieSurEcriture nouvelle;
+		Rectangle             limites;
+
+		if (this.imagePrincipale == null || this.involutionEnCours)
+			return false;
+
+		limites  = this.getLimitesPrincipale();
+		nouvelle = annuler ? this.historique.annuler(this.imagePrincipale) : this.historique.retablir(this.imagePrincipale);
+
+		if (nouvelle == null)
+			return false;
+
+		if (nouvelle != this.imagePrincipale)
+		{
+			this.imagePrincipale.liberer();
+			this.imagePrincipale = nouvelle;
+		}
+
+		this.notifierImagePrincipale(limites, this.historique.getZonesModifiees());
+		return true;
+	}
+
 	/**
 	 * Réinitialise toutes les images.
 	 */
 	public void reinitialiser() 
 	{
-		this.imagePrincipale = null;
-		this.imageSecondaire = null;
-		this.imageOriginale  = null;
-		this.notifierChangement();
+		if (this.imagePrincipale != null)
+			this.imagePrincipale.liberer();
+
+		if (this.imageOriginale != null)
+			this.imageOriginale.liberer();
+
+		this.imagePrincipale   = null;
+		this.imageSecondaire   = null;
+		this.imageOriginale    = null;
+		this.involutionEnCours = false;
+		this.historique.vider();
+		this.notifierChangement(EvenementModele.imageRemplacee());
 	}
 
 	/**
-	 * @return L'image principale (peut être null)
+	 * @return L'image principale, en lecture seule (peut être null)
 	 */
-	public BufferedImage getImagePrincipale() { return this.imagePrincipale; }
+	public BufferedImage getImagePrincipale() 
+	{ 
+		return (this.imagePrincipale != null) ? this.imagePrincipale.lire() : null; 
+	}
+
+	/**
+	 * Retourne l'image principale pour la modifier sur place.
+	 * Si elle partage encore ses pixels avec l'originale ou avec l'état
+	 * enregistré dans l'historique, elle est copiée d'abord.
+	 * Après modification, appeler mettreAJourImagePrincipale() pour notifier.
+	 * 
+	 * @return L'image principale modifiable (peut être null)
+	 */
+	public BufferedImage getImagePrincipaleModifiable() 
+	{ 
+		return (this.imagePrincipale != null) ? this.imagePrincipale.modifier() : null; 
+	}
+
+	/**
+	 * Retourne l'image principale pour lui appliquer une involution sur
+	 * place (demi-tour, miroir). L'historique cesse de partager ses pixels :
+	 * elle n'est copiée que si elle les partage encore avec l'originale ou
+	 * avec une étape en cours de calcul.
+	 * Après l'involution, appeler terminerInvolution() ; en cas d'échec,
+	 * mettreAJourImagePrincipale() (l'historique repart alors de l'image).
+	 * 
+	 * @return L'image principale modifiable (peut être null)
+	 */
+	public BufferedImage commencerInvolution()
+	{
+		if (this.imagePrincipale == null)
+			return null;
+
+		this.historique.lacherEtatCourant();
+		this.involutionEnCours = true;
+
+		return this.imagePrincipale.modifier();
+	}
+
+	/**
+	 * Enregistre l'involution appliquée depuis commencerInvolution() (une
+	 * étape de l'historique sans aucun pixel) et notifie.
+	 * 
+	 * @param image      Le résultat de l'involution (l'image modifiable, ou sa copie ARGB)
+	 * @param involution L'involution appliquée
+	 */
+	public void terminerInvolution(BufferedImage image, Involution involution)
+	{
+		Rectangle limites;
+
+		limites = this.getLimitesPrincipale();
+
+		if (image != this.getImagePrincipale())
+			this.remplacerImagePrincipale(image);
+
+		this.involutionEnCours = false;
+		this.historique.enregistrerInvolution(this.imagePrincipale, involution);
+		this.notifierImagePrincipale(limites, null);
+	}
 
 	/**
 	 * @return L'image secondaire (peut être null)
@@ -122,9 +304,12 @@ public class ModeleImage
 	public BufferedImage getImageSecondaire() { return this.imageSecondaire; }
 
 	/**
-	 * @return L'image originale (peut être null)
+	 * @return L'image originale, en lecture seule (peut être null)
 	 */
-	public BufferedImage getImageOriginale() { return this.imageOriginale; }
+	public BufferedImage getImageOriginale() 
+	{ 
+		return (this.imageOriginale != null) ? this.imageOriginale.lire() : null; 
+	}
 
 	/**
 	 * Vérifie si une image principale est chargée.
@@ -148,12 +333,56 @@ public class ModeleImage
 
 	/**
 	 * Vérifie si l'image originale peut être restaurée.
+	 * Pendant une involution, l'historique n'a plus d'état courant : une
+	 * restauration l'obligerait à repartir de zéro, elle est donc refusée.
 	 * 
-	 * @return true si l'image originale existe
+	 * @return true si l'image originale existe et qu'aucune involution n'est en cours
 	 */
 	public boolean peutRestaurer() 
 	{
-		return this.imageOriginale != null;
+		return this.imageOriginale != null && !this.involutionEnCours;
+	}
+
+	/**
+	 * @return true si une modification peut être annulée
+	 */
+	public boolean peutAnnuler() { return !this.involutionEnCours && this.historique.peutAnnuler(); }
+
+	/**
+	 * @return true si une modification annulée peut être rétablie
+	 */
+	public boolean peutRetablir() { return !this.involutionEnCours && this.historique.peutRetablir(); }
+
+	/**
+	 * @return La mémoire occupée par l'historique compressé (octets)
+	 */
+	public long getTailleHistorique() { return this.historique.getTaille(); }
+
+	/**
+	 * @return La place occupée sur disque par l'historique (octets)
+	 */
+	public long getTailleHistoriqueDisque() { return this.historique.getTailleDisque(); }
+
+	/**
+	 * Fixe la mémoire maximale de l'historique ; les étapes les moins
+	 * récemment utilisées sont écrites sur disque au-delà.
+	 * 
+	 * @param octets Taille maximale de l'historique compressé en mémoire
+	 */
+	public void definirBudgetHistorique(long octets) 
+	{
+		this.historique.definirBudget(octets);
+	}
+
+	/**
+	 * Fixe la place maximale de l'historique sur disque ; les étapes les
+	 * plus anciennes sont oubliées au-delà.
+	 * 
+	 * @param octets Taille maximale de l'historique sur disque
+	 */
+	public void definirBudgetHistoriqueDisque(long octets) 
+	{
+		this.historique.definirBudgetDisque(octets);
 	}
 
 	/**
@@ -179,17 +408,63 @@ public class ModeleImage
 		this.ecouteurs.remove(ecouteur);
 	}
 
+	/**
+	 * @return Le rectangle de l'image principale (null si aucune)
+	 */
+	private Rectangle getLimitesPrincipale()
+	{
+		BufferedImage image;
+
+		image = this.getImagePrincipale();
+
+		return (image != null) ? new Rectangle(0, 0, image.getWidth(), image.getHeight()) : null;
+	}
+
+	/**
+	 * Notifie un changement de l'image principale : zones modifiées si les
+	 * dimensions sont restées les mêmes, image remplacée sinon.
+	 * 
+	 * @param limitesAvant Le rectangle de l'image avant le changement (null si aucune)
+	 * @param zones        Les zones modifiées (null : toute l'image)
+	 */
+	private void notifierImagePrincipale(Rectangle limitesAvant, List<Rectangle> zones)
+	{
+		Rectangle limites;
+
+		limites = this.getLimitesPrincipale();
+
+		if (limites == null || !limites.equals(limitesAvant))
+			this.notifierChangement(EvenementModele.imageRemplacee());
+		else
+			this.notifierChangement(EvenementModele.pixelsModifies(zones, limites));
+	}
+
 	/**
 	 * Notifie tous les écouteurs qu'un changement a eu lieu.
+	 * 
+	 * @param evenement Ce qui a changé
 	 */
-	private void notifierChangement() 
+	private void notifierChangement(EvenementModele evenement) 
 	{
 		for (EcouteurModele ecouteur : this.ecouteurs) 
 		{
-			ecouteur.modeleModifie();
+			ecouteur.modeleModifie(evenement);
 		}
 	}
 
+	/**
+	 * Transformation sur place qui est sa propre inverse (demi-tour,
+	 * miroirs) : l'historique l'applique de nouveau pour l'annuler.
+	 */
+	public interface Involution
+	{
+		/**
+		 * @param image L'image à transformer (modifiée)
+		 * @return L'image transformée : "image" elle-même, ou sa copie ARGB
+		 */
+		BufferedImage appliquer(BufferedImage image);
+	}
+
 	/**
 	 * Interface pour les objets qui veulent être notifiés des changements
 	 * du modèle (typiquement la vue et le contrôleur).
@@ -198,7 +473,9 @@ public class ModeleImage
 	{
 		/**
 		 * Méthode appelée quand le modèle change.
+		 * 
+		 * @param evenement Ce qui a changé (type et zones modifiées)
 		 */
-		void modeleModifie();
+		void modeleModifie(EvenementModele evenement);
 	}
 }
@@ -23,13 +23,18 @@ public class UtilitaireImage
 {
 
 	/**
-	 * Ouvre une image PNG depuis un fichier.
+	 * Ouvre une image (PNG, ou format brut ".argb") depuis un fichier.
 	 * 
 	 * ALGORITHME :
 	 * 1. Créer un objet File avec le chemin donné
 	 * 2. Vérifier que le fichier existe
-	 * 3. Utiliser ImageIO.read() pour charger l'image
-	 * 4. Retourner le BufferedImage ou null si erreur
+	 * 3. Charger l'image :
+	 *    - FormatBrut.lire() pour un fichier ".argb"
+	 *    - DecodeurPng.lire() pour un PNG écrit par EncodeurPng (décodage parallèle)
+	 *    - sinon ImageIO.read(), puis conversion en TYPE_INT_ARGB
+	 *      (AccesRaster.normaliser) : les traitements n'auront plus à
+	 *      convertir les pixels
+	 * 4. Retourner le BufferedImage (toujours TYPE_INT_ARGB) ou null si erreur
 	 * 
 	 * @param cheminFichier Le chemin vers le fichier image
 	 * @return L'image chargée, ou null si erreur
@@ -49,7 +54,13 @@ public class UtilitaireImage
 				return null;
 			}
 
-			image = ImageIO.read(fichier);
+			if (FormatBrut.estFormatBrut(cheminFichier))
+				image = FormatBrut.lire(fichier);
+			else
+				image = DecodeurPng.lire(fichier);
+
+			if (image == null)
+				image = AccesRaster.normaliser(ImageIO.read(fichier));
 
 			if (image == null) 
 			{
@@ -71,21 +82,34 @@ public class UtilitaireImage
 	}
 
 	/**
-	 * Sauvegarde une image au format PNG.
+	 * Sauvegarde une image au format PNG (ou au format brut ".argb"),
+	 * au niveau de compression par défaut.
+	 * 
+	 * @see #sauvegarderImage(BufferedImage, String, int)
+	 */
+	public static boolean sauvegarderImage(BufferedImage image, String cheminFichier) 
+	{
+		return UtilitaireImage.sauvegarderImage(image, cheminFichier, EncodeurPng.NIVEAU_PAR_DEFAUT);
+	}
+
+	/**
+	 * Sauvegarde une image au format PNG (ou au format brut ".argb").
 	 * 
 	 * ALGORITHME :
 	 * 1. Créer un objet File avec le chemin de destination
-	 * 2. Utiliser ImageIO.write() avec le format "PNG"
-	 * 3. Retourner true si succès, false sinon
+	 * 2. Encoder le PNG avec EncodeurPng (compression sur tous les cœurs)
+	 *    (ou FormatBrut.ecrire() si le chemin se termine par ".argb")
+	 * 3. Retourner true si succès, false sinon (les échecs d'écriture
+	 *    arrivent sous forme d'IOException)
 	 * 
-	 * @param image         L'image à sauvegarder
-	 * @param cheminFichier Le chemin de destination
+	 * @param image             L'image à sauvegarder
+	 * @param cheminFichier     Le chemin de destination
+	 * @param niveauCompression Niveau de compression PNG, de 0 (le plus rapide) à 9 (le plus petit)
 	 * @return true si la sauvegarde a réussi
 	 */
-	public static boolean sauvegarderImage(BufferedImage image, String cheminFichier) 
+	public static boolean sauvegarderImage(BufferedImage image, String cheminFichier, int niveauCompression) 
 	{
 		File fichier;
-		boolean succes;
 
 		try 
 		{
@@ -96,14 +120,14 @@ public class UtilitaireImage
 			}
 
 			fichier = new File(cheminFichier);
-			succes  = ImageIO.write(image, "PNG", fichier);
 
-			if (succes) 
-				System.out.println("Image sauvegardée : " + cheminFichier);
-			else 
-				System.err.println("ERREUR : Échec de la sauvegarde");
+			if (FormatBrut.estFormatBrut(cheminFichier))
+				FormatBrut.ecrire(image, fichier);
+			else
+				EncodeurPng.ecrire(image, fichier, niveauCompression);
 
-			return succes;
+			System.out.println("Image sauvegardée : " + cheminFichier);
+			return true;
 
 		} 
 		catch (IOException e) 
@@ -121,37 +145,40 @@ public class UtilitaireImage
 	 * Pour garder l'originale intacte, on travaille sur une copie.
 	 * 
 	 * ALGORITHME :
-	 * 1. Créer une nouvelle BufferedImage de même taille et type
-	 * 2. Copier tous les pixels de l'originale vers la copie
+	 * 1. Créer une nouvelle BufferedImage ARGB de même taille
+	 * 2. Copier d'un bloc le tableau de pixels de l'originale (System.arraycopy)
+	 *    ou, pour les autres types d'image, tout convertir en un seul getRGB()
 	 * 3. Retourner la copie
 	 * 
+	 * Pour partager une image sans la copier tant qu'elle n'est pas modifiée,
+	 * voir ImageCopieSurEcriture.
+	 * 
 	 * @param originale L'image à copier
 	 * @return Une nouvelle image identique
 	 */
 	public static BufferedImage copierImage(BufferedImage originale) 
 	{
 		BufferedImage copie;
-		int couleur;
+		int[]         pixelsOriginale, pixelsCopie;
+		int           largeur, hauteur;
 		
 		if (originale == null) 
 		{
 			return null;
 		}
 
-		copie = new BufferedImage(
-			originale.getWidth(),
-			originale.getHeight(),
-			BufferedImage.TYPE_INT_ARGB
-		);
+		largeur = originale.getWidth();
+		hauteur = originale.getHeight();
 
-		for (int y = 0; y < originale.getHeight(); y++) 
-		{
-			for (int x = 0; x < originale.getWidth(); x++) 
-			{
-				couleur = originale.getRGB(x, y);
-				copie.setRGB(x, y, couleur);
-			}
-		}
+		copie       = UtilitaireImage.creerImageVide(largeur, hauteur);
+		pixelsCopie = AccesRaster.obtenirPixels(copie);
+
+		pixelsOriginale = AccesRaster.obtenirPixels(originale);
+
+		if (pixelsOriginale != null)
+			System.arraycopy(pixelsOriginale, 0, pixelsCopie, 0, pixelsCopie.length);
+		else
+			originale.getRGB(0, 0, largeur, hauteur, pixelsCopie, 0, largeur);
 
 		return copie;
 	}
@@ -188,17 +215,21 @@ public class UtilitaireImage
 	 * - Bits 8-15 : Vert (0-255)
 	 * - Bits 0-7 : Bleu (0-255)
 	 * 
+	 * REMARQUE : cette méthode crée un tableau à chaque appel. Dans les boucles
+	 * sur les pixels, utiliser plutôt les accesseurs de CanalARGB.
+	 * 
 	 * @param couleurARGB La couleur au format ARGB
 	 * @return Un tableau [alpha, rouge, vert, bleu]
 	 */
 	public static int[] extraireComposantes(int couleurARGB) 
 	{
-		int alpha = (couleurARGB >> 24) & 0xFF;
-		int rouge = (couleurARGB >> 16) & 0xFF;
-		int vert  = (couleurARGB >> 8)  & 0xFF;
-		int bleu  = couleurARGB         & 0xFF;
-
-		return new int[] { alpha, rouge, vert, bleu };
+		return new int[] 
+		{ 
+			CanalARGB.alpha(couleurARGB), 
+			CanalARGB.rouge(couleurARGB), 
+			CanalARGB.vert (couleurARGB), 
+			CanalARGB.bleu (couleurARGB) 
+		};
 	}
 
 	/**
@@ -212,12 +243,7 @@ public class UtilitaireImage
 	 */
 	public static int combinerComposantes(int alpha, int rouge, int vert, int bleu) 
 	{
-		alpha = Math.max(0, Math.min(255, alpha));
-		rouge = Math.max(0, Math.min(255, rouge));
-		vert  = Math.max(0, Math.min(255, vert ));
-		bleu  = Math.max(0, Math.min(255, bleu ));
-
-		return (alpha << 24) | (rouge << 16) | (vert << 8) | bleu;
+		return CanalARGB.composerBorne(alpha, rouge, vert, bleu);
 	}
 
 	/**
@@ -236,12 +262,9 @@ public class UtilitaireImage
 	 */
 	public static double distanceCouleur(int couleur1, int couleur2) 
 	{
-		int[] c1 = extraireComposantes(couleur1);
-		int[] c2 = extraireComposantes(couleur2);
-
-		int diffRouge = c1[1] - c2[1];
-		int diffVert  = c1[2] - c2[2];
-		int diffBleu  = c1[3] - c2[3];
+		int diffRouge = CanalARGB.rouge(couleur1) - CanalARGB.rouge(couleur2);
+		int diffVert  = CanalARGB.vert (couleur1) - CanalARGB.vert (couleur2);
+		int diffBleu  = CanalARGB.bleu (couleur1) - CanalARGB.bleu (couleur2);
 
 		return Math.sqrt(diffRouge * diffRouge + diffVert * diffVert + diffBleu * diffBleu);
 	}
@@ -0,0 +1,231 @@
+package modele.traitement;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ============================================================================
+ * EXÉCUTION PARALLÈLE DES TRAITEMENTS PAR BANDES
+ * ============================================================================
+ *
+ * Cette classe découpe un traitement en bandes (plages de pixels ou de lignes)
+ * et les répartit sur tous les cœurs du processeur avec un ForkJoinPool.
+ *
+ * PRINCIPE (DIVISER POUR RÉGNER) :
+ * 1. Si la plage est assez petite, on la traite directement
+ * 2. Sinon, on la coupe en deux moitiés
+ * 3. Une moitié est confiée à un autre thread, on traite l'autre
+ *
+ * TAILLE DES BANDES :
+ * Une bande fait environ PIXELS_PAR_BANDE pixels (256 Ko d'entiers ARGB),
+ * ce qui tient dans le cache L2 d'un cœur.
+ *
+ * CONDITION :
+ * Le noyau ne doit écrire que dans sa propre plage : chaque pixel du
+ * résultat ne dépend alors que de la source, et le résultat est identique
+ * bit à bit à celui d'un traitement séquentiel.
+ *
+ * SUIVI (PROGRESSION ET ANNULATION) :
+ * Si un SuiviTraitement est associé au thread appelant (definirSuivi),
+ * chaque bande vérifie d'abord qu'il n'est pas annulé, puis compte ses
+ * éléments. Le traitement séquentiel est alors lui aussi découpé en bandes,
+ * pour pouvoir s'arrêter en cours de route.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class ExecuteurTuiles
+{
+
+	/** Nombre de pixels traités par une bande */
+	public static final int PIXELS_PAR_BANDE = 1 << 16;
+
+	/** Propriété système permettant de fixer le parallélisme au lancement */
+	public static final String PROPRIETE_PARALLELISME = "traitement.parallelisme";
+
+	/** Le pool de threads (null si le parallélisme vaut 1), lu sans verrou par executer() */
+	private static volatile ForkJoinPool pool;
+
+	/** Nombre de threads utilisés */
+	private static volatile int parallelisme;
+
+	/** Suivi associé au thread qui lance le traitement (null si aucun) */
+	private static final ThreadLocal<SuiviTraitement> SUIVI = new ThreadLocal<>();
+
+	static
+	{
+		ExecuteurTuiles.definirParallelisme(
+			Integer.getInteger(PROPRIETE_PARALLELISME, Runtime.getRuntime().availableProcessors())
+		);
+	}
+
+	/**
+	 * Traitement appliqué à une plage [debut, fin[ d'éléments (pixels ou lignes).
+	 */
+	public interface NoyauPlage
+	{
+		/**
+		 * @param debut Premier élément (inclus)
+		 * @param fin   Dernier élément (exclu)
+		 */
+		void traiter(int debut, int fin);
+	}
+
+	/**
+	 * Définit le nombre de threads utilisés par les traitements.
+	 * 1 = traitement séquentiel (aucun thread supplémentaire).
+	 * L'ancien pool n'est pas arrêté : un traitement qui l'a déjà obtenu s'y
+	 * termine normalement, puis ses threads (démons) s'arrêtent d'eux-mêmes
+	 * après une minute d'inactivité.
+	 *
+	 * @param nombreThreads Nombre de threads (au moins 1)
+	 */
+	public static synchronized void definirParallelisme(int nombreThreads)
+	{
+		nombreThreads = Math.max(1, nombreThreads);
+
+		if (ExecuteurTuiles.pool != null && nombreThreads == ExecuteurTuiles.parallelisme)
+			return;
+
+		ExecuteurTuiles.parallelisme = nombreThreads;
+		ExecuteurTuiles.pool         = (nombreThreads > 1) ? new ForkJoinPool(nombreThreads) : null;
+	}
+
+	/**
+	 * @return Le nombre de threads utilisés par les traitements
+	 */
+	public static int getParallelisme() { return ExecuteurTuiles.parallelisme; }
+
+	/**
+	 * Associe un suivi aux traitements lancés par le thread courant.
+	 *
+	 * @param suivi Le suivi, ou null pour ne plus suivre
+	 */
+	public static void definirSuivi(SuiviTraitement suivi)
+	{
+		if (suivi == null)
+			ExecuteurTuiles.SUIVI.remove();
+		else
+			ExecuteurTuiles.SUIVI.set(suivi);
+	}
+
+	/**
+	 * Traite un tableau de pixels par bandes de PIXELS_PAR_BANDE pixels.
+	 *
+	 * @param nombrePixels Nombre total de pixels
+	 * @param noyau        Traitement d'une plage [debut, fin[ de pixels
+	 */
+	public static void executerPixels(int nombrePixels, NoyauPlage noyau)
+	{
+		ExecuteurTuiles.executer(nombrePixels, PIXELS_PAR_BANDE, noyau);
+	}
+
+	/**
+	 * Traite une image ligne par ligne, par bandes d'environ PIXELS_PAR_BANDE pixels.
+	 *
+	 * @param nombreLignes Nombre de lignes à traiter
+	 * @param largeur      Nombre de pixels par ligne
+	 * @param noyau        Traitement d'une plage [debut, fin[ de lignes
+	 */
+	public static void executerLignes(int nombreLignes, int largeur, NoyauPlage noyau)
+	{
+		ExecuteurTuiles.executer(nombreLignes, Math.max(1, PIXELS_PAR_BANDE / Math.max(1, largeur)), noyau);
+	}
+
+	/**
+	 * Découpe [0, nombre[ en bandes d'au plus tailleBande éléments et les traite.
+	 *
+	 * @param nombre      Nombre total d'éléments
+	 * @param tailleBande Nombre maximal d'éléments par bande
+	 * @param noyau       Traitement d'une bande
+	 * @throws java.util.concurrent.CancellationException si le suivi du thread appelant est annulé
+	 */
+	public static void executer(int nombre, int tailleBande, NoyauPlage noyau)
+	{
+		ForkJoinPool    poolCourant;
+		SuiviTraitement suivi;
+		int             fin;
+
+		if (nombre <= 0)
+			return;
+
+		poolCourant = ExecuteurTuiles.pool;
+		suivi       = ExecuteurTuiles.SUIVI.get();
+		tailleBande = Math.max(1, tailleBande);
+
+		if (suivi != null)
+		{
+			suivi.verifier();
+			suivi.commencerPasse(nombre);
+		}
+
+		if (poolCourant == null || nombre <= tailleBande)
+		{
+			if (suivi == null)
+			{
+				noyau.traiter(0, nombre);
+				return;
+			}
+
+			for (int debut = 0; debut < nombre; debut += tailleBande)
+			{
+				fin = (int) Math.min((long) debut + tailleBande, nombre);
+
+				suivi.verifier();
+				noyau.traiter(debut, fin);
+				suivi.avancer(fin - debut);
+			}
+
+			return;
+		}
+
+		poolCourant.invoke(new TacheBandes(noyau, 0, nombre, tailleBande, suivi));
+	}
+
+	/**
+	 * Tâche Fork/Join : coupe sa plage en deux jusqu'à atteindre la taille d'une bande.
+	 */
+	private static class TacheBandes extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final NoyauPlage      noyau;
+		private final int             debut, fin, tailleBande;
+		private final SuiviTraitement suivi;
+
+		TacheBandes(NoyauPlage noyau, int debut, int fin, int tailleBande, SuiviTraitement suivi)
+		{
+			this.noyau       = noyau;
+			this.debut       = debut;
+			this.fin         = fin;
+			this.tailleBande = tailleBande;
+			this.suivi       = suivi;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int nombreBandes, milieu;
+
+			if (this.fin - this.debut <= this.tailleBande)
+			{
+				if (this.suivi != null)
+					this.suivi.verifier();
+
+				this.noyau.traiter(this.debut, this.fin);
+
+				if (this.suivi != null)
+					this.suivi.avancer(this.fin - this.debut);
+
+				return;
+			}
+
+			nombreBandes = (this.fin - this.debut + this.tailleBande - 1) / this.tailleBande;
+			milieu       = this.debut + (nombreBandes / 2) * this.tailleBande;
+
+			TacheBandes.invokeAll(
+				new TacheBandes(this.noyau, this.debut, milieu,   this.tailleBande, this.suivi),
+				new TacheBandes(this.noyau, milieu,     this.fin, this.tailleBande, this.suivi)
+			);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package modele.traitement;
+
+import modele.CanalARGB;
+
+/**
+ * ============================================================================
+ * DÉCALAGE DE TEINTE APPROCHÉ PAR UNE MATRICE DE ROTATION
+ * ============================================================================
+ *
+ * Version rapide du décalage de teinte : au lieu de passer par HSV, on
+ * tourne chaque couleur autour de l'axe des gris (la diagonale R = G = B du
+ * cube RGB), d'un angle égal au décalage.
+ *
+ * PRINCIPE :
+ * Cette rotation est une matrice 3×3, calculée UNE fois pour l'angle :
+ *     | R' |   | a  b  c |   | R |
+ *     | G' | = | c  a  b | × | G |
+ *     | B' |   | b  c  a |   | B |
+ * avec a = cos θ + (1 - cos θ) / 3
+ *      b = (1 - cos θ) / 3 - sin θ / √3
+ *      c = (1 - cos θ) / 3 + sin θ / √3
+ * Les coefficients sont stockés en virgule fixe (× 65536) : un pixel coûte
+ * 9 multiplications entières, sans division ni test de secteur.
+ *
+ * PRÉCISION (comparée à TraitementTransformation.decalerTeinte) :
+ * Le cercle chromatique HSV est un hexagone, la rotation est un vrai cercle :
+ * les deux ne coïncident que pour 0°, 120° et 240° (résultat identique).
+ * Mesuré sur les 16 777 216 couleurs :
+ * - pire cas : 85 (sur 255) sur une composante, pour 60°, 180° et 300°
+ *   (exemple : le rouge pur décalé de 60° donne (170, 170, 0) au lieu du jaune)
+ * - écart maximal selon l'angle : 3 pour ±1°, 17 pour 7°, 54 pour 30°, 75 pour 45°
+ * - écart moyen : de 1 (±1°) à 23 (45°)
+ * À réserver aux aperçus, ou quand la vitesse compte plus que la fidélité.
+ *
+ * L'alpha n'est jamais modifié.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class MatriceTeinte implements OperationPonctuelle
+{
+
+	/** Nombre de bits après la virgule des coefficients */
+	private static final int PRECISION = 16;
+
+	/** Coefficients de la matrice, en virgule fixe */
+	private final int a, b, c;
+
+	/**
+	 * Calcule la matrice de rotation pour un décalage donné.
+	 *
+	 * @param decalage Décalage de teinte en degrés
+	 */
+	public MatriceTeinte(int decalage)
+	{
+		double angle, cosinus, sinus, tiers, terme;
+
+		angle   = Math.toRadians(decalage);
+		cosinus = Math.cos(angle);
+		sinus   = Math.sin(angle);
+		tiers   = (1 - cosinus) / 3;
+		terme   = sinus / Math.sqrt(3);
+
+		this.a = (int) Math.round((cosinus + tiers) * (1 << PRECISION));
+		this.b = (int) Math.round((tiers - terme)   * (1 << PRECISION));
+		this.c = (int) Math.round((tiers + terme)   * (1 << PRECISION));
+	}
+
+	/**
+	 * Applique la rotation aux pixels d'indice [debut, fin[.
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	@Override
+	public void appliquer(int[] source, int[] destination, int debut, int fin)
+	{
+		int couleur, rouge, vert, bleu, arrondi;
+
+		arrondi = 1 << (PRECISION - 1);
+
+		for (int i = debut; i < fin; i++)
+		{
+			couleur = source[i];
+
+			rouge = CanalARGB.rouge(couleur);
+			vert  = CanalARGB.vert (couleur);
+			bleu  = CanalARGB.bleu (couleur);
+
+			destination[i] = CanalARGB.composer(
+				CanalARGB.alpha(couleur),
+				CanalARGB.borner((this.a * rouge + this.b * vert + this.c * bleu + arrondi) >> PRECISION),
+				CanalARGB.borner((this.c * rouge + this.a * vert + this.b * bleu + arrondi) >> PRECISION),
+				CanalARGB.borner((this.b * rouge + this.c * vert + this.a * bleu + arrondi) >> PRECISION)
+			);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package modele.traitement;
+
+/**
+ * ============================================================================
+ * NOYAUX DE CALCUL PIXEL PAR PIXEL (SCALAIRES OU VECTORIELS)
+ * ============================================================================
+ *
+ * Les boucles les plus simples (gris, négatif, luminosité, mélange alpha)
+ * existent en deux versions :
+ * - NoyauxScalaires  : un pixel à la fois, fonctionne partout
+ * - NoyauxVectoriels : plusieurs pixels par instruction (SIMD : AVX2, AVX-512)
+ *   grâce au module jdk.incubator.vector
+ *
+ * CHOIX AU LANCEMENT :
+ * La version vectorielle est utilisée si la JVM a été lancée avec
+ * --add-modules jdk.incubator.vector (voir run.sh) et si la classe a été
+ * compilée (voir compile.sh). Sinon, la version scalaire est utilisée.
+ * On peut forcer la version scalaire avec -Dtraitement.vectoriel=false.
+ *
+ * GARANTIE :
+ * Les deux versions donnent exactement les mêmes pixels.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public abstract class NoyauxPixels
+{
+
+	/** Propriété système permettant de désactiver la version vectorielle */
+	public static final String PROPRIETE_VECTORIEL = "traitement.vectoriel";
+
+	/** Module de la JVM nécessaire à la version vectorielle */
+	private static final String MODULE_VECTORIEL = "jdk.incubator.vector";
+
+	/** Classe de la version vectorielle (chargée seulement si possible) */
+	private static final String CLASSE_VECTORIELLE = "modele.traitement.NoyauxVectoriels";
+
+	private static final NoyauxPixels SCALAIRES = new NoyauxScalaires();
+
+	/** Version vectorielle (null si indisponible) */
+	private static final NoyauxPixels VECTORIELS = NoyauxPixels.chargerVectoriels();
+
+	/** Noyaux utilisés par les traitements */
+	private static volatile NoyauxPixels actifs;
+
+	static
+	{
+		NoyauxPixels.utiliserVectoriel(
+			Boolean.parseBoolean(System.getProperty(PROPRIETE_VECTORIEL, "true"))
+		);
+	}
+
+	/**
+	 * @return Les noyaux utilisés par les traitements
+	 */
+	public static NoyauxPixels actifs() { return NoyauxPixels.actifs; }
+
+	/**
+	 * @return Les noyaux scalaires (toujours disponibles)
+	 */
+	public static NoyauxPixels scalaires() { return NoyauxPixels.SCALAIRES; }
+
+	/**
+	 * @return true si la version vectorielle peut être utilisée sur cette JVM
+	 */
+	public static boolean estVectorielDisponible() { return NoyauxPixels.VECTORIELS != null; }
+
+	/**
+	 * @return true si les traitements utilisent la version vectorielle
+	 */
+	public static boolean estVectoriel() { return NoyauxPixels.actifs == NoyauxPixels.VECTORIELS; }
+
+	/**
+	 * Choisit la version utilisée par les traitements.
+	 *
+	 * @param vectoriel true pour utiliser la version vectorielle si elle est disponible
+	 */
+	public static void utiliserVectoriel(boolean vectoriel)
+	{
+		NoyauxPixels.actifs = (vectoriel && NoyauxPixels.VECTORIELS != null)
+		                      ? NoyauxPixels.VECTORIELS
+		                      : NoyauxPixels.SCALAIRES;
+	}
+
+	/**
+	 * Charge la version vectorielle par réflexion : si le module est absent,
+	 * la classe n'est jamais chargée et l'application fonctionne normalement.
+	 *
+	 * @return Les noyaux vectoriels, ou null s'ils sont indisponibles
+	 */
+	private static NoyauxPixels chargerVectoriels()
+	{
+		if (ModuleLayer.boot().findModule(MODULE_VECTORIEL).isEmpty())
+			return null;
+
+		try
+		{
+			return (NoyauxPixels) Class.forName(CLASSE_VECTORIELLE).getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Niveaux de gris : gris = 0.299 * R + 0.587 * G + 0.114 * B (tronqué).
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	public abstract void niveauxDeGris(int[] source, int[] destination, int debut, int fin);
+
+	/**
+	 * Négatif : chaque composante devient 255 - composante (alpha conservé).
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	public abstract void negatif(int[] source, int[] destination, int debut, int fin);
+
+	/**
+	 * Luminosité : chaque composante devient composante + facteur, bornée
+	 * entre 0 et 255 (alpha conservé).
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 * @param facteur     Valeur à ajouter
+	 */
+	public abstract void luminosite(int[] source, int[] destination, int debut, int fin, int facteur);
+
+	/**
+	 * Mélange alpha de "longueur" pixels source sur les pixels destination :
+	 *     composante = (alpha * source + (255 - alpha) * destination) / 255
+	 *     alpha      = max(alpha source, alpha destination)
+	 *
+	 * @param source           Pixels à superposer
+	 * @param debutSource      Indice du premier pixel source
+	 * @param destination      Pixels de fond (modifiés directement)
+	 * @param debutDestination Indice du premier pixel destination
+	 * @param longueur         Nombre de pixels
+	 */
+	public abstract void melanger(
+		int[] source, int debutSource,
+		int[] destination, int debutDestination,
+		int longueur
+	);
+}
@@ -0,0 +1,112 @@
+package modele.traitement;
+
+import modele.CanalARGB;
+
+/**
+ * Version scalaire des noyaux (un pixel à la fois), utilisée quand le
+ * module jdk.incubator.vector est absent. Sert aussi de référence : la
+ * version vectorielle doit donner exactement les mêmes pixels.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class NoyauxScalaires extends NoyauxPixels
+{
+
+	@Override
+	public void niveauxDeGris(int[] source, int[] destination, int debut, int fin)
+	{
+		int couleur, gris;
+
+		for (int i = debut; i < fin; i++)
+		{
+			couleur = source[i];
+
+			gris = (int) (
+				0.299 * CanalARGB.rouge(couleur) +
+				0.587 * CanalARGB.vert (couleur) +
+				0.114 * CanalARGB.bleu (couleur)
+			);
+
+			destination[i] = CanalARGB.composer(CanalARGB.alpha(couleur), gris, gris, gris);
+		}
+	}
+
+	/**
+	 * 255 - v revient à inverser les 8 bits de v : un seul XOR par pixel.
+	 */
+	@Override
+	public void negatif(int[] source, int[] destination, int debut, int fin)
+	{
+		for (int i = debut; i < fin; i++)
+			destination[i] = source[i] ^ 0x00FFFFFF;
+	}
+
+	@Override
+	public void luminosite(int[] source, int[] destination, int debut, int fin, int facteur)
+	{
+		int couleur;
+
+		for (int i = debut; i < fin; i++)
+		{
+			couleur = source[i];
+
+			destination[i] = CanalARGB.composer(
+				CanalARGB.alpha(couleur),
+				CanalARGB.borner(CanalARGB.rouge(couleur) + facteur),
+				CanalARGB.borner(CanalARGB.vert (couleur) + facteur),
+				CanalARGB.borner(CanalARGB.bleu (couleur) + facteur)
+			);
+		}
+	}
+
+	@Override
+	public void melanger(
+		int[] source, int debutSource,
+		int[] destination, int debutDestination,
+		int longueur
+	)
+	{
+		int couleurSource, couleurDest, alphaSource, indexDest;
+
+		for (int k = 0; k < longueur; k++)
+		{
+			couleurSource = source[debutSource + k];
+			alphaSource   = CanalARGB.alpha(couleurSource);
+
+			// Transparent : le fond ne change pas
+			if (alphaSource == 0)
+				continue;
+
+			indexDest = debutDestination + k;
+
+			// Opaque : la source remplace le fond
+			if (alphaSource == 255)
+			{
+				destination[indexDest] = couleurSource;
+				continue;
+			}
+
+			couleurDest = destination[indexDest];
+
+			destination[indexDest] = CanalARGB.composer(
+				Math.max(alphaSource, CanalARGB.alpha(couleurDest)),
+				NoyauxScalaires.melanger(CanalARGB.rouge(couleurSource), CanalARGB.rouge(couleurDest), alphaSource),
+				NoyauxScalaires.melanger(CanalARGB.vert (couleurSource), CanalARGB.vert (couleurDest), alphaSource),
+				NoyauxScalaires.melanger(CanalARGB.bleu (couleurSource), CanalARGB.bleu (couleurDest), alphaSource)
+			);
+		}
+	}
+
+	/**
+	 * Mélange deux valeurs selon un alpha donné.
+	 *
+	 * @param valeurSource Valeur de la source (0-255)
+	 * @param valeurDest   Valeur de la destination (0-255)
+	 * @param alpha        Niveau de mélange (0-255)
+	 * @return La valeur mélangée
+	 */
+	private static int melanger(int valeurSource, int valeurDest, int alpha)
+	{
+		return (alpha * valeurSource + (255 - alpha) * valeurDest) / 255;
+	}
+}
@@ -0,0 +1,141 @@
+package modele.traitement;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ============================================================================
+ * NOYAUX VECTORIELS (SIMD) AVEC L'API VECTOR DE JAVA
+ * ============================================================================
+ *
+ * Un "vecteur" contient plusieurs pixels (8 avec AVX2, 16 avec AVX-512) :
+ * chaque opération (décalage, masque, addition...) traite tous ces pixels
+ * en une seule instruction du processeur.
+ *
+ * COMPILATION ET LANCEMENT :
+ * Cette classe utilise le module jdk.incubator.vector. Elle n'est chargée
+ * que par réflexion (voir NoyauxPixels), et doit être compilée avec
+ * --add-modules jdk.incubator.vector (voir compile.sh).
+ *
+ * RÉSULTATS IDENTIQUES À LA VERSION SCALAIRE :
+ * - Gris : délégué à NoyauxScalaires (voir niveauxDeGris)
+ * - Mélange : la division par 255 est remplacée par
+ *       x / 255 = (x + 1 + (x >> 8)) >> 8     (exact pour 0 <= x <= 65535)
+ *   et les cas alpha = 0 / alpha = 255 donnent naturellement le fond / la source
+ * - Les derniers pixels (moins d'un vecteur) sont traités par NoyauxScalaires
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class NoyauxVectoriels extends NoyauxPixels
+{
+
+	/** Vecteurs d'entiers de la taille préférée du processeur */
+	private static final VectorSpecies<Integer> ENTIERS = IntVector.SPECIES_PREFERRED;
+
+	/**
+	 * Le gris doit être calculé en double pour garder exactement l'arrondi de
+	 * la version scalaire (aucune formule entière ne le reproduit sur les 16
+	 * millions de couleurs). Les conversions int <-> double coûtent alors plus
+	 * cher que la boucle scalaire, que le compilateur JIT vectorise déjà :
+	 * on la garde.
+	 */
+	@Override
+	public void niveauxDeGris(int[] source, int[] destination, int debut, int fin)
+	{
+		NoyauxPixels.scalaires().niveauxDeGris(source, destination, debut, fin);
+	}
+
+	@Override
+	public void negatif(int[] source, int[] destination, int debut, int fin)
+	{
+		int limite, i;
+
+		limite = debut + ENTIERS.loopBound(fin - debut);
+
+		for (i = debut; i < limite; i += ENTIERS.length())
+		{
+			IntVector.fromArray(ENTIERS, source, i)
+			         .lanewise(VectorOperators.XOR, 0x00FFFFFF)
+			         .intoArray(destination, i);
+		}
+
+		NoyauxPixels.scalaires().negatif(source, destination, i, fin);
+	}
+
+	@Override
+	public void luminosite(int[] source, int[] destination, int debut, int fin, int facteur)
+	{
+		IntVector pixels, rouge, vert, bleu;
+		int       limite, i;
+
+		limite = debut + ENTIERS.loopBound(fin - debut);
+
+		for (i = debut; i < limite; i += ENTIERS.length())
+		{
+			pixels = IntVector.fromArray(ENTIERS, source, i);
+
+			rouge = pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF).add(facteur).max(0).min(255);
+			vert  = pixels.lanewise(VectorOperators.LSHR, 8).and(0xFF).add(facteur).max(0).min(255);
+			bleu  = pixels.and(0xFF).add(facteur).max(0).min(255);
+
+			pixels.and(0xFF000000)
+			      .or(rouge.lanewise(VectorOperators.LSHL, 16))
+			      .or(vert.lanewise(VectorOperators.LSHL, 8))
+			      .or(bleu)
+			      .intoArray(destination, i);
+		}
+
+		NoyauxPixels.scalaires().luminosite(source, destination, i, fin, facteur);
+	}
+
+	@Override
+	public void melanger(
+		int[] source, int debutSource,
+		int[] destination, int debutDestination,
+		int longueur
+	)
+	{
+		IntVector pixelsSource, pixelsDest, alpha, inverse;
+		int       limite, k;
+
+		limite = ENTIERS.loopBound(longueur);
+
+		for (k = 0; k < limite; k += ENTIERS.length())
+		{
+			pixelsSource = IntVector.fromArray(ENTIERS, source,      debutSource + k);
+			pixelsDest   = IntVector.fromArray(ENTIERS, destination, debutDestination + k);
+
+			alpha   = pixelsSource.lanewise(VectorOperators.LSHR, 24);
+			inverse = alpha.lanewise(VectorOperators.NEG).add(255);
+
+			alpha.max(pixelsDest.lanewise(VectorOperators.LSHR, 24)).lanewise(VectorOperators.LSHL, 24)
+			     .or(NoyauxVectoriels.melanger(pixelsSource, pixelsDest, alpha, inverse, 16).lanewise(VectorOperators.LSHL, 16))
+			     .or(NoyauxVectoriels.melanger(pixelsSource, pixelsDest, alpha, inverse, 8).lanewise(VectorOperators.LSHL, 8))
+			     .or(NoyauxVectoriels.melanger(pixelsSource, pixelsDest, alpha, inverse, 0))
+			     .intoArray(destination, debutDestination + k);
+		}
+
+		NoyauxPixels.scalaires().melanger(
+			source, debutSource + k, destination, debutDestination + k, longueur - k
+		);
+	}
+
+	/**
+	 * Mélange une composante (située au bit "decalage") de deux vecteurs de pixels.
+	 *
+	 * @return (alpha * source + (255 - alpha) * destination) / 255, pour chaque case
+	 */
+	private static IntVector melanger(
+		IntVector pixelsSource, IntVector pixelsDest,
+		IntVector alpha, IntVector inverse, int decalage
+	)
+	{
+		IntVector somme;
+
+		somme = alpha.mul(pixelsSource.lanewise(VectorOperators.LSHR, decalage).and(0xFF))
+		             .add(inverse.mul(pixelsDest.lanewise(VectorOperators.LSHR, decalage).and(0xFF)));
+
+		return somme.add(somme.lanewise(VectorOperators.LSHR, 8)).add(1).lanewise(VectorOperators.LSHR, 8);
+	}
+}
@@ -0,0 +1,23 @@
+package modele.traitement;
+
+/**
+ * Opération "ponctuelle" : chaque pixel du résultat ne dépend que du pixel
+ * de même position dans la source (luminosité, contraste, gris, teinte...).
+ *
+ * Ces opérations peuvent être enchaînées dans un seul passage sur l'image
+ * (voir PipelineTraitement).
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public interface OperationPonctuelle
+{
+	/**
+	 * Applique l'opération aux pixels d'indice [debut, fin[.
+	 *
+	 * @param source      Pixels d'origine (ARGB)
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	void appliquer(int[] source, int[] destination, int debut, int fin);
+}
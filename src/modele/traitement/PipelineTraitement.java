@@ -0,0 +1,227 @@
+package modele.traitement;
+
+import modele.AccesRaster;
+import modele.UtilitaireImage;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ============================================================================
+ * ENCHAÎNEMENT D'OPÉRATIONS EN UN SEUL PASSAGE
+ * ============================================================================
+ *
+ * Un pipeline regroupe plusieurs opérations ponctuelles (luminosité,
+ * contraste, gris...) et les applique en UN SEUL parcours de l'image.
+ *
+ * POURQUOI ?
+ * Appliquer luminosité, puis contraste, puis gris avec TraitementTransformation
+ * crée trois images complètes et parcourt trois fois toute la mémoire.
+ * Ici, une seule image résultat est créée.
+ *
+ * ALGORITHME :
+ * 1. Les tables de correspondance consécutives sont fusionnées en une seule
+ *    (voir TableCorrespondance.puis())
+ * 2. L'image est découpée en petits blocs de TAILLE_BLOC pixels
+ * 3. Pour chaque bloc, toutes les opérations sont appliquées à la suite :
+ *    le bloc reste dans le cache du processeur entre deux opérations
+ *
+ * EXEMPLE :
+ * resultat = new PipelineTraitement()
+ *     .luminosite(20)
+ *     .contraste(1.5)
+ *     .niveauxDeGris()
+ *     .appliquer(image);
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class PipelineTraitement
+{
+
+	/** Nombre de pixels d'un bloc (16 Ko : tient dans le cache L1) */
+	public static final int TAILLE_BLOC = 4096;
+
+	/** Les opérations, dans l'ordre */
+	private final List<OperationPonctuelle> etapes;
+
+	/** Dernière table ajoutée, qui peut encore être fusionnée avec la suivante */
+	private TableCorrespondance derniereTable;
+
+	/**
+	 * Crée un pipeline vide.
+	 */
+	public PipelineTraitement()
+	{
+		this.etapes        = new ArrayList<>();
+		this.derniereTable = null;
+	}
+
+	/**
+	 * Ajoute un ajustement de luminosité.
+	 *
+	 * @param facteur Valeur à ajouter (-255 à +255)
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement luminosite(int facteur)
+	{
+		return this.table(TableCorrespondance.luminosite(facteur));
+	}
+
+	/**
+	 * Ajoute un ajustement de contraste.
+	 *
+	 * @param facteur Facteur de contraste
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement contraste(double facteur)
+	{
+		return this.table(TableCorrespondance.contraste(facteur));
+	}
+
+	/**
+	 * Ajoute une inversion des couleurs.
+	 *
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement negatif()
+	{
+		return this.table(TableCorrespondance.negatif());
+	}
+
+	/**
+	 * Ajoute une conversion en niveaux de gris.
+	 *
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement niveauxDeGris()
+	{
+		return this.operation(TraitementTransformation::niveauxDeGris);
+	}
+
+	/**
+	 * Ajoute un décalage de teinte.
+	 *
+	 * @param decalage Décalage en degrés
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement teinte(int decalage)
+	{
+		return this.operation(TraitementTransformation.operationTeinte(decalage));
+	}
+
+	/**
+	 * Ajoute un décalage de teinte approché (plus rapide, voir MatriceTeinte).
+	 *
+	 * @param decalage Décalage en degrés
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement teinteApproximative(int decalage)
+	{
+		return this.operation(new MatriceTeinte(decalage));
+	}
+
+	/**
+	 * Ajoute une table de correspondance.
+	 * Si l'étape précédente est aussi une table, les deux sont fusionnées.
+	 *
+	 * @param table La table à appliquer
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement table(TableCorrespondance table)
+	{
+		if (this.derniereTable != null)
+		{
+			this.derniereTable = this.derniereTable.puis(table);
+			this.etapes.set(this.etapes.size() - 1, this.derniereTable);
+		}
+		else
+		{
+			this.derniereTable = table;
+			this.etapes.add(table);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Ajoute une opération ponctuelle quelconque.
+	 *
+	 * @param operation L'opération à appliquer
+	 * @return Ce pipeline
+	 */
+	public PipelineTraitement operation(OperationPonctuelle operation)
+	{
+		if (operation instanceof TableCorrespondance)
+			return this.table((TableCorrespondance) operation);
+
+		this.derniereTable = null;
+		this.etapes.add(operation);
+
+		return this;
+	}
+
+	/**
+	 * @return true si le pipeline ne contient aucune opération
+	 */
+	public boolean estVide() { return this.etapes.isEmpty(); }
+
+	/**
+	 * @return Le nombre d'étapes après fusion des tables
+	 */
+	public int getNombreEtapes() { return this.etapes.size(); }
+
+	/**
+	 * Applique toutes les opérations à l'image, en un seul passage.
+	 *
+	 * @param image L'image d'origine (non modifiée)
+	 * @return Une nouvelle image avec toutes les opérations appliquées
+	 */
+	public BufferedImage appliquer(BufferedImage image)
+	{
+		BufferedImage resultat;
+		int[]         source, destination;
+
+		source      = AccesRaster.lirePixels(image);
+		resultat    = UtilitaireImage.creerImageVide(image.getWidth(), image.getHeight());
+		destination = AccesRaster.obtenirPixels(resultat);
+
+		ExecuteurTuiles.executerPixels(source.length, (debut, fin) ->
+			this.appliquer(source, destination, debut, fin)
+		);
+
+		return resultat;
+	}
+
+	/**
+	 * Applique toutes les opérations aux pixels d'indice [debut, fin[, bloc par bloc.
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	public void appliquer(int[] source, int[] destination, int debut, int fin)
+	{
+		OperationPonctuelle[] operations;
+		int                   finBloc;
+
+		operations = this.etapes.toArray(new OperationPonctuelle[0]);
+
+		if (operations.length == 0)
+		{
+			if (source != destination)
+				System.arraycopy(source, debut, destination, debut, fin - debut);
+			return;
+		}
+
+		for (int bloc = debut; bloc < fin; bloc += TAILLE_BLOC)
+		{
+			finBloc = Math.min(fin, bloc + TAILLE_BLOC);
+
+			operations[0].appliquer(source, destination, bloc, finBloc);
+
+			for (int k = 1; k < operations.length; k++)
+				operations[k].appliquer(destination, destination, bloc, finBloc);
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package modele.traitement;
+
+import modele.ComparateurCouleur;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ============================================================================
+ * POT DE PEINTURE PARALLÈLE POUR LES TRÈS GRANDES ZONES
+ * ============================================================================
+ *
+ * Quand la zone à remplir couvre une grande partie d'une très grande image
+ * (un fond de 100 mégapixels), le remplissage par segments reste séquentiel.
+ * Cette classe trouve la même zone en répartissant le travail sur les cœurs.
+ *
+ * PRINCIPE (ÉTIQUETAGE DES COMPOSANTES CONNEXES) :
+ * Au lieu de "partir" du pixel cliqué, on regarde toute l'image :
+ * 1. L'image est coupée en bandes horizontales, traitées en parallèle.
+ *    Dans chaque bande, on relève les SEGMENTS (suites de pixels à remplir
+ *    sur une ligne) et on regroupe les segments qui se touchent d'une ligne
+ *    à l'autre (union-find).
+ * 2. On regroupe ensuite les segments qui se touchent de part et d'autre
+ *    de la frontière entre deux bandes (une ligne par frontière : rapide).
+ * 3. Le groupe qui contient le pixel de départ est la zone à remplir :
+ *    chaque bande colorie ses segments de ce groupe, en parallèle.
+ *
+ * UNION-FIND :
+ * Chaque segment pointe vers un "parent" ; le segment qui pointe vers
+ * lui-même représente son groupe. Réunir deux groupes = faire pointer le
+ * représentant de l'un vers celui de l'autre.
+ *
+ * RÉSULTAT :
+ * Exactement les mêmes pixels que le remplissage séquentiel : la zone est
+ * la composante connexe (4 ou 8 voisins) du pixel de départ.
+ *
+ * MÉMOIRE :
+ * Une image très "bruitée" contient énormément de segments. Au-delà d'un
+ * segment pour SEGMENTS_MAX_PAR_PIXEL pixels, on abandonne (résultat -1) et
+ * l'appelant termine en séquentiel.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class RemplissageParallele
+{
+
+	/** Au plus 1 segment pour ce nombre de pixels, sinon on abandonne */
+	private static final int SEGMENTS_MAX_PAR_PIXEL = 16;
+
+	/** Nombre de bandes par thread (pour équilibrer la charge) */
+	private static final int BANDES_PAR_THREAD = 4;
+
+	private RemplissageParallele() {}
+
+	/**
+	 * Remplit la zone connexe qui contient le pixel de départ.
+	 *
+	 * Les pixels déjà notés dans "remplis" (par un début de remplissage
+	 * séquentiel) font partie de la zone, même s'ils ont déjà changé de couleur.
+	 *
+	 * @param pixels                 Les pixels (modifiés directement)
+	 * @param largeur                Largeur de l'image
+	 * @param hauteur                Hauteur de l'image
+	 * @param indexDepart            Indice du pixel de départ (déjà dans remplis)
+	 * @param remplis                Pixels déjà remplis (1 bit par pixel)
+	 * @param nouvelleCouleur        La couleur de remplissage
+	 * @param comparateur            Indique si une couleur est proche de celle d'origine
+	 * @param huitDirections         true pour inclure les voisins en diagonale
+	 * @param bloquerNouvelleCouleur true pour ne pas traverser les pixels qui ont
+	 *                               déjà la nouvelle couleur
+	 * @return Le nombre de pixels de la zone, ou -1 si l'image a trop de segments
+	 */
+	static int remplir(
+		int[] pixels, int largeur, int hauteur,
+		int indexDepart, long[] remplis,
+		int nouvelleCouleur, ComparateurCouleur comparateur,
+		boolean huitDirections, boolean bloquerNouvelleCouleur
+	)
+	{
+		Bande[]       bandes;
+		int[]         parents;
+		int           nombreBandes, lignesParBande, extension, racine;
+		int           nombreSegments, bandeDepart;
+		AtomicBoolean tropDeSegments;
+		AtomicLong    pixelsRemplis;
+
+		nombreBandes   = Math.min(hauteur, ExecuteurTuiles.getParallelisme() * BANDES_PAR_THREAD);
+		lignesParBande = (hauteur + nombreBandes - 1) / nombreBandes;
+		nombreBandes   = (hauteur + lignesParBande - 1) / lignesParBande;
+		extension      = huitDirections ? 1 : 0;
+		bandes         = new Bande[nombreBandes];
+		tropDeSegments = new AtomicBoolean(false);
+
+		// 1. Segments et regroupements à l'intérieur de chaque bande
+		ExecuteurTuiles.executer(nombreBandes, 1, (debut, fin) ->
+		{
+			for (int b = debut; b < fin && !tropDeSegments.get(); b++)
+			{
+				bandes[b] = new Bande(b * lignesParBande, Math.min(hauteur, (b + 1) * lignesParBande));
+
+				if (!bandes[b].relever(pixels, largeur, remplis, nouvelleCouleur, comparateur,
+				                       bloquerNouvelleCouleur, extension))
+					tropDeSegments.set(true);
+			}
+		});
+
+		if (tropDeSegments.get())
+			return -1;
+
+		// Numérotation globale : les segments de la bande b commencent à bandes[b].premier
+		nombreSegments = 0;
+		for (Bande bande : bandes)
+		{
+			bande.premier   = nombreSegments;
+			nombreSegments += bande.nombreSegments;
+		}
+
+		parents = new int[nombreSegments];
+
+		ExecuteurTuiles.executer(nombreBandes, 1, (debut, fin) ->
+		{
+			for (int b = debut; b < fin; b++)
+				bandes[b].exporterParents(parents);
+		});
+
+		// 2. Regroupements à travers les frontières entre bandes
+		for (int b = 0; b + 1 < nombreBandes; b++)
+		{
+			RemplissageParallele.reunirLignes(
+				parents,
+				bandes[b],     bandes[b].nombreLignes() - 1, bandes[b].premier,
+				bandes[b + 1], 0,                            bandes[b + 1].premier,
+				extension
+			);
+		}
+
+		// 3. Coloriage des segments du groupe du pixel de départ
+		bandeDepart = (indexDepart / largeur) / lignesParBande;
+		racine      = RemplissageParallele.trouver(
+			parents, bandes[bandeDepart].segmentContenant(indexDepart / largeur, indexDepart % largeur)
+		);
+
+		pixelsRemplis = new AtomicLong();
+
+		ExecuteurTuiles.executer(nombreBandes, 1, (debut, fin) ->
+		{
+			for (int b = debut; b < fin; b++)
+				pixelsRemplis.addAndGet(bandes[b].colorier(pixels, largeur, parents, racine, nouvelleCouleur));
+		});
+
+		return (int) pixelsRemplis.get();
+	}
+
+	/**
+	 * Réunit les segments qui se touchent entre deux lignes consécutives.
+	 *
+	 * ALGORITHME (deux curseurs) :
+	 * Les segments de chaque ligne sont triés de gauche à droite. On avance
+	 * le curseur du segment qui finit le plus tôt : il ne peut plus toucher
+	 * aucun segment suivant de l'autre ligne.
+	 *
+	 * @param parents     Les parents de l'union-find
+	 * @param bandeHaut   Bande de la ligne du dessus
+	 * @param ligneHaut   Ligne du dessus (relative à sa bande)
+	 * @param premierHaut Numéro, dans parents, du premier segment de bandeHaut
+	 * @param bandeBas    Bande de la ligne du dessous
+	 * @param ligneBas    Ligne du dessous (relative à sa bande)
+	 * @param premierBas  Numéro, dans parents, du premier segment de bandeBas
+	 * @param extension   1 pour inclure les voisins en diagonale, 0 sinon
+	 */
+	private static void reunirLignes(
+		int[] parents,
+		Bande bandeHaut, int ligneHaut, int premierHaut,
+		Bande bandeBas,  int ligneBas,  int premierBas,
+		int extension
+	)
+	{
+		int i, j, finI, finJ;
+
+		i    = bandeHaut.debutLigne[ligneHaut];
+		finI = bandeHaut.debutLigne[ligneHaut + 1];
+		j    = bandeBas.debutLigne[ligneBas];
+		finJ = bandeBas.debutLigne[ligneBas + 1];
+
+		while (i < finI && j < finJ)
+		{
+			if (bandeHaut.debuts[i] < bandeBas.fins[j] + extension &&
+			    bandeBas.debuts[j]  < bandeHaut.fins[i] + extension)
+			{
+				RemplissageParallele.reunir(parents, premierHaut + i, premierBas + j);
+			}
+
+			if (bandeHaut.fins[i] <= bandeBas.fins[j])
+				i++;
+			else
+				j++;
+		}
+	}
+
+	/**
+	 * @return Le représentant du groupe du segment (sans modifier les parents)
+	 */
+	private static int trouver(int[] parents, int segment)
+	{
+		while (parents[segment] != segment)
+			segment = parents[segment];
+
+		return segment;
+	}
+
+	/**
+	 * Réunit les groupes de deux segments (le plus petit numéro devient le représentant).
+	 */
+	private static void reunir(int[] parents, int a, int b)
+	{
+		int racineA, racineB;
+
+		racineA = RemplissageParallele.trouverEtRaccourcir(parents, a);
+		racineB = RemplissageParallele.trouverEtRaccourcir(parents, b);
+
+		if (racineA < racineB)
+			parents[racineB] = racineA;
+		else if (racineB < racineA)
+			parents[racineA] = racineB;
+	}
+
+	/**
+	 * Comme trouver(), mais raccourcit le chemin parcouru (chaque segment
+	 * pointe vers son grand-parent) : les recherches suivantes sont plus rapides.
+	 */
+	private static int trouverEtRaccourcir(int[] parents, int segment)
+	{
+		while (parents[segment] != segment)
+		{
+			parents[segment] = parents[parents[segment]];
+			segment          = parents[segment];
+		}
+
+		return segment;
+	}
+
+	/**
+	 * Les segments d'une bande de lignes [ligneDebut, ligneFin[.
+	 * Les numéros de segments sont locaux à la bande (de 0 à nombreSegments - 1).
+	 */
+	private static class Bande
+	{
+		final int ligneDebut, ligneFin;
+
+		/** Position x de début (inclus) et de fin (exclu) de chaque segment */
+		int[] debuts, fins;
+
+		/** Parents dans l'union-find local à la bande */
+		int[] parents;
+
+		/** Premier segment de chaque ligne (debutLigne[nombreLignes] = nombreSegments) */
+		final int[] debutLigne;
+
+		int nombreSegments;
+
+		/** Numéro global du premier segment de la bande */
+		int premier;
+
+		Bande(int ligneDebut, int ligneFin)
+		{
+			this.ligneDebut = ligneDebut;
+			this.ligneFin   = ligneFin;
+			this.debutLigne = new int[ligneFin - ligneDebut + 1];
+			this.debuts     = new int[256];
+			this.fins       = new int[256];
+			this.parents    = new int[256];
+		}
+
+		int nombreLignes() { return this.ligneFin - this.ligneDebut; }
+
+		/**
+		 * Relève les segments de la bande et les regroupe ligne après ligne.
+		 *
+		 * @return false s'il y a trop de segments (image trop "bruitée")
+		 */
+		boolean relever(
+			int[] pixels, int largeur, long[] remplis,
+			int nouvelleCouleur, ComparateurCouleur comparateur,
+			boolean bloquerNouvelleCouleur, int extension
+		)
+		{
+			int maximum, index, x;
+
+			maximum = Math.max(256, (int) ((long) this.nombreLignes() * largeur / SEGMENTS_MAX_PAR_PIXEL));
+
+			for (int ligne = 0; ligne < this.nombreLignes(); ligne++)
+			{
+				index = (this.ligneDebut + ligne) * largeur;
+				x     = 0;
+
+				while (x < largeur)
+				{
+					// Recherche du début d'un segment
+					while (x < largeur && 
+					       !Bande.estARemplir(pixels, remplis, index + x, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+						x++;
+
+					if (x == largeur)
+						break;
+
+					if (this.nombreSegments == maximum)
+						return false;
+
+					this.ajouter(x);
+
+					// Recherche de la fin du segment
+					x++;
+					while (x < largeur && 
+					       Bande.estARemplir(pixels, remplis, index + x, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+						x++;
+
+					this.fins[this.nombreSegments - 1] = x;
+				}
+
+				this.debutLigne[ligne + 1] = this.nombreSegments;
+
+				if (ligne > 0)
+					RemplissageParallele.reunirLignes(this.parents, this, ligne - 1, 0, this, ligne, 0, extension);
+			}
+
+			return true;
+		}
+
+		/**
+		 * Un pixel fait partie d'un segment s'il est déjà rempli, ou s'il est
+		 * proche de la couleur d'origine (même règle que le remplissage séquentiel).
+		 */
+		private static boolean estARemplir(
+			int[] pixels, long[] remplis, int index,
+			int nouvelleCouleur, ComparateurCouleur comparateur,
+			boolean bloquerNouvelleCouleur
+		)
+		{
+			int couleur;
+
+			if ((remplis[index >>> 6] & (1L << index)) != 0)
+				return true;
+
+			couleur = pixels[index];
+
+			if (bloquerNouvelleCouleur && couleur == nouvelleCouleur)
+				return false;
+
+			return comparateur.correspond(couleur);
+		}
+
+		private void ajouter(int debut)
+		{
+			int taille;
+
+			if (this.nombreSegments == this.debuts.length)
+			{
+				taille       = this.nombreSegments * 2;
+				this.debuts  = Arrays.copyOf(this.debuts,  taille);
+				this.fins    = Arrays.copyOf(this.fins,    taille);
+				this.parents = Arrays.copyOf(this.parents, taille);
+			}
+
+			this.debuts [this.nombreSegments] = debut;
+			this.parents[this.nombreSegments] = this.nombreSegments;
+			this.nombreSegments++;
+		}
+
+		/**
+		 * Copie les groupes locaux dans le tableau global (chaque segment
+		 * pointe directement vers son représentant), puis libère les parents locaux.
+		 */
+		void exporterParents(int[] parentsGlobaux)
+		{
+			for (int s = 0; s < this.nombreSegments; s++)
+				parentsGlobaux[this.premier + s] = this.premier + RemplissageParallele.trouver(this.parents, s);
+
+			this.parents = null;
+		}
+
+		/**
+		 * @return Le numéro global du segment qui contient le pixel (x, y)
+		 */
+		int segmentContenant(int y, int x)
+		{
+			int ligne = y - this.ligneDebut;
+
+			for (int s = this.debutLigne[ligne]; s < this.debutLigne[ligne + 1]; s++)
+			{
+				if (this.debuts[s] <= x && x < this.fins[s])
+					return this.premier + s;
+			}
+
+			throw new IllegalStateException("Le pixel de départ n'appartient à aucun segment");
+		}
+
+		/**
+		 * Colorie les segments du groupe donné.
+		 *
+		 * @return Le nombre de pixels coloriés
+		 */
+		long colorier(int[] pixels, int largeur, int[] parentsGlobaux, int racine, int nouvelleCouleur)
+		{
+			long total;
+			int  debutLignePixels;
+
+			total = 0;
+
+			for (int ligne = 0; ligne < this.nombreLignes(); ligne++)
+			{
+				debutLignePixels = (this.ligneDebut + ligne) * largeur;
+
+				for (int s = this.debutLigne[ligne]; s < this.debutLigne[ligne + 1]; s++)
+				{
+					if (RemplissageParallele.trouver(parentsGlobaux, this.premier + s) != racine)
+						continue;
+
+					Arrays.fill(pixels, debutLignePixels + this.debuts[s], debutLignePixels + this.fins[s], nouvelleCouleur);
+					total += this.fins[s] - this.debuts[s];
+				}
+			}
+
+			return total;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package modele.traitement;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ============================================================================
+ * SUIVI D'UN TRAITEMENT : PROGRESSION ET ANNULATION
+ * ============================================================================
+ *
+ * Un traitement lancé en arrière-plan (voir controleur.GestionnaireTaches)
+ * doit pouvoir être interrompu et indiquer où il en est, sans que chaque
+ * classe Traitement* ait à s'en occuper.
+ *
+ * PRINCIPE (ANNULATION COOPÉRATIVE) :
+ * 1. Le thread qui lance le traitement associe un suivi à lui-même
+ *    (ExecuteurTuiles.definirSuivi)
+ * 2. ExecuteurTuiles.executer() récupère ce suivi et, avant chaque bande,
+ *    vérifie qu'il n'a pas été annulé ; après chaque bande, il compte les
+ *    éléments traités
+ * 3. annuler() (appelé depuis n'importe quel thread) lève un drapeau : la
+ *    bande suivante lève une CancellationException qui remonte jusqu'au
+ *    lanceur
+ *
+ * Une bande commencée va toujours jusqu'au bout : l'image en cours de calcul
+ * est incomplète, elle doit être abandonnée.
+ *
+ * PROGRESSION :
+ * Un traitement peut faire plusieurs passes (plusieurs appels à executer) ;
+ * la progression est celle de la passe en cours.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class SuiviTraitement
+{
+
+	private volatile boolean annule;
+
+	/** Nombre d'éléments de la passe en cours (0 tant qu'aucune passe n'a commencé) */
+	private volatile long total;
+
+	/** Nombre d'éléments déjà traités dans la passe en cours */
+	private final AtomicLong faits;
+
+	public SuiviTraitement()
+	{
+		this.annule = false;
+		this.total  = 0;
+		this.faits  = new AtomicLong();
+	}
+
+	/**
+	 * Demande l'arrêt du traitement (dès la fin des bandes en cours).
+	 */
+	public void annuler() { this.annule = true; }
+
+	/**
+	 * @return true si l'arrêt a été demandé
+	 */
+	public boolean estAnnule() { return this.annule; }
+
+	/**
+	 * @return La progression de la passe en cours entre 0 et 1, ou -1 si elle est inconnue
+	 */
+	public double getProgression()
+	{
+		long totalCourant;
+
+		totalCourant = this.total;
+
+		if (totalCourant <= 0)
+			return -1;
+
+		return Math.min(1.0, (double) this.faits.get() / totalCourant);
+	}
+
+	/**
+	 * Lève une CancellationException si l'arrêt a été demandé.
+	 */
+	void verifier()
+	{
+		if (this.annule)
+			throw new CancellationException("Traitement annulé");
+	}
+
+	/**
+	 * Début d'une passe de nombre éléments.
+	 */
+	void commencerPasse(long nombre)
+	{
+		this.faits.set(0);
+		this.total = nombre;
+	}
+
+	/**
+	 * Fin d'une bande de nombre éléments.
+	 */
+	void avancer(long nombre)
+	{
+		this.faits.addAndGet(nombre);
+	}
+}
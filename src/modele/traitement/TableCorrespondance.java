@@ -0,0 +1,222 @@
+package modele.traitement;
+
+import modele.CanalARGB;
+
+/**
+ * ============================================================================
+ * TABLE DE CORRESPONDANCE (LUT) PAR COMPOSANTE
+ * ============================================================================
+ *
+ * Une table de correspondance donne, pour chaque valeur possible d'une
+ * composante (0 à 255), la nouvelle valeur après traitement.
+ *
+ * PRINCIPE :
+ * Luminosité, contraste et négatif transforment chaque composante
+ * indépendamment des autres : nouvelleValeur = f(ancienneValeur).
+ * Au lieu de recalculer f des millions de fois, on la calcule 256 fois
+ * (une par valeur possible), puis chaque pixel coûte 3 lectures de tableau.
+ *
+ * COMPOSITION :
+ * Appliquer la table A puis la table B revient à appliquer une seule table
+ * C telle que C[v] = B[A[v]]. Enchaîner plusieurs réglages ne coûte donc
+ * pas plus cher qu'un seul (voir puis()).
+ *
+ * L'alpha n'est jamais modifié.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public final class TableCorrespondance implements OperationPonctuelle
+{
+
+	/** Nouvelles valeurs (0-255) pour chaque composante */
+	private final int[] rouge, vert, bleu;
+
+	/** Mêmes tables, déjà décalées à leur position dans l'int ARGB */
+	private final int[] rougeDecale, vertDecale, bleuDecale;
+
+	private TableCorrespondance(int[] rouge, int[] vert, int[] bleu)
+	{
+		this.rouge = rouge;
+		this.vert  = vert;
+		this.bleu  = bleu;
+
+		this.rougeDecale = new int[256];
+		this.vertDecale  = new int[256];
+		this.bleuDecale  = new int[256];
+
+		for (int v = 0; v < 256; v++)
+		{
+			this.rougeDecale[v] = rouge[v] << 16;
+			this.vertDecale [v] = vert [v] << 8;
+			this.bleuDecale [v] = bleu [v];
+		}
+	}
+
+	/**
+	 * Crée une table à partir de trois tableaux de 256 valeurs.
+	 * Les valeurs sont bornées entre 0 et 255.
+	 *
+	 * @param rouge Table de la composante rouge
+	 * @param vert  Table de la composante verte
+	 * @param bleu  Table de la composante bleue
+	 * @return La table de correspondance
+	 */
+	public static TableCorrespondance parComposante(int[] rouge, int[] vert, int[] bleu)
+	{
+		int[] r, v, b;
+
+		if (rouge.length != 256 || vert.length != 256 || bleu.length != 256)
+			throw new IllegalArgumentException("Une table doit contenir 256 valeurs");
+
+		r = new int[256];
+		v = new int[256];
+		b = new int[256];
+
+		for (int i = 0; i < 256; i++)
+		{
+			r[i] = CanalARGB.borner(rouge[i]);
+			v[i] = CanalARGB.borner(vert [i]);
+			b[i] = CanalARGB.borner(bleu [i]);
+		}
+
+		return new TableCorrespondance(r, v, b);
+	}
+
+	/**
+	 * Crée une table qui applique la même correspondance aux trois composantes.
+	 *
+	 * @param table Les 256 nouvelles valeurs
+	 * @return La table de correspondance
+	 */
+	public static TableCorrespondance uniforme(int[] table)
+	{
+		return TableCorrespondance.parComposante(table, table, table);
+	}
+
+	/**
+	 * @return La table qui ne change rien
+	 */
+	public static TableCorrespondance identite()
+	{
+		int[] table = new int[256];
+
+		for (int v = 0; v < 256; v++)
+			table[v] = v;
+
+		return TableCorrespondance.uniforme(table);
+	}
+
+	/**
+	 * Table de la luminosité : nouvelleValeur = ancienneValeur + facteur (bornée).
+	 *
+	 * @param facteur Valeur à ajouter (-255 à +255)
+	 * @return La table de correspondance
+	 */
+	public static TableCorrespondance luminosite(int facteur)
+	{
+		int[] table = new int[256];
+
+		for (int v = 0; v < 256; v++)
+			table[v] = v + facteur;
+
+		return TableCorrespondance.uniforme(table);
+	}
+
+	/**
+	 * Table du contraste : nouvelleValeur = 128 + (ancienneValeur - 128) * facteur (bornée).
+	 *
+	 * @param facteur Facteur de contraste
+	 * @return La table de correspondance
+	 */
+	public static TableCorrespondance contraste(double facteur)
+	{
+		int[] table = new int[256];
+
+		for (int v = 0; v < 256; v++)
+			table[v] = (int) (128 + (v - 128) * facteur);
+
+		return TableCorrespondance.uniforme(table);
+	}
+
+	/**
+	 * Table du négatif : nouvelleValeur = 255 - ancienneValeur.
+	 *
+	 * @return La table de correspondance
+	 */
+	public static TableCorrespondance negatif()
+	{
+		int[] table = new int[256];
+
+		for (int v = 0; v < 256; v++)
+			table[v] = 255 - v;
+
+		return TableCorrespondance.uniforme(table);
+	}
+
+	/**
+	 * Compose deux tables : applique cette table, PUIS la table suivante.
+	 *
+	 * @param suivante La table à appliquer ensuite
+	 * @return Une table équivalente aux deux appliquées l'une après l'autre
+	 */
+	public TableCorrespondance puis(TableCorrespondance suivante)
+	{
+		int[] r, v, b;
+
+		r = new int[256];
+		v = new int[256];
+		b = new int[256];
+
+		for (int i = 0; i < 256; i++)
+		{
+			r[i] = suivante.rouge[this.rouge[i]];
+			v[i] = suivante.vert [this.vert [i]];
+			b[i] = suivante.bleu [this.bleu [i]];
+		}
+
+		return new TableCorrespondance(r, v, b);
+	}
+
+	/**
+	 * Applique la table à une couleur.
+	 *
+	 * @param argb La couleur d'origine
+	 * @return La couleur transformée (même alpha)
+	 */
+	public int appliquer(int argb)
+	{
+		return (argb & 0xFF000000)
+		     | this.rougeDecale[(argb >> 16) & 0xFF]
+		     | this.vertDecale [(argb >> 8)  & 0xFF]
+		     | this.bleuDecale [argb         & 0xFF];
+	}
+
+	/**
+	 * Applique la table aux pixels d'indice [debut, fin[.
+	 *
+	 * @param source      Pixels d'origine
+	 * @param destination Pixels résultat (peut être le même tableau que source)
+	 * @param debut       Premier pixel (inclus)
+	 * @param fin         Dernier pixel (exclu)
+	 */
+	@Override
+	public void appliquer(int[] source, int[] destination, int debut, int fin)
+	{
+		int[] r, v, b;
+		int   couleur;
+
+		r = this.rougeDecale;
+		v = this.vertDecale;
+		b = this.bleuDecale;
+
+		for (int i = debut; i < fin; i++)
+		{
+			couleur = source[i];
+
+			destination[i] = (couleur & 0xFF000000)
+			               | r[(couleur >> 16) & 0xFF]
+			               | v[(couleur >> 8)  & 0xFF]
+			               | b[couleur         & 0xFF];
+		}
+	}
+}
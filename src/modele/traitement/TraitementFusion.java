@@ -1,5 +1,8 @@
 package modele.traitement;
 
+import modele.AccesRaster;
+import modele.CanalARGB;
+import modele.ComparateurCouleur;
 import modele.UtilitaireImage;
 import java.awt.image.BufferedImage;
 
@@ -13,6 +16,12 @@ import java.awt.image.BufferedImage;
  * - La fusion de deux images avec transparence
  * - La gestion d'une couleur transparente (clé de chrominance)
  * 
+ * ZONE COMMUNE :
+ * Pour les superpositions, on calcule une seule fois la zone où l'image source
+ * recouvre l'image destination : les boucles ne parcourent que cette zone, sur
+ * les tableaux de pixels (voir AccesRaster), par bandes de lignes réparties
+ * sur les cœurs du processeur (voir ExecuteurTuiles).
+ * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class TraitementFusion 
@@ -42,25 +51,37 @@ public class TraitementFusion
 	) 
 	{
 		BufferedImage resultat;
-		int           destX, destY, couleurSource;
+		int[]         pixelsSource, pixelsResultat;
+		int           largeurSource, largeurResultat;
+		int           xDebut, xFin, yDebut, yFin;
 		
-		resultat= UtilitaireImage.copierImage(destination);
+		resultat = UtilitaireImage.copierImage(destination);
+
+		largeurSource   = source.getWidth();
+		largeurResultat = resultat.getWidth();
+
+		xDebut = Math.max(0, -posX);
+		yDebut = Math.max(0, -posY);
+		xFin   = Math.min(largeurSource,      largeurResultat      - posX);
+		yFin   = Math.min(source.getHeight(), resultat.getHeight() - posY);
 
-		for (int y = 0; y < source.getHeight(); y++) 
+		if (xDebut >= xFin)
+			return resultat;
+
+		pixelsSource   = AccesRaster.lirePixels(source);
+		pixelsResultat = AccesRaster.obtenirPixels(resultat);
+
+		ExecuteurTuiles.executerLignes(yFin - yDebut, xFin - xDebut, (debut, fin) ->
 		{
-			for (int x = 0; x < source.getWidth(); x++) 
+			for (int y = yDebut + debut; y < yDebut + fin; y++) 
 			{
-				destX = posX + x;
-				destY = posY + y;
-
-				if (destX >= 0 && destX < resultat.getWidth () && 
-				    destY >= 0 && destY < resultat.getHeight()   ) 
-				{
-					couleurSource = source.getRGB(x, y);
-					resultat.setRGB(destX, destY, couleurSource);
-				}
+				System.arraycopy(
+					pixelsSource,   y * largeurSource + xDebut,
+					pixelsResultat, (posY + y) * largeurResultat + posX + xDebut,
+					xFin - xDebut
+				);
 			}
-		}
+		});
 
 		return resultat;
 	}
@@ -75,6 +96,8 @@ public class TraitementFusion
 	 * FORMULE :
 	 * couleurFinale = (alpha * couleurSource + (255 - alpha) * couleurDest) / 255
 	 * 
+	 * Chaque ligne est mélangée par NoyauxPixels (vectoriel si possible).
+	 * 
 	 * @param destination L'image de fond
 	 * @param source      L'image à superposer (avec transparence)
 	 * @param posX        Position X
@@ -87,74 +110,44 @@ public class TraitementFusion
 	) 
 	{
 		BufferedImage resultat;
-		int           destX, destY, couleurSource, couleurDest, alphaSource;
-		int[]         compSource, compDest;
-		int           nouveauRouge, nouveauVert, nouveauBleu, nouveauAlpha, nouvelleCouleur;
+		int[]         pixelsSource, pixelsResultat;
+		int           largeurSource, largeurResultat;
+		int           xDebut, xFin, yDebut, yFin;
+		NoyauxPixels  noyaux;
 		
 		resultat = UtilitaireImage.copierImage(destination);
 
-		for (int y = 0; y < source.getHeight(); y++) 
-		{
-			for (int x = 0; x < source.getWidth(); x++) 
-			{
-				destX = posX + x;
-				destY = posY + y;
+		largeurSource   = source.getWidth();
+		largeurResultat = resultat.getWidth();
 
-				if (destX >= 0 && destX < resultat.getWidth () &&
-				    destY >= 0 && destY < resultat.getHeight()   )
-				{
-					couleurSource = source.getRGB(x, y);
-					couleurDest = resultat.getRGB(destX, destY);
+		xDebut = Math.max(0, -posX);
+		yDebut = Math.max(0, -posY);
+		xFin   = Math.min(largeurSource,      largeurResultat      - posX);
+		yFin   = Math.min(source.getHeight(), resultat.getHeight() - posY);
 
-					compSource = UtilitaireImage.extraireComposantes(couleurSource);
-					compDest   = UtilitaireImage.extraireComposantes(couleurDest);
+		if (xDebut >= xFin)
+			return resultat;
 
-					alphaSource = compSource[0];
+		pixelsSource   = AccesRaster.lirePixels(source);
+		pixelsResultat = AccesRaster.obtenirPixels(resultat);
 
-					if (alphaSource == 0) 
-					{
-						continue;
-					}
-
-					if (alphaSource == 255) 
-					{
-						resultat.setRGB(destX, destY, couleurSource);
-						continue;
-					}
+		noyaux = NoyauxPixels.actifs();
 
-					nouveauRouge = melanger(compSource[1], compDest[1], alphaSource);
-					nouveauVert  = melanger(compSource[2], compDest[2], alphaSource);
-					nouveauBleu  = melanger(compSource[3], compDest[3], alphaSource);
-					nouveauAlpha = Math.max(alphaSource, compDest[0]);
-
-					nouvelleCouleur = UtilitaireImage.combinerComposantes(
-						nouveauAlpha, 
-						nouveauRouge, 
-						nouveauVert, 
-						nouveauBleu
-					);
-
-					resultat.setRGB(destX, destY, nouvelleCouleur);
-				}
+		ExecuteurTuiles.executerLignes(yFin - yDebut, xFin - xDebut, (debut, fin) ->
+		{
+			for (int y = yDebut + debut; y < yDebut + fin; y++) 
+			{
+				noyaux.melanger(
+					pixelsSource,   y * largeurSource + xDebut,
+					pixelsResultat, (posY + y) * largeurResultat + posX + xDebut,
+					xFin - xDebut
+				);
 			}
-		}
+		});
 
 		return resultat;
 	}
 
-	/**
-	 * Mélange deux valeurs selon un alpha donné.
-	 * 
-	 * @param valeurSource Valeur de la source (0-255)
-	 * @param valeurDest   Valeur de la destination (0-255)
-	 * @param alpha        Niveau de mélange (0-255)
-	 * @return La valeur mélangée
-	 */
-	private static int melanger(int valeurSource, int valeurDest, int alpha) 
-	{
-		return (alpha * valeurSource + (255 - alpha) * valeurDest) / 255;
-	}
-
 	/**
 	 * Superpose une image en rendant une couleur spécifique transparente.
 	 * 
@@ -181,35 +174,70 @@ public class TraitementFusion
 			int couleurTransparente, double tolerance
 	) 
 	{
-		BufferedImage resultat;
-		int           destX, destY, couleurPixel;
-		double        distance;
+		return TraitementFusion.superposerAvecCleTransparence(
+			destination, source, posX, posY,
+			ComparateurCouleur.euclidien(couleurTransparente, tolerance)
+		);
+	}
 
+	/**
+	 * Superpose une image en rendant transparents les pixels reconnus par
+	 * un comparateur de couleur (voir ComparateurCouleur).
+	 * 
+	 * Permet d'utiliser une autre mesure que la distance euclidienne
+	 * (par exemple une tolérance différente pour chaque composante).
+	 * 
+	 * @param destination L'image de fond
+	 * @param source      L'image avec le fond à retirer
+	 * @param posX        Position X
+	 * @param posY        Position Y
+	 * @param cle         Reconnaît les couleurs à rendre transparentes
+	 * @return L'image résultante
+	 */
+	public static BufferedImage superposerAvecCleTransparence(
+			BufferedImage destination, BufferedImage source,
+			int posX, int posY,
+			ComparateurCouleur cle
+	) 
+	{
+		BufferedImage resultat;
+		int[]         pixelsSource, pixelsResultat;
+		int           largeurSource, largeurResultat;
+		int           xDebut, xFin, yDebut, yFin;
 
 		resultat = UtilitaireImage.copierImage(destination);
 
-		for (int y = 0; y < source.getHeight(); y++) 
-		{
-			for (int x = 0; x < source.getWidth(); x++) 
-			{
-				destX = posX + x;
-				destY = posY + y;
+		largeurSource   = source.getWidth();
+		largeurResultat = resultat.getWidth();
 
-				if (destX >= 0 && destX < resultat.getWidth () &&
-				    destY >= 0 && destY < resultat.getHeight()   ) 
-				{
+		xDebut = Math.max(0, -posX);
+		yDebut = Math.max(0, -posY);
+		xFin   = Math.min(largeurSource,      largeurResultat      - posX);
+		yFin   = Math.min(source.getHeight(), resultat.getHeight() - posY);
+
+		if (xDebut >= xFin)
+			return resultat;
 
-					couleurPixel = source.getRGB(x, y);
+		pixelsSource   = AccesRaster.lirePixels(source);
+		pixelsResultat = AccesRaster.obtenirPixels(resultat);
 
-					distance = UtilitaireImage.distanceCouleur(couleurPixel, couleurTransparente);
+		ExecuteurTuiles.executerLignes(yFin - yDebut, xFin - xDebut, (debut, fin) ->
+		{
+			int couleurPixel;
+
+			for (int y = yDebut + debut; y < yDebut + fin; y++) 
+			{
+				for (int x = xDebut; x < xFin; x++) 
+				{
+					couleurPixel = pixelsSource[y * largeurSource + x];
 
-					if (distance > tolerance) 
+					if (!cle.correspond(couleurPixel)) 
 					{
-						resultat.setRGB(destX, destY, couleurPixel);
+						pixelsResultat[(posY + y) * largeurResultat + posX + x] = couleurPixel;
 					}
 				}
 			}
-		}
+		});
 
 		return resultat;
 	}
@@ -238,9 +266,9 @@ public class TraitementFusion
 	{
 		int           largeur1, largeur2, hauteur1, hauteur2, largeurTotale, hauteurMax;
 		BufferedImage resultat;
-		int           positionDansZoneFondu, couleur,  x1, x2, couleur1, couleur2;
-		int[]         comp1, comp2;
-		int           alpha, rouge, vert, bleu, couleurMelangee;
+		int[]         pixels1, pixels2, pixelsResultat;
+		int           positionDansZoneFondu, x1, x2, couleur1, couleur2;
+		int           alpha, rouge, vert, bleu;
 		double        ratio;
 
 		largeur1 = image1.getWidth();
@@ -253,6 +281,10 @@ public class TraitementFusion
 
 		resultat = UtilitaireImage.creerImageVide(largeurTotale, hauteurMax);
 
+		pixels1        = AccesRaster.lirePixels(image1);
+		pixels2        = AccesRaster.lirePixels(image2);
+		pixelsResultat = AccesRaster.obtenirPixels(resultat);
+
 		for (int y = 0; y < hauteurMax; y++) 
 		{
 			for (int x = 0; x < largeurTotale; x++) 
@@ -263,8 +295,7 @@ public class TraitementFusion
 				{
 					if (y < hauteur1) 
 					{
-						couleur = image1.getRGB(x, y);
-						resultat.setRGB(x, y, couleur);
+						pixelsResultat[y * largeurTotale + x] = pixels1[y * largeur1 + x];
 					}
 				} 
 				else if (positionDansZoneFondu >= 0 && positionDansZoneFondu < largeurFondu) 
@@ -274,19 +305,15 @@ public class TraitementFusion
 					x1 = largeur1 - largeurFondu + positionDansZoneFondu;
 					x2 = positionDansZoneFondu;
 
-					couleur1 = (x1 < largeur1 && y < hauteur1) ? image1.getRGB(x1, y) : 0x00000000;
-					couleur2 = (x2 < largeur2 && y < hauteur2) ? image2.getRGB(x2, y) : 0x00000000;
-
-					comp1 = UtilitaireImage.extraireComposantes(couleur1);
-					comp2 = UtilitaireImage.extraireComposantes(couleur2);
+					couleur1 = (x1 < largeur1 && y < hauteur1) ? pixels1[y * largeur1 + x1] : 0x00000000;
+					couleur2 = (x2 < largeur2 && y < hauteur2) ? pixels2[y * largeur2 + x2] : 0x00000000;
 
-					alpha = (int) ((1 - ratio) * comp1[0] + ratio * comp2[0]);
-					rouge = (int) ((1 - ratio) * comp1[1] + ratio * comp2[1]);
-					vert = (int) ((1 - ratio) * comp1[2] + ratio * comp2[2]);
-					bleu = (int) ((1 - ratio) * comp1[3] + ratio * comp2[3]);
+					alpha = (int) ((1 - ratio) * CanalARGB.alpha(couleur1) + ratio * CanalARGB.alpha(couleur2));
+					rouge = (int) ((1 - ratio) * CanalARGB.rouge(couleur1) + ratio * CanalARGB.rouge(couleur2));
+					vert  = (int) ((1 - ratio) * CanalARGB.vert (couleur1) + ratio * CanalARGB.vert (couleur2));
+					bleu  = (int) ((1 - ratio) * CanalARGB.bleu (couleur1) + ratio * CanalARGB.bleu (couleur2));
 
-					couleurMelangee = UtilitaireImage.combinerComposantes(alpha, rouge, vert, bleu);
-					resultat.setRGB(x, y, couleurMelangee);
+					pixelsResultat[y * largeurTotale + x] = CanalARGB.composerBorne(alpha, rouge, vert, bleu);
 				} 
 				else 
 				{
@@ -294,8 +321,7 @@ public class TraitementFusion
 					
 					if (x2 < largeur2 && y < hauteur2) 
 					{
-						couleur = image2.getRGB(x2, y);
-						resultat.setRGB(x, y, couleur);
+						pixelsResultat[y * largeurTotale + x] = pixels2[y * largeur2 + x2];
 					}
 				}
 			}
@@ -315,7 +341,7 @@ public class TraitementFusion
 	 */
 	public static int creerCouleurRGB(int rouge, int vert, int bleu) 
 	{
-		return UtilitaireImage.combinerComposantes(255, rouge, vert, bleu);
+		return CanalARGB.composerBorne(255, rouge, vert, bleu);
 	}
 
 	/**
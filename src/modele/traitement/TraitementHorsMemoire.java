@@ -0,0 +1,224 @@
+package modele.traitement;
+
+import modele.AccesRaster;
+import modele.ImageTuilee;
+import java.awt.image.BufferedImage;
+
+/**
+ * ============================================================================
+ * TRAITEMENTS D'IMAGES PLUS GRANDES QUE LA MÉMOIRE
+ * ============================================================================
+ *
+ * Versions des traitements qui travaillent sur une ImageTuilee (pixels sur
+ * disque) : l'image est parcourue tuile par tuile, et chaque tuile est
+ * modifiée SUR PLACE dans le fichier. Quelle que soit la taille de l'image,
+ * chaque thread n'a en mémoire qu'une ou deux tuiles (256 Ko chacune).
+ *
+ * OPÉRATIONS :
+ * - Opérations ponctuelles (luminosité, contraste, teinte, gris, négatif),
+ *   seules ou enchaînées dans un PipelineTraitement
+ * - Superposition simple et avec transparence (alpha), d'une BufferedImage
+ *   ou d'une autre ImageTuilee
+ *
+ * PARALLÉLISME :
+ * Les tuiles sont réparties sur les cœurs par ExecuteurTuiles : deux threads
+ * ne touchent jamais la même tuile de destination.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+public class TraitementHorsMemoire
+{
+
+	/** Nombre de tuiles traitées à la suite par un même thread */
+	private static final int TUILES_PAR_BANDE = 4;
+
+	/**
+	 * Applique une opération ponctuelle à toute l'image, sur place.
+	 *
+	 * EXEMPLE :
+	 * TraitementHorsMemoire.appliquer(image, new PipelineTraitement().luminosite(20).contraste(1.5));
+	 *
+	 * @param image     L'image à modifier
+	 * @param operation L'opération (voir OperationPonctuelle, PipelineTraitement)
+	 */
+	public static void appliquer(ImageTuilee image, OperationPonctuelle operation)
+	{
+		int nombreTuiles = image.getTuilesX() * image.getTuilesY();
+
+		ExecuteurTuiles.executer(nombreTuiles, TUILES_PAR_BANDE, (debut, fin) ->
+		{
+			int[] tuile = new int[ImageTuilee.PIXELS_PAR_TUILE];
+			int   tx, ty;
+
+			for (int t = debut; t < fin; t++)
+			{
+				tx = t % image.getTuilesX();
+				ty = t / image.getTuilesX();
+
+				image.lireTuile(tx, ty, tuile);
+				operation.appliquer(tuile, tuile, 0, ImageTuilee.PIXELS_PAR_TUILE);
+				image.ecrireTuile(tx, ty, tuile);
+			}
+		});
+	}
+
+	/**
+	 * Applique un pipeline à toute l'image, sur place.
+	 *
+	 * @param image    L'image à modifier
+	 * @param pipeline Les opérations, appliquées en un seul passage
+	 */
+	public static void appliquer(ImageTuilee image, PipelineTraitement pipeline)
+	{
+		TraitementHorsMemoire.appliquer(image, (OperationPonctuelle) pipeline::appliquer);
+	}
+
+	/**
+	 * Copie une image (en mémoire) sur l'image tuilée, à la position donnée.
+	 * Même résultat que TraitementFusion.superposer(), mais sur place.
+	 *
+	 * @param destination L'image de fond (modifiée)
+	 * @param source      L'image à superposer
+	 * @param posX        Position X du coin supérieur gauche
+	 * @param posY        Position Y du coin supérieur gauche
+	 */
+	public static void superposer(ImageTuilee destination, BufferedImage source, int posX, int posY)
+	{
+		TraitementHorsMemoire.superposer(
+			destination, source.getWidth(), source.getHeight(), posX, posY, false,
+			TraitementHorsMemoire.lecteur(source)
+		);
+	}
+
+	/**
+	 * Superpose une image (en mémoire) en respectant sa transparence.
+	 * Même résultat que TraitementFusion.superposerAvecAlpha(), mais sur place.
+	 *
+	 * @see #superposer(ImageTuilee, BufferedImage, int, int)
+	 */
+	public static void superposerAvecAlpha(ImageTuilee destination, BufferedImage source, int posX, int posY)
+	{
+		TraitementHorsMemoire.superposer(
+			destination, source.getWidth(), source.getHeight(), posX, posY, true,
+			TraitementHorsMemoire.lecteur(source)
+		);
+	}
+
+	/**
+	 * Copie une autre image tuilée sur l'image tuilée (les deux peuvent être
+	 * plus grandes que la mémoire).
+	 *
+	 * @see #superposer(ImageTuilee, BufferedImage, int, int)
+	 */
+	public static void superposer(ImageTuilee destination, ImageTuilee source, int posX, int posY)
+	{
+		TraitementHorsMemoire.superposer(
+			destination, source.getLargeur(), source.getHauteur(), posX, posY, false, source::lireRegion
+		);
+	}
+
+	/**
+	 * Superpose une autre image tuilée en respectant sa transparence.
+	 *
+	 * @see #superposerAvecAlpha(ImageTuilee, BufferedImage, int, int)
+	 */
+	public static void superposerAvecAlpha(ImageTuilee destination, ImageTuilee source, int posX, int posY)
+	{
+		TraitementHorsMemoire.superposer(
+			destination, source.getLargeur(), source.getHauteur(), posX, posY, true, source::lireRegion
+		);
+	}
+
+	/**
+	 * Lecture d'une région de la source d'une superposition
+	 * (même signature que ImageTuilee.lireRegion).
+	 */
+	private interface LecteurRegion
+	{
+		void lire(int x, int y, int largeur, int hauteur, int[] pixels, int decalage, int pas);
+	}
+
+	/**
+	 * @return La lecture de régions d'une image en mémoire
+	 */
+	private static LecteurRegion lecteur(BufferedImage image)
+	{
+		int[] pixels  = AccesRaster.lirePixels(image);
+		int   largeur = image.getWidth();
+
+		return (x, y, l, h, tampon, decalage, pas) ->
+		{
+			for (int ligne = 0; ligne < h; ligne++)
+				System.arraycopy(pixels, (y + ligne) * largeur + x, tampon, decalage + ligne * pas, l);
+		};
+	}
+
+	/**
+	 * Superposition commune : seules les tuiles de destination qui touchent
+	 * la source sont lues, modifiées puis réécrites.
+	 *
+	 * ALGORITHME (pour chaque tuile touchée) :
+	 * 1. Calculer le rectangle commun à la tuile et à la source
+	 * 2. Lire la tuile de destination, et ce rectangle de la source
+	 * 3. Copier (ou mélanger avec NoyauxPixels) ligne par ligne
+	 * 4. Réécrire la tuile
+	 */
+	private static void superposer(
+		ImageTuilee destination, int largeurSource, int hauteurSource,
+		int posX, int posY, boolean alpha, LecteurRegion source
+	)
+	{
+		int xDebut, yDebut, xFin, yFin;
+		int txDebut, tyDebut, colonnes, lignes;
+
+		xDebut = Math.max(0, posX);
+		yDebut = Math.max(0, posY);
+		xFin   = Math.min(destination.getLargeur(), posX + largeurSource);
+		yFin   = Math.min(destination.getHauteur(), posY + hauteurSource);
+
+		if (xDebut >= xFin || yDebut >= yFin)
+			return;
+
+		txDebut  = xDebut / ImageTuilee.COTE_TUILE;
+		tyDebut  = yDebut / ImageTuilee.COTE_TUILE;
+		colonnes = (xFin - 1) / ImageTuilee.COTE_TUILE - txDebut + 1;
+		lignes   = (yFin - 1) / ImageTuilee.COTE_TUILE - tyDebut + 1;
+
+		ExecuteurTuiles.executer(colonnes * lignes, TUILES_PAR_BANDE, (debut, fin) ->
+		{
+			int[]        tuile, morceau;
+			NoyauxPixels noyaux;
+			int          tx, ty, x0, y0, x1, y1, indice;
+
+			tuile   = new int[ImageTuilee.PIXELS_PAR_TUILE];
+			morceau = new int[ImageTuilee.PIXELS_PAR_TUILE];
+			noyaux  = NoyauxPixels.actifs();
+
+			for (int t = debut; t < fin; t++)
+			{
+				tx = txDebut + t % colonnes;
+				ty = tyDebut + t / colonnes;
+
+				x0 = Math.max(xDebut, tx * ImageTuilee.COTE_TUILE);
+				y0 = Math.max(yDebut, ty * ImageTuilee.COTE_TUILE);
+				x1 = Math.min(xFin,   (tx + 1) * ImageTuilee.COTE_TUILE);
+				y1 = Math.min(yFin,   (ty + 1) * ImageTuilee.COTE_TUILE);
+
+				destination.lireTuile(tx, ty, tuile);
+				source.lire(x0 - posX, y0 - posY, x1 - x0, y1 - y0, morceau, 0, x1 - x0);
+
+				for (int y = y0; y < y1; y++)
+				{
+					indice = (y - ty * ImageTuilee.COTE_TUILE) * ImageTuilee.COTE_TUILE + (x0 - tx * ImageTuilee.COTE_TUILE);
+
+					if (alpha)
+						noyaux.melanger(morceau, (y - y0) * (x1 - x0), tuile, indice, x1 - x0);
+					else
+						System.arraycopy(morceau, (y - y0) * (x1 - x0), tuile, indice, x1 - x0);
+				}
+
+				destination.ecrireTuile(tx, ty, tuile);
+			}
+		});
+	}
+}
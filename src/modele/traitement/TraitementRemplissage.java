@@ -1,9 +1,11 @@
 package modele.traitement;
 
+import modele.AccesRaster;
+import modele.CanalARGB;
+import modele.ComparateurCouleur;
 import modele.UtilitaireImage;
 import java.awt.image.BufferedImage;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 
 /**
  * ============================================================================
@@ -16,9 +18,18 @@ import java.util.Queue;
  * À partir d'un pixel de départ, on colorie tous les pixels "connectés"
  * qui ont une couleur similaire (selon une tolérance).
  * 
- * CHOIX D'IMPLÉMENTATION :
- * On utilise une FILE (Queue) plutôt que la récursion pour éviter
- * les débordements de pile (StackOverflowError) sur les grandes zones.
+ * CHOIX D'IMPLÉMENTATION (REMPLISSAGE PAR SEGMENTS / SCANLINE) :
+ * Au lieu de traiter les pixels un par un, on remplit des SEGMENTS
+ * horizontaux entiers, puis on cherche les segments à remplir sur les
+ * lignes du dessus et du dessous.
+ * - Les points de départ des segments sont rangés dans une pile d'entiers
+ *   (index y * largeur + x) : aucun objet créé par pixel
+ * - Les pixels déjà remplis sont notés dans un tableau de bits (1 bit/pixel)
+ * - On n'utilise pas la récursion : pas de StackOverflowError
+ * 
+ * TRÈS GRANDES ZONES :
+ * Au-delà de SEUIL_PARALLELE pixels, le remplissage se termine sur tous les
+ * cœurs (voir RemplissageParallele), avec exactement le même résultat.
  * 
  * @author Équipe 6 - BUT 3 Informatique
  */
@@ -28,21 +39,21 @@ public class TraitementRemplissage
 	/**
 	 * Remplit une zone avec une nouvelle couleur (pot de peinture).
 	 * 
-	 * ALGORITHME (Breadth-First Search) :
-	 * 1. On part du pixel de départ
-	 * 2. On l'ajoute à une file d'attente
-	 * 3. Tant que la file n'est pas vide :
-	 * a. On retire un pixel de la file
-	 * b. Si sa couleur est proche de la couleur d'origine (selon la tolérance)
-	 * c. On le colorie avec la nouvelle couleur
-	 * d. On ajoute ses 4 voisins à la file
+	 * ALGORITHME (remplissage par segments) :
+	 * 1. On empile le pixel de départ
+	 * 2. Tant que la pile n'est pas vide :
+	 * a. On dépile un pixel ; s'il est déjà rempli ou trop différent, on passe
+	 * b. On étend vers la gauche et la droite tant que la couleur est proche
+	 *    de la couleur d'origine (selon la tolérance)
+	 * c. On colorie tout le segment trouvé
+	 * d. Sur les lignes du dessus et du dessous, on empile le premier pixel
+	 *    de chaque segment voisin encore à remplir
 	 * 
-	 * POURQUOI UNE FILE ?
-	 * La récursion utilise la pile d'appels, qui est limitée.
-	 * Sur une grande zone (ex: 1000x1000 pixels), on risque un StackOverflowError.
-	 * La file utilise la mémoire heap, beaucoup plus grande.
+	 * MÉMOIRE :
+	 * On n'empile qu'un pixel par segment (et non un par pixel) : même une zone
+	 * de 50 mégapixels n'occupe que quelques Mo (6 Mo pour le tableau de bits).
 	 * 
-	 * @param image           L'image à modifier (sera modifiée directement)
+	 * @param image           L'image d'origine (non modifiée)
 	 * @param startX          Position X de départ
 	 * @param startY          Position Y de départ
 	 * @param nouvelleCouleur La couleur de remplissage (ARGB)
@@ -55,12 +66,8 @@ public class TraitementRemplissage
 	) 
 	{
 		BufferedImage resultat;
-		int           largeur, hauteur, couleurOrigine, pixelsRemplis, x, y, couleurActuelle;
-		boolean[][]   visite;
-		Queue<int[]>  file;
-		int[]         pixel;
-		
-
+		int           largeur, hauteur, couleurOrigine, pixelsRemplis;
+		int[]         pixels;
 
 		resultat = UtilitaireImage.copierImage(image);
 		largeur  = resultat.getWidth();
@@ -72,7 +79,8 @@ public class TraitementRemplissage
 			return resultat;
 		}
 
-		couleurOrigine = resultat.getRGB(startX, startY);
+		pixels         = AccesRaster.obtenirPixels(resultat);
+		couleurOrigine = pixels[startY * largeur + startX];
 
 		if (UtilitaireImage.distanceCouleur(couleurOrigine, nouvelleCouleur) == 0) 
 		{
@@ -80,70 +88,27 @@ public class TraitementRemplissage
 			return resultat;
 		}
 
-		visite = new boolean[largeur][hauteur];
-		
-		file   = new LinkedList<>();
-		file.add(new int[] { startX, startY });
-		
-		visite[startX][startY] = true;
-
-		pixelsRemplis = 0;
-
-		while (!file.isEmpty())
-		{
-			pixel = file.poll();
-
-			x = pixel[0];
-			y = pixel[1];
-
-			couleurActuelle = resultat.getRGB(x, y);
-
-			double distance = UtilitaireImage.distanceCouleur(couleurActuelle, couleurOrigine);
-
-			if (distance <= tolerance)
-			{
-				resultat.setRGB(x, y, nouvelleCouleur);
-				pixelsRemplis++;
-
-				TraitementRemplissage.ajouterVoisin(file, visite, largeur, hauteur, x - 1, y);
-				TraitementRemplissage.ajouterVoisin(file, visite, largeur, hauteur, x + 1, y);
-				TraitementRemplissage.ajouterVoisin(file, visite, largeur, hauteur, x, y - 1);
-				TraitementRemplissage.ajouterVoisin(file, visite, largeur, hauteur, x, y + 1);
-			}
-		}
+		pixelsRemplis = TraitementRemplissage.remplirZone(
+			pixels, largeur, hauteur, 
+			startX, startY, 
+			nouvelleCouleur, ComparateurCouleur.euclidien(couleurOrigine, tolerance),
+			false, false
+		);
 
 		System.out.println("Flood Fill terminé : " + pixelsRemplis + " pixels remplis");
 		return resultat;
 	}
 
-	/**
-	 * Ajoute un voisin à la file s'il est valide et non visité.
-	 */
-	private static void ajouterVoisin(
-		Queue<int[]> file, 
-		boolean[][] visite,
-		int largeur, int hauteur, 
-		int x, int y
-	) 
-	{
-		if (x >= 0 && x < largeur && y >= 0 && y < hauteur) 
-		{
-			if (!visite[x][y]) 
-			{
-				visite[x][y] = true;
-				file.add(new int[] { x, y });
-			}
-		}
-	}
-
 	/**
 	 * Version du pot de peinture qui remplit aussi en diagonale.
 	 * 
 	 * DIFFÉRENCE :
 	 * Au lieu de 4 voisins, on considère 8 voisins (les 4 diagonales en plus).
 	 * Le remplissage est plus "complet" mais peut dépasser les bordures fines.
+	 * Pour les segments, cela revient à chercher les voisins du dessus et du
+	 * dessous un pixel plus loin à gauche et à droite.
 	 * 
-	 * @param image           L'image à modifier
+	 * @param image           L'image d'origine (non modifiée)
 	 * @param startX          Position X de départ
 	 * @param startY          Position Y de départ
 	 * @param nouvelleCouleur La couleur de remplissage
@@ -158,11 +123,8 @@ public class TraitementRemplissage
 	) 
 	{
 		BufferedImage resultat;
-		int           largeur, hauteur, couleurOrigine, x, y, couleurActuelle, nx, ny;
-		boolean[][]   visite;
-		Queue<int[]>  file;
-		int[]         pixel;
-		double        distance;
+		int           largeur, hauteur, couleurOrigine;
+		int[]         pixels;
 
 		resultat = UtilitaireImage.copierImage(image);
 
@@ -174,61 +136,38 @@ public class TraitementRemplissage
 			return resultat;
 		}
 
-		couleurOrigine = resultat.getRGB(startX, startY);
+		pixels         = AccesRaster.obtenirPixels(resultat);
+		couleurOrigine = pixels[startY * largeur + startX];
 
 		if (UtilitaireImage.distanceCouleur(couleurOrigine, nouvelleCouleur) == 0) 
 		{
 			return resultat;
 		}
 
-		visite = new boolean[largeur][hauteur];
-
-		file = new LinkedList<>();
-		file.add(new int[] { startX, startY });
-
-		visite[startX][startY] = true;
-
-		int[] dx = { -1, 0, 1, -1, 1, -1, 0, 1 };
-		int[] dy = { -1, -1, -1, 0, 0, 1, 1, 1 };
-
-		while (!file.isEmpty()) 
-		{
-			pixel = file.poll();
-
-			x = pixel[0];
-			y = pixel[1];
-
-			couleurActuelle = resultat.getRGB(x, y);
-			distance = UtilitaireImage.distanceCouleur(couleurActuelle, couleurOrigine);
-
-			if (distance <= tolerance) 
-			{
-				resultat.setRGB(x, y, nouvelleCouleur);
-
-				for (int i = 0; i < 8; i++) 
-				{
-					nx = x + dx[i];
-					ny = y + dy[i];
-					ajouterVoisin(file, visite, largeur, hauteur, nx, ny);
-				}
-			}
-		}
+		TraitementRemplissage.remplirZone(
+			pixels, largeur, hauteur, 
+			startX, startY, 
+			nouvelleCouleur, ComparateurCouleur.euclidien(couleurOrigine, tolerance),
+			true, false
+		);
 
 		return resultat;
 	}
 
 	/**
-	 * Version récursive du pot de peinture.
+	 * Remplit une zone directement dans l'image donnée.
 	 * 
-	 * ATTENTION : Cette version peut provoquer un StackOverflowError
-	 * sur les grandes zones. À utiliser uniquement pour des petites images.
+	 * HISTORIQUE :
+	 * Cette méthode était récursive et provoquait un StackOverflowError sur
+	 * les grandes zones. Elle utilise désormais le même remplissage par
+	 * segments que remplir(), avec une mémoire bornée, quelle que soit la taille.
 	 * 
-	 * PRINCIPE DE LA RÉCURSION :
-	 * La fonction s'appelle elle-même pour chaque voisin valide.
+	 * Comme l'ancienne version, elle ne traverse pas les pixels qui ont déjà
+	 * exactement la nouvelle couleur.
 	 * 
-	 * @param image           L'image à modifier
-	 * @param x               Position X actuelle
-	 * @param y               Position Y actuelle
+	 * @param image           L'image à modifier (modifiée directement)
+	 * @param x               Position X de départ
+	 * @param y               Position Y de départ
 	 * @param nouvelleCouleur La couleur de remplissage
 	 * @param couleurOrigine  La couleur à remplacer
 	 * @param tolerance       Distance maximale
@@ -240,25 +179,253 @@ public class TraitementRemplissage
 		double tolerance
 	) 
 	{
-		if (x < 0 || x >= image.getWidth() || y < 0 || y >= image.getHeight()) 
-			return;
-
-		int couleurActuelle;
+		int   largeur, hauteur, pixelsRemplis;
+		int[] pixels;
 		
-		couleurActuelle = image.getRGB(x, y);
+		largeur = image.getWidth();
+		hauteur = image.getHeight();
 
-		if (couleurActuelle == nouvelleCouleur)
+		if (x < 0 || x >= largeur || y < 0 || y >= hauteur) 
 			return;
 
-		if (UtilitaireImage.distanceCouleur(couleurActuelle, couleurOrigine) > tolerance)
+		pixels = AccesRaster.obtenirPixels(image);
+
+		if (pixels != null)
+		{
+			TraitementRemplissage.remplirZone(
+				pixels, largeur, hauteur, 
+				x, y, 
+				nouvelleCouleur, ComparateurCouleur.euclidien(couleurOrigine, tolerance),
+				false, true
+			);
 			return;
+		}
+
+		pixels = AccesRaster.lirePixels(image);
+
+		pixelsRemplis = TraitementRemplissage.remplirZone(
+			pixels, largeur, hauteur, 
+			x, y, 
+			nouvelleCouleur, ComparateurCouleur.euclidien(couleurOrigine, tolerance),
+			false, true
+		);
+
+		if (pixelsRemplis > 0)
+			image.setRGB(0, 0, largeur, hauteur, pixels, 0, largeur);
+	}
+
+	/**
+	 * Remplit la zone du pixel de départ, sur le tableau de pixels.
+	 * 
+	 * CHOIX AUTOMATIQUE DU MOTEUR :
+	 * 1. On commence toujours par le remplissage par segments (séquentiel)
+	 * 2. Si la zone dépasse SEUIL_PARALLELE pixels et que plusieurs threads
+	 *    sont disponibles, on s'arrête et RemplissageParallele termine le
+	 *    travail sur tous les cœurs
+	 * 3. Si l'image est trop "bruitée" pour le moteur parallèle, on reprend
+	 *    le remplissage par segments là où il s'était arrêté
+	 * 
+	 * Les petites zones (le cas le plus courant) restent donc séquentielles,
+	 * et le résultat est le même pixel pour pixel dans tous les cas.
+	 * 
+	 * @param pixels                 Les pixels (modifiés directement)
+	 * @param largeur                Largeur de l'image
+	 * @param hauteur                Hauteur de l'image
+	 * @param startX                 Position X de départ
+	 * @param startY                 Position Y de départ
+	 * @param nouvelleCouleur        La couleur de remplissage
+	 * @param comparateur            Indique si une couleur est proche de celle d'origine
+	 * @param huitDirections         true pour inclure les voisins en diagonale
+	 * @param bloquerNouvelleCouleur true pour ne pas traverser les pixels qui ont
+	 *                               déjà la nouvelle couleur
+	 * @return Le nombre de pixels remplis
+	 */
+	private static int remplirZone(
+		int[] pixels, int largeur, int hauteur,
+		int startX, int startY,
+		int nouvelleCouleur, ComparateurCouleur comparateur,
+		boolean huitDirections, boolean bloquerNouvelleCouleur
+	)
+	{
+		long[]      remplis;
+		PileEntiers pile;
+		int         limite, pixelsRemplis, pixelsZone;
+
+		remplis = new long[(int) (((long) largeur * hauteur + 63) >>> 6)];
+		pile    = new PileEntiers();
+		limite  = (ExecuteurTuiles.getParallelisme() > 1) ? SEUIL_PARALLELE : Integer.MAX_VALUE;
+
+		pile.empiler(startY * largeur + startX);
 
-		image.setRGB(x, y, nouvelleCouleur);
+		pixelsRemplis = TraitementRemplissage.remplirSegments(
+			pixels, largeur, hauteur, nouvelleCouleur, comparateur,
+			huitDirections, bloquerNouvelleCouleur, remplis, pile, limite
+		);
 
-		TraitementRemplissage.remplirRecursif(image, x - 1, y, nouvelleCouleur, couleurOrigine, tolerance);
-		TraitementRemplissage.remplirRecursif(image, x + 1, y, nouvelleCouleur, couleurOrigine, tolerance);
-		TraitementRemplissage.remplirRecursif(image, x, y - 1, nouvelleCouleur, couleurOrigine, tolerance);
-		TraitementRemplissage.remplirRecursif(image, x, y + 1, nouvelleCouleur, couleurOrigine, tolerance);
+		if (pile.estVide())
+			return pixelsRemplis;
+
+		pixelsZone = RemplissageParallele.remplir(
+			pixels, largeur, hauteur, startY * largeur + startX, remplis,
+			nouvelleCouleur, comparateur, huitDirections, bloquerNouvelleCouleur
+		);
+
+		if (pixelsZone >= 0)
+			return pixelsZone;
+
+		return pixelsRemplis + TraitementRemplissage.remplirSegments(
+			pixels, largeur, hauteur, nouvelleCouleur, comparateur,
+			huitDirections, bloquerNouvelleCouleur, remplis, pile, Integer.MAX_VALUE
+		);
+	}
+
+	/**
+	 * Moteur du remplissage par segments, sur le tableau de pixels.
+	 * 
+	 * Un pixel est "à remplir" s'il n'est pas encore rempli et si le
+	 * comparateur le juge proche de la couleur d'origine. Le comparateur
+	 * est préparé une seule fois : le test d'un pixel se fait sur des entiers,
+	 * sans racine carrée.
+	 * 
+	 * On peut s'arrêter en cours de route (limite atteinte) : la pile et le
+	 * tableau de bits permettent alors de reprendre plus tard.
+	 * 
+	 * @param pixels                 Les pixels (modifiés directement)
+	 * @param largeur                Largeur de l'image
+	 * @param hauteur                Hauteur de l'image
+	 * @param nouvelleCouleur        La couleur de remplissage
+	 * @param comparateur            Indique si une couleur est proche de celle d'origine
+	 * @param huitDirections         true pour inclure les voisins en diagonale
+	 * @param bloquerNouvelleCouleur true pour ne pas traverser les pixels qui ont
+	 *                               déjà la nouvelle couleur
+	 * @param remplis                Pixels déjà remplis (1 bit par pixel)
+	 * @param pile                   Premiers pixels des segments restant à examiner
+	 * @param limite                 Nombre de pixels à partir duquel on s'arrête
+	 * @return Le nombre de pixels remplis pendant cet appel
+	 */
+	private static int remplirSegments(
+		int[] pixels, int largeur, int hauteur,
+		int nouvelleCouleur, ComparateurCouleur comparateur,
+		boolean huitDirections, boolean bloquerNouvelleCouleur,
+		long[] remplis, PileEntiers pile, int limite
+	)
+	{
+		int     index, y, debutLigne, gauche, droite, pixelsRemplis;
+		int     extension, xMin, xMax, ligneVoisine, debutVoisine;
+		boolean dansSegment;
+
+		extension     = huitDirections ? 1 : 0;
+		pixelsRemplis = 0;
+
+		while (!pile.estVide() && pixelsRemplis < limite)
+		{
+			index = pile.depiler();
+
+			if (!TraitementRemplissage.estARemplir(pixels, remplis, index, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+				continue;
+
+			y          = index / largeur;
+			debutLigne = y * largeur;
+			gauche     = index - debutLigne;
+			droite     = gauche;
+
+			while (gauche > 0 && 
+			       TraitementRemplissage.estARemplir(pixels, remplis, debutLigne + gauche - 1, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+				gauche--;
+
+			while (droite < largeur - 1 && 
+			       TraitementRemplissage.estARemplir(pixels, remplis, debutLigne + droite + 1, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+				droite++;
+
+			for (int i = debutLigne + gauche; i <= debutLigne + droite; i++)
+			{
+				pixels[i] = nouvelleCouleur;
+				remplis[i >>> 6] |= 1L << i;
+			}
+
+			pixelsRemplis += droite - gauche + 1;
+
+			xMin = Math.max(0,           gauche - extension);
+			xMax = Math.min(largeur - 1, droite + extension);
+
+			for (int dy = -1; dy <= 1; dy += 2)
+			{
+				ligneVoisine = y + dy;
+
+				if (ligneVoisine < 0 || ligneVoisine >= hauteur)
+					continue;
+
+				debutVoisine = ligneVoisine * largeur;
+				dansSegment  = false;
+
+				for (int x = xMin; x <= xMax; x++)
+				{
+					if (TraitementRemplissage.estARemplir(pixels, remplis, debutVoisine + x, nouvelleCouleur, comparateur, bloquerNouvelleCouleur))
+					{
+						if (!dansSegment)
+						{
+							pile.empiler(debutVoisine + x);
+							dansSegment = true;
+						}
+					}
+					else
+					{
+						dansSegment = false;
+					}
+				}
+			}
+		}
+
+		return pixelsRemplis;
+	}
+
+	/**
+	 * Indique si le pixel d'indice donné doit encore être rempli.
+	 */
+	private static boolean estARemplir(
+		int[] pixels, long[] remplis, int index,
+		int nouvelleCouleur, ComparateurCouleur comparateur,
+		boolean bloquerNouvelleCouleur
+	)
+	{
+		int couleur;
+
+		if ((remplis[index >>> 6] & (1L << index)) != 0)
+			return false;
+
+		couleur = pixels[index];
+
+		if (bloquerNouvelleCouleur && couleur == nouvelleCouleur)
+			return false;
+
+		return comparateur.correspond(couleur);
+	}
+
+	/**
+	 * Pile d'entiers qui s'agrandit si besoin (sans objet par élément).
+	 */
+	private static class PileEntiers
+	{
+		private int[] valeurs;
+		private int   taille;
+
+		PileEntiers()
+		{
+			this.valeurs = new int[1024];
+			this.taille  = 0;
+		}
+
+		void empiler(int valeur)
+		{
+			if (this.taille == this.valeurs.length)
+				this.valeurs = Arrays.copyOf(this.valeurs, this.taille * 2);
+
+			this.valeurs[this.taille++] = valeur;
+		}
+
+		int depiler() { return this.valeurs[--this.taille]; }
+
+		boolean estVide() { return this.taille == 0; }
 	}
 
 	/**
@@ -271,7 +438,7 @@ public class TraitementRemplissage
 	 */
 	public static int creerCouleur(int rouge, int vert, int bleu) 
 	{
-		return UtilitaireImage.combinerComposantes(255, rouge, vert, bleu);
+		return CanalARGB.composerBorne(255, rouge, vert, bleu);
 	}
 
 	/**
@@ -290,4 +457,10 @@ public class TraitementRemplissage
 	public static final double TOLERANCE_FAIBLE  = 20;
 	public static final double TOLERANCE_MOYENNE = 50;
 	public static final double TOLERANCE_FORTE   = 100;
+
+	/**
+	 * Taille de zone (en pixels) au-delà de laquelle le remplissage se
+	 * poursuit en parallèle (voir RemplissageParallele).
+	 */
+	public static final int SEUIL_PARALLELE = 1 << 20;
 }
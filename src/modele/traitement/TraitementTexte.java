@@ -1,5 +1,7 @@
 package modele.traitement;
 
+import modele.AccesRaster;
+import modele.CanalARGB;
 import modele.UtilitaireImage;
 import java.awt.Color;
 import java.awt.Font;
@@ -162,8 +164,9 @@ public class TraitementTexte
 		Graphics2D    gMasque;
 		Font          police;
 
-		int   couleurMasque, srcX, srcY, couleurSource, nouvelleCouleur;
-		int[] compMasque, compSource;
+		int   largeur, hauteur, largeurCouleurs, hauteurCouleurs;
+		int   couleurMasque, srcX, srcY, couleurSource;
+		int[] pixelsMasque, pixelsCouleurs, pixelsResultat;
 
 		resultat = UtilitaireImage.copierImage(imageDestination);
 		masque   = UtilitaireImage.creerImageVide(
@@ -184,30 +187,32 @@ public class TraitementTexte
 		gMasque.drawString(texte, x, y);
 		gMasque.dispose();
 
-		for (int py = 0; py < masque.getHeight(); py++) 
+		largeur         = masque.getWidth();
+		hauteur         = masque.getHeight();
+		largeurCouleurs = imageCouleurs.getWidth();
+		hauteurCouleurs = imageCouleurs.getHeight();
+
+		pixelsMasque   = AccesRaster.obtenirPixels(masque);
+		pixelsCouleurs = AccesRaster.lirePixels(imageCouleurs);
+		pixelsResultat = AccesRaster.obtenirPixels(resultat);
+
+		for (int py = 0; py < hauteur; py++) 
 		{
-			for (int px = 0; px < masque.getWidth(); px++) 
+			for (int px = 0; px < largeur; px++) 
 			{
-				couleurMasque = masque.getRGB(px, py);
-				compMasque = UtilitaireImage.extraireComposantes(couleurMasque);
+				couleurMasque = pixelsMasque[py * largeur + px];
 
-				if (compMasque[1] > 128) 
+				if (CanalARGB.rouge(couleurMasque) > 128) 
 				{
-					srcX = px % imageCouleurs.getWidth();
-					srcY = py % imageCouleurs.getHeight();
-
-					couleurSource = imageCouleurs.getRGB(srcX, srcY);
-
-					compSource = UtilitaireImage.extraireComposantes(couleurSource);
-					
-					nouvelleCouleur = UtilitaireImage.combinerComposantes(
-						compMasque[0],
-						compSource[1],
-						compSource[2], 
-						compSource[3]
-					);
+					srcX = px % largeurCouleurs;
+					srcY = py % hauteurCouleurs;
 
-					resultat.setRGB(px, py, nouvelleCouleur);
+					couleurSource = pixelsCouleurs[srcY * largeurCouleurs + srcX];
+
+					pixelsResultat[py * largeur + px] = CanalARGB.avecAlpha(
+						couleurSource,
+						CanalARGB.alpha(couleurMasque)
+					);
 				}
 			}
 		}
@@ -276,9 +281,12 @@ public class TraitementTexte
 	 */
 	public static Color versColor(int argb) 
 	{
-		int[] comp;
-		comp = UtilitaireImage.extraireComposantes(argb);
-		return new Color(comp[1], comp[2], comp[3], comp[0]);
+		return new Color(
+			CanalARGB.rouge(argb), 
+			CanalARGB.vert (argb), 
+			CanalARGB.bleu (argb), 
+			CanalARGB.alpha(argb)
+		);
 	}
 
 	/**
@@ -286,7 +294,7 @@ public class TraitementTexte
 	 */
 	public static int versARGB(Color couleur) 
 	{
-		return UtilitaireImage.combinerComposantes(
+		return CanalARGB.composerBorne(
 			couleur.getAlpha(), 
 			couleur.getRed  (), 
 			couleur.getGreen(), 
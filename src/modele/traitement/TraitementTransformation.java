@@ -1,5 +1,7 @@
 package modele.traitement;
 
+import modele.AccesRaster;
+import modele.CanalARGB;
 import modele.UtilitaireImage;
 import java.awt.image.BufferedImage;
 
@@ -9,18 +11,29 @@ import java.awt.image.BufferedImage;
  * ============================================================================
  * 
  * Cette classe regroupe les transformations géométriques et colorimétriques :
- * - Rotation (90°, -90°)
+ * - Rotation (90°, 180°, 270°) et miroirs
  * - Ajustement de luminosité
  * - Ajustement de contraste
  * - Modification de teinte (Hue)
  * 
+ * ACCÈS AUX PIXELS :
+ * Les pixels sont lus et écrits directement dans les tableaux int[] des images
+ * (voir AccesRaster), sans passer par getRGB() / setRGB() à chaque pixel.
+ * Chaque traitement est découpé en un "noyau" qui travaille sur une plage
+ * d'indices [debut, fin[ du tableau : ExecuteurTuiles répartit ces plages
+ * sur les cœurs du processeur.
+ * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class TraitementTransformation 
 {
 
 	/**
-	 * Effectue une rotation (angle en degré)
+	 * Effectue une rotation (angle en degré, multiple de 90).
+	 * 
+	 * - 90° / 270° : rotation par tuiles (voir TransformationGeometrique)
+	 * - 180°       : copie en ordre inverse, en un seul passage
+	 * - 0°         : copie de l'image
 	 * 
 	 * @param image L'image à tourner
 	 * @param angle Angle de rotation (angle > 0 -> horaire, angle < 0 -> anti-horaire)
@@ -28,36 +41,102 @@ public class TraitementTransformation
 	 */
 	public static BufferedImage appliquerRotation(BufferedImage image, int angle)
 	{
-		int           largeur, hauteur, couleur, nouveauX, nouveauY;
+		int           largeur, hauteur, quartsDeTour;
 		BufferedImage resultat;
+		int[]         source, destination;
+
+		quartsDeTour = TraitementTransformation.quartsDeTour(angle);
 
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(hauteur, largeur);
+		if (quartsDeTour == 0)
+			return UtilitaireImage.copierImage(image);
 
-		for (int y = 0; y < hauteur; y++) 
+		largeur = image.getWidth();
+		hauteur = image.getHeight();
+		source  = AccesRaster.lirePixels(image);
+
+		if (quartsDeTour == 2)
 		{
-			for (int x = 0; x < largeur; x++) 
-			{
-				couleur = image.getRGB(x, y);
-
-				if (angle == 90) 
-				{
-					nouveauX = hauteur - 1 - y;
-					nouveauY = x;
-				} 
-				else 
-				{
-					nouveauX = y;
-					nouveauY = largeur - 1 - x;
-				}
-
-				resultat.setRGB(nouveauX, nouveauY, couleur);
-			}
+			resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+			TransformationGeometrique.pivoter180(source, AccesRaster.obtenirPixels(resultat));
+			return resultat;
 		}
+
+		resultat    = UtilitaireImage.creerImageVide(hauteur, largeur);
+		destination = AccesRaster.obtenirPixels(resultat);
+
+		TransformationGeometrique.pivoter90(source, largeur, hauteur, destination, quartsDeTour == 1);
+
+		return resultat;
+	}
+
+	/**
+	 * Tourne l'image de 180° SUR PLACE (sans deuxième image).
+	 * 
+	 * Si les pixels de l'image ne sont pas accessibles directement (voir
+	 * AccesRaster), le travail est fait sur une copie ARGB, qui est retournée.
+	 * 
+	 * @param image L'image à tourner (modifiée)
+	 * @return L'image tournée : "image" elle-même, ou sa copie ARGB
+	 */
+	public static BufferedImage pivoter180SurPlace(BufferedImage image)
+	{
+		BufferedImage resultat = AccesRaster.normaliser(image);
+
+		TransformationGeometrique.pivoter180SurPlace(AccesRaster.obtenirPixels(resultat));
+
+		return resultat;
+	}
+
+	/**
+	 * Retourne l'image de gauche à droite SUR PLACE (miroir horizontal).
+	 * 
+	 * @param image L'image à retourner (modifiée)
+	 * @return L'image retournée : "image" elle-même, ou sa copie ARGB
+	 * @see #pivoter180SurPlace(BufferedImage)
+	 */
+	public static BufferedImage miroirHorizontalSurPlace(BufferedImage image)
+	{
+		BufferedImage resultat = AccesRaster.normaliser(image);
+
+		TransformationGeometrique.miroirHorizontalSurPlace(
+			AccesRaster.obtenirPixels(resultat), resultat.getWidth(), resultat.getHeight()
+		);
+
 		return resultat;
 	}
 
+	/**
+	 * Retourne l'image de haut en bas SUR PLACE (miroir vertical).
+	 * 
+	 * @param image L'image à retourner (modifiée)
+	 * @return L'image retournée : "image" elle-même, ou sa copie ARGB
+	 * @see #pivoter180SurPlace(BufferedImage)
+	 */
+	public static BufferedImage miroirVerticalSurPlace(BufferedImage image)
+	{
+		BufferedImage resultat = AccesRaster.normaliser(image);
+
+		TransformationGeometrique.miroirVerticalSurPlace(
+			AccesRaster.obtenirPixels(resultat), resultat.getWidth(), resultat.getHeight()
+		);
+
+		return resultat;
+	}
+
+	/**
+	 * Convertit un angle en nombre de quarts de tour horaires (0 à 3).
+	 * 
+	 * @param angle Angle en degré (multiple de 90, éventuellement négatif)
+	 * @return Le nombre de quarts de tour dans le sens horaire
+	 */
+	private static int quartsDeTour(int angle)
+	{
+		if (angle % 90 != 0)
+			throw new IllegalArgumentException("L'angle doit être un multiple de 90° : " + angle);
+
+		return Math.floorMod(angle / 90, 4);
+	}
+
 	/**
 	 * Ajuste la luminosité de l'image.
 	 * 
@@ -70,45 +149,19 @@ public class TraitementTransformation
 	 * nouvelleValeur = ancienneValeur + facteur
 	 * (bornée entre 0 et 255)
 	 * 
+	 * Le calcul est fait par NoyauxPixels (vectoriel si possible).
+	 * 
 	 * @param image   L'image à modifier
 	 * @param facteur Valeur à ajouter (-255 à +255)
 	 * @return L'image avec la luminosité ajustée
 	 */
 	public static BufferedImage ajusterLuminosite(BufferedImage image, int facteur)
 	{
-		int           largeur, hauteur;
-		BufferedImage resultat;
-		int           couleur, alpha, nouveauRouge, nouveauVert, nouveauBleu, nouvelleCouleur;
-		int[]         composantes;
-
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+		NoyauxPixels noyaux = NoyauxPixels.actifs();
 
-		for (int y = 0; y < hauteur; y++) 
-		{
-			for (int x = 0; x < largeur; x++) 
-			{
-				couleur     = image.getRGB(x, y);
-				composantes = UtilitaireImage.extraireComposantes(couleur);
-
-				alpha        = composantes[0];
-				nouveauRouge = TraitementTransformation.borner(composantes[1] + facteur);
-				nouveauVert  = TraitementTransformation.borner(composantes[2] + facteur);
-				nouveauBleu  = TraitementTransformation.borner(composantes[3] + facteur);
-
-				nouvelleCouleur = UtilitaireImage.combinerComposantes(
-					alpha, 
-					nouveauRouge, 
-					nouveauVert, 
-					nouveauBleu
-				);
-
-				resultat.setRGB(x, y, nouvelleCouleur);
-			}
-		}
-
-		return resultat;
+		return TraitementTransformation.appliquerOperation(image, (source, destination, debut, fin) ->
+			noyaux.luminosite(source, destination, debut, fin, facteur)
+		);
 	}
 
 	/**
@@ -125,45 +178,16 @@ public class TraitementTransformation
 	 * - facteur < 1 : diminue le contraste
 	 * - facteur = 1 : pas de changement
 	 * 
+	 * La formule est précalculée dans une table de 256 valeurs
+	 * (voir TableCorrespondance).
+	 * 
 	 * @param image   L'image à modifier
 	 * @param facteur Facteur de contraste (0.0 à 3.0 typiquement)
 	 * @return L'image avec le contraste ajusté
 	 */
 	public static BufferedImage ajusterContraste(BufferedImage image, double facteur) 
 	{
-		int           largeur, hauteur;
-		BufferedImage resultat;
-		int           couleur, alpha, nouveauRouge, nouveauVert, nouveauBleu, nouvelleCouleur;
-		int[]         composantes;
-
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
-
-		for (int y = 0; y < hauteur; y++)
-		{
-			for (int x = 0; x < largeur; x++)
-			{
-				couleur     = image.getRGB(x, y);
-				composantes = UtilitaireImage.extraireComposantes(couleur);
-
-				alpha        = composantes[0];
-				nouveauRouge = TraitementTransformation.borner((int) (128 + (composantes[1] - 128) * facteur));
-				nouveauVert  = TraitementTransformation.borner((int) (128 + (composantes[2] - 128) * facteur));
-				nouveauBleu  = TraitementTransformation.borner((int) (128 + (composantes[3] - 128) * facteur));
-
-				nouvelleCouleur = UtilitaireImage.combinerComposantes(
-					alpha,
-					nouveauRouge,
-					nouveauVert, 
-					nouveauBleu
-				);
-
-				resultat.setRGB(x, y, nouvelleCouleur);
-			}
-		}
-
-		return resultat;
+		return TraitementTransformation.appliquerTable(image, TableCorrespondance.contraste(facteur));
 	}
 
 	/**
@@ -172,6 +196,7 @@ public class TraitementTransformation
 	 * PRINCIPE :
 	 * La teinte (Hue) est un angle sur le cercle chromatique (0° à 360°).
 	 * On convertit RGB → HSV, on décale la teinte, puis HSV → RGB.
+	 * Le calcul est fait en nombres entiers (voir teinte()).
 	 * 
 	 * @param image    L'image à modifier
 	 * @param decalage Décalage de teinte en degrés (0 à 360)
@@ -179,48 +204,121 @@ public class TraitementTransformation
 	 */
 	public static BufferedImage decalerTeinte(BufferedImage image, int decalage) 
 	{
-		int           largeur, hauteur;
-		BufferedImage resultat;
-		int           couleur, alpha, rouge, vert, bleu, nouvelleCouleur;
-		int[]         composantes, nouveauRgb;
-		float[]       hsv;
+		return TraitementTransformation.appliquerOperation(image, TraitementTransformation.operationTeinte(decalage));
+	}
 
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+	/**
+	 * Le décalage de teinte exact, sous forme d'opération ponctuelle
+	 * (pipeline, aperçu en direct) : même résultat que decalerTeinte().
+	 * 
+	 * @param decalage Décalage de teinte en degrés
+	 * @return L'opération (voir teinte())
+	 */
+	public static OperationPonctuelle operationTeinte(int decalage)
+	{
+		return (source, destination, debut, fin) ->
+			TraitementTransformation.teinte(source, destination, debut, fin, decalage);
+	}
 
-		for (int y = 0; y < hauteur; y++) 
+	/**
+	 * Modifie la teinte de l'image, en version rapide mais approchée.
+	 * 
+	 * Au lieu de passer par HSV, chaque pixel est multiplié par une matrice
+	 * de rotation calculée une seule fois (voir MatriceTeinte). Le résultat
+	 * est exact pour 0°, 120° et 240°, mais peut s'écarter de decalerTeinte()
+	 * ailleurs (écart maximal documenté dans MatriceTeinte).
+	 * 
+	 * @param image    L'image à modifier
+	 * @param decalage Décalage de teinte en degrés
+	 * @return L'image avec la teinte modifiée
+	 */
+	public static BufferedImage decalerTeinteApproximative(BufferedImage image, int decalage) 
+	{
+		return TraitementTransformation.appliquerOperation(image, new MatriceTeinte(decalage));
+	}
+
+	/**
+	 * Noyau du décalage de teinte : traite les pixels d'indice [debut, fin[.
+	 * Source et destination peuvent être le même tableau (voir PipelineTraitement).
+	 * 
+	 * OBSERVATION :
+	 * Décaler la teinte ne change ni le maximum (V), ni le minimum des trois
+	 * composantes. Seule la composante "du milieu" est à calculer, et le
+	 * secteur (tranche de 60°) indique laquelle des trois est le maximum,
+	 * le minimum et le milieu.
+	 * 
+	 * CALCUL EN ENTIERS :
+	 * Avec d = max - min, la teinte multipliée par d est un entier :
+	 *     teinte × d = 60 × (différence de deux composantes) + k × 120 × d
+	 * On décale (+ decalage × d), on trouve le secteur, puis :
+	 *     milieu = min + (reste dans le secteur) / 60   (arrondi)
+	 * Pas de float, pas de tableau par pixel, et le résultat est l'arrondi
+	 * exact de la formule HSV (l'ancienne version en float pouvait s'en
+	 * écarter de 1 à cause des erreurs d'arrondi).
+	 */
+	static void teinte(int[] source, int[] destination, int debut, int fin, int decalage)
+	{
+		int couleur, rouge, vert, bleu, max, min, delta;
+		int teinteD, secteur, reste, milieu, decalageNormalise;
+
+		decalageNormalise = ((decalage % 360) + 360) % 360;
+
+		for (int i = debut; i < fin; i++) 
 		{
-			for (int x = 0; x < largeur; x++) 
+			couleur = source[i];
+
+			rouge = CanalARGB.rouge(couleur);
+			vert  = CanalARGB.vert (couleur);
+			bleu  = CanalARGB.bleu (couleur);
+
+			max   = Math.max(rouge, Math.max(vert, bleu));
+			min   = Math.min(rouge, Math.min(vert, bleu));
+			delta = max - min;
+
+			// Gris : pas de teinte, la couleur ne change pas
+			if (delta == 0)
 			{
-				couleur     = image.getRGB(x, y);
-				composantes = UtilitaireImage.extraireComposantes(couleur);
+				destination[i] = couleur;
+				continue;
+			}
 
-				alpha = composantes[0];
-				rouge = composantes[1];
-				vert  = composantes[2];
-				bleu  = composantes[3];
+			// Teinte × delta, entre 0 et 360 × delta
+			if (max == rouge)
+			{
+				teinteD = 60 * (vert - bleu);
+				if (teinteD < 0)
+					teinteD += 360 * delta;
+			}
+			else if (max == vert)
+				teinteD = 60 * (bleu - rouge) + 120 * delta;
+			else
+				teinteD = 60 * (rouge - vert) + 240 * delta;
 
-				hsv = TraitementTransformation.rgbVersHsv(rouge, vert, bleu);
+			teinteD += decalageNormalise * delta;
+			if (teinteD >= 360 * delta)
+				teinteD -= 360 * delta;
 
-				hsv[0] = (hsv[0] + decalage) % 360;
-				if (hsv[0] < 0)
-					hsv[0] += 360;
+			secteur = teinteD / (60 * delta);
+			reste   = teinteD - secteur * 60 * delta;
 
-				nouveauRgb = hsvVersRgb(hsv[0], hsv[1], hsv[2]);
+			// Dans les secteurs impairs, le milieu décroît
+			if ((secteur & 1) != 0)
+				reste = 60 * delta - reste;
 
-				nouvelleCouleur = UtilitaireImage.combinerComposantes(
-					alpha, 
-					nouveauRgb[0], 
-					nouveauRgb[1], 
-					nouveauRgb[2]
-				);
+			milieu = min + (reste + 30) / 60;
 
-				resultat.setRGB(x, y, nouvelleCouleur);
+			switch (secteur)
+			{
+				case 0:  rouge = max;    vert = milieu; bleu = min;    break;
+				case 1:  rouge = milieu; vert = max;    bleu = min;    break;
+				case 2:  rouge = min;    vert = max;    bleu = milieu; break;
+				case 3:  rouge = min;    vert = milieu; bleu = max;    break;
+				case 4:  rouge = milieu; vert = min;    bleu = max;    break;
+				default: rouge = max;    vert = min;    bleu = milieu; break;
 			}
-		}
 
-		return resultat;
+			destination[i] = CanalARGB.composer(CanalARGB.alpha(couleur), rouge, vert, bleu);
+		}
 	}
 
 	/**
@@ -236,42 +334,17 @@ public class TraitementTransformation
 	 */
 	public static BufferedImage versNiveauxDeGris(BufferedImage image) 
 	{
-		int           largeur, hauteur;
-		BufferedImage resultat;
-		int           couleur, alpha, gris, nouvelleCouleur;
-		int[]         composantes;
-
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
-
-		for (int y = 0; y < hauteur; y++)
-		{
-			for (int x = 0; x < largeur; x++)
-			{
-				couleur = image.getRGB(x, y);
-				composantes = UtilitaireImage.extraireComposantes(couleur);
-
-				alpha = composantes[0];
-
-				gris = (int) (
-					0.299 * composantes[1] +
-					0.587 * composantes[2] +
-					0.114 * composantes[3]
-				);
-
-				nouvelleCouleur = UtilitaireImage.combinerComposantes(
-					alpha,
-					gris, 
-					gris, 
-					gris
-				);
-
-				resultat.setRGB(x, y, nouvelleCouleur);
-			}
-		}
+		return TraitementTransformation.appliquerOperation(image, TraitementTransformation::niveauxDeGris);
+	}
 
-		return resultat;
+	/**
+	 * Noyau des niveaux de gris : traite les pixels d'indice [debut, fin[.
+	 * Source et destination peuvent être le même tableau (voir PipelineTraitement).
+	 * Le calcul est fait par NoyauxPixels (vectoriel si possible).
+	 */
+	static void niveauxDeGris(int[] source, int[] destination, int debut, int fin)
+	{
+		NoyauxPixels.actifs().niveauxDeGris(source, destination, debut, fin);
 	}
 
 	/**
@@ -280,162 +353,78 @@ public class TraitementTransformation
 	 * FORMULE :
 	 * nouvelleValeur = 255 - ancienneValeur
 	 * 
+	 * Le calcul est fait par NoyauxPixels (vectoriel si possible).
+	 * 
 	 * @param image L'image à inverser
 	 * @return L'image en négatif
 	 */
 	public static BufferedImage inverserCouleurs(BufferedImage image) 
 	{
-		int           largeur, hauteur;
-		BufferedImage resultat;
-		int           couleur, alpha, nouveauRouge, nouveauVert, nouveauBleu, nouvelleCouleur;
-		int[]         composantes;
-
-		largeur  = image.getWidth();
-		hauteur  = image.getHeight();
-		resultat = UtilitaireImage.creerImageVide(largeur, hauteur);
+		NoyauxPixels noyaux = NoyauxPixels.actifs();
 
-		for (int y = 0; y < hauteur; y++) 
-		{
-			for (int x = 0; x < largeur; x++) 
-			{
-				couleur = image.getRGB(x, y);
-				composantes = UtilitaireImage.extraireComposantes(couleur);
-
-				alpha        = composantes[0];
-				nouveauRouge = 255 - composantes[1];
-				nouveauVert  = 255 - composantes[2];
-				nouveauBleu  = 255 - composantes[3];
-
-				nouvelleCouleur = UtilitaireImage.combinerComposantes(
-					alpha, 
-					nouveauRouge, 
-					nouveauVert, 
-					nouveauBleu
-				);
-
-				resultat.setRGB(x, y, nouvelleCouleur);
-			}
-		}
-
-		return resultat;
+		return TraitementTransformation.appliquerOperation(image, noyaux::negatif);
 	}
 
 	/**
-	 * Borne une valeur entre 0 et 255.
+	 * Applique une table de correspondance à chaque pixel de l'image.
+	 * 
+	 * UTILITÉ :
+	 * Plusieurs réglages composés avec TableCorrespondance.puis() s'appliquent
+	 * en un seul passage sur l'image.
+	 * 
+	 * @param image L'image à modifier
+	 * @param table La table à appliquer
+	 * @return L'image transformée
 	 */
-	private static int borner(int valeur) 
+	public static BufferedImage appliquerTable(BufferedImage image, TableCorrespondance table)
 	{
-		return Math.max(0, Math.min(255, valeur));
+		return TraitementTransformation.appliquerOperation(image, table);
 	}
 
 	/**
-	 * Convertit RGB vers HSV.
+	 * Applique une opération ponctuelle à chaque pixel de l'image, en
+	 * répartissant les pixels sur les cœurs (voir ExecuteurTuiles).
 	 * 
-	 * @param r Rouge (0-255)
-	 * @param g Vert (0-255)
-	 * @param b Bleu (0-255)
-	 * @return Un tableau [H, S, V] avec H en degrés (0-360), S et V en % (0-100)
+	 * @param image     L'image d'origine (non modifiée)
+	 * @param operation L'opération à appliquer
+	 * @return Une nouvelle image avec l'opération appliquée
 	 */
-	private static float[] rgbVersHsv(int r, int g, int b)
+	public static BufferedImage appliquerOperation(BufferedImage image, OperationPonctuelle operation)
 	{
-		float rNorm, gNorm, bNorm;
-		float max, min, delta;
-		float h, s, v;
-		
-		rNorm = r / 255f;
-		gNorm = g / 255f;
-		bNorm = b / 255f;
-
-		max   = Math.max(rNorm, Math.max(gNorm, bNorm));
-		min   = Math.min(rNorm, Math.min(gNorm, bNorm));
-		delta = max - min;
-
-		h = 0;
-
-		if (delta == 0) 
-			h = 0;
-		else if (max == rNorm)
-			h = 60 * (((gNorm - bNorm) / delta) % 6);
-		else if (max == gNorm)
-			h = 60 * (((bNorm - rNorm) / delta) + 2);
-		else
-			h = 60 * (((rNorm - gNorm) / delta) + 4);
-
-		if (h < 0)
-			h += 360;
+		BufferedImage resultat;
+		int[]         source, destination;
 
-		s = (max == 0) ? 0 : (delta / max) * 100;
+		source      = AccesRaster.lirePixels(image);
+		resultat    = UtilitaireImage.creerImageVide(image.getWidth(), image.getHeight());
+		destination = AccesRaster.obtenirPixels(resultat);
 
-		v = max * 100;
+		ExecuteurTuiles.executerPixels(source.length, (debut, fin) ->
+			operation.appliquer(source, destination, debut, fin)
+		);
 
-		return new float[] { h, s, v };
+		return resultat;
 	}
 
 	/**
-	 * Convertit HSV vers RGB.
+	 * Applique une opération ponctuelle en écrivant dans une image existante.
 	 * 
-	 * @param h Teinte en degrés (0-360)
-	 * @param s Saturation en % (0-100)
-	 * @param v Valeur en % (0-100)
-	 * @return Un tableau [R, G, B] avec des valeurs 0-255
+	 * UTILITÉ :
+	 * Un aperçu recalculé à chaque mouvement de curseur réutilise toujours
+	 * la même image résultat, sans nouvelle allocation.
+	 * 
+	 * @param image       L'image d'origine (non modifiée)
+	 * @param operation   L'opération à appliquer
+	 * @param destination Image TYPE_INT_ARGB de même taille qui reçoit le résultat
 	 */
-	private static int[] hsvVersRgb(float h, float s, float v)
+	public static void appliquerOperation(BufferedImage image, OperationPonctuelle operation, BufferedImage destination)
 	{
-		float c, x, m, rPrime, gPrime, bPrime;
-		int   r, g, b;
-
-		s = s / 100f;
-		v = v / 100f;
-
-		c = v * s;
-		x = c * (1 - Math.abs((h / 60) % 2 - 1));
-		m = v - c;
-
-		rPrime = 0; 
-		gPrime = 0; 
-		bPrime = 0;
-
-		if (h < 60) 
-		{
-			rPrime = c;
-			gPrime = x;
-			bPrime = 0;
-		} else if (h < 120) 
-		{
-			rPrime = x;
-			gPrime = c;
-			bPrime = 0;
-		} else if (h < 180) 
-		{
-			rPrime = 0;
-			gPrime = c;
-			bPrime = x;
-		} else if (h < 240) 
-		{
-			rPrime = 0;
-			gPrime = x;
-			bPrime = c;
-		} else if (h < 300) 
-		{
-			rPrime = x;
-			gPrime = 0;
-			bPrime = c;
-		} else 
-		{
-			rPrime = c;
-			gPrime = 0;
-			bPrime = x;
-		}
+		int[] source, pixels;
 
-		r = Math.round((rPrime + m) * 255);
-		g = Math.round((gPrime + m) * 255);
-		b = Math.round((bPrime + m) * 255);
+		source = AccesRaster.lirePixels(image);
+		pixels = AccesRaster.obtenirPixels(destination);
 
-		return new int[] 
-		{ 
-			TraitementTransformation.borner(r), 
-			TraitementTransformation.borner(g), 
-			TraitementTransformation.borner(b) 
-		};
+		ExecuteurTuiles.executerPixels(source.length, (debut, fin) ->
+			operation.appliquer(source, pixels, debut, fin)
+		);
 	}
 }
@@ -0,0 +1,208 @@
+package modele.traitement;
+
+/**
+ * ============================================================================
+ * ROTATIONS ET MIROIRS SUR LES TABLEAUX DE PIXELS
+ * ============================================================================
+ *
+ * Noyaux des transformations géométriques de TraitementTransformation.
+ * Toutes les méthodes travaillent sur des tableaux ARGB rangés ligne par
+ * ligne (pixels[y * largeur + x]) et sont réparties sur les cœurs par
+ * ExecuteurTuiles.
+ *
+ * ROTATION DE 90° PAR TUILES :
+ * Une rotation de 90° lit l'image ligne par ligne mais écrit le résultat
+ * colonne par colonne : deux pixels voisins dans la source sont écrits à
+ * "hauteur" cases d'écart. Pixel par pixel, chaque écriture touche une
+ * nouvelle ligne de cache (64 octets), qui est chassée avant d'avoir été
+ * remplie. On découpe donc l'image en tuiles de COTE_TUILE x COTE_TUILE :
+ * la tuile source et la tuile destination (2 x 16 Ko) tiennent dans le
+ * cache, et chaque ligne de cache est entièrement utilisée avant d'en sortir.
+ *
+ * ROTATION DE 180° ET MIROIRS SUR PLACE :
+ * Ces transformations échangent des pixels deux à deux (i <-> n - 1 - i,
+ * x <-> largeur - 1 - x, ligne y <-> ligne hauteur - 1 - y). Chaque paire
+ * n'est traitée que par un seul thread : on peut modifier le tableau
+ * directement, sans deuxième image.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class TransformationGeometrique
+{
+
+	/** Côté d'une tuile de rotation, en pixels (64 x 64 x 4 octets = 16 Ko) */
+	static final int COTE_TUILE = 64;
+
+	/**
+	 * Tourne une image de 90° (sens horaire ou anti-horaire).
+	 *
+	 * La destination fait "hauteur" pixels de large et "largeur" de haut.
+	 * Les bandes sont des groupes de colonnes de tuiles de la source (donc des
+	 * groupes de lignes de la destination) : chaque thread écrit dans ses
+	 * propres lignes.
+	 *
+	 * @param source      Les pixels de l'image
+	 * @param largeur     Largeur de l'image source
+	 * @param hauteur     Hauteur de l'image source
+	 * @param destination Les pixels du résultat (même taille que source)
+	 * @param horaire     true : 90° horaire, false : 90° anti-horaire
+	 */
+	static void pivoter90(int[] source, int largeur, int hauteur, int[] destination, boolean horaire)
+	{
+		int colonnesTuiles, tuilesParBande;
+
+		colonnesTuiles = (largeur + COTE_TUILE - 1) / COTE_TUILE;
+		tuilesParBande = Math.max(1, ExecuteurTuiles.PIXELS_PAR_BANDE / (COTE_TUILE * Math.max(1, hauteur)));
+
+		ExecuteurTuiles.executer(colonnesTuiles, tuilesParBande, (debut, fin) ->
+		{
+			int xFin = Math.min(largeur, fin * COTE_TUILE);
+
+			for (int x0 = debut * COTE_TUILE; x0 < xFin; x0 += COTE_TUILE)
+			{
+				for (int y0 = 0; y0 < hauteur; y0 += COTE_TUILE)
+				{
+					TransformationGeometrique.pivoterTuile(
+						source, largeur, hauteur, destination, horaire,
+						x0, Math.min(xFin, x0 + COTE_TUILE),
+						y0, Math.min(hauteur, y0 + COTE_TUILE)
+					);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Tourne une tuile [x0, x1[ x [y0, y1[ de la source.
+	 *
+	 * FORMULES (destination de largeur "hauteur") :
+	 * - Horaire      : (x, y) -> (hauteur - 1 - y, x)
+	 * - Anti-horaire : (x, y) -> (y, largeur - 1 - x)
+	 *
+	 * La boucle intérieure parcourt y : elle écrit une ligne de la tuile
+	 * destination, pixels contigus.
+	 */
+	private static void pivoterTuile(
+		int[] source, int largeur, int hauteur, int[] destination, boolean horaire,
+		int x0, int x1, int y0, int y1
+	)
+	{
+		int indiceDest, pas;
+
+		for (int x = x0; x < x1; x++)
+		{
+			if (horaire)
+			{
+				indiceDest = x * hauteur + (hauteur - 1 - y0);
+				pas        = -1;
+			}
+			else
+			{
+				indiceDest = (largeur - 1 - x) * hauteur + y0;
+				pas        = 1;
+			}
+
+			for (int y = y0; y < y1; y++)
+			{
+				destination[indiceDest] = source[y * largeur + x];
+				indiceDest += pas;
+			}
+		}
+	}
+
+	/**
+	 * Tourne une image de 180° vers un autre tableau : le pixel i va en n - 1 - i.
+	 *
+	 * @param source      Les pixels de l'image
+	 * @param destination Les pixels du résultat (même taille)
+	 */
+	static void pivoter180(int[] source, int[] destination)
+	{
+		int dernier = source.length - 1;
+
+		ExecuteurTuiles.executerPixels(source.length, (debut, fin) ->
+		{
+			for (int i = debut; i < fin; i++)
+				destination[dernier - i] = source[i];
+		});
+	}
+
+	/**
+	 * Tourne une image de 180° sur place, en échangeant i et n - 1 - i.
+	 * Seule la première moitié du tableau est parcourue.
+	 *
+	 * @param pixels Les pixels de l'image (modifiés)
+	 */
+	static void pivoter180SurPlace(int[] pixels)
+	{
+		int dernier = pixels.length - 1;
+
+		ExecuteurTuiles.executerPixels(pixels.length / 2, (debut, fin) ->
+		{
+			int temporaire;
+
+			for (int i = debut; i < fin; i++)
+			{
+				temporaire          = pixels[i];
+				pixels[i]           = pixels[dernier - i];
+				pixels[dernier - i] = temporaire;
+			}
+		});
+	}
+
+	/**
+	 * Retourne chaque ligne de l'image (miroir gauche / droite), sur place.
+	 *
+	 * @param pixels  Les pixels de l'image (modifiés)
+	 * @param largeur Largeur de l'image
+	 * @param hauteur Hauteur de l'image
+	 */
+	static void miroirHorizontalSurPlace(int[] pixels, int largeur, int hauteur)
+	{
+		ExecuteurTuiles.executerLignes(hauteur, largeur, (debut, fin) ->
+		{
+			int gauche, droite, temporaire;
+
+			for (int y = debut; y < fin; y++)
+			{
+				gauche = y * largeur;
+				droite = gauche + largeur - 1;
+
+				while (gauche < droite)
+				{
+					temporaire       = pixels[gauche];
+					pixels[gauche++] = pixels[droite];
+					pixels[droite--] = temporaire;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Échange les lignes y et hauteur - 1 - y (miroir haut / bas), sur place.
+	 * Une ligne entière est copiée d'un bloc (System.arraycopy) à travers un
+	 * tampon d'une ligne par bande.
+	 *
+	 * @param pixels  Les pixels de l'image (modifiés)
+	 * @param largeur Largeur de l'image
+	 * @param hauteur Hauteur de l'image
+	 */
+	static void miroirVerticalSurPlace(int[] pixels, int largeur, int hauteur)
+	{
+		ExecuteurTuiles.executerLignes(hauteur / 2, 2 * largeur, (debut, fin) ->
+		{
+			int[] tampon = new int[largeur];
+			int   haut, bas;
+
+			for (int y = debut; y < fin; y++)
+			{
+				haut = y * largeur;
+				bas  = (hauteur - 1 - y) * largeur;
+
+				System.arraycopy(pixels, haut, tampon, 0,    largeur);
+				System.arraycopy(pixels, bas,  pixels, haut, largeur);
+				System.arraycopy(tampon, 0,    pixels, bas,  largeur);
+			}
+		});
+	}
+}
@@ -0,0 +1,293 @@
+package vue;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ============================================================================
+ * CACHE D'AFFICHAGE - TUILES DANS LE FORMAT DE L'ÉCRAN
+ * ============================================================================
+ *
+ * Les images du modèle sont en TYPE_INT_ARGB, rarement le format de
+ * l'écran : à chaque dessin, Java2D convertit (et réduit, en zoom arrière)
+ * tous les pixels dessinés. Pendant un défilement ou un aperçu en direct,
+ * les mêmes pixels sont ainsi convertis des dizaines de fois par seconde.
+ *
+ * PRINCIPE :
+ * Le panneau est découpé en tuiles de COTE_TUILE pixels (coordonnées du
+ * panneau, donc déjà à l'échelle d'affichage). Chaque tuile dessinée une
+ * fois est gardée dans une VolatileImage compatible avec l'écran (en
+ * mémoire graphique quand c'est possible) ; les dessins suivants ne sont
+ * plus que des copies de tuiles, sans conversion ni mise à l'échelle.
+ * - Tuiles opaques : elles contiennent le fond du panneau et l'image
+ *   déjà mélangés
+ * - Zones modifiées (voir EvenementModele) : seule la partie touchée des
+ *   tuiles concernées est redessinée, au prochain dessin
+ * - Nouvelle image, nouvelle échelle ou nouvelle taille du panneau : toutes
+ *   les tuiles sont oubliées
+ * - Budget : au plus PROPRIETE_BUDGET Mo de tuiles ; au-delà, les moins
+ *   récemment dessinées sont libérées (0 désactive le cache)
+ *
+ * PERTE DE SURFACE :
+ * Le système peut effacer une VolatileImage à tout moment (changement de
+ * mode d'affichage, écran de veille, fenêtre déplacée sur un autre écran).
+ * Avant chaque copie, validate() signale une tuile effacée (redessinée en
+ * entier) ou devenue incompatible (recréée) ; après la copie,
+ * contentsLost() signale une perte pendant la copie, qui est refaite (au
+ * plus ESSAIS fois).
+ *
+ * Toutes les méthodes sont appelées sur l'EDT.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class CacheAffichage
+{
+
+	/** Côté d'une tuile en pixels du panneau */
+	static final int COTE_TUILE = 512;
+
+	/** Propriété système fixant la taille maximale du cache (en Mo) */
+	static final String PROPRIETE_BUDGET = "affichage.cache";
+
+	/** Taille maximale par défaut (en Mo) */
+	static final long BUDGET_PAR_DEFAUT_MO = 64;
+
+	/** Nombre maximal de copies d'une tuile perdue pendant la copie */
+	private static final int ESSAIS = 3;
+
+	/**
+	 * Dessin d'une zone du panneau (fond et image), à garder en cache.
+	 */
+	interface Rendu
+	{
+		/**
+		 * @param g    Le contexte de dessin (coordonnées du panneau, déjà limité à la zone)
+		 * @param zone La zone à dessiner
+		 */
+		void dessiner(Graphics2D g, Rectangle zone);
+	}
+
+	private final Rendu rendu;
+
+	/** Nombre maximal de tuiles gardées */
+	private final int maxTuiles;
+
+	/** Tuiles par position (la moins récemment dessinée en premier) */
+	private final Map<Long, Tuile> tuiles;
+
+	/** Taille du panneau pour laquelle les tuiles ont été dessinées */
+	private int largeur, hauteur;
+
+	/**
+	 * @param rendu Le dessin d'une zone du panneau
+	 */
+	CacheAffichage(Rendu rendu)
+	{
+		long budget;
+
+		budget         = Long.getLong(PROPRIETE_BUDGET, BUDGET_PAR_DEFAUT_MO) << 20;
+		this.rendu     = rendu;
+		this.maxTuiles = (int) Math.min(Integer.MAX_VALUE, budget / (4L * COTE_TUILE * COTE_TUILE));
+
+		this.tuiles = new LinkedHashMap<Long, Tuile>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Tuile> plusAncienne)
+			{
+				if (this.size() <= CacheAffichage.this.maxTuiles)
+					return false;
+
+				plusAncienne.getValue().liberer();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * @return false si le budget est nul (dessin direct, sans cache)
+	 */
+	boolean estActif() { return this.maxTuiles > 0; }
+
+	/**
+	 * Oublie toutes les tuiles (nouvelle image, nouvelle échelle).
+	 */
+	void vider()
+	{
+		for (Tuile tuile : this.tuiles.values())
+			tuile.liberer();
+
+		this.tuiles.clear();
+	}
+
+	/**
+	 * Marque une zone comme modifiée : elle sera redessinée dans les tuiles
+	 * qui la recouvrent au prochain dessin.
+	 *
+	 * @param zone La zone modifiée (coordonnées du panneau)
+	 */
+	void invalider(Rectangle zone)
+	{
+		Iterator<Tuile> parcours;
+
+		parcours = this.tuiles.values().iterator();
+
+		while (parcours.hasNext())
+			parcours.next().perimer(zone);
+	}
+
+	/**
+	 * Dessine une zone du panneau à partir des tuiles (créées ou mises à
+	 * jour si besoin).
+	 *
+	 * @param g       Le contexte de dessin du panneau
+	 * @param zone    La zone à dessiner (le clip)
+	 * @param largeur La largeur du panneau
+	 * @param hauteur La hauteur du panneau
+	 */
+	void dessiner(Graphics2D g, Rectangle zone, int largeur, int hauteur)
+	{
+		GraphicsConfiguration configuration;
+		int                   tx0, ty0, tx1, ty1;
+
+		if (largeur != this.largeur || hauteur != this.hauteur)
+		{
+			this.vider();
+			this.largeur = largeur;
+			this.hauteur = hauteur;
+		}
+
+		configuration = g.getDeviceConfiguration();
+
+		tx0 = Math.max(0, zone.x) / COTE_TUILE;
+		ty0 = Math.max(0, zone.y) / COTE_TUILE;
+		tx1 = (Math.min(largeur, zone.x + zone.width)  - 1) / COTE_TUILE;
+		ty1 = (Math.min(hauteur, zone.y + zone.height) - 1) / COTE_TUILE;
+
+		for (int ty = ty0; ty <= ty1; ty++)
+		{
+			for (int tx = tx0; tx <= tx1; tx++)
+				this.dessinerTuile(g, configuration, tx, ty);
+		}
+	}
+
+	/**
+	 * Copie une tuile à l'écran, en la (re)dessinant si besoin.
+	 */
+	private void dessinerTuile(Graphics2D g, GraphicsConfiguration configuration, int tx, int ty)
+	{
+		Tuile tuile;
+		long  cle;
+		int   essais;
+
+		cle   = ((long) ty << 32) | tx;
+		tuile = this.tuiles.get(cle);
+
+		if (tuile == null)
+		{
+			tuile = new Tuile(new Rectangle(
+				tx * COTE_TUILE, ty * COTE_TUILE,
+				Math.min(COTE_TUILE, this.largeur - tx * COTE_TUILE),
+				Math.min(COTE_TUILE, this.hauteur - ty * COTE_TUILE)
+			));
+
+			this.tuiles.put(cle, tuile);
+		}
+
+		essais = 0;
+
+		do
+		{
+			tuile.preparer(configuration, this.rendu);
+			g.drawImage(tuile.surface, tuile.zone.x, tuile.zone.y, null);
+			essais++;
+		}
+		while (tuile.surface.contentsLost() && essais < ESSAIS);
+	}
+
+	/**
+	 * Une tuile du panneau et sa copie au format de l'écran.
+	 */
+	private static final class Tuile
+	{
+		/** Position et taille de la tuile (coordonnées du panneau) */
+		final Rectangle zone;
+
+		/** La copie (null tant qu'elle n'a pas été créée) */
+		VolatileImage   surface;
+
+		/** Partie à redessiner (coordonnées du panneau), null si à jour */
+		Rectangle       perimee;
+
+		Tuile(Rectangle zone)
+		{
+			this.zone    = zone;
+			this.perimee = new Rectangle(zone);
+		}
+
+		/**
+		 * Ajoute une zone modifiée (sans effet si elle ne touche pas la tuile).
+		 */
+		void perimer(Rectangle modifiee)
+		{
+			Rectangle partie;
+
+			partie = this.zone.intersection(modifiee);
+
+			if (partie.isEmpty())
+				return;
+
+			this.perimee = (this.perimee == null) ? partie : this.perimee.union(partie);
+		}
+
+		/**
+		 * Vérifie la surface (recréée si incompatible, redessinée si
+		 * effacée) et redessine la partie périmée.
+		 */
+		void preparer(GraphicsConfiguration configuration, Rendu rendu)
+		{
+			Graphics2D g;
+			int        etat;
+
+			etat = (this.surface == null) ? VolatileImage.IMAGE_INCOMPATIBLE : this.surface.validate(configuration);
+
+			if (etat == VolatileImage.IMAGE_INCOMPATIBLE)
+			{
+				this.liberer();
+				this.surface = configuration.createCompatibleVolatileImage(
+					this.zone.width, this.zone.height, Transparency.OPAQUE
+				);
+			}
+
+			if (etat != VolatileImage.IMAGE_OK)
+				this.perimee = new Rectangle(this.zone);
+
+			if (this.perimee == null)
+				return;
+
+			g = this.surface.createGraphics();
+			g.translate(-this.zone.x, -this.zone.y);
+			g.clip(this.perimee);
+			rendu.dessiner(g, this.perimee);
+			g.dispose();
+
+			this.perimee = null;
+		}
+
+		/**
+		 * Libère la mémoire graphique de la tuile.
+		 */
+		void liberer()
+		{
+			if (this.surface != null)
+				this.surface.flush();
+
+			this.surface = null;
+		}
+	}
+}
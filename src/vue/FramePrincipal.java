@@ -6,6 +6,7 @@ import controleur.ControleurImage;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
  * ============================================================================
@@ -67,6 +68,14 @@ public class FramePrincipal extends JFrame
 		scrollPane = new JScrollPane(this.panelImage);
 		scrollPane.setBorder(BorderFactory.createTitledBorder("Image"));
 
+		// Titre du cadre : échelle d'affichage
+		this.panelImage.addPropertyChangeListener(PanelImage.PROPRIETE_ECHELLE, e ->
+		{
+			scrollPane.setBorder(BorderFactory.createTitledBorder(
+				"Image (" + Math.round(100 * this.panelImage.getEchelle()) + " %)"
+			));
+		});
+
 		panelPrincipal.add(scrollPane,       BorderLayout.CENTER);
 		panelPrincipal.add(this.panelStatut, BorderLayout.SOUTH);
 		panelPrincipal.add(this.panelOutils, BorderLayout.EAST);
@@ -87,7 +96,7 @@ public class FramePrincipal extends JFrame
 
 		if (this.controleurImage != null) 
 		{
-			this.menuBarPrincipal = new MenuBarPrincipal(this.controleurFichier, this.controleurImage);
+			this.menuBarPrincipal = new MenuBarPrincipal(this.controleurFichier, this.controleurImage, this.panelImage);
 			this.setJMenuBar(this.menuBarPrincipal);
 		}
 	}
@@ -104,12 +113,13 @@ public class FramePrincipal extends JFrame
 		this.panelImage.setControleurImage(controleur);
 		this.panelOutils.setControleurImage(controleur);
 		this.panelOutils.setFramePrincipal(this);
+		this.panelStatut.setControleurImage(controleur);
 
 		this.panelOutils.initialiser();
 
 		if (this.controleurFichier != null) 
 		{
-			this.menuBarPrincipal = new MenuBarPrincipal(this.controleurFichier, this.controleurImage);
+			this.menuBarPrincipal = new MenuBarPrincipal(this.controleurFichier, this.controleurImage, this.panelImage);
 			setJMenuBar(this.menuBarPrincipal);
 		}
 	}
@@ -124,6 +134,52 @@ public class FramePrincipal extends JFrame
 		this.panelImage.setImage(image);
 	}
 
+	/**
+	 * Redessine les zones modifiées d'une image de mêmes dimensions.
+	 * 
+	 * @param image L'image à afficher
+	 * @param zones Les zones modifiées (coordonnées de l'image)
+	 */
+	public void rafraichirImage(BufferedImage image, List<Rectangle> zones) 
+	{
+		this.panelImage.rafraichirZones(image, zones);
+	}
+
+	/**
+	 * @return La partie de l'image visible à l'écran (coordonnées de l'image)
+	 */
+	public Rectangle getZoneVisible() 
+	{
+		return this.panelImage.getZoneVisible();
+	}
+
+	/**
+	 * @return L'échelle d'affichage de l'image (1 : taille réelle)
+	 */
+	public double getEchelle() 
+	{
+		return this.panelImage.getEchelle();
+	}
+
+	/**
+	 * Affiche un aperçu par-dessus une zone de l'image, sans la modifier.
+	 * 
+	 * @param apercu L'aperçu à dessiner
+	 * @param zone   La zone de l'image qu'il recouvre
+	 */
+	public void afficherApercu(BufferedImage apercu, Rectangle zone) 
+	{
+		this.panelImage.afficherApercu(apercu, zone);
+	}
+
+	/**
+	 * Retire l'aperçu éventuel.
+	 */
+	public void effacerApercu() 
+	{
+		this.panelImage.effacerApercu();
+	}
+
 	/**
 	 * Met à jour le message de la barre de statut.
 	 * 
@@ -134,6 +190,26 @@ public class FramePrincipal extends JFrame
 		this.panelStatut.mettreAJourStatut(message);
 	}
 
+	/**
+	 * Affiche la progression du traitement en cours dans la barre de statut.
+	 * 
+	 * @param message     Le message à afficher
+	 * @param pourcentage La progression (0 à 100), ou -1 si elle est inconnue
+	 * @param annulable   true si le traitement peut être annulé
+	 */
+	public void afficherProgression(String message, int pourcentage, boolean annulable) 
+	{
+		this.panelStatut.afficherProgression(message, pourcentage, annulable);
+	}
+
+	/**
+	 * Masque la progression (fin du traitement).
+	 */
+	public void masquerProgression() 
+	{
+		this.panelStatut.masquerProgression();
+	}
+
 	/**
 	 * Affiche un message d'erreur dans une boîte de dialogue.
 	 * 
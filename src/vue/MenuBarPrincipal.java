@@ -4,6 +4,8 @@ import controleur.ControleurFichier;
 import controleur.ControleurImage;
 
 import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 /**
  * ============================================================================
@@ -23,17 +25,20 @@ public class MenuBarPrincipal extends JMenuBar
 
 	private ControleurFichier controleurFichier;
 	private ControleurImage   controleurImage;
+	private PanelImage        panelImage;
 
 	/**
 	 * Construit la barre de menu avec les contrôleurs nécessaires.
 	 * 
 	 * @param controleurFichier Le contrôleur de gestion des fichiers
 	 * @param controleurImage   Le contrôleur de traitement d'images
+	 * @param panelImage        Le panneau d'image (menu Affichage)
 	 */
-	public MenuBarPrincipal(ControleurFichier controleurFichier, ControleurImage controleurImage) 
+	public MenuBarPrincipal(ControleurFichier controleurFichier, ControleurImage controleurImage, PanelImage panelImage) 
 	{
 		this.controleurFichier = controleurFichier;
 		this.controleurImage   = controleurImage;
+		this.panelImage        = panelImage;
 
 		this.creerMenus();
 	}
@@ -41,6 +46,8 @@ public class MenuBarPrincipal extends JMenuBar
 	private void creerMenus() 
 	{
 		this.add(this.creerMenuFichier());
+		this.add(this.creerMenuEdition());
+		this.add(this.creerMenuAffichage());
 		this.add(this.creerMenuFusion ());
 	}
 
@@ -82,6 +89,69 @@ public class MenuBarPrincipal extends JMenuBar
 		return menuFichier;
 	}
 
+	/**
+	 * Crée le menu Édition (annuler / rétablir).
+	 * 
+	 * @return Le menu Édition
+	 */
+	private JMenu creerMenuEdition() 
+	{
+		JMenu     menuEdition;
+		JMenuItem itemAnnuler, itemRetablir;
+
+		menuEdition = new JMenu("Édition");
+
+		itemAnnuler = new JMenuItem("Annuler");
+		itemAnnuler.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+		itemAnnuler.addActionListener(e -> controleurImage.annulerModification());
+
+		itemRetablir = new JMenuItem("Rétablir");
+		itemRetablir.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+		itemRetablir.addActionListener(e -> controleurImage.retablirModification());
+
+		menuEdition.add(itemAnnuler);
+		menuEdition.add(itemRetablir);
+
+		return menuEdition;
+	}
+
+	/**
+	 * Crée le menu Affichage (zoom).
+	 * Le zoom ne change que l'affichage : il ne passe pas par les contrôleurs.
+	 * 
+	 * @return Le menu Affichage
+	 */
+	private JMenu creerMenuAffichage() 
+	{
+		JMenu     menuAffichage;
+		JMenuItem itemZoomAvant, itemZoomArriere, itemTailleReelle, itemAjuster;
+
+		menuAffichage = new JMenu("Affichage");
+
+		itemZoomAvant = new JMenuItem("Zoom avant");
+		itemZoomAvant.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_ADD, InputEvent.CTRL_DOWN_MASK));
+		itemZoomAvant.addActionListener(e -> panelImage.zoomerAvant());
+
+		itemZoomArriere = new JMenuItem("Zoom arrière");
+		itemZoomArriere.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, InputEvent.CTRL_DOWN_MASK));
+		itemZoomArriere.addActionListener(e -> panelImage.zoomerArriere());
+
+		itemTailleReelle = new JMenuItem("Taille réelle");
+		itemTailleReelle.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD0, InputEvent.CTRL_DOWN_MASK));
+		itemTailleReelle.addActionListener(e -> panelImage.afficherTailleReelle());
+
+		itemAjuster = new JMenuItem("Ajuster à la fenêtre");
+		itemAjuster.addActionListener(e -> panelImage.ajusterAFenetre());
+
+		menuAffichage.add(itemZoomAvant);
+		menuAffichage.add(itemZoomArriere);
+		menuAffichage.addSeparator();
+		menuAffichage.add(itemTailleReelle);
+		menuAffichage.add(itemAjuster);
+
+		return menuAffichage;
+	}
+
 	/**
 	 * Crée le menu Fusion (avec sous-menu Transformations).
 	 * 
@@ -124,7 +194,8 @@ public class MenuBarPrincipal extends JMenuBar
 	private JMenu creerMenuTransformations() 
 	{
 		JMenu menuTransform;
-		JMenuItem itemRotDroite, itemRotGauche, itemLuminosite, itemContraste, itemTeinte, itemGris, itemNegatif;
+		JMenuItem itemRotDroite, itemRotGauche, itemRot180, itemMiroirH, itemMiroirV;
+		JMenuItem itemLuminosite, itemContraste, itemTeinte, itemGris, itemNegatif;
 
 		menuTransform = new JMenu("Transformations");
 
@@ -134,6 +205,15 @@ public class MenuBarPrincipal extends JMenuBar
 		itemRotGauche = new JMenuItem("Rotation 90° gauche");
 		itemRotGauche.addActionListener(e -> controleurImage.appliquerRotation(-90));
 
+		itemRot180 = new JMenuItem("Rotation 180°");
+		itemRot180.addActionListener(e -> controleurImage.appliquerRotation(180));
+
+		itemMiroirH = new JMenuItem("Miroir horizontal");
+		itemMiroirH.addActionListener(e -> controleurImage.appliquerMiroirHorizontal());
+
+		itemMiroirV = new JMenuItem("Miroir vertical");
+		itemMiroirV.addActionListener(e -> controleurImage.appliquerMiroirVertical());
+
 		itemLuminosite = new JMenuItem("Ajuster luminosité...");
 		itemLuminosite.addActionListener(e -> controleurImage.ajusterLuminosite());
 
@@ -151,6 +231,9 @@ public class MenuBarPrincipal extends JMenuBar
 
 		menuTransform.add(itemRotDroite);
 		menuTransform.add(itemRotGauche);
+		menuTransform.add(itemRot180);
+		menuTransform.add(itemMiroirH);
+		menuTransform.add(itemMiroirV);
 		menuTransform.addSeparator();
 		menuTransform.add(itemLuminosite);
 		menuTransform.add(itemContraste);
@@ -6,7 +6,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
  * ============================================================================
@@ -17,32 +20,119 @@ import java.awt.image.BufferedImage;
  * des clics souris pour les outils interactifs (pot de peinture).
  * 
  * RESPONSABILITÉS :
- * - Afficher l'image principale
- * - Gérer les clics souris sur l'image
- * - Adapter la taille du panneau à l'image
+ * - Afficher l'image principale, zoomée (ZOOM_MIN à ZOOM_MAX)
+ * - Gérer les clics souris sur l'image (convertis en coordonnées de l'image)
+ * - Adapter la taille du panneau à l'image zoomée
+ * - Ne redessiner que les zones modifiées quand les dimensions n'ont pas
+ *   changé (pas de nouvelle mise en page)
+ * - Superposer un aperçu temporaire sur la partie visible de l'image
+ * 
+ * ZOOM ET DÉPLACEMENT :
+ * - Ctrl + molette : zoom centré sur le pointeur (le pixel sous le pointeur
+ *   ne bouge pas) ; la molette seule fait défiler comme avant
+ * - Glisser avec la souris : déplace la vue
+ * - Menu Affichage : zoom avant / arrière, taille réelle, ajuster
+ * Le panneau prend la taille de l'image zoomée : les barres de défilement
+ * du JScrollPane restent exactes. Un changement d'échelle est signalé par
+ * la propriété PROPRIETE_ECHELLE.
+ * 
+ * DESSIN :
+ * Seule la zone à repeindre (clip) est dessinée, à partir du niveau de
+ * PyramideImage le mieux adapté à l'échelle :
+ * - Zoom avant ou taille réelle : l'image, pixels agrandis sans lissage
+ * - Zoom arrière : un niveau réduit de moitié en moitié, puis une
+ *   réduction bilinéaire d'un facteur compris entre 1/2 et 1
+ * Le coût du dessin ne dépend donc que de la taille de la fenêtre.
+ * 
+ * CACHE D'AFFICHAGE :
+ * Le résultat de ce dessin (fond compris) est gardé par CacheAffichage,
+ * en tuiles au format de l'écran : un défilement ou un aperçu en direct
+ * ne fait plus que copier des tuiles. Les zones modifiées sont marquées
+ * dans le cache ; une nouvelle image ou une nouvelle échelle le vide.
+ * 
+ * APERÇU :
+ * Pendant le réglage d'un curseur, le contrôleur calcule le résultat sur
+ * la seule zone visible (réduite à l'échelle d'affichage) et le confie au
+ * panneau, qui le dessine par-dessus l'image, étiré sur cette zone. L'image
+ * elle-même n'est pas modifiée ; l'aperçu disparaît dès qu'une nouvelle
+ * image est affichée ou que effacerApercu() est appelé.
  * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class PanelImage extends JPanel 
 {
 
+	/** Échelles minimale et maximale */
+	public static final double ZOOM_MIN = 1.0 / 64;
+	public static final double ZOOM_MAX = 32;
+
+	/** Facteur d'un pas de zoom (menu, cran de molette) */
+	public static final double FACTEUR_ZOOM = 1.25;
+
+	/** Propriété signalée à chaque changement d'échelle */
+	public static final String PROPRIETE_ECHELLE = "echelle";
+
+	/**
+	 * Décalage infime de l'image à l'écran : aux échelles où le centre d'un
+	 * pixel du panneau tombe pile sur le bord d'un pixel de l'image, il
+	 * tranche toujours du même côté, quelle que soit la zone redessinée
+	 */
+	private static final double DECALAGE = 1.0 / 1024;
+
 	private BufferedImage   image;
+	private PyramideImage   pyramide;
+	private CacheAffichage  cache;
 	private ControleurImage controleurImage;
 
+	/** Échelle d'affichage (1 : taille réelle) */
+	private double          echelle;
+
+	/** Aperçu dessiné par-dessus l'image (null si aucun) */
+	private BufferedImage   apercu;
+	private Rectangle       zoneApercu;
+
+	/** Position du pointeur au dernier glisser (coordonnées de l'écran), null hors glisser */
+	private Point           origineGlisser;
+
 	public PanelImage() 
 	{
+		MouseAdapter souris;
+
 		this.setBackground(new Color(200, 200, 200));
+		this.echelle = 1.0;
+		this.cache   = new CacheAffichage(this::dessinerZone);
 
-		this.addMouseListener(new MouseAdapter() 
+		souris = new MouseAdapter()
 		{
 			@Override
 			public void mouseClicked(MouseEvent e) {
-				if (PanelImage.this.controleurImage != null && PanelImage.this.image != null) 
-				{
-					PanelImage.this.controleurImage.appliquerPotPeinture(e.getX(), e.getY());
-				}
+				PanelImage.this.cliquer(e.getPoint());
+			}
+
+			@Override
+			public void mousePressed(MouseEvent e) {
+				PanelImage.this.origineGlisser = e.getLocationOnScreen();
+			}
+
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				PanelImage.this.glisser(e.getLocationOnScreen());
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				PanelImage.this.origineGlisser = null;
 			}
-		});
+
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				PanelImage.this.tournerMolette(e);
+			}
+		};
+
+		this.addMouseListener(souris);
+		this.addMouseMotionListener(souris);
+		this.addMouseWheelListener(souris);
 	}
 
 	/**
@@ -56,28 +146,401 @@ public class PanelImage extends JPanel
 	}
 
 	/**
-	 * Définit l'image à afficher.
+	 * Définit l'image à afficher (l'échelle est conservée).
 	 * 
 	 * @param image L'image à afficher
 	 */
 	public void setImage(BufferedImage image) 
 	{
+		this.image    = image;
+		this.pyramide = (image != null) ? new PyramideImage(image) : null;
+		this.apercu   = null;
+
+		this.cache.vider();
+		this.ajusterTaille();
+		this.repaint();
+	}
+
+	/**
+	 * Remplace l'image par une image de mêmes dimensions dont seules
+	 * certaines zones ont changé : pas de nouvelle mise en page, et seules
+	 * ces zones sont redessinées (Swing regroupe les demandes en une). Les
+	 * niveaux réduits déjà construits ne recalculent que ces zones.
+	 * 
+	 * @param image L'image à afficher (mêmes dimensions que la précédente)
+	 * @param zones Les zones modifiées, en coordonnées de l'image
+	 */
+	public void rafraichirZones(BufferedImage image, List<Rectangle> zones) 
+	{
+		Rectangle ecran;
+
 		this.image = image;
-		if (image != null) 
+		this.pyramide.mettreAJour(image, zones);
+		this.effacerApercu();
+
+		for (Rectangle zone : zones) 
 		{
-		   this.setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+			ecran = this.versEcran(zone, 1);
+
+			this.cache.invalider(ecran);
+			this.repaint(ecran);
 		}
-		this.revalidate();
-		this.repaint();
 	}
 
 	@Override
 	protected void paintComponent(Graphics g) 
 	{
+		Rectangle zone;
+
 		super.paintComponent(g);
 		if (this.image != null) 
 		{
-			g.drawImage(this.image, 0, 0, null);
+			zone = g.getClipBounds();
+
+			if (zone == null)
+				zone = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+
+			if (this.cache.estActif())
+				this.cache.dessiner((Graphics2D) g, zone, this.getWidth(), this.getHeight());
+			else
+				this.dessinerImage((Graphics2D) g, zone);
+		}
+		if (this.apercu != null) 
+		{
+			this.dessinerApercu(g);
+		}
+	}
+
+	/**
+	 * Dessine une zone du panneau (fond et image) : rendu gardé en cache
+	 * par CacheAffichage.
+	 */
+	private void dessinerZone(Graphics2D g, Rectangle zone)
+	{
+		g.setColor(this.getBackground());
+		g.fillRect(zone.x, zone.y, zone.width, zone.height);
+
+		this.dessinerImage(g, zone);
+	}
+
+	/**
+	 * Dessine la partie de l'image comprise dans une zone du panneau.
+	 * 
+	 * ALGORITHME :
+	 * 1. Choisir le niveau de la pyramide (le plus petit qui reste au moins
+	 *    aussi fin que l'écran)
+	 * 2. Dessiner ce niveau étiré à l'échelle, limité à la zone : Java2D ne
+	 *    parcourt que les pixels du niveau qui tombent dans la zone
+	 * La transformation est la même pour toutes les zones (aucun arrondi
+	 * propre à la zone) : chaque pixel du panneau reçoit la même couleur
+	 * quelle que soit la zone redessinée, sans couture entre zones ni entre
+	 * tuiles du cache.
+	 */
+	private void dessinerImage(Graphics2D g, Rectangle zone)
+	{
+		BufferedImage niveau;
+		Object        interpolation;
+		double        facteur;
+		int           numero;
+
+		numero  = this.pyramide.choisirNiveau(this.echelle);
+		niveau  = this.pyramide.getNiveau(numero);
+		facteur = this.echelle * (1 << numero);
+
+		interpolation = (facteur < 1)
+			? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+			: RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		g.clipRect(zone.x, zone.y, zone.width, zone.height);
+		g.drawImage(niveau, new AffineTransform(facteur, 0, 0, facteur, DECALAGE, DECALAGE), null);
+	}
+
+	private void dessinerApercu(Graphics g)
+	{
+		Rectangle ecran;
+
+		ecran = this.versEcran(this.zoneApercu, 0);
+
+		g.drawImage(this.apercu, ecran.x, ecran.y, ecran.width, ecran.height, null);
+	}
+
+	/**
+	 * @return La partie de l'image visible à l'écran, en coordonnées de l'image
+	 *         (rectangle vide si aucune image)
+	 */
+	public Rectangle getZoneVisible() 
+	{
+		Rectangle visible;
+		int       x0, y0, x1, y1;
+
+		if (this.image == null)
+			return new Rectangle();
+
+		visible = this.getVisibleRect();
+
+		x0 = (int) Math.floor(visible.x / this.echelle);
+		y0 = (int) Math.floor(visible.y / this.echelle);
+		x1 = (int) Math.ceil((visible.x + visible.width)  / this.echelle);
+		y1 = (int) Math.ceil((visible.y + visible.height) / this.echelle);
+
+		return new Rectangle(x0, y0, x1 - x0, y1 - y0).intersection(
+			new Rectangle(0, 0, this.image.getWidth(), this.image.getHeight())
+		);
+	}
+
+	/**
+	 * @return L'échelle d'affichage (1 : taille réelle)
+	 */
+	public double getEchelle()
+	{
+		return this.echelle;
+	}
+
+	/**
+	 * Affiche un aperçu par-dessus l'image.
+	 * 
+	 * @param apercu L'aperçu à dessiner
+	 * @param zone   La zone de l'image qu'il recouvre (il est étiré à sa taille)
+	 */
+	public void afficherApercu(BufferedImage apercu, Rectangle zone) 
+	{
+		this.apercu     = apercu;
+		this.zoneApercu = new Rectangle(zone);
+		this.repaint(this.versEcran(this.zoneApercu, 1));
+	}
+
+	/**
+	 * Retire l'aperçu : l'image est de nouveau affichée telle quelle.
+	 */
+	public void effacerApercu() 
+	{
+		if (this.apercu == null)
+			return;
+
+		this.apercu = null;
+		this.repaint(this.versEcran(this.zoneApercu, 1));
+	}
+
+	/**
+	 * Change l'échelle en gardant immobile un point du panneau.
+	 * 
+	 * ALGORITHME :
+	 * 1. Retenir le pixel de l'image sous le point fixe, et la position de
+	 *    ce point dans la partie visible
+	 * 2. Changer l'échelle et la taille du panneau
+	 * 3. Faire défiler pour que ce pixel revienne à la même position
+	 * 
+	 * @param echelle La nouvelle échelle (ramenée entre ZOOM_MIN et ZOOM_MAX)
+	 * @param fixe    Le point du panneau qui ne bouge pas (null : centre de la partie visible)
+	 */
+	public void zoomer(double echelle, Point fixe)
+	{
+		JViewport fenetre;
+		Rectangle visible;
+		Point     position;
+		double    ancienne, x, y;
+
+		echelle = Math.max(ZOOM_MIN, Math.min(ZOOM_MAX, echelle));
+
+		if (this.image == null || echelle == this.echelle)
+			return;
+
+		visible = this.getVisibleRect();
+
+		if (fixe == null)
+			fixe = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+
+		ancienne     = this.echelle;
+		x            = fixe.x / ancienne;
+		y            = fixe.y / ancienne;
+		this.echelle = echelle;
+
+		this.cache.vider();
+		this.ajusterTaille();
+
+		fenetre = this.getFenetre();
+
+		if (fenetre != null)
+		{
+			position = new Point(
+				(int) Math.round(x * echelle) - (fixe.x - visible.x),
+				(int) Math.round(y * echelle) - (fixe.y - visible.y)
+			);
+
+			fenetre.setViewPosition(this.limiter(position, fenetre));
+		}
+
+		this.repaint();
+		this.firePropertyChange(PROPRIETE_ECHELLE, ancienne, echelle);
+	}
+
+	/**
+	 * Zoom avant d'un pas (centre de la partie visible).
+	 */
+	public void zoomerAvant()
+	{
+		this.zoomer(this.echelle * FACTEUR_ZOOM, null);
+	}
+
+	/**
+	 * Zoom arrière d'un pas (centre de la partie visible).
+	 */
+	public void zoomerArriere()
+	{
+		this.zoomer(this.echelle / FACTEUR_ZOOM, null);
+	}
+
+	/**
+	 * Affiche l'image à sa taille réelle (un pixel de l'image par pixel d'écran).
+	 */
+	public void afficherTailleReelle()
+	{
+		this.zoomer(1.0, null);
+	}
+
+	/**
+	 * Choisit l'échelle pour que toute l'image tienne dans la partie visible
+	 * (sans agrandir une image plus petite).
+	 */
+	public void ajusterAFenetre()
+	{
+		JViewport fenetre;
+		Dimension place;
+
+		fenetre = this.getFenetre();
+
+		if (this.image == null || fenetre == null)
+			return;
+
+		place = fenetre.getExtentSize();
+
+		this.zoomer(Math.min(1.0, Math.min(
+			(double) place.width  / this.image.getWidth(),
+			(double) place.height / this.image.getHeight()
+		)), null);
+	}
+
+	/**
+	 * Pot de peinture au pixel de l'image sous le pointeur.
+	 */
+	private void cliquer(Point point)
+	{
+		int x, y;
+
+		if (this.controleurImage == null || this.image == null)
+			return;
+
+		x = (int) Math.floor(point.x / this.echelle);
+		y = (int) Math.floor(point.y / this.echelle);
+
+		if (x < this.image.getWidth() && y < this.image.getHeight())
+		{
+			this.controleurImage.appliquerPotPeinture(x, y);
+		}
+	}
+
+	/**
+	 * Déplace la vue du mouvement du pointeur depuis le dernier glisser.
+	 */
+	private void glisser(Point pointeur)
+	{
+		JViewport fenetre;
+		Point     position;
+
+		fenetre = this.getFenetre();
+
+		if (fenetre == null || this.origineGlisser == null)
+			return;
+
+		position = fenetre.getViewPosition();
+		position.translate(this.origineGlisser.x - pointeur.x, this.origineGlisser.y - pointeur.y);
+
+		fenetre.setViewPosition(this.limiter(position, fenetre));
+		this.origineGlisser = pointeur;
+	}
+
+	/**
+	 * Ctrl + molette : zoom sous le pointeur ; molette seule : défilement
+	 * (l'événement est rendu au JScrollPane).
+	 */
+	private void tournerMolette(MouseWheelEvent e)
+	{
+		Container parent;
+
+		if (e.isControlDown())
+		{
+			this.zoomer(this.echelle * Math.pow(FACTEUR_ZOOM, -e.getPreciseWheelRotation()), e.getPoint());
+			return;
+		}
+
+		parent = this.getParent();
+
+		if (parent != null)
+			parent.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, parent));
+	}
+
+	/**
+	 * Donne au panneau la taille de l'image zoomée.
+	 * La taille est appliquée tout de suite (et pas seulement à la prochaine
+	 * mise en page) pour pouvoir faire défiler la vue aussitôt.
+	 */
+	private void ajusterTaille()
+	{
+		Dimension taille;
+
+		if (this.image != null) 
+		{
+			taille = new Dimension(
+				Math.max(1, (int) Math.ceil(this.image.getWidth()  * this.echelle)),
+				Math.max(1, (int) Math.ceil(this.image.getHeight() * this.echelle))
+			);
+
+			this.setPreferredSize(taille);
+			this.setSize(taille);
 		}
+		this.revalidate();
+	}
+
+	/**
+	 * Convertit une zone de l'image en zone du panneau (arrondie vers
+	 * l'extérieur).
+	 *
+	 * @param marge Pixels ajoutés de chaque côté (1 pour couvrir le lissage
+	 *              d'une zone à repeindre, 0 pour dessiner exactement)
+	 */
+	private Rectangle versEcran(Rectangle zone, int marge)
+	{
+		int x0, y0, x1, y1;
+
+		x0 = (int) Math.floor(zone.x * this.echelle) - marge;
+		y0 = (int) Math.floor(zone.y * this.echelle) - marge;
+		x1 = (int) Math.ceil((zone.x + zone.width)  * this.echelle) + marge;
+		y1 = (int) Math.ceil((zone.y + zone.height) * this.echelle) + marge;
+
+		return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+	}
+
+	/**
+	 * Ramène une position de défilement dans les limites du panneau.
+	 */
+	private Point limiter(Point position, JViewport fenetre)
+	{
+		Dimension place;
+
+		place = fenetre.getExtentSize();
+
+		return new Point(
+			Math.max(0, Math.min(position.x, this.getWidth()  - place.width)),
+			Math.max(0, Math.min(position.y, this.getHeight() - place.height))
+		);
+	}
+
+	/**
+	 * @return La fenêtre de défilement qui contient le panneau (null si aucune)
+	 */
+	private JViewport getFenetre()
+	{
+		return (this.getParent() instanceof JViewport) ? (JViewport) this.getParent() : null;
 	}
 }
@@ -103,7 +103,17 @@ public class PanelOutils extends JPanel
 			if (controleurFichier != null)
 				controleurFichier.sauvegarderImage();
 		});
-		ajouterBouton(sectionFichiers, "Annuler (Restaurer)", e -> 
+		ajouterBouton(sectionFichiers, "Annuler", e -> 
+		{
+			if (controleurImage != null)
+				controleurImage.annulerModification();
+		});
+		ajouterBouton(sectionFichiers, "Rétablir", e -> 
+		{
+			if (controleurImage != null)
+				controleurImage.retablirModification();
+		});
+		ajouterBouton(sectionFichiers, "Restaurer l'originale", e -> 
 		{
 			if (controleurFichier != null)
 				controleurFichier.restaurerOriginale();
@@ -147,6 +157,21 @@ public class PanelOutils extends JPanel
 			if (controleurImage != null)
 				controleurImage.appliquerRotation(-90);
 		});
+		ajouterBouton(sectionTransform, "Rotation 180", e -> 
+		{
+			if (controleurImage != null)
+				controleurImage.appliquerRotation(180);
+		});
+		ajouterBouton(sectionTransform, "Miroir Horizontal", e -> 
+		{
+			if (controleurImage != null)
+				controleurImage.appliquerMiroirHorizontal();
+		});
+		ajouterBouton(sectionTransform, "Miroir Vertical", e -> 
+		{
+			if (controleurImage != null)
+				controleurImage.appliquerMiroirVertical();
+		});
 		ajouterBouton(sectionTransform, "Luminosite", e -> 
 		{
 			if (controleurImage != null)
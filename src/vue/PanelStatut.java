@@ -1,5 +1,7 @@
 package vue;
 
+import controleur.ControleurImage;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -14,12 +16,18 @@ import java.awt.*;
  * RESPONSABILITÉS :
  * - Afficher les messages d'état
  * - Fournir un retour visuel à l'utilisateur
+ * - Afficher la progression du traitement en cours et permettre de l'annuler
  * 
  * @author Équipe 6 - BUT 3 Informatique
  */
 public class PanelStatut extends JPanel 
 {
-	private JLabel labelStatut;
+	private JLabel       labelStatut;
+	private JPanel       panelProgression;
+	private JProgressBar barreProgression;
+	private JButton      boutonInterrompre;
+
+	private ControleurImage controleurImage;
 
 	public PanelStatut() 
 	{
@@ -28,8 +36,33 @@ public class PanelStatut extends JPanel
 		this.labelStatut = new JLabel("En attente de chargement d'image...");
 		this.labelStatut.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
 
-		this.add(this.labelStatut, BorderLayout.CENTER);
+		this.barreProgression = new JProgressBar(0, 100);
+		this.barreProgression.setStringPainted(true);
+
+		this.boutonInterrompre = new JButton("Interrompre");
+		this.boutonInterrompre.addActionListener(e ->
+		{
+			if (this.controleurImage != null)
+				this.controleurImage.interrompreTraitement();
+		});
+
+		this.panelProgression = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+		this.panelProgression.add(this.barreProgression);
+		this.panelProgression.add(this.boutonInterrompre);
+		this.panelProgression.setVisible(false);
+
+		this.add(this.labelStatut,      BorderLayout.CENTER);
+		this.add(this.panelProgression, BorderLayout.EAST);
+	}
 
+	/**
+	 * Définit le contrôleur d'image (bouton Interrompre).
+	 * 
+	 * @param controleur Le contrôleur d'image
+	 */
+	public void setControleurImage(ControleurImage controleur)
+	{
+		this.controleurImage = controleur;
 	}
 
 	/**
@@ -41,4 +74,41 @@ public class PanelStatut extends JPanel
 	{
 		this.labelStatut.setText(message);
 	}
+
+	/**
+	 * Affiche la progression du traitement en cours.
+	 * 
+	 * @param message     Le message à afficher
+	 * @param pourcentage La progression (0 à 100), ou -1 si elle est inconnue
+	 * @param annulable   true pour activer le bouton Interrompre
+	 */
+	public void afficherProgression(String message, int pourcentage, boolean annulable)
+	{
+		this.labelStatut.setText(message);
+
+		if (pourcentage < 0)
+		{
+			this.barreProgression.setIndeterminate(true);
+			this.barreProgression.setString("");
+		}
+		else
+		{
+			this.barreProgression.setIndeterminate(false);
+			this.barreProgression.setValue(pourcentage);
+			this.barreProgression.setString(pourcentage + " %");
+		}
+
+		this.boutonInterrompre.setEnabled(annulable);
+		this.panelProgression.setVisible(true);
+	}
+
+	/**
+	 * Masque la barre de progression (fin du traitement).
+	 */
+	public void masquerProgression()
+	{
+		this.panelProgression.setVisible(false);
+		this.barreProgression.setIndeterminate(false);
+		this.barreProgression.setValue(0);
+	}
 }
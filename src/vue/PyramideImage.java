@@ -0,0 +1,234 @@
+package vue;
+
+import modele.AccesRaster;
+import modele.UtilitaireImage;
+import modele.traitement.ExecuteurTuiles;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ============================================================================
+ * PYRAMIDE D'IMAGES RÉDUITES (MIPMAP) POUR L'AFFICHAGE ZOOMÉ
+ * ============================================================================
+ *
+ * Afficher une image de 12000 x 12000 pixels à 1/16 en la réduisant à
+ * chaque dessin oblige Java2D à parcourir ses 144 millions de pixels. La
+ * pyramide garde des copies réduites de moitié en moitié : le panneau
+ * dessine à partir du niveau juste plus grand que l'écran, qui ne compte
+ * que quelques millions de pixels.
+ *
+ * NIVEAUX :
+ * - Niveau 0 : l'image elle-même (aucune copie)
+ * - Niveau k : moitié du niveau k - 1 ; chaque pixel est la moyenne des
+ *   2 x 2 pixels correspondants (composante par composante)
+ * - Dernier niveau : le premier dont le plus grand côté tient dans
+ *   TAILLE_MIN pixels
+ * Ensemble, les niveaux réduits occupent un tiers de l'image.
+ *
+ * CONSTRUCTION PARESSEUSE :
+ * Un niveau n'est calculé que la première fois qu'on le demande (premier
+ * zoom arrière), à partir du niveau précédent : une image affichée à 100 %
+ * ne coûte aucune mémoire en plus.
+ *
+ * MISE À JOUR PAR ZONES :
+ * Quand seules quelques zones de l'image changent (voir EvenementModele),
+ * elles sont notées sur chaque niveau déjà construit, ramenées à son
+ * échelle. À la prochaine demande d'un niveau, seules ces zones sont
+ * recalculées, du niveau 1 vers le niveau demandé.
+ *
+ * Toutes les méthodes sont appelées sur l'EDT.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class PyramideImage
+{
+
+	/** Plus grand côté du dernier niveau */
+	static final int TAILLE_MIN = 64;
+
+	/** Les niveaux construits (l'indice 0 est l'image) */
+	private final List<BufferedImage> niveaux;
+
+	/** Zones à recalculer de chaque niveau construit (coordonnées du niveau) */
+	private final List<List<Rectangle>> zonesPerimees;
+
+	/** Nombre total de niveaux possibles */
+	private final int nombreNiveaux;
+
+	/**
+	 * @param image L'image (niveau 0)
+	 */
+	PyramideImage(BufferedImage image)
+	{
+		int cote;
+
+		this.niveaux       = new ArrayList<>();
+		this.zonesPerimees = new ArrayList<>();
+
+		this.niveaux.add(image);
+		this.zonesPerimees.add(new ArrayList<>());
+
+		cote               = Math.max(image.getWidth(), image.getHeight());
+		this.nombreNiveaux = 1 + Math.max(0, 32 - Integer.numberOfLeadingZeros((cote - 1) / TAILLE_MIN));
+	}
+
+	/**
+	 * @return Le nombre de niveaux (le dernier tient dans TAILLE_MIN pixels)
+	 */
+	int getNombreNiveaux() { return this.nombreNiveaux; }
+
+	/**
+	 * Choisit le niveau à dessiner pour une échelle d'affichage : le plus
+	 * petit dont la résolution reste au moins celle de l'écran.
+	 *
+	 * @param echelle L'échelle d'affichage (1 : taille réelle)
+	 * @return Le numéro du niveau
+	 */
+	int choisirNiveau(double echelle)
+	{
+		int niveau;
+
+		niveau = 0;
+
+		while (niveau + 1 < this.nombreNiveaux && echelle <= 1.0 / (2 << niveau))
+			niveau++;
+
+		return niveau;
+	}
+
+	/**
+	 * Retourne un niveau, construit ou mis à jour si besoin.
+	 *
+	 * @param niveau Le numéro du niveau (0 : l'image)
+	 * @return L'image réduite 2^niveau fois
+	 */
+	BufferedImage getNiveau(int niveau)
+	{
+		BufferedImage source, reduite;
+
+		for (int k = 1; k <= niveau; k++)
+		{
+			source = this.niveaux.get(k - 1);
+
+			if (k == this.niveaux.size())
+			{
+				reduite = UtilitaireImage.creerImageVide(
+					Math.max(1, (source.getWidth()  + 1) / 2),
+					Math.max(1, (source.getHeight() + 1) / 2)
+				);
+
+				PyramideImage.reduire(source, reduite, new Rectangle(0, 0, reduite.getWidth(), reduite.getHeight()));
+
+				this.niveaux.add(reduite);
+				this.zonesPerimees.add(new ArrayList<>());
+			}
+			else
+			{
+				for (Rectangle zone : this.zonesPerimees.get(k))
+					PyramideImage.reduire(source, this.niveaux.get(k), zone);
+
+				this.zonesPerimees.get(k).clear();
+			}
+		}
+
+		return this.niveaux.get(niveau);
+	}
+
+	/**
+	 * Remplace l'image (mêmes dimensions) dont seules quelques zones ont
+	 * changé : ces zones sont notées sur les niveaux déjà construits.
+	 *
+	 * @param image L'image modifiée
+	 * @param zones Les zones modifiées (coordonnées de l'image)
+	 */
+	void mettreAJour(BufferedImage image, List<Rectangle> zones)
+	{
+		BufferedImage niveau;
+		int           x0, y0, x1, y1;
+
+		this.niveaux.set(0, image);
+
+		for (int k = 1; k < this.niveaux.size(); k++)
+		{
+			niveau = this.niveaux.get(k);
+
+			for (Rectangle zone : zones)
+			{
+				x0 = zone.x >> k;
+				y0 = zone.y >> k;
+				x1 = Math.min(niveau.getWidth(),  (zone.x + zone.width  + (1 << k) - 1) >> k);
+				y1 = Math.min(niveau.getHeight(), (zone.y + zone.height + (1 << k) - 1) >> k);
+
+				if (x1 > x0 && y1 > y0)
+					this.zonesPerimees.get(k).add(new Rectangle(x0, y0, x1 - x0, y1 - y0));
+			}
+		}
+	}
+
+	/**
+	 * Recalcule une zone d'un niveau à partir du niveau précédent (en
+	 * parallèle, par lignes).
+	 *
+	 * @param source  Le niveau précédent
+	 * @param reduite Le niveau à recalculer
+	 * @param zone    La zone à recalculer (coordonnées de reduite)
+	 */
+	private static void reduire(BufferedImage source, BufferedImage reduite, Rectangle zone)
+	{
+		int[] pixelsSource, pixelsReduits;
+		int   largeurSource, hauteurSource, largeur;
+
+		pixelsSource  = AccesRaster.lirePixels(source);
+		pixelsReduits = AccesRaster.obtenirPixels(reduite);
+		largeurSource = source.getWidth();
+		hauteurSource = source.getHeight();
+		largeur       = reduite.getWidth();
+
+		ExecuteurTuiles.executerLignes(zone.height, zone.width, (debut, fin) ->
+		{
+			int x, y, xs, ys, xs2, ys2, p00, p01, p10, p11;
+
+			for (int ligne = debut; ligne < fin; ligne++)
+			{
+				y   = zone.y + ligne;
+				ys  = 2 * y;
+				ys2 = Math.min(ys + 1, hauteurSource - 1);
+
+				for (int i = 0; i < zone.width; i++)
+				{
+					x   = zone.x + i;
+					xs  = 2 * x;
+					xs2 = Math.min(xs + 1, largeurSource - 1);
+
+					p00 = pixelsSource[ys  * largeurSource + xs];
+					p01 = pixelsSource[ys  * largeurSource + xs2];
+					p10 = pixelsSource[ys2 * largeurSource + xs];
+					p11 = pixelsSource[ys2 * largeurSource + xs2];
+
+					pixelsReduits[y * largeur + x] = PyramideImage.moyenne(p00, p01, p10, p11);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Moyenne arrondie de quatre couleurs ARGB, composante par composante.
+	 */
+	private static int moyenne(int a, int b, int c, int d)
+	{
+		int resultat;
+
+		resultat = 0;
+
+		for (int decalage = 0; decalage < 32; decalage += 8)
+		{
+			resultat |= ((((a >>> decalage) & 0xFF) + ((b >>> decalage) & 0xFF)
+				+ ((c >>> decalage) & 0xFF) + ((d >>> decalage) & 0xFF) + 2) >> 2) << decalage;
+		}
+
+		return resultat;
+	}
+}
@@ -0,0 +1,135 @@
+package modele;
+
+import modele.traitement.TraitementTransformation;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ============================================================================
+ * HISTORIQUE ET INVOLUTIONS
+ * ============================================================================
+ *
+ * Entre commencerInvolution() et terminerInvolution(), l'historique n'a
+ * plus d'état courant (lacherEtatCourant). Une restauration de l'originale
+ * à ce moment-là faisait repartir l'historique de zéro : toutes les étapes
+ * étaient perdues. Elle est maintenant refusée, comme annuler / rétablir.
+ *
+ * PRINCIPE :
+ * Luminosité (une étape), puis demi-tour sur place. Pendant le demi-tour,
+ * la restauration est demandée : elle ne doit rien changer, et les deux
+ * étapes doivent ensuite s'annuler dans l'ordre.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class TestHistoriqueInvolution
+{
+
+	/** Dimensions de l'image (plusieurs tuiles, dernière colonne incomplète) */
+	private static final int LARGEUR = 300, HAUTEUR = 200;
+
+	private ModeleImage modele;
+
+	private int[] originale, lumineuse;
+
+	@BeforeEach
+	void preparer()
+	{
+		BufferedImage image;
+
+		image = TestHistoriqueInvolution.creerImage();
+
+		this.modele = new ModeleImage();
+		this.modele.definirImagePrincipale(image);
+		this.modele.mettreAJourImagePrincipale(TraitementTransformation.ajusterLuminosite(image, 40));
+
+		this.originale = TestHistoriqueInvolution.pixels(this.modele.getImageOriginale());
+		this.lumineuse = TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale());
+	}
+
+	@Test
+	void restaurationRefuseePendantInvolution()
+	{
+		BufferedImage image, resultat;
+
+		image = this.modele.commencerInvolution();
+
+		assertFalse(this.modele.peutRestaurer());
+		assertFalse(this.modele.peutAnnuler());
+
+		this.modele.restaurerImageOriginale();
+		assertFalse(this.modele.annuler());
+		assertSame(image, this.modele.getImagePrincipale());
+
+		resultat = TraitementTransformation.pivoter180SurPlace(image);
+		this.modele.terminerInvolution(resultat, TraitementTransformation::pivoter180SurPlace);
+
+		assertTrue(this.modele.peutRestaurer());
+		assertTrue(this.modele.peutAnnuler());
+
+		assertTrue(this.modele.annuler());
+		assertArrayEquals(this.lumineuse, TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale()), "demi-tour annulé");
+
+		assertTrue(this.modele.annuler());
+		assertArrayEquals(this.originale, TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale()), "luminosité annulée");
+
+		assertFalse(this.modele.annuler());
+	}
+
+	@Test
+	void restaurationApresInvolution()
+	{
+		BufferedImage image, resultat;
+
+		image    = this.modele.commencerInvolution();
+		resultat = TraitementTransformation.miroirHorizontalSurPlace(image);
+		this.modele.terminerInvolution(resultat, TraitementTransformation::miroirHorizontalSurPlace);
+
+		this.modele.restaurerImageOriginale();
+		assertArrayEquals(this.originale, TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale()), "restaurée");
+
+		assertTrue(this.modele.annuler());
+		assertTrue(this.modele.annuler());
+		assertArrayEquals(this.lumineuse, TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale()), "miroir annulé");
+
+		assertTrue(this.modele.annuler());
+		assertArrayEquals(this.originale, TestHistoriqueInvolution.pixels(this.modele.getImagePrincipale()), "luminosité annulée");
+	}
+
+	/**
+	 * @return Les pixels ARGB de l'image
+	 */
+	private static int[] pixels(BufferedImage image)
+	{
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	/**
+	 * @return Une image de pixels aléatoires, alpha compris
+	 */
+	private static BufferedImage creerImage()
+	{
+		BufferedImage image;
+		Random        hasard;
+		int[]         pixels;
+
+		image  = new BufferedImage(LARGEUR, HAUTEUR, BufferedImage.TYPE_INT_ARGB);
+		hasard = new Random(21);
+		pixels = new int[LARGEUR * HAUTEUR];
+
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = hasard.nextInt();
+
+		image.setRGB(0, 0, LARGEUR, HAUTEUR, pixels, 0, LARGEUR);
+
+		return image;
+	}
+}
@@ -0,0 +1,218 @@
+package modele.traitement;
+
+import modele.UtilitaireImage;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ============================================================================
+ * TRAITEMENTS PIXEL PAR PIXEL SANS ALLOCATION
+ * ============================================================================
+ *
+ * Les boucles de modele et modele.traitement lisent les composantes avec
+ * CanalARGB, directement sur l'int ARGB : elles ne doivent allouer aucun
+ * objet par pixel (plus d'int[4] comme avec extraireComposantes).
+ *
+ * PRINCIPE :
+ * ThreadMXBean.getCurrentThreadAllocatedBytes() compte les octets alloués
+ * par le thread courant. Le traitement est séquentiel, donc entièrement
+ * exécuté par ce thread. Seules les images résultat (4 octets par pixel)
+ * sont permises, plus une marge fixe (MARGE) pour les tableaux et objets
+ * alloués une fois par appel. Sur PIXELS pixels, un seul int[4] par pixel
+ * dépasserait la marge 30 fois. Les noyaux scalaires sont mesurés : les
+ * noyaux vectoriels ont leur propre test (TestNoyauxVectoriels).
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class TestAllocationParPixel
+{
+
+	/** Côté des images de test */
+	private static final int COTE = 1000;
+
+	/** Nombre de pixels des images de test */
+	private static final long PIXELS = (long) COTE * COTE;
+
+	/** Allocations permises en plus des images résultat (octets) */
+	private static final long MARGE = 1 << 20;
+
+	/** Appels faits avant la mesure (chargement des classes, compilation) */
+	private static final int ECHAUFFEMENT = 3;
+
+	private static BufferedImage fond, calque;
+
+	private static int parallelismeInitial;
+
+	private static boolean vectorielInitial;
+
+	@BeforeAll
+	static void preparer()
+	{
+		TestAllocationParPixel.parallelismeInitial = ExecuteurTuiles.getParallelisme();
+		TestAllocationParPixel.vectorielInitial    = NoyauxPixels.estVectoriel();
+
+		ExecuteurTuiles.definirParallelisme(1);
+		NoyauxPixels.utiliserVectoriel(false);
+
+		TestAllocationParPixel.fond   = TestAllocationParPixel.creerImage(1);
+		TestAllocationParPixel.calque = TestAllocationParPixel.creerImage(2);
+	}
+
+	@AfterAll
+	static void restaurer()
+	{
+		ExecuteurTuiles.definirParallelisme(TestAllocationParPixel.parallelismeInitial);
+		NoyauxPixels.utiliserVectoriel(TestAllocationParPixel.vectorielInitial);
+	}
+
+	@Test
+	void luminosite()
+	{
+		this.verifier("luminosité", 1, () -> TraitementTransformation.ajusterLuminosite(TestAllocationParPixel.fond, 40));
+	}
+
+	@Test
+	void contraste()
+	{
+		this.verifier("contraste", 1, () -> TraitementTransformation.ajusterContraste(TestAllocationParPixel.fond, 1.5));
+	}
+
+	@Test
+	void teinte()
+	{
+		this.verifier("teinte", 1, () -> TraitementTransformation.decalerTeinte(TestAllocationParPixel.fond, 120));
+	}
+
+	@Test
+	void niveauxDeGris()
+	{
+		this.verifier("gris", 1, () -> TraitementTransformation.versNiveauxDeGris(TestAllocationParPixel.fond));
+	}
+
+	@Test
+	void negatif()
+	{
+		this.verifier("négatif", 1, () -> TraitementTransformation.inverserCouleurs(TestAllocationParPixel.fond));
+	}
+
+	@Test
+	void superposer()
+	{
+		this.verifier("superposer", 1, () ->
+			TraitementFusion.superposer(TestAllocationParPixel.fond, TestAllocationParPixel.calque, 0, 0)
+		);
+	}
+
+	@Test
+	void superposerAvecAlpha()
+	{
+		this.verifier("superposer avec alpha", 1, () ->
+			TraitementFusion.superposerAvecAlpha(TestAllocationParPixel.fond, TestAllocationParPixel.calque, 0, 0)
+		);
+	}
+
+	@Test
+	void superposerAvecCleTransparence()
+	{
+		this.verifier("clé de transparence", 1, () ->
+			TraitementFusion.superposerAvecCleTransparence(
+				TestAllocationParPixel.fond, TestAllocationParPixel.calque, 0, 0, TraitementFusion.VERT_CHROMA, 80
+			)
+		);
+	}
+
+	@Test
+	void juxtaposer()
+	{
+		// Résultat deux fois plus large
+		this.verifier("juxtaposer", 2, () ->
+			TraitementFusion.juxtaposerHorizontalement(TestAllocationParPixel.fond, TestAllocationParPixel.calque, COTE / 2)
+		);
+	}
+
+	@Test
+	void texteAvecCouleurImage()
+	{
+		// Résultat et masque du texte
+		this.verifier("texte", 2, () ->
+			TraitementTexte.dessinerTexteAvecCouleurImage(
+				TestAllocationParPixel.fond, TestAllocationParPixel.calque, "Équipe 6", 10, COTE / 2, 200
+			)
+		);
+	}
+
+	@Test
+	void distanceCouleur()
+	{
+		int[] pixels;
+
+		pixels = TestAllocationParPixel.fond.getRGB(0, 0, COTE, COTE, null, 0, COTE);
+
+		this.verifier("distance", 0, () ->
+		{
+			double total;
+
+			total = 0;
+
+			for (int i = 1; i < pixels.length; i++)
+				total += UtilitaireImage.distanceCouleur(pixels[i - 1], pixels[i]);
+
+			assertTrue(total > 0);
+		});
+	}
+
+	/**
+	 * Vérifie qu'un traitement n'alloue que ses images résultat.
+	 *
+	 * @param nom        Nom du traitement (message d'erreur)
+	 * @param images     Nombre d'images de PIXELS pixels permises
+	 * @param traitement Le traitement à mesurer
+	 */
+	private void verifier(String nom, int images, Runnable traitement)
+	{
+		com.sun.management.ThreadMXBean threads;
+		long                            avant, octets, permis;
+
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		permis  = images * 4 * PIXELS + MARGE;
+
+		for (int i = 0; i < ECHAUFFEMENT; i++)
+			traitement.run();
+
+		avant  = threads.getCurrentThreadAllocatedBytes();
+		traitement.run();
+		octets = threads.getCurrentThreadAllocatedBytes() - avant;
+
+		assertTrue(octets <= permis,
+			nom + " : " + octets + " octets alloués pour " + PIXELS + " pixels (permis : " + permis + ")");
+	}
+
+	/**
+	 * @return Une image de COTE x COTE pixels aléatoires, alpha compris
+	 */
+	private static BufferedImage creerImage(long graine)
+	{
+		BufferedImage image;
+		Random        hasard;
+		int[]         pixels;
+
+		image  = new BufferedImage(COTE, COTE, BufferedImage.TYPE_INT_ARGB);
+		hasard = new Random(graine);
+		pixels = new int[COTE * COTE];
+
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = hasard.nextInt();
+
+		image.setRGB(0, 0, COTE, COTE, pixels, 0, COTE);
+
+		return image;
+	}
+}
@@ -0,0 +1,214 @@
+package modele.traitement;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ============================================================================
+ * NOYAUX VECTORIELS IDENTIQUES AUX NOYAUX SCALAIRES
+ * ============================================================================
+ *
+ * NoyauxPixels garantit que les deux versions donnent exactement les mêmes
+ * pixels. Chaque noyau est appliqué aux mêmes tableaux par NoyauxScalaires
+ * et par NoyauxVectoriels, et les résultats sont comparés.
+ *
+ * CAS COUVERTS :
+ * - Plages de débuts et de longueurs impaires : les derniers pixels (moins
+ *   d'un vecteur) passent par la boucle scalaire de fin
+ * - Source et destination dans le même tableau (traitement sur place)
+ * - Luminosité : tous les facteurs de -300 à 400 (bornes 0 et 255 dépassées)
+ * - Mélange : toutes les combinaisons (alpha, composante source,
+ *   composante destination), pour la division par 255 approchée
+ *
+ * Ces tests demandent --add-modules jdk.incubator.vector (voir pom.xml) :
+ * sans le module, ils échouent au lieu de comparer le scalaire à lui-même.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class TestNoyauxVectoriels
+{
+
+	/** Longueurs testées (vides, plus courtes qu'un vecteur, plusieurs bandes) */
+	private static final int[] LONGUEURS = { 0, 1, 3, 7, 8, 15, 16, 17, 31, 33, 63, 65, 1001, 65_537 };
+
+	/** Décalages testés du premier pixel */
+	private static final int[] DECALAGES = { 0, 1, 3, 5 };
+
+	private static NoyauxPixels scalaires, vectoriels;
+
+	@BeforeAll
+	static void charger()
+	{
+		assertTrue(NoyauxPixels.estVectorielDisponible(), "Module jdk.incubator.vector absent");
+
+		TestNoyauxVectoriels.scalaires  = NoyauxPixels.scalaires();
+		TestNoyauxVectoriels.vectoriels = new NoyauxVectoriels();
+	}
+
+	@Test
+	void niveauxDeGris()
+	{
+		this.comparer("gris", (noyaux, source, destination, debut, fin) ->
+			noyaux.niveauxDeGris(source, destination, debut, fin)
+		);
+	}
+
+	@Test
+	void negatif()
+	{
+		this.comparer("négatif", (noyaux, source, destination, debut, fin) ->
+			noyaux.negatif(source, destination, debut, fin)
+		);
+	}
+
+	@Test
+	void luminosite()
+	{
+		for (int facteur = -300; facteur <= 400; facteur++)
+		{
+			final int valeur = facteur;
+
+			this.comparer("luminosité " + facteur, (noyaux, source, destination, debut, fin) ->
+				noyaux.luminosite(source, destination, debut, fin, valeur)
+			);
+		}
+	}
+
+	@Test
+	void melangerPlages()
+	{
+		Random hasard;
+		int[]  source, fond, attendu, obtenu;
+
+		hasard = new Random(12);
+
+		for (int longueur : LONGUEURS)
+		{
+			for (int decalageSource : DECALAGES)
+			{
+				for (int decalageFond : DECALAGES)
+				{
+					source = TestNoyauxVectoriels.creerPixels(hasard, decalageSource + longueur + 2);
+					fond   = TestNoyauxVectoriels.creerPixels(hasard, decalageFond + longueur + 2);
+
+					attendu = fond.clone();
+					obtenu  = fond.clone();
+
+					TestNoyauxVectoriels.scalaires .melanger(source, decalageSource, attendu, decalageFond, longueur);
+					TestNoyauxVectoriels.vectoriels.melanger(source, decalageSource, obtenu,  decalageFond, longueur);
+
+					assertArrayEquals(attendu, obtenu,
+						"mélange, longueur " + longueur + ", décalages " + decalageSource + " / " + decalageFond);
+				}
+			}
+		}
+	}
+
+	@Test
+	void melangerToutesLesComposantes()
+	{
+		int[] source, fond, attendu, obtenu;
+
+		source = new int[256 * 256];
+		fond   = new int[256 * 256];
+
+		for (int alpha = 0; alpha < 256; alpha++)
+		{
+			// Chaque case : une composante source s et une composante fond f (les trois canaux)
+			for (int s = 0; s < 256; s++)
+			{
+				for (int f = 0; f < 256; f++)
+				{
+					source[s * 256 + f] = (alpha << 24) | (s << 16) | (f << 8) | s;
+					fond  [s * 256 + f] = ((255 - alpha) << 24) | (f << 16) | (s << 8) | f;
+				}
+			}
+
+			attendu = fond.clone();
+			obtenu  = fond.clone();
+
+			TestNoyauxVectoriels.scalaires .melanger(source, 0, attendu, 0, source.length);
+			TestNoyauxVectoriels.vectoriels.melanger(source, 0, obtenu,  0, source.length);
+
+			assertArrayEquals(attendu, obtenu, "mélange, alpha " + alpha);
+		}
+	}
+
+	/**
+	 * Un noyau de NoyauxPixels appliqué à une plage de pixels.
+	 */
+	private interface Noyau
+	{
+		void appliquer(NoyauxPixels noyaux, int[] source, int[] destination, int debut, int fin);
+	}
+
+	/**
+	 * Compare les deux versions d'un noyau sur toutes les plages testées,
+	 * dans un tableau résultat séparé puis sur place. Les pixels hors de la
+	 * plage ne doivent pas être modifiés.
+	 */
+	private void comparer(String nom, Noyau noyau)
+	{
+		Random hasard;
+		int[]  source, attendu, obtenu;
+		int    fin;
+
+		hasard = new Random(nom.hashCode());
+
+		for (int longueur : LONGUEURS)
+		{
+			for (int debut : DECALAGES)
+			{
+				source = TestNoyauxVectoriels.creerPixels(hasard, debut + longueur + 3);
+				fin    = debut + longueur;
+
+				attendu = new int[source.length];
+				obtenu  = new int[source.length];
+
+				noyau.appliquer(TestNoyauxVectoriels.scalaires,  source, attendu, debut, fin);
+				noyau.appliquer(TestNoyauxVectoriels.vectoriels, source, obtenu,  debut, fin);
+
+				assertArrayEquals(attendu, obtenu, nom + ", pixels " + debut + " à " + fin);
+
+				attendu = source.clone();
+				obtenu  = source.clone();
+
+				noyau.appliquer(TestNoyauxVectoriels.scalaires,  attendu, attendu, debut, fin);
+				noyau.appliquer(TestNoyauxVectoriels.vectoriels, obtenu,  obtenu,  debut, fin);
+
+				assertArrayEquals(attendu, obtenu, nom + " sur place, pixels " + debut + " à " + fin);
+			}
+		}
+	}
+
+	/**
+	 * @return Des pixels aléatoires, avec des composantes à 0 et à 255
+	 */
+	private static int[] creerPixels(Random hasard, int nombre)
+	{
+		int[] pixels;
+
+		pixels = new int[nombre];
+
+		for (int i = 0; i < nombre; i++)
+			pixels[i] = hasard.nextInt();
+
+		// Quelques pixels extrêmes (noir, blanc, transparent, opaque)
+		Arrays.fill(pixels, 0, Math.min(nombre, 2), 0x00000000);
+		Arrays.fill(pixels, Math.min(nombre, 2), Math.min(nombre, 4), 0xFFFFFFFF);
+
+		if (nombre > 6)
+		{
+			pixels[4] = 0xFF00FF00;
+			pixels[5] = 0x00FF00FF;
+		}
+
+		return pixels;
+	}
+}
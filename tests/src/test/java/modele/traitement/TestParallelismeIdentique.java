@@ -0,0 +1,238 @@
+package modele.traitement;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ============================================================================
+ * TRAITEMENTS PARALLÈLES IDENTIQUES AU SÉQUENTIEL
+ * ============================================================================
+ *
+ * ExecuteurTuiles découpe les traitements en bandes réparties sur un
+ * ForkJoinPool : le résultat doit être exactement le même, pixel à pixel,
+ * qu'avec un seul thread.
+ *
+ * PRINCIPE :
+ * Chaque traitement branché sur ExecuteurTuiles est appliqué à la même
+ * image avec definirParallelisme(1), puis avec PARALLELISME threads, et
+ * les deux résultats sont comparés.
+ * - Dimensions impaires : la dernière bande (ou tuile) est incomplète
+ * - Images de plusieurs bandes (PIXELS_PAR_BANDE) : le découpage a lieu
+ * - Images d'autres types que TYPE_INT_ARGB : conversion comprise
+ * Les traitements sur place sont appliqués à une copie de même type.
+ *
+ * @author Équipe 6 - BUT 3 Informatique
+ */
+class TestParallelismeIdentique
+{
+
+	/** Nombre de threads du calcul parallèle (même sur une machine à 1 cœur) */
+	private static final int PARALLELISME = 4;
+
+	/** Types d'images testés */
+	private static final int[] TYPES = {
+		BufferedImage.TYPE_INT_ARGB,
+		BufferedImage.TYPE_INT_RGB,
+		BufferedImage.TYPE_3BYTE_BGR,
+		BufferedImage.TYPE_4BYTE_ABGR,
+		BufferedImage.TYPE_BYTE_GRAY
+	};
+
+	/** Dimensions testées : une seule bande, plusieurs bandes, très fine */
+	private static final int[][] DIMENSIONS = { { 257, 3 }, { 1001, 677 }, { 3, 40_001 } };
+
+	/**
+	 * Un traitement qui retourne une nouvelle image (la source n'est pas modifiée).
+	 */
+	private interface Traitement
+	{
+		BufferedImage appliquer(BufferedImage image);
+	}
+
+	private static int parallelismeInitial;
+
+	@BeforeAll
+	static void memoriser()
+	{
+		TestParallelismeIdentique.parallelismeInitial = ExecuteurTuiles.getParallelisme();
+	}
+
+	@AfterAll
+	static void restaurer()
+	{
+		ExecuteurTuiles.definirParallelisme(TestParallelismeIdentique.parallelismeInitial);
+	}
+
+	/**
+	 * @return Chaque traitement sur chaque image (type et dimensions)
+	 */
+	static Stream<Arguments> cas()
+	{
+		List<Arguments> cas;
+		Random          hasard;
+		BufferedImage   image, calque, fond;
+
+		cas    = new ArrayList<>();
+		hasard = new Random(6);
+
+		for (int type : TYPES)
+		{
+			for (int[] dimensions : DIMENSIONS)
+			{
+				image  = TestParallelismeIdentique.creerImage(type, dimensions[0], dimensions[1], hasard);
+				calque = TestParallelismeIdentique.creerImage(
+					type, dimensions[0] / 2 + 3, dimensions[1] / 2 + 1, hasard
+				);
+
+				TestParallelismeIdentique.ajouterTraitements(cas, image, calque);
+			}
+
+			// Zone du pot de peinture assez grande pour RemplissageParallele
+			fond = TestParallelismeIdentique.creerFond(type, 1201, 1001, hasard);
+
+			cas.add(TestParallelismeIdentique.cas("remplir", fond,
+				source -> TraitementRemplissage.remplir(source, 0, 0, 0xFFFF0000, 30)));
+			cas.add(TestParallelismeIdentique.cas("remplir 8 directions", fond,
+				source -> TraitementRemplissage.remplir8Directions(source, 0, 0, 0xFF0000FF, 30)));
+		}
+
+		return cas.stream();
+	}
+
+	@ParameterizedTest(name = "{0} ({1})")
+	@MethodSource("cas")
+	void identiqueEnParallele(String traitement, String image, BufferedImage source, Traitement operation)
+	{
+		BufferedImage sequentiel, parallele;
+
+		ExecuteurTuiles.definirParallelisme(1);
+		sequentiel = operation.appliquer(source);
+
+		ExecuteurTuiles.definirParallelisme(PARALLELISME);
+		parallele  = operation.appliquer(source);
+
+		assertEquals(sequentiel.getWidth(),  parallele.getWidth(),  "largeur");
+		assertEquals(sequentiel.getHeight(), parallele.getHeight(), "hauteur");
+		assertArrayEquals(TestParallelismeIdentique.pixels(sequentiel), TestParallelismeIdentique.pixels(parallele));
+	}
+
+	/**
+	 * Ajoute les traitements pixel par pixel, géométriques et de fusion.
+	 */
+	private static void ajouterTraitements(List<Arguments> cas, BufferedImage image, BufferedImage calque)
+	{
+		PipelineTraitement pipeline;
+
+		pipeline = new PipelineTraitement().luminosite(-35).contraste(1.7).teinte(200).negatif();
+
+		cas.add(TestParallelismeIdentique.cas("luminosité", image,
+			source -> TraitementTransformation.ajusterLuminosite(source, 73)));
+		cas.add(TestParallelismeIdentique.cas("contraste", image,
+			source -> TraitementTransformation.ajusterContraste(source, 0.6)));
+		cas.add(TestParallelismeIdentique.cas("teinte", image,
+			source -> TraitementTransformation.decalerTeinte(source, 137)));
+		cas.add(TestParallelismeIdentique.cas("teinte approchée", image,
+			source -> TraitementTransformation.decalerTeinteApproximative(source, 137)));
+		cas.add(TestParallelismeIdentique.cas("gris", image, TraitementTransformation::versNiveauxDeGris));
+		cas.add(TestParallelismeIdentique.cas("négatif", image, TraitementTransformation::inverserCouleurs));
+		cas.add(TestParallelismeIdentique.cas("pipeline", image, pipeline::appliquer));
+
+		cas.add(TestParallelismeIdentique.cas("rotation 90", image,
+			source -> TraitementTransformation.appliquerRotation(source, 90)));
+		cas.add(TestParallelismeIdentique.cas("rotation 270", image,
+			source -> TraitementTransformation.appliquerRotation(source, 270)));
+		cas.add(TestParallelismeIdentique.cas("demi-tour", image,
+			source -> TraitementTransformation.pivoter180SurPlace(TestParallelismeIdentique.copier(source))));
+		cas.add(TestParallelismeIdentique.cas("miroir horizontal", image,
+			source -> TraitementTransformation.miroirHorizontalSurPlace(TestParallelismeIdentique.copier(source))));
+		cas.add(TestParallelismeIdentique.cas("miroir vertical", image,
+			source -> TraitementTransformation.miroirVerticalSurPlace(TestParallelismeIdentique.copier(source))));
+
+		cas.add(TestParallelismeIdentique.cas("superposer", image,
+			source -> TraitementFusion.superposer(source, calque, 17, -1)));
+		cas.add(TestParallelismeIdentique.cas("superposer avec alpha", image,
+			source -> TraitementFusion.superposerAvecAlpha(source, calque, -5, 9)));
+		cas.add(TestParallelismeIdentique.cas("clé de transparence", image,
+			source -> TraitementFusion.superposerAvecCleTransparence(source, calque, 3, 2, 0xFF808080, 90)));
+	}
+
+	private static Arguments cas(String traitement, BufferedImage image, Traitement operation)
+	{
+		return Arguments.of(traitement, TestParallelismeIdentique.decrire(image), image, operation);
+	}
+
+	/**
+	 * @return Le type et les dimensions d'une image, pour le nom du cas
+	 */
+	private static String decrire(BufferedImage image)
+	{
+		return "type " + image.getType() + ", " + image.getWidth() + " x " + image.getHeight();
+	}
+
+	/**
+	 * @return Les pixels ARGB de l'image
+	 */
+	private static int[] pixels(BufferedImage image)
+	{
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	/**
+	 * @return Une copie de l'image, du même type
+	 */
+	private static BufferedImage copier(BufferedImage image)
+	{
+		return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+	}
+
+	/**
+	 * @return Une image de pixels aléatoires (alpha compris si le type le permet)
+	 */
+	private static BufferedImage creerImage(int type, int largeur, int hauteur, Random hasard)
+	{
+		BufferedImage image;
+		int[]         pixels;
+
+		image  = new BufferedImage(largeur, hauteur, type);
+		pixels = new int[largeur * hauteur];
+
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = hasard.nextInt();
+
+		image.setRGB(0, 0, largeur, hauteur, pixels, 0, largeur);
+
+		return image;
+	}
+
+	/**
+	 * @return Un fond gris clair parsemé de murs sombres (une grande zone
+	 *         connexe, découpée en beaucoup de segments)
+	 */
+	private static BufferedImage creerFond(int type, int largeur, int hauteur, Random hasard)
+	{
+		BufferedImage image;
+		int[]         pixels;
+
+		image  = new BufferedImage(largeur, hauteur, type);
+		pixels = new int[largeur * hauteur];
+
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = (hasard.nextInt(20) == 0) ? 0xFF202020 : 0xFFE0E0E0 + 0x010101 * hasard.nextInt(8);
+
+		image.setRGB(0, 0, largeur, hauteur, pixels, 0, largeur);
+
+		return image;
+	}
+}